@@ -0,0 +1,30 @@
+package com.eduplatform.common.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 开启击穿保护的缓存中存储的条目：缓存值 + 刷新所需的元数据
+ * 通过 @Cacheable(sync = true) 加载的值以此形式写入 L1 与 L2，读取时由 TwoLevelCache 拆出原值。
+ * 非 final 类，便于 Redis 中的 JSON 带上类型信息。
+ *
+ * @author Antigravity
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheEnvelope {
+
+    /** 缓存值 */
+    private Object value;
+
+    /** 软过期时间（epoch 毫秒）：之后的读取返回旧值并触发后台刷新 */
+    private long softExpireAt;
+
+    /** 硬过期时间（epoch 毫秒）：与 Redis TTL 一致，之后视为未命中 */
+    private long hardExpireAt;
+
+    /** 上次加载耗时（毫秒），用于 XFetch 提前刷新概率 */
+    private long deltaMillis;
+}
@@ -0,0 +1,43 @@
+package com.eduplatform.common.cache;
+
+/**
+ * 跨实例缓存失效消息
+ * 通过 Redis 频道 cache:invalidate 广播，格式为 instanceId|cacheName|key，
+ * key 为空表示清空整个缓存；按前两个分隔符拆分，key 本身可以包含 '|'。
+ *
+ * @param instanceId 发出消息的实例（收到自己发出的消息时忽略）
+ * @param cacheName  缓存名称
+ * @param key        规范化后的缓存键，null 表示清空
+ * @author Antigravity
+ */
+public record CacheInvalidation(String instanceId, String cacheName, String key) {
+
+    public static final String CHANNEL = "cache:invalidate";
+
+    private static final char SEPARATOR = '|';
+
+    public boolean isClear() {
+        return key == null;
+    }
+
+    public String encode() {
+        return instanceId + SEPARATOR + cacheName + SEPARATOR + (key == null ? "" : key);
+    }
+
+    /**
+     * 解析失效消息，格式不正确时返回 null
+     */
+    public static CacheInvalidation decode(String message) {
+        if (message == null) {
+            return null;
+        }
+        int first = message.indexOf(SEPARATOR);
+        int second = first < 0 ? -1 : message.indexOf(SEPARATOR, first + 1);
+        if (first <= 0 || second <= first + 1) {
+            return null;
+        }
+        String key = message.substring(second + 1);
+        return new CacheInvalidation(message.substring(0, first), message.substring(first + 1, second),
+                key.isEmpty() ? null : key);
+    }
+}
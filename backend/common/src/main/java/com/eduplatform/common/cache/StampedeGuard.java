@@ -0,0 +1,101 @@
+package com.eduplatform.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 缓存击穿保护的跨实例部分：按缓存键加 Redis 租约锁、后台刷新线程与时钟
+ * 锁值为每次加载随机生成的令牌，释放时比较令牌后删除，租约到期的锁不会误删其它实例的新锁。
+ * 锁操作失败（Redis 不可用）时按未抢到锁处理，由调用方决定等待或直接加载。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+class StampedeGuard {
+
+    static final String LOCK_PREFIX = "cache:lock:";
+
+    static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ExecutorService refreshExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    StampedeGuard(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    boolean tryLock(String lockKey, String token, Duration lease) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey, token, lease));
+        } catch (RuntimeException e) {
+            log.debug("获取缓存加载锁失败: key={}, error={}", lockKey, e.getMessage());
+            return false;
+        }
+    }
+
+    void unlock(String lockKey, String token) {
+        try {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
+        } catch (RuntimeException e) {
+            // 租约到期后自动释放
+            log.debug("释放缓存加载锁失败: key={}, error={}", lockKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 提交后台刷新任务
+     *
+     * @return 已关闭、不再接受任务时返回 false，调用方继续使用旧值
+     */
+    boolean refresh(Runnable task) {
+        try {
+            refreshExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 停止接受刷新任务，等待进行中的刷新结束，超时后中断
+     */
+    void close(Duration timeout) {
+        refreshExecutor.shutdown();
+        try {
+            if (!refreshExecutor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("缓存后台刷新未在 {} 内结束，中断剩余任务", timeout);
+                refreshExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            refreshExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * (0, 1] 之间的随机数，XFetch 中取对数
+     */
+    double random() {
+        return 1.0 - ThreadLocalRandom.current().nextDouble();
+    }
+
+    void pause(Duration duration) {
+        LockSupport.parkNanos(duration.toNanos());
+    }
+}
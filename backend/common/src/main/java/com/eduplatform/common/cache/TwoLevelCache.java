@@ -0,0 +1,433 @@
+package com.eduplatform.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 两级缓存：进程内 Caffeine（L1）+ Redis（L2，RedisCache）
+ *
+ * 读取：先查 L1，未命中再查 L2，L2 命中的值回填 L1。
+ * 写入与失效：先写 L2（所有实例共享的数据），再更新本地 L1，最后广播失效消息，
+ * 其它实例收到后只丢弃各自 L1 中的条目，下次读取时从 L2 重新加载。
+ * L1 的 TTL 不超过 L2，即使失效消息丢失（Redis 断连、实例重启中），过期数据也只会在 L1 TTL 内可见。
+ *
+ * L1 以 String.valueOf(key) 为键，与 RedisCache 把键转换为字符串后拼接 Redis 键的方式一致，
+ * 失效消息中只需携带字符串形式的键。L2 不缓存 null，L1 同样不缓存 null。
+ *
+ * 击穿保护（CacheSpec.stampede 不为 null 时，作用于 @Cacheable(sync = true) 调用的 get(key, valueLoader)）：
+ * - 单飞加载：同一实例内同一键只有一个线程执行 valueLoader，其余线程等待其结果；
+ *   跨实例以 Redis 租约锁 cache:lock:{缓存名}::{键} 协调，未抢到锁的实例轮询 L2 等待结果，超过 lock-wait 后自行加载
+ * - 过期后返回旧值：值以 CacheEnvelope 存储，软过期（ttl - stale-window）后、硬过期（Redis TTL）前
+ *   直接返回旧值，由一个后台线程刷新
+ * - XFetch 提前刷新：软过期前以概率 exp(-(softExpireAt - now) / (delta * beta)) 触发后台刷新，
+ *   delta 为上次加载耗时，加载越慢、越接近过期越早刷新，避免大量请求同时落在过期点
+ *
+ * @author Antigravity
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private static final Duration LOCK_POLL_INTERVAL = Duration.ofMillis(20);
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote;
+    private final Consumer<CacheInvalidation> publisher;
+    private final String instanceId;
+    private final Duration ttl;
+    private final TwoLevelCacheManager.StampedeSpec stampede;
+    private final StampedeGuard guard;
+    private final Map<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final LevelStats stats = new LevelStats();
+
+    /**
+     * @param local      L1，为 null 时该缓存不使用进程内缓存
+     * @param remote     L2
+     * @param publisher  失效消息发布方式
+     * @param instanceId 当前实例 ID
+     * @param spec       缓存配置（L2 TTL 与击穿保护）
+     * @param guard      击穿保护的锁与后台刷新
+     */
+    TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                  Consumer<CacheInvalidation> publisher, String instanceId,
+                  TwoLevelCacheManager.CacheSpec spec, StampedeGuard guard) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.publisher = publisher;
+        this.instanceId = instanceId;
+        this.ttl = spec.ttl();
+        this.stampede = spec.stampede();
+        this.guard = guard;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        ValueWrapper wrapper = lookup(key, localKey(key));
+        if (wrapper != null && wrapper.get() instanceof CacheEnvelope envelope) {
+            return new SimpleValueWrapper(envelope.getValue());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("缓存值类型不匹配: cache=" + name + ", key=" + key
+                    + ", expected=" + type.getName() + ", actual=" + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (stampede == null) {
+            ValueWrapper wrapper = get(key);
+            if (wrapper != null) {
+                return (T) wrapper.get();
+            }
+            T value = call(key, valueLoader);
+            put(key, value);
+            return value;
+        }
+
+        String localKey = localKey(key);
+        ValueWrapper wrapper = lookup(key, localKey);
+        if (wrapper != null) {
+            if (!(wrapper.get() instanceof CacheEnvelope envelope)) {
+                // 经 put（@CachePut 等）写入的原值，没有刷新元数据
+                return (T) wrapper.get();
+            }
+            long now = guard.now();
+            if (now < envelope.getHardExpireAt()) {
+                if (now >= envelope.getSoftExpireAt()) {
+                    stats.staleServed.increment();
+                    refreshAsync(key, localKey, valueLoader);
+                } else if (shouldRefreshEarly(envelope, now)) {
+                    refreshAsync(key, localKey, valueLoader);
+                }
+                return (T) envelope.getValue();
+            }
+            // L1 回填晚于 L2 写入，可能残留已硬过期的条目
+            evictLocal(localKey);
+        }
+        return (T) loadSingleFlight(key, localKey, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        putLocal(localKey, value);
+        publish(localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        String localKey = localKey(key);
+        if (existing == null) {
+            putLocal(localKey, value);
+            publish(localKey);
+        } else {
+            putLocal(localKey, existing.get());
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        evictLocal(localKey);
+        publish(localKey);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        String localKey = localKey(key);
+        evictLocal(localKey);
+        publish(localKey);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        publish(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        clearLocal();
+        publish(null);
+        return invalidated;
+    }
+
+    /**
+     * 处理其它实例的失效消息：只丢弃 L1，L2 已由发出方更新
+     */
+    void evictLocal(String localKey) {
+        if (local != null) {
+            local.invalidate(localKey);
+        }
+    }
+
+    void clearLocal() {
+        if (local != null) {
+            local.invalidateAll();
+        }
+    }
+
+    long localSize() {
+        return local == null ? 0 : local.estimatedSize();
+    }
+
+    LevelStats stats() {
+        return stats;
+    }
+
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    /**
+     * 依次查询 L1、L2 并统计命中，返回存储的原始对象（可能是 CacheEnvelope）
+     */
+    private ValueWrapper lookup(Object key, String localKey) {
+        if (local != null) {
+            Object value = local.getIfPresent(localKey);
+            if (value != null) {
+                stats.l1Hits.increment();
+                return new SimpleValueWrapper(value);
+            }
+            stats.l1Misses.increment();
+        }
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            stats.l2Misses.increment();
+            return null;
+        }
+        stats.l2Hits.increment();
+        putLocal(localKey, wrapper.get());
+        return wrapper;
+    }
+
+    /**
+     * 未命中时的加载：本实例内同一键只有第一个线程加载，其余线程等待同一结果
+     */
+    private Object loadSingleFlight(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(localKey, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Object value = loadWithLock(key, localKey, valueLoader);
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(localKey, mine);
+        }
+    }
+
+    /**
+     * 跨实例单飞：抢到锁的实例加载并写入 L2；其余实例轮询 L2，超过 lock-wait 仍无结果时自行加载
+     */
+    private Object loadWithLock(Object key, String localKey, Callable<?> valueLoader) {
+        String lockKey = StampedeGuard.LOCK_PREFIX + name + "::" + localKey;
+        String token = UUID.randomUUID().toString();
+        long deadline = System.nanoTime() + stampede.lockWait().toNanos();
+        while (!guard.tryLock(lockKey, token, stampede.lockLease())) {
+            ValueWrapper loaded = remote.get(key);
+            if (loaded != null) {
+                putLocal(localKey, loaded.get());
+                return unwrap(loaded.get());
+            }
+            if (System.nanoTime() >= deadline) {
+                log.warn("等待其它实例加载缓存超时，自行加载: cache={}, key={}", name, localKey);
+                return loadAndStore(key, localKey, valueLoader);
+            }
+            guard.pause(LOCK_POLL_INTERVAL);
+        }
+        try {
+            // 抢到锁之前，上一个持有者可能刚写入 L2
+            ValueWrapper loaded = remote.get(key);
+            if (loaded != null && isFresh(loaded.get())) {
+                putLocal(localKey, loaded.get());
+                return unwrap(loaded.get());
+            }
+            return loadAndStore(key, localKey, valueLoader);
+        } finally {
+            guard.unlock(lockKey, token);
+        }
+    }
+
+    /**
+     * 后台刷新：本实例内同一键同时只有一个刷新任务，跨实例由 Redis 锁保证只有一个实例刷新
+     */
+    private void refreshAsync(Object key, String localKey, Callable<?> valueLoader) {
+        if (!refreshing.add(localKey)) {
+            return;
+        }
+        boolean submitted = guard.refresh(() -> {
+            String lockKey = StampedeGuard.LOCK_PREFIX + name + "::" + localKey;
+            String token = UUID.randomUUID().toString();
+            try {
+                if (guard.tryLock(lockKey, token, stampede.lockLease())) {
+                    try {
+                        loadAndStore(key, localKey, valueLoader);
+                        stats.refreshes.increment();
+                    } finally {
+                        guard.unlock(lockKey, token);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 刷新失败时旧值继续可用，直到硬过期
+                log.warn("后台刷新缓存失败: cache={}, key={}, error={}", name, localKey, e.getMessage());
+            } finally {
+                refreshing.remove(localKey);
+            }
+        });
+        if (!submitted) {
+            refreshing.remove(localKey);
+        }
+    }
+
+    private Object loadAndStore(Object key, String localKey, Callable<?> valueLoader) {
+        long start = System.nanoTime();
+        Object value = call(key, valueLoader);
+        stats.loads.increment();
+        if (value == null) {
+            return null;
+        }
+        long deltaMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        put(key, envelope(value, deltaMillis));
+        return value;
+    }
+
+    private CacheEnvelope envelope(Object value, long deltaMillis) {
+        long ttlMillis = ttl.toMillis();
+        if (ttlMillis <= 0) {
+            return new CacheEnvelope(value, Long.MAX_VALUE, Long.MAX_VALUE, deltaMillis);
+        }
+        long hardExpireAt = guard.now() + ttlMillis;
+        // 旧值可用窗口至多为 TTL 的一半，保证每个值至少有一半时间是新鲜的
+        long staleMillis = Math.min(stampede.staleWindow().toMillis(), ttlMillis / 2);
+        return new CacheEnvelope(value, hardExpireAt - staleMillis, hardExpireAt, deltaMillis);
+    }
+
+    /**
+     * XFetch：now - delta * beta * ln(rand) >= softExpireAt 时提前刷新
+     */
+    private boolean shouldRefreshEarly(CacheEnvelope envelope, long now) {
+        if (envelope.getDeltaMillis() <= 0 || stampede.beta() <= 0) {
+            return false;
+        }
+        double gap = -envelope.getDeltaMillis() * stampede.beta() * Math.log(guard.random());
+        return now + gap >= envelope.getSoftExpireAt();
+    }
+
+    private boolean isFresh(Object stored) {
+        return !(stored instanceof CacheEnvelope envelope) || guard.now() < envelope.getSoftExpireAt();
+    }
+
+    private static Object unwrap(Object stored) {
+        return stored instanceof CacheEnvelope envelope ? envelope.getValue() : stored;
+    }
+
+    private static <T> T call(Object key, Callable<T> valueLoader) {
+        try {
+            return valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    private void putLocal(String localKey, Object value) {
+        if (local != null && value != null) {
+            local.put(localKey, value);
+        }
+    }
+
+    private void publish(String localKey) {
+        if (local != null) {
+            publisher.accept(new CacheInvalidation(instanceId, name, localKey));
+        }
+    }
+
+    /**
+     * 各级命中统计。L2 命中率以到达 L2 的请求（L1 未命中或未开启 L1）为分母
+     */
+    static final class LevelStats {
+
+        final LongAdder l1Hits = new LongAdder();
+        final LongAdder l1Misses = new LongAdder();
+        final LongAdder l2Hits = new LongAdder();
+        final LongAdder l2Misses = new LongAdder();
+        /** valueLoader 实际执行次数（含后台刷新） */
+        final LongAdder loads = new LongAdder();
+        /** 成功完成的后台刷新次数 */
+        final LongAdder refreshes = new LongAdder();
+        /** 软过期后仍返回旧值的次数 */
+        final LongAdder staleServed = new LongAdder();
+
+        double l1HitRatio() {
+            return ratio(l1Hits.sum(), l1Misses.sum());
+        }
+
+        double l2HitRatio() {
+            return ratio(l2Hits.sum(), l2Misses.sum());
+        }
+
+        /**
+         * 综合命中率：任一级命中即算命中
+         */
+        double overallHitRatio() {
+            long hits = l1Hits.sum() + l2Hits.sum();
+            return ratio(hits, l2Misses.sum());
+        }
+
+        private static double ratio(long hits, long misses) {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.eduplatform.common.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.databind.jsontype.PolymorphicTypeValidator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.time.Duration;
+
+/**
+ * 两级缓存配置（edu.cache.enabled=true 时生效，服务自身仍需 @EnableCaching）
+ *
+ * 配置项：
+ * - edu.cache.default-ttl-seconds：L2 默认过期时间
+ * - edu.cache.l1.max-size / edu.cache.l1.ttl-seconds：L1 默认容量与过期时间，max-size 为 0 时不使用 L1
+ * - edu.cache.caches.{缓存名}.ttl-seconds / .l1-max-size / .l1-ttl-seconds：按缓存覆盖
+ * - edu.cache.caches.{缓存名}.stampede.enabled：对该缓存开启击穿保护（需配合 @Cacheable(sync = true)），
+ *   .stale-seconds / .beta / .lock-lease-millis / .lock-wait-millis 未配置时取 edu.cache.stampede.* 的默认值
+ *
+ * Redis 键为 cache:{缓存名}::{键}，值以带类型信息的 JSON 存储，集合与 Map 读回后保持原类型；
+ * 读取时仅接受 com.eduplatform、java.util、java.time 下的类型与数值、字符串、布尔标量。
+ *
+ * @author Antigravity
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "edu.cache", name = "enabled", havingValue = "true")
+public class TwoLevelCacheConfig {
+
+    static final String KEY_PREFIX = "cache:";
+
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             Environment environment,
+                                             ObjectProvider<MeterRegistry> meterRegistry) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .prefixCacheNameWith(KEY_PREFIX)
+                .serializeKeysWith(
+                        RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new GenericJackson2JsonRedisSerializer(cacheObjectMapper())))
+                .disableCachingNullValues();
+
+        RedisCacheManager remote = new RedisCacheManager(
+                RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory), defaults) {
+            @Override
+            protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfig) {
+                return super.createRedisCache(name, cacheConfig.entryTtl(cacheSpec(environment, name).ttl()));
+            }
+        };
+        remote.initializeCaches();
+        return new TwoLevelCacheManager(remote, name -> cacheSpec(environment, name), stringRedisTemplate,
+                meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(CacheInvalidation.CHANNEL));
+        return container;
+    }
+
+    static TwoLevelCacheManager.CacheSpec cacheSpec(Environment environment, String name) {
+        String prefix = "edu.cache.caches." + name + ".";
+        long defaultTtl = environment.getProperty("edu.cache.default-ttl-seconds", Long.class, 600L);
+        long defaultL1MaxSize = environment.getProperty("edu.cache.l1.max-size", Long.class, 1000L);
+        long defaultL1Ttl = environment.getProperty("edu.cache.l1.ttl-seconds", Long.class, 60L);
+        return new TwoLevelCacheManager.CacheSpec(
+                Duration.ofSeconds(environment.getProperty(prefix + "ttl-seconds", Long.class, defaultTtl)),
+                environment.getProperty(prefix + "l1-max-size", Long.class, defaultL1MaxSize),
+                Duration.ofSeconds(environment.getProperty(prefix + "l1-ttl-seconds", Long.class, defaultL1Ttl)),
+                stampedeSpec(environment, prefix + "stampede."));
+    }
+
+    private static TwoLevelCacheManager.StampedeSpec stampedeSpec(Environment environment, String prefix) {
+        if (!environment.getProperty(prefix + "enabled", Boolean.class, false)) {
+            return null;
+        }
+        String defaults = "edu.cache.stampede.";
+        return new TwoLevelCacheManager.StampedeSpec(
+                Duration.ofSeconds(environment.getProperty(prefix + "stale-seconds", Long.class,
+                        environment.getProperty(defaults + "stale-seconds", Long.class, 60L))),
+                environment.getProperty(prefix + "beta", Double.class,
+                        environment.getProperty(defaults + "beta", Double.class, 1.0)),
+                Duration.ofMillis(environment.getProperty(prefix + "lock-lease-millis", Long.class,
+                        environment.getProperty(defaults + "lock-lease-millis", Long.class, 10000L))),
+                Duration.ofMillis(environment.getProperty(prefix + "lock-wait-millis", Long.class,
+                        environment.getProperty(defaults + "lock-wait-millis", Long.class, 3000L))));
+    }
+
+    /**
+     * 缓存值允许反序列化的类型白名单：平台自身类型、JDK 集合、时间类型与数值、字符串、布尔标量。
+     * Redis 中的类型标识不可信，不能交给默认的放行一切校验器，否则可借 gadget 类执行任意代码。
+     */
+    static PolymorphicTypeValidator cacheTypeValidator() {
+        return BasicPolymorphicTypeValidator.builder()
+                .allowIfBaseType("com.eduplatform.")
+                .allowIfSubType("com.eduplatform.")
+                .allowIfSubType("java.util.")
+                .allowIfSubType("java.time.")
+                .allowIfSubType(Number.class)
+                .allowIfSubType(String.class)
+                .allowIfSubType(Boolean.class)
+                .build();
+    }
+
+    static ObjectMapper cacheObjectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        // 写入缓存值类型信息，避免集合读取时被反序列化为 LinkedHashMap；读取时只接受白名单内的类型
+        objectMapper.activateDefaultTyping(
+                cacheTypeValidator(),
+                ObjectMapper.DefaultTyping.NON_FINAL,
+                JsonTypeInfo.As.PROPERTY
+        );
+        return objectMapper;
+    }
+}
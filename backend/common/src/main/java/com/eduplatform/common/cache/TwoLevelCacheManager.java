@@ -0,0 +1,222 @@
+package com.eduplatform.common.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 两级缓存管理器（见 TwoLevelCache）
+ * L2 由 RedisCacheManager 提供，L1 按缓存名称懒创建，容量与 TTL 由 CacheSpec 决定。
+ * 同时作为 Redis 频道 cache:invalidate 的监听器，处理其它实例广播的失效消息。
+ *
+ * 指标（tag: cache、level=l1/l2/overall）：cache.level.hit.ratio；另有 cache.level.l1.size，
+ * 以及击穿保护的 cache.stampede.loads、cache.stampede.refreshes、cache.stampede.stale.served。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(5);
+
+    private final CacheManager remoteCacheManager;
+    private final Function<String, CacheSpec> specResolver;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final StampedeGuard stampedeGuard;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param remoteCacheManager L2 缓存管理器（RedisCacheManager）
+     * @param specResolver       按缓存名称解析 L1 配置
+     * @param redisTemplate      用于发布失效消息
+     * @param meterRegistry      命中率指标
+     */
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, Function<String, CacheSpec> specResolver,
+                                StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this(remoteCacheManager, specResolver, redisTemplate, meterRegistry, new StampedeGuard(redisTemplate));
+    }
+
+    TwoLevelCacheManager(CacheManager remoteCacheManager, Function<String, CacheSpec> specResolver,
+                         StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, StampedeGuard stampedeGuard) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.specResolver = specResolver;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.stampedeGuard = stampedeGuard;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, n -> createCache(n, remote));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    /**
+     * 收到失效消息：忽略本实例发出的，其它实例的只丢弃本地 L1
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidation invalidation = CacheInvalidation.decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (invalidation == null) {
+            log.warn("忽略格式错误的缓存失效消息");
+            return;
+        }
+        onInvalidation(invalidation);
+    }
+
+    void onInvalidation(CacheInvalidation invalidation) {
+        if (instanceId.equals(invalidation.instanceId())) {
+            return;
+        }
+        TwoLevelCache cache = caches.get(invalidation.cacheName());
+        if (cache == null) {
+            return;
+        }
+        if (invalidation.isClear()) {
+            cache.clearLocal();
+        } else {
+            cache.evictLocal(invalidation.key());
+        }
+    }
+
+    /**
+     * 各缓存的分级命中率快照（缓存名 -> level -> 命中率）
+     */
+    public Map<String, Map<String, Double>> hitRatios() {
+        Map<String, Map<String, Double>> ratios = new LinkedHashMap<>();
+        caches.forEach((name, cache) -> {
+            TwoLevelCache.LevelStats stats = cache.stats();
+            Map<String, Double> levels = new LinkedHashMap<>();
+            levels.put("l1", stats.l1HitRatio());
+            levels.put("l2", stats.l2HitRatio());
+            levels.put("overall", stats.overallHitRatio());
+            ratios.put(name, levels);
+        });
+        return ratios;
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+
+    private TwoLevelCache createCache(String name, Cache remote) {
+        CacheSpec spec = specResolver.apply(name);
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = spec.l1MaxSize() <= 0 ? null
+                : Caffeine.newBuilder()
+                .maximumSize(spec.l1MaxSize())
+                .expireAfterWrite(spec.l1Ttl())
+                .build();
+        TwoLevelCache cache = new TwoLevelCache(name, local, remote, this::publish, instanceId, spec, stampedeGuard);
+        registerMeters(cache);
+        log.info("两级缓存已创建: cache={}, ttl={}, l1MaxSize={}, l1Ttl={}, stampede={}",
+                name, spec.ttl(), spec.l1MaxSize(), spec.l1Ttl(), spec.stampede());
+        return cache;
+    }
+
+    /**
+     * 关闭击穿保护的后台刷新线程，等待进行中的刷新结束
+     */
+    @PreDestroy
+    void shutdown() {
+        stampedeGuard.close(SHUTDOWN_TIMEOUT);
+    }
+
+    private void publish(CacheInvalidation invalidation) {
+        try {
+            redisTemplate.convertAndSend(CacheInvalidation.CHANNEL, invalidation.encode());
+        } catch (Exception e) {
+            // L2 已更新，其它实例的 L1 最迟在 L1 TTL 后过期
+            log.warn("缓存失效消息发布失败: cache={}, key={}, error={}",
+                    invalidation.cacheName(), invalidation.key(), e.getMessage());
+        }
+    }
+
+    private void registerMeters(TwoLevelCache cache) {
+        TwoLevelCache.LevelStats stats = cache.stats();
+        Gauge.builder("cache.level.hit.ratio", stats, TwoLevelCache.LevelStats::l1HitRatio)
+                .tag("cache", cache.getName()).tag("level", "l1")
+                .description("两级缓存各级命中率").register(meterRegistry);
+        Gauge.builder("cache.level.hit.ratio", stats, TwoLevelCache.LevelStats::l2HitRatio)
+                .tag("cache", cache.getName()).tag("level", "l2")
+                .description("两级缓存各级命中率").register(meterRegistry);
+        Gauge.builder("cache.level.hit.ratio", stats, TwoLevelCache.LevelStats::overallHitRatio)
+                .tag("cache", cache.getName()).tag("level", "overall")
+                .description("两级缓存各级命中率").register(meterRegistry);
+        Gauge.builder("cache.level.l1.size", cache, TwoLevelCache::localSize)
+                .tag("cache", cache.getName())
+                .description("L1 缓存条目数（估算）").register(meterRegistry);
+        FunctionCounter.builder("cache.stampede.loads", stats, s -> s.loads.sum())
+                .tag("cache", cache.getName())
+                .description("valueLoader 实际执行次数（含后台刷新）").register(meterRegistry);
+        FunctionCounter.builder("cache.stampede.refreshes", stats, s -> s.refreshes.sum())
+                .tag("cache", cache.getName())
+                .description("后台刷新次数（软过期或 XFetch 提前刷新）").register(meterRegistry);
+        FunctionCounter.builder("cache.stampede.stale.served", stats, s -> s.staleServed.sum())
+                .tag("cache", cache.getName())
+                .description("软过期后返回旧值的次数").register(meterRegistry);
+    }
+
+    /**
+     * 单个缓存的配置
+     *
+     * @param ttl       L2（Redis）过期时间
+     * @param l1MaxSize L1 最大条目数，0 表示不使用 L1
+     * @param l1Ttl     L1 写入后过期时间，不超过 ttl（ttl 为 0 表示 L2 永不过期，此时不限制）
+     * @param stampede  击穿保护配置，null 表示不开启
+     */
+    public record CacheSpec(Duration ttl, long l1MaxSize, Duration l1Ttl, StampedeSpec stampede) {
+
+        public CacheSpec {
+            if (ttl.isPositive() && l1Ttl.compareTo(ttl) > 0) {
+                l1Ttl = ttl;
+            }
+        }
+
+        public CacheSpec(Duration ttl, long l1MaxSize, Duration l1Ttl) {
+            this(ttl, l1MaxSize, l1Ttl, null);
+        }
+    }
+
+    /**
+     * 击穿保护配置（见 TwoLevelCache）
+     *
+     * @param staleWindow 软过期到硬过期之间返回旧值的窗口，至多为 ttl 的一半
+     * @param beta        XFetch 提前刷新系数，越大越早刷新，0 表示不提前刷新
+     * @param lockLease   跨实例加载锁的租约，应大于加载耗时
+     * @param lockWait    未抢到锁时等待其它实例加载结果的最长时间
+     */
+    public record StampedeSpec(Duration staleWindow, double beta, Duration lockLease, Duration lockWait) {
+    }
+}
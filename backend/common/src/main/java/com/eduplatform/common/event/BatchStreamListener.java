@@ -0,0 +1,209 @@
+package com.eduplatform.common.event;
+
+import com.eduplatform.common.event.codec.DecodedEvent;
+import com.eduplatform.common.event.codec.EventCodec;
+import com.eduplatform.common.event.payload.EventPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.stream.StreamListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 批量幂等 Stream 消费者基类
+ * 由 StreamConsumerSupport 以 XREADGROUP COUNT N 一次读取多条记录后整批交给 onBatch，
+ * 子类在 handleBatch 中执行集合化的数据库操作（如一条批量 upsert 代替逐条查询 + 写入）。
+ *
+ * 每批的 Redis 往返次数固定，与批大小无关：
+ * 1. 解码全部记录，初始化占位消息直接计入待 ACK，解码失败的保留在 pending list
+ * 2. tryClaimAll 一次 Pipeline 抢占全部事件，已处理过的计入待 ACK，其它消费者处理中的跳过
+ * 3. 抢占成功的事件按 orderingKey 分为至多 concurrency 个分区，各分区在虚拟线程上并行执行 handleBatch，
+ *    分区内保持 Stream 中的先后顺序
+ * 4. completeAll 一次 Pipeline 标记完成并以一条 XACK 确认整批；失败分区的事件释放租约、不 ACK，等待重投递
+ *
+ * 同时实现 StreamListener：PendingMessageReclaimer 回收的单条消息按大小为 1 的批处理。
+ *
+ * @param <P> 事件载荷类型
+ * @author Antigravity
+ */
+@Slf4j
+public abstract class BatchStreamListener<P extends EventPayload>
+        implements StreamListener<String, MapRecord<String, String, String>> {
+
+    private final EventDedupeStore dedupeStore;
+    private final String consumerGroup;
+    private final Class<P> payloadType;
+    private volatile int concurrency = 1;
+
+    /**
+     * @param dedupeStore   去重存储
+     * @param consumerGroup 本监听器所属的消费组（用于去重键与 ACK）
+     * @param payloadType   期望的载荷类型
+     */
+    protected BatchStreamListener(EventDedupeStore dedupeStore, String consumerGroup, Class<P> payloadType) {
+        this.dedupeStore = dedupeStore;
+        this.consumerGroup = consumerGroup;
+        this.payloadType = payloadType;
+    }
+
+    /**
+     * 由 StreamConsumerSupport 按 Stream 配置设置每批的最大并行分区数
+     */
+    void bindConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    @Override
+    public final void onMessage(MapRecord<String, String, String> message) {
+        onBatch(message.getStream(), List.of(message));
+    }
+
+    /**
+     * 处理同一 Stream 的一批记录（按 Stream 中的先后顺序排列）
+     */
+    public final void onBatch(String stream, List<MapRecord<String, String, String>> records) {
+        List<RecordId> ackIds = new ArrayList<>();
+        List<Pending<P>> decoded = new ArrayList<>();
+        Map<String, Pending<P>> claimable = new LinkedHashMap<>();
+
+        for (MapRecord<String, String, String> record : records) {
+            if (record.getValue().containsKey(RedisStreamConstants.STREAM_INIT_FIELD)) {
+                ackIds.add(record.getId());
+                continue;
+            }
+            try {
+                DecodedEvent<P> event = EventCodec.decode(record.getValue(), payloadType);
+                Pending<P> pending = new Pending<>(record.getId(), event);
+                if (event.id() != null && claimable.putIfAbsent(event.id(), pending) != null) {
+                    // 同一批中重复出现的事件只处理一次，其余直接 ACK
+                    ackIds.add(record.getId());
+                } else {
+                    decoded.add(pending);
+                }
+            } catch (RuntimeException e) {
+                log.error("事件解析失败，保留在 pending list: stream={}, recordId={}, error={}",
+                        stream, record.getId(), e.getMessage());
+            }
+        }
+
+        try {
+            Map<String, EventDedupeStore.ClaimResult> claims =
+                    dedupeStore.tryClaimAll(consumerGroup, new ArrayList<>(claimable.keySet()));
+            List<Pending<P>> toHandle = new ArrayList<>(decoded.size());
+            for (Pending<P> pending : decoded) {
+                String messageId = pending.event().id();
+                // 缺少消息 ID 的历史消息无法去重，按原方式处理
+                EventDedupeStore.ClaimResult result = messageId == null
+                        ? EventDedupeStore.ClaimResult.CLAIMED : claims.get(messageId);
+                switch (result) {
+                    case CLAIMED -> toHandle.add(pending);
+                    case PROCESSED -> ackIds.add(pending.recordId());
+                    default -> log.info("事件正在由其它消费者处理，本次跳过: stream={}, recordId={}, messageId={}",
+                            stream, pending.recordId(), messageId);
+                }
+            }
+
+            List<String> done = new ArrayList<>();
+            List<String> failed = new ArrayList<>();
+            for (Partition<P> partition : handlePartitions(stream, partition(toHandle))) {
+                for (Pending<P> pending : partition.events()) {
+                    String messageId = pending.event().id();
+                    if (partition.succeeded()) {
+                        ackIds.add(pending.recordId());
+                        if (messageId != null) {
+                            done.add(messageId);
+                        }
+                    } else if (messageId != null) {
+                        failed.add(messageId);
+                    }
+                }
+            }
+            dedupeStore.releaseAll(consumerGroup, failed);
+            dedupeStore.completeAll(consumerGroup, done, stream, ackIds);
+        } catch (Exception e) {
+            log.error("批量处理事件失败，等待重投递: stream={}, size={}, error={}",
+                    stream, records.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按顺序键分区：同一键的事件落在同一分区并保持先后顺序
+     */
+    private List<List<Pending<P>>> partition(List<Pending<P>> events) {
+        int partitions = Math.min(concurrency, events.size());
+        if (partitions <= 1) {
+            return events.isEmpty() ? List.of() : List.of(events);
+        }
+        List<List<Pending<P>>> result = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            result.add(new ArrayList<>());
+        }
+        for (Pending<P> pending : events) {
+            Object key = orderingKey(pending.event().payload());
+            int h = (key != null ? key : pending.recordId().getValue()).hashCode();
+            h ^= h >>> 16;
+            result.get((h & Integer.MAX_VALUE) % partitions).add(pending);
+        }
+        result.removeIf(List::isEmpty);
+        return result;
+    }
+
+    /**
+     * 只有一个分区时在当前（轮询）线程直接执行，多个分区时各自在虚拟线程上并行执行
+     */
+    private List<Partition<P>> handlePartitions(String stream, List<List<Pending<P>>> partitions) throws Exception {
+        if (partitions.size() <= 1) {
+            return partitions.stream().map(events -> handlePartition(stream, events)).toList();
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Partition<P>>> futures = new ArrayList<>(partitions.size());
+            for (List<Pending<P>> events : partitions) {
+                futures.add(executor.submit(() -> handlePartition(stream, events)));
+            }
+            List<Partition<P>> results = new ArrayList<>(futures.size());
+            for (Future<Partition<P>> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        }
+    }
+
+    private Partition<P> handlePartition(String stream, List<Pending<P>> events) {
+        try {
+            handleBatch(events.stream().map(Pending::event).toList());
+            return new Partition<>(events, true);
+        } catch (Exception e) {
+            log.error("处理事件批次失败，等待重投递: stream={}, size={}, error={}",
+                    stream, events.size(), e.getMessage(), e);
+            return new Partition<>(events, false);
+        }
+    }
+
+    /**
+     * 顺序键：同一顺序键的事件落在同一分区、按 Stream 中的先后顺序交给 handleBatch。
+     * 默认返回 null，表示无顺序要求（按记录 ID 分散到各分区）。
+     */
+    protected Object orderingKey(P payload) {
+        return null;
+    }
+
+    /**
+     * 处理一批首次到达的事件；抛出异常表示整批失败，这些消息都不会被 ACK
+     *
+     * @param events 解码后的事件，按 Stream 中的先后顺序排列，不为空
+     */
+    protected abstract void handleBatch(List<DecodedEvent<P>> events) throws Exception;
+
+    private record Pending<P extends EventPayload>(RecordId recordId, DecodedEvent<P> event) {
+    }
+
+    private record Partition<P extends EventPayload>(List<Pending<P>> events, boolean succeeded) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.eduplatform.common.event;
+
+/**
+ * 章节新评论的实时推送通知
+ * course-service 在评论事务提交后通过 Redis 频道 course:comment:created 广播，每个 user-service 实例各自收到，
+ * 只推送给本实例上订阅了该章节的 WebSocket 会话。通知是尽力而为的（实例不在线时丢失），不经过 Redis Stream，
+ * 客户端仍以较低频率轮询兜底。
+ *
+ * 消息只携带定位新评论所需的 ID，格式为 chapterId|commentId|parentId|userId|publishedAt，
+ * parentId 为空表示主评论，publishedAt 为发布时刻（毫秒），用于统计投递延迟。
+ *
+ * @param chapterId   章节 ID
+ * @param commentId   新评论 ID
+ * @param parentId    父评论 ID，主评论为 null
+ * @param userId      评论作者
+ * @param publishedAt 发布时刻（epoch 毫秒）
+ * @author Antigravity
+ */
+public record ChapterCommentPush(long chapterId, long commentId, Long parentId, long userId, long publishedAt) {
+
+    public static final String CHANNEL = "course:comment:created";
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        return String.join(SEPARATOR, String.valueOf(chapterId), String.valueOf(commentId),
+                parentId == null ? "" : String.valueOf(parentId), String.valueOf(userId), String.valueOf(publishedAt));
+    }
+
+    /**
+     * 解析推送通知，格式不正确时返回 null
+     */
+    public static ChapterCommentPush decode(String message) {
+        if (message == null) {
+            return null;
+        }
+        String[] parts = message.split("\\" + SEPARATOR, -1);
+        if (parts.length != 5) {
+            return null;
+        }
+        try {
+            return new ChapterCommentPush(Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                    parts[2].isEmpty() ? null : Long.valueOf(parts[2]), Long.parseLong(parts[3]),
+                    Long.parseLong(parts[4]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.eduplatform.common.event;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件死信队列
+ * 多次重试仍失败的消息从原 Stream 转存到 stream:edu:dlq:{事件类型后缀}，
+ * 原消息字段保持不变，另附 dlq.* 元数据（来源 Stream、消费组、原消息 ID、投递次数、转入时间）。
+ *
+ * 重放时把原字段重新 XADD 到来源 Stream 并删除死信：
+ * 所有消费组都会再次收到该消息，已处理过的消费组由 IdempotentStreamListener 按消息 ID 去重后直接 ACK。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeadLetterQueue {
+
+    static final String META_PREFIX = "dlq.";
+    static final String FIELD_SOURCE_STREAM = META_PREFIX + "stream";
+    static final String FIELD_GROUP = META_PREFIX + "group";
+    static final String FIELD_RECORD_ID = META_PREFIX + "recordId";
+    static final String FIELD_DELIVERIES = META_PREFIX + "deliveries";
+    static final String FIELD_DEAD_AT = META_PREFIX + "deadAt";
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 将一条 pending 消息转入死信队列并 ACK 原消息
+     *
+     * @param deliveries 已投递次数
+     * @return 是否写入了死信（原消息已被裁剪时只 ACK，返回 false）
+     */
+    public boolean deadLetter(EventType type, String group, RecordId recordId, long deliveries) {
+        String stream = type.getStreamKey();
+        List<MapRecord<String, Object, Object>> records =
+                redisTemplate.opsForStream().range(stream, Range.closed(recordId.getValue(), recordId.getValue()));
+        if (records == null || records.isEmpty()) {
+            redisTemplate.opsForStream().acknowledge(stream, group, recordId);
+            log.warn("待转入死信的消息已不在 Stream 中，直接确认: stream={}, group={}, recordId={}",
+                    stream, group, recordId);
+            return false;
+        }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        records.get(0).getValue().forEach((k, v) -> fields.put(String.valueOf(k), String.valueOf(v)));
+        fields.put(FIELD_SOURCE_STREAM, stream);
+        fields.put(FIELD_GROUP, group);
+        fields.put(FIELD_RECORD_ID, recordId.getValue());
+        fields.put(FIELD_DELIVERIES, String.valueOf(deliveries));
+        fields.put(FIELD_DEAD_AT, Instant.now().toString());
+
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForStream().add(StreamRecords.string(fields).withStreamKey(type.getDeadLetterStreamKey()));
+                ops.opsForStream().acknowledge(stream, group, recordId);
+                return null;
+            }
+        });
+        log.error("消息重试 {} 次仍失败，已转入死信队列: stream={}, group={}, recordId={}",
+                deliveries, stream, group, recordId);
+        return true;
+    }
+
+    /**
+     * 查看死信（按转入时间倒序）
+     */
+    public List<DeadLetter> list(EventType type, int count) {
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                .reverseRange(type.getDeadLetterStreamKey(), Range.unbounded(), Limit.limit().count(count));
+        if (records == null) {
+            return List.of();
+        }
+        return records.stream().map(DeadLetterQueue::toDeadLetter).toList();
+    }
+
+    public long size(EventType type) {
+        Long size = redisTemplate.opsForStream().size(type.getDeadLetterStreamKey());
+        return size != null ? size : 0L;
+    }
+
+    /**
+     * 重放一条死信到来源 Stream，并从死信队列删除
+     *
+     * @return 重放后在来源 Stream 中的新消息 ID；死信不存在时返回 null
+     */
+    public String replay(EventType type, String deadLetterId) {
+        String dlqStream = type.getDeadLetterStreamKey();
+        List<MapRecord<String, Object, Object>> records =
+                redisTemplate.opsForStream().range(dlqStream, Range.closed(deadLetterId, deadLetterId));
+        if (records == null || records.isEmpty()) {
+            return null;
+        }
+        DeadLetter deadLetter = toDeadLetter(records.get(0));
+        RecordId newId = redisTemplate.opsForStream()
+                .add(StreamRecords.string(deadLetter.fields()).withStreamKey(type.getStreamKey()));
+        redisTemplate.opsForStream().delete(dlqStream, deadLetterId);
+        log.info("死信已重放: stream={}, deadLetterId={}, originalRecordId={}, newRecordId={}",
+                type.getStreamKey(), deadLetterId, deadLetter.originalRecordId(), newId);
+        return newId != null ? newId.getValue() : null;
+    }
+
+    /**
+     * 删除一条死信（确认无需重放）
+     */
+    public boolean delete(EventType type, String deadLetterId) {
+        Long deleted = redisTemplate.opsForStream().delete(type.getDeadLetterStreamKey(), deadLetterId);
+        return deleted != null && deleted > 0;
+    }
+
+    private static DeadLetter toDeadLetter(MapRecord<String, Object, Object> record) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        Map<String, String> meta = new LinkedHashMap<>();
+        record.getValue().forEach((k, v) -> {
+            String key = String.valueOf(k);
+            (key.startsWith(META_PREFIX) ? meta : fields).put(key, String.valueOf(v));
+        });
+        String deliveries = meta.get(FIELD_DELIVERIES);
+        return new DeadLetter(
+                record.getId().getValue(),
+                meta.get(FIELD_SOURCE_STREAM),
+                meta.get(FIELD_GROUP),
+                meta.get(FIELD_RECORD_ID),
+                deliveries != null ? Long.parseLong(deliveries) : 0L,
+                meta.get(FIELD_DEAD_AT),
+                fields);
+    }
+
+    /**
+     * 死信条目
+     *
+     * @param id               死信 Stream 中的消息 ID
+     * @param sourceStream     来源 Stream
+     * @param group            处理失败的消费组
+     * @param originalRecordId 来源 Stream 中的原消息 ID
+     * @param deliveries       转入死信前的投递次数
+     * @param deadAt           转入时间（ISO-8601）
+     * @param fields           原消息字段（不含 dlq.* 元数据）
+     */
+    public record DeadLetter(
+            String id,
+            String sourceStream,
+            String group,
+            String originalRecordId,
+            long deliveries,
+            String deadAt,
+            Map<String, String> fields) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.eduplatform.common.event;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件消费去重存储
+ * 以 "event:dedupe:{消费组}:{消息ID}" 为键记录每条事件在某个消费组内的处理状态，
+ * 供 IdempotentStreamListener 判断重投递的消息是否已经处理过。
+ *
+ * 状态流转：
+ * 1. tryClaim：SET NX 写入 processing（短 TTL 租约），抢占成功才执行业务逻辑
+ * 2. complete：覆盖为 done（长 TTL），并在同一个 Pipeline 中 XACK
+ * 3. release：业务失败时删除租约，下次重投递可重新抢占
+ * 4. 租约过期仍未 complete（消费者崩溃），其它消费者可重新抢占
+ * 批量消费（BatchStreamListener）使用 tryClaimAll / completeAll / releaseAll，每批各一次往返。
+ *
+ * 可选的进程内布隆过滤器只用于加速重复消息的判断（直接读状态而不是先尝试写入），
+ * 不会因误判跳过任何消息。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class EventDedupeStore {
+
+    static final String KEY_PREFIX = "event:dedupe:";
+    static final String STATE_PROCESSING = "processing";
+    static final String STATE_DONE = "done";
+
+    /**
+     * 抢占结果
+     */
+    public enum ClaimResult {
+        /** 首次处理，已获得租约 */
+        CLAIMED,
+        /** 已处理完成，只需 ACK */
+        PROCESSED,
+        /** 其它消费者正在处理，本次既不处理也不 ACK */
+        IN_PROGRESS
+    }
+
+    private final StringRedisTemplate redisTemplate;
+
+    /** 处理完成标记的保留时间，应覆盖消息可能被重投递的最长时间 */
+    @Value("${edu.event.dedupe.processed-ttl-hours:168}")
+    private long processedTtlHours = 168;
+
+    /** 处理中租约时长，应大于单条事件的最长处理时间 */
+    @Value("${edu.event.dedupe.processing-ttl-seconds:300}")
+    private long processingTtlSeconds = 300;
+
+    @Value("${edu.event.dedupe.bloom.enabled:false}")
+    private boolean bloomEnabled;
+
+    @Value("${edu.event.dedupe.bloom.expected-insertions:100000}")
+    private int bloomExpectedInsertions;
+
+    @Value("${edu.event.dedupe.bloom.false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate;
+
+    private volatile LocalBloomFilter bloomFilter;
+
+    @Autowired
+    public EventDedupeStore(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    EventDedupeStore(StringRedisTemplate redisTemplate, LocalBloomFilter bloomFilter) {
+        this.redisTemplate = redisTemplate;
+        this.bloomFilter = bloomFilter;
+    }
+
+    @PostConstruct
+    void initBloomFilter() {
+        if (bloomEnabled) {
+            bloomFilter = new LocalBloomFilter(bloomExpectedInsertions, bloomFalsePositiveRate);
+            log.info("事件去重布隆过滤器已开启: expectedInsertions={}, falsePositiveRate={}",
+                    bloomExpectedInsertions, bloomFalsePositiveRate);
+        }
+    }
+
+    /**
+     * 尝试抢占一条事件的处理权
+     *
+     * @param group     消费组名称
+     * @param messageId 事件消息 ID（EventMessage.id）
+     */
+    public ClaimResult tryClaim(String group, String messageId) {
+        String key = key(group, messageId);
+        LocalBloomFilter bloom = bloomFilter;
+        if (bloom != null && bloom.mightContain(key)
+                && STATE_DONE.equals(redisTemplate.opsForValue().get(key))) {
+            return ClaimResult.PROCESSED;
+        }
+
+        Duration lease = Duration.ofSeconds(processingTtlSeconds);
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, STATE_PROCESSING, lease))) {
+            return ClaimResult.CLAIMED;
+        }
+        String state = redisTemplate.opsForValue().get(key);
+        if (STATE_DONE.equals(state)) {
+            if (bloom != null) {
+                bloom.put(key);
+            }
+            return ClaimResult.PROCESSED;
+        }
+        // 租约恰好在两次读写之间过期时再抢占一次
+        if (state == null
+                && Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, STATE_PROCESSING, lease))) {
+            return ClaimResult.CLAIMED;
+        }
+        return ClaimResult.IN_PROGRESS;
+    }
+
+    /**
+     * 标记处理完成并 ACK（一次 Pipeline 往返）
+     */
+    public void complete(String group, String messageId, String stream, RecordId recordId) {
+        String key = key(group, messageId);
+        Duration ttl = Duration.ofHours(processedTtlHours);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForValue().set(key, STATE_DONE, ttl);
+                ops.opsForStream().acknowledge(stream, group, recordId);
+                return null;
+            }
+        });
+        LocalBloomFilter bloom = bloomFilter;
+        if (bloom != null) {
+            bloom.put(key);
+        }
+    }
+
+    /**
+     * 批量抢占处理权：一次 Pipeline 写入全部租约，未抢到的再用一次 Pipeline 读取当前状态
+     *
+     * @return 消息 ID 到抢占结果的映射（保持入参顺序）
+     */
+    public Map<String, ClaimResult> tryClaimAll(String group, List<String> messageIds) {
+        Map<String, ClaimResult> results = new LinkedHashMap<>();
+        if (messageIds.isEmpty()) {
+            return results;
+        }
+        Duration lease = Duration.ofSeconds(processingTtlSeconds);
+        List<Object> claimed = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (String messageId : messageIds) {
+                    ops.opsForValue().setIfAbsent(key(group, messageId), STATE_PROCESSING, lease);
+                }
+                return null;
+            }
+        });
+
+        List<String> contended = new ArrayList<>();
+        for (int i = 0; i < messageIds.size(); i++) {
+            if (Boolean.TRUE.equals(claimed.get(i))) {
+                results.put(messageIds.get(i), ClaimResult.CLAIMED);
+            } else {
+                contended.add(messageIds.get(i));
+            }
+        }
+        if (!contended.isEmpty()) {
+            List<String> states = redisTemplate.opsForValue()
+                    .multiGet(contended.stream().map(id -> key(group, id)).toList());
+            for (int i = 0; i < contended.size(); i++) {
+                String state = states != null ? states.get(i) : null;
+                // 租约恰好过期（state 为 null）时按处理中对待，由 pending 回收稍后重投递
+                results.put(contended.get(i),
+                        STATE_DONE.equals(state) ? ClaimResult.PROCESSED : ClaimResult.IN_PROGRESS);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 批量标记处理完成并以一条 XACK 确认全部消息（一次 Pipeline 往返）
+     *
+     * @param messageIds 需要标记为 done 的消息 ID
+     * @param recordIds  需要 ACK 的 Stream 记录 ID（可包含无需标记的记录，如初始化占位消息）
+     */
+    public void completeAll(String group, List<String> messageIds, String stream, List<RecordId> recordIds) {
+        if (messageIds.isEmpty() && recordIds.isEmpty()) {
+            return;
+        }
+        Duration ttl = Duration.ofHours(processedTtlHours);
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (String messageId : messageIds) {
+                    ops.opsForValue().set(key(group, messageId), STATE_DONE, ttl);
+                }
+                if (!recordIds.isEmpty()) {
+                    ops.opsForStream().acknowledge(stream, group, recordIds.toArray(RecordId[]::new));
+                }
+                return null;
+            }
+        });
+        LocalBloomFilter bloom = bloomFilter;
+        if (bloom != null) {
+            messageIds.forEach(messageId -> bloom.put(key(group, messageId)));
+        }
+    }
+
+    /**
+     * 批量释放处理租约
+     */
+    public void releaseAll(String group, List<String> messageIds) {
+        if (messageIds.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.delete(messageIds.stream().map(id -> key(group, id)).toList());
+        } catch (Exception e) {
+            log.warn("批量释放事件处理租约失败: group={}, count={}, error={}", group, messageIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 释放处理租约，使下次重投递可以重新处理
+     */
+    public void release(String group, String messageId) {
+        try {
+            redisTemplate.delete(key(group, messageId));
+        } catch (Exception e) {
+            // 删除失败时租约到期后自动释放
+            log.warn("释放事件处理租约失败: group={}, messageId={}, error={}", group, messageId, e.getMessage());
+        }
+    }
+
+    /**
+     * 仅 ACK，不记录处理状态（无法识别或无需去重的消息）
+     */
+    public void acknowledge(String stream, String group, RecordId recordId) {
+        redisTemplate.opsForStream().acknowledge(stream, group, recordId);
+    }
+
+    static String key(String group, String messageId) {
+        return KEY_PREFIX + group + ":" + messageId;
+    }
+}
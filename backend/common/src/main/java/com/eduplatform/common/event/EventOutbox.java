@@ -0,0 +1,93 @@
+package com.eduplatform.common.event;
+
+import com.eduplatform.common.event.payload.EventPayload;
+import com.eduplatform.common.transaction.TransactionCallbacks;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * 领域事件发件箱（Transactional Outbox）
+ * 业务方法在自身的本地事务内调用 publish，事件与业务数据一起写入 event_outbox 表，
+ * 由 OutboxRelay 在事务提交后批量投递到 Redis Stream。
+ *
+ * 核心机制：
+ * 1. 事件与业务数据同提交、同回滚：回滚不会发出事件，Redis 抖动也不会丢事件
+ * 2. 写路径只有一次本地 INSERT，不再等待 Redis
+ * 3. 事务提交后唤醒本实例的投递线程，正常情况下投递延迟与直接发布相当
+ * 4. 未开启发件箱时退化为事务提交后再发布，至少保证回滚时不发出事件
+ *
+ * 注意：发件箱写入失败会向调用方抛出异常并使业务事务回滚，调用方不应吞掉该异常。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class EventOutbox {
+
+    static final String INSERT_SQL = "INSERT INTO event_outbox (source, stream_key, event_type, message_id, payload) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    private final RedisStreamPublisher redisStreamPublisher;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplate;
+    private final ObjectProvider<OutboxRelay> outboxRelay;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${edu.event.outbox.enabled:false}")
+    private boolean enabled;
+
+    public EventOutbox(
+            RedisStreamPublisher redisStreamPublisher,
+            ObjectProvider<JdbcTemplate> jdbcTemplate,
+            ObjectProvider<OutboxRelay> outboxRelay) {
+        this.redisStreamPublisher = redisStreamPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxRelay = outboxRelay;
+    }
+
+    /**
+     * 在当前事务内登记一条待发布事件
+     *
+     * @param type       事件类型枚举
+     * @param sourceName 来源服务名（如 RedisStreamConstants.SERVICE_HOMEWORK）
+     * @param payload    类型化业务载荷
+     */
+    public void publish(EventType type, String sourceName, EventPayload payload) {
+        if (!enabled) {
+            TransactionCallbacks.afterCommit(() -> publishDirectly(type, sourceName, payload));
+            return;
+        }
+
+        String messageId = UUID.randomUUID().toString();
+        StringRecord record = redisStreamPublisher.toRecord(messageId, type, sourceName, payload);
+        if (record == null) {
+            throw new IllegalStateException("事件编码失败: type=" + type);
+        }
+        String fields;
+        try {
+            fields = objectMapper.writeValueAsString(record.getValue());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("事件序列化失败: type=" + type, e);
+        }
+        jdbcTemplate.getObject().update(INSERT_SQL,
+                sourceName, record.getStream(), type.name(), messageId, fields);
+        log.debug("事件已写入发件箱: type={}, messageId={}", type, messageId);
+
+        TransactionCallbacks.afterCommit(() -> outboxRelay.ifAvailable(OutboxRelay::wakeUp));
+    }
+
+    private void publishDirectly(EventType type, String sourceName, EventPayload payload) {
+        try {
+            redisStreamPublisher.publishAsync(type, sourceName, payload);
+        } catch (Exception e) {
+            log.error("发布事件失败: type={}, source={}, error={}", type, sourceName, e.getMessage());
+        }
+    }
+}
@@ -1,9 +1,19 @@
 package com.eduplatform.common.event;
 
+import com.eduplatform.common.event.codec.BinaryEventReader;
+import com.eduplatform.common.event.payload.AnnouncementPublishedPayload;
+import com.eduplatform.common.event.payload.ChapterCompletedPayload;
+import com.eduplatform.common.event.payload.EnrollmentPayload;
+import com.eduplatform.common.event.payload.EventPayload;
+import com.eduplatform.common.event.payload.HomeworkSubmittedPayload;
+
+import java.util.function.Function;
+
 /**
  * 平台事件类型枚举
  * 定义所有通过 Redis Stream 传输的异步事件类型，
  * 每个枚举值对应一个独立的 Stream Key，实现事件的分类路由。
+ * typeCode 写入二进制编码用于识别事件类型，一经发布不可修改或复用。
  *
  * @author Antigravity
  */
@@ -14,42 +24,55 @@ public enum EventType {
      * 生产者：homework-service
      * 消费者：user-service（通知教师批改）
      */
-    HOMEWORK_SUBMITTED("homework-submitted", "学生提交作业"),
+    HOMEWORK_SUBMITTED("homework-submitted", "学生提交作业", 1,
+            HomeworkSubmittedPayload.class, HomeworkSubmittedPayload::readFrom),
 
     /**
      * 公告发布事件
      * 生产者：user-service（定时任务发布 / 即时发布）
      * 消费者：user-service（WebSocket 推送给目标用户）
      */
-    ANNOUNCEMENT_PUBLISHED("announcement-published", "公告发布"),
+    ANNOUNCEMENT_PUBLISHED("announcement-published", "公告发布", 2,
+            AnnouncementPublishedPayload.class, AnnouncementPublishedPayload::readFrom),
 
     /**
      * 章节学习完成事件
      * 生产者：progress-service
      * 消费者：homework-service（解锁作业）、progress-service（授予徽章）
      */
-    CHAPTER_COMPLETED("chapter-completed", "章节学习完成"),
+    CHAPTER_COMPLETED("chapter-completed", "章节学习完成", 3,
+            ChapterCompletedPayload.class, ChapterCompletedPayload::readFrom),
 
     /**
      * 学生选课事件
      * 生产者：course-service
      * 消费者：user-service（通知）
      */
-    COURSE_ENROLLED("course-enrolled", "学生选课"),
+    COURSE_ENROLLED("course-enrolled", "学生选课", 4,
+            EnrollmentPayload.class, EnrollmentPayload::readFrom),
 
     /**
      * 学生退课事件
      * 生产者：course-service
      * 消费者：user-service（通知）
      */
-    COURSE_DROPPED("course-dropped", "学生退课");
+    COURSE_DROPPED("course-dropped", "学生退课", 5,
+            EnrollmentPayload.class, EnrollmentPayload::readFrom);
 
     private final String streamSuffix;
     private final String description;
+    private final int typeCode;
+    private final Class<? extends EventPayload> payloadType;
+    private final Function<BinaryEventReader, ? extends EventPayload> payloadReader;
 
-    EventType(String streamSuffix, String description) {
+    EventType(String streamSuffix, String description, int typeCode,
+              Class<? extends EventPayload> payloadType,
+              Function<BinaryEventReader, ? extends EventPayload> payloadReader) {
         this.streamSuffix = streamSuffix;
         this.description = description;
+        this.typeCode = typeCode;
+        this.payloadType = payloadType;
+        this.payloadReader = payloadReader;
     }
 
     /**
@@ -63,6 +86,38 @@ public enum EventType {
         return description;
     }
 
+    public int getTypeCode() {
+        return typeCode;
+    }
+
+    /**
+     * 获取该事件的载荷类型
+     */
+    public Class<? extends EventPayload> getPayloadType() {
+        return payloadType;
+    }
+
+    /**
+     * 从二进制编码中读取该事件的载荷
+     */
+    public EventPayload readPayload(BinaryEventReader in) {
+        return payloadReader.apply(in);
+    }
+
+    /**
+     * 按 typeCode 查找事件类型
+     *
+     * @throws IllegalArgumentException 未知的 typeCode（通常说明消费端版本落后于生产端）
+     */
+    public static EventType fromTypeCode(int typeCode) {
+        for (EventType type : values()) {
+            if (type.typeCode == typeCode) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("未知的事件类型编码: " + typeCode);
+    }
+
     /**
      * 获取完整的 Redis Stream Key
      * 格式：stream:edu:{事件类型后缀}
@@ -70,4 +125,26 @@ public enum EventType {
     public String getStreamKey() {
         return RedisStreamConstants.STREAM_PREFIX + streamSuffix;
     }
+
+    /**
+     * 获取死信 Stream Key（多次重试仍失败的消息转存于此）
+     * 格式：stream:edu:dlq:{事件类型后缀}
+     */
+    public String getDeadLetterStreamKey() {
+        return RedisStreamConstants.DLQ_STREAM_PREFIX + streamSuffix;
+    }
+
+    /**
+     * 按 Stream 后缀查找事件类型
+     *
+     * @throws IllegalArgumentException 未知的 Stream 后缀
+     */
+    public static EventType fromStreamSuffix(String streamSuffix) {
+        for (EventType type : values()) {
+            if (type.streamSuffix.equals(streamSuffix)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("未知的事件 Stream: " + streamSuffix);
+    }
 }
@@ -0,0 +1,146 @@
+package com.eduplatform.common.event;
+
+import com.eduplatform.common.event.codec.DecodedEvent;
+import com.eduplatform.common.event.codec.EventCodec;
+import com.eduplatform.common.event.payload.EventPayload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.stream.StreamListener;
+
+/**
+ * 幂等 Stream 消费者基类
+ * 统一负责消息解码、按 EventMessage.id 去重与 ACK，子类只需实现 handle 处理类型化载荷。
+ * 同一条事件被重投递（消费者重启重读 pending list、消息被转移给其它消费者）时不会被重复处理。
+ *
+ * 处理流程：
+ * 1. 初始化占位消息直接 ACK
+ * 2. 按消息中的 codec 字段解码并校验载荷类型，解码失败不 ACK，保留在 pending list 中排查
+ * 3. 通过 EventDedupeStore 抢占处理权：已处理过的直接 ACK，其它消费者处理中的跳过
+ * 4. handle 正常返回后标记完成并 ACK；抛出异常时释放租约且不 ACK，等待重投递
+ *
+ * 绑定处理道（见 StreamConsumerSupport）后，解码在轮询线程完成，去重与 handle 在 orderingKey 对应的处理道执行，
+ * 同一顺序键（如 studentId）的事件保持到达顺序；处理失败的事件由 pending 回收稍后重投递，不阻塞同键的后续事件。
+ *
+ * 注意：handle 在租约有效期内只会执行一次，但租约过期后可能再次执行，
+ * 处理耗时应远小于 edu.event.dedupe.processing-ttl-seconds。
+ *
+ * @param <P> 事件载荷类型
+ * @author Antigravity
+ */
+@Slf4j
+public abstract class IdempotentStreamListener<P extends EventPayload>
+        implements StreamListener<String, MapRecord<String, String, String>> {
+
+    private final EventDedupeStore dedupeStore;
+    private final String consumerGroup;
+    private final Class<P> payloadType;
+    private volatile KeyedLaneExecutor lanes;
+
+    /**
+     * @param dedupeStore   去重存储
+     * @param consumerGroup 本监听器所属的消费组（用于去重键与 ACK）
+     * @param payloadType   期望的载荷类型
+     */
+    protected IdempotentStreamListener(EventDedupeStore dedupeStore, String consumerGroup, Class<P> payloadType) {
+        this.dedupeStore = dedupeStore;
+        this.consumerGroup = consumerGroup;
+        this.payloadType = payloadType;
+    }
+
+    /**
+     * 由 StreamConsumerSupport 绑定按键分道的执行器，绑定后事件在轮询线程解码，按 orderingKey 分道处理
+     */
+    void bindLanes(KeyedLaneExecutor lanes) {
+        this.lanes = lanes;
+    }
+
+    @Override
+    public final void onMessage(MapRecord<String, String, String> message) {
+        String stream = message.getStream();
+        RecordId recordId = message.getId();
+        try {
+            if (message.getValue().containsKey(RedisStreamConstants.STREAM_INIT_FIELD)) {
+                dedupeStore.acknowledge(stream, consumerGroup, recordId);
+                return;
+            }
+
+            DecodedEvent<P> event;
+            try {
+                event = EventCodec.decode(message.getValue(), payloadType);
+            } catch (RuntimeException e) {
+                log.error("事件解析失败，保留在 pending list: stream={}, recordId={}, error={}",
+                        stream, recordId, e.getMessage());
+                return;
+            }
+
+            KeyedLaneExecutor current = lanes;
+            if (current == null) {
+                process(stream, recordId, event);
+                return;
+            }
+            Object key = orderingKey(event.payload());
+            if (!current.execute(key != null ? key : recordId.getValue(), () -> process(stream, recordId, event))) {
+                log.warn("消费者正在关闭，事件保留在 pending list: stream={}, recordId={}", stream, recordId);
+            }
+        } catch (Exception e) {
+            log.error("分发事件失败，等待重投递: stream={}, recordId={}, error={}",
+                    stream, recordId, e.getMessage(), e);
+        }
+    }
+
+    private void process(String stream, RecordId recordId, DecodedEvent<P> event) {
+        try {
+            String messageId = event.id();
+            if (messageId == null) {
+                // 缺少消息 ID 的历史消息无法去重，按原方式处理
+                handle(event);
+                dedupeStore.acknowledge(stream, consumerGroup, recordId);
+                return;
+            }
+
+            switch (dedupeStore.tryClaim(consumerGroup, messageId)) {
+                case PROCESSED -> {
+                    log.info("重复投递的事件已处理过，直接确认: stream={}, recordId={}, messageId={}",
+                            stream, recordId, messageId);
+                    dedupeStore.acknowledge(stream, consumerGroup, recordId);
+                    return;
+                }
+                case IN_PROGRESS -> {
+                    log.info("事件正在由其它消费者处理，本次跳过: stream={}, recordId={}, messageId={}",
+                            stream, recordId, messageId);
+                    return;
+                }
+                default -> {
+                    // CLAIMED：继续处理
+                }
+            }
+
+            try {
+                handle(event);
+            } catch (Exception e) {
+                dedupeStore.release(consumerGroup, messageId);
+                throw e;
+            }
+            dedupeStore.complete(consumerGroup, messageId, stream, recordId);
+        } catch (Exception e) {
+            log.error("处理事件失败，等待重投递: stream={}, recordId={}, error={}",
+                    stream, recordId, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 顺序键：同一顺序键的事件在本实例内按到达顺序串行处理，不同键之间并行。
+     * 默认返回 null，表示无顺序要求（按消息 ID 分散到各处理道）。
+     */
+    protected Object orderingKey(P payload) {
+        return null;
+    }
+
+    /**
+     * 处理一条首次到达的事件；抛出异常表示处理失败，消息不会被 ACK
+     *
+     * @param event 解码后的事件（含消息 ID、类型、来源、时间戳与类型化载荷）
+     */
+    protected abstract void handle(DecodedEvent<P> event) throws Exception;
+}
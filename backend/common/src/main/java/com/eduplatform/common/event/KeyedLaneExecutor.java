@@ -0,0 +1,133 @@
+package com.eduplatform.common.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按键分道的有序执行器
+ * 固定数量的处理道（lane），每道一个虚拟线程和一个有界队列，任务按 key 的哈希值分配到固定的道上：
+ * 同一个 key（如 studentId）的任务严格按提交顺序串行执行，不同 key 的任务在多道之间并行。
+ *
+ * 队列满时 execute 阻塞提交线程（即 Stream 轮询线程），形成背压，避免把整个 Stream 读入内存。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+final class KeyedLaneExecutor {
+
+    private static final Runnable POISON = () -> {
+    };
+
+    private final String name;
+    private final List<BlockingQueue<Runnable>> queues;
+    private final List<Thread> threads;
+    private volatile boolean shutdown;
+
+    /**
+     * @param name          线程名前缀
+     * @param lanes         处理道数量（并发度）
+     * @param queueCapacity 每道的队列容量
+     */
+    KeyedLaneExecutor(String name, int lanes, int queueCapacity) {
+        if (lanes <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("lanes 与 queueCapacity 必须大于 0: lanes=" + lanes
+                    + ", queueCapacity=" + queueCapacity);
+        }
+        this.name = name;
+        this.queues = new ArrayList<>(lanes);
+        this.threads = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Thread thread = Thread.ofVirtual().name(name + "-" + i).unstarted(() -> runLane(queue));
+            queues.add(queue);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * 提交任务到 key 对应的处理道；队列满时阻塞等待
+     *
+     * @return 是否已提交（执行器已关闭或等待被中断时返回 false）
+     */
+    boolean execute(Object key, Runnable task) {
+        if (shutdown) {
+            return false;
+        }
+        try {
+            queues.get(laneOf(key)).put(task);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    int laneOf(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % queues.size();
+    }
+
+    int lanes() {
+        return queues.size();
+    }
+
+    /**
+     * 停止接收新任务，执行完已入队的任务后退出
+     *
+     * @return 是否在超时前全部执行完
+     */
+    boolean shutdown(Duration timeout) {
+        shutdown = true;
+        for (BlockingQueue<Runnable> queue : queues) {
+            if (!queue.offer(POISON)) {
+                // 队列已满：等待该道消费出空位
+                try {
+                    queue.offer(POISON, timeout.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean drained = true;
+        for (Thread thread : threads) {
+            try {
+                thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            drained &= !thread.isAlive();
+        }
+        if (!drained) {
+            log.warn("处理道未在超时前排空，剩余任务对应的消息未 ACK，将由 pending 回收重投递: name={}", name);
+        }
+        return drained;
+    }
+
+    private void runLane(BlockingQueue<Runnable> queue) {
+        while (true) {
+            Runnable task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (task == POISON) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("处理道任务异常: name={}, error={}", name, e.getMessage(), e);
+            }
+        }
+    }
+}
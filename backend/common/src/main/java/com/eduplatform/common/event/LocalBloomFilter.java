@@ -0,0 +1,110 @@
+package com.eduplatform.common.event;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内布隆过滤器（线程安全，双代轮换）
+ * 用作去重存储的前置过滤：mightContain 为 false 时一定未记录过，为 true 时可能误判，需再查 Redis。
+ *
+ * 当前代写满 expectedInsertions 后整体轮换为上一代，查询同时检查两代，
+ * 内存占用恒定为两代位图，且只保留最近约 2 × expectedInsertions 个元素。
+ *
+ * @author Antigravity
+ */
+final class LocalBloomFilter {
+
+    private final int expectedInsertions;
+    private final int numBits;
+    private final int numHashFunctions;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    LocalBloomFilter(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("布隆过滤器参数非法: expectedInsertions=" + expectedInsertions
+                    + ", falsePositiveRate=" + falsePositiveRate);
+        }
+        this.expectedInsertions = expectedInsertions;
+        double ln2 = Math.log(2);
+        this.numBits = (int) Math.min(Integer.MAX_VALUE - 63,
+                Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * ln2));
+        this.current = new Generation(numBits);
+        this.previous = new Generation(numBits);
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash(value);
+        return current.mightContain(hash) || previous.mightContain(hash);
+    }
+
+    void put(String value) {
+        long hash = hash(value);
+        Generation generation = current;
+        generation.put(hash);
+        if (generation.insertions.incrementAndGet() == expectedInsertions) {
+            synchronized (this) {
+                if (current == generation) {
+                    previous = generation;
+                    current = new Generation(numBits);
+                }
+            }
+        }
+    }
+
+    /**
+     * 64 位 FNV-1a + 末尾混淆，高低 32 位分别作为双重哈希的两个基哈希
+     */
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private final class Generation {
+
+        private final AtomicLongArray bits;
+        private final AtomicInteger insertions = new AtomicInteger();
+
+        private Generation(int numBits) {
+            this.bits = new AtomicLongArray((numBits + 63) >>> 6);
+        }
+
+        private boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashFunctions; i++) {
+                int index = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+                if ((bits.get(index >>> 6) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= numHashFunctions; i++) {
+                int index = ((h1 + i * h2) & Integer.MAX_VALUE) % numBits;
+                long mask = 1L << index;
+                long word;
+                do {
+                    word = bits.get(index >>> 6);
+                    if ((word & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(index >>> 6, word, word | mask));
+            }
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.eduplatform.common.event;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 事件发件箱投递器
+ * 后台线程持续把 event_outbox 中本服务登记的事件批量投递到 Redis Stream，投递成功后删除对应行。
+ *
+ * 核心机制：
+ * 1. 认领：在事务内 SELECT ... FOR UPDATE SKIP LOCKED，多个服务副本并行投递互不阻塞，也不会重复认领同一批
+ * 2. 投递：一批事件通过 Pipeline 一次往返写入 Redis，全部确认后在同一事务内删除；任一失败则整批回滚，下轮重试
+ * 3. 容错：实例崩溃时数据库连接断开、行锁释放，未删除的事件由其他副本接手；
+ *    因此投递语义为至少一次，消费端需按 EventMessage.id 去重
+ * 4. 指标：投递延迟（入库到写入 Redis）、积压条数与最早积压事件的年龄
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    static final String CLAIM_SQL = "SELECT id, stream_key, payload FROM event_outbox "
+            + "WHERE source = ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    /**
+     * 删除已投递事件，同时按数据库时钟返回每条事件的投递延迟（毫秒），避免各副本时钟偏差影响指标
+     */
+    static final String DELETE_SQL = "DELETE FROM event_outbox WHERE id = ANY(?) "
+            + "RETURNING (EXTRACT(EPOCH FROM (clock_timestamp()::timestamp - created_at)) * 1000)::bigint";
+
+    static final String BACKLOG_SQL = "SELECT COUNT(*), "
+            + "COALESCE((EXTRACT(EPOCH FROM (clock_timestamp()::timestamp - MIN(created_at))) * 1000)::bigint, 0) "
+            + "FROM event_outbox WHERE source = ?";
+
+    private static final TypeReference<Map<String, String>> FIELDS_TYPE = new TypeReference<>() {
+    };
+
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    private final ObjectProvider<PlatformTransactionManager> transactionManagerProvider;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Semaphore wakeups = new Semaphore(0);
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong oldestAgeMillis = new AtomicLong();
+
+    @Value("${edu.event.outbox.enabled:false}")
+    private boolean outboxEnabled;
+
+    /**
+     * 是否在本实例运行投递线程（例如只读副本可关闭）
+     */
+    @Value("${edu.event.outbox.relay.enabled:true}")
+    private boolean relayEnabled;
+
+    /**
+     * 只投递本服务登记的事件，与 EventOutbox.publish 的 sourceName 对应
+     */
+    @Value("${edu.event.outbox.relay.source:${spring.application.name:}}")
+    private String source;
+
+    @Value("${edu.event.outbox.relay.batch-size:200}")
+    private int batchSize;
+
+    @Value("${edu.event.outbox.relay.poll-interval-millis:500}")
+    private long pollIntervalMillis;
+
+    @Value("${edu.event.outbox.relay.error-backoff-millis:1000}")
+    private long errorBackoffMillis;
+
+    @Value("${edu.event.outbox.relay.metrics-refresh-millis:5000}")
+    private long metricsRefreshMillis;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private Timer relayLag;
+    private Counter relayedCounter;
+    private Counter discardedCounter;
+    private Counter failureCounter;
+    private Thread worker;
+    private volatile boolean running;
+    private long lastMetricsRefresh;
+
+    public OutboxRelay(
+            ObjectProvider<JdbcTemplate> jdbcTemplate,
+            ObjectProvider<PlatformTransactionManager> transactionManager,
+            StringRedisTemplate redisTemplate,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.jdbcTemplateProvider = jdbcTemplate;
+        this.transactionManagerProvider = transactionManager;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!outboxEnabled || !relayEnabled) {
+            return;
+        }
+        jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        PlatformTransactionManager transactionManager = transactionManagerProvider.getIfAvailable();
+        if (jdbcTemplate == null || transactionManager == null || source == null || source.isBlank()) {
+            log.warn("事件发件箱投递线程未启动：缺少数据源、事务管理器或 source 配置");
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        registerMeters();
+
+        running = true;
+        worker = new Thread(this::runLoop, "outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("事件发件箱投递线程已启动: source={}, batchSize={}, pollIntervalMillis={}",
+                source, batchSize, pollIntervalMillis);
+    }
+
+    @PreDestroy
+    void stop() {
+        Thread current = worker;
+        if (current == null) {
+            return;
+        }
+        running = false;
+        wakeUp();
+        try {
+            current.join(Math.max(pollIntervalMillis, errorBackoffMillis) * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 唤醒投递线程立即执行一轮投递（由 EventOutbox 在事务提交后调用）
+     */
+    public void wakeUp() {
+        if (wakeups.availablePermits() == 0) {
+            wakeups.release();
+        }
+    }
+
+    private void runLoop() {
+        while (running) {
+            int relayed = 0;
+            boolean failed = false;
+            try {
+                relayed = relayOnce();
+            } catch (RuntimeException e) {
+                failed = true;
+                failureCounter.increment();
+                log.warn("事件发件箱投递失败，稍后重试: source={}, error={}", source, e.getMessage());
+            }
+            refreshBacklogIfDue();
+            // 满批说明仍有积压，立即继续；否则等待唤醒或轮询间隔
+            if (failed || relayed < batchSize) {
+                await(failed ? errorBackoffMillis : pollIntervalMillis);
+            }
+        }
+        log.info("事件发件箱投递线程已退出: source={}", source);
+    }
+
+    /**
+     * 认领一批事件并投递，返回本轮处理的条数
+     */
+    int relayOnce() {
+        Integer processed = transactionTemplate.execute(status -> {
+            List<OutboxRow> rows = jdbcTemplate.query(CLAIM_SQL,
+                    (rs, rowNum) -> new OutboxRow(rs.getLong(1), rs.getString(2), rs.getString(3)),
+                    source, batchSize);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            List<StringRecord> records = new ArrayList<>(rows.size());
+            int discarded = 0;
+            for (OutboxRow row : rows) {
+                StringRecord record = toRecord(row);
+                if (record != null) {
+                    records.add(record);
+                } else {
+                    discarded++;
+                }
+            }
+            if (!records.isEmpty()) {
+                xaddAll(records);
+            }
+
+            Long[] ids = rows.stream().map(OutboxRow::id).toArray(Long[]::new);
+            List<Long> lags = jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(DELETE_SQL);
+                Array array = con.createArrayOf("bigint", ids);
+                ps.setArray(1, array);
+                return ps;
+            }, (rs, rowNum) -> rs.getLong(1));
+            lags.forEach(lag -> relayLag.record(Math.max(0, lag), TimeUnit.MILLISECONDS));
+            relayedCounter.increment(records.size());
+            discardedCounter.increment(discarded);
+            return rows.size();
+        });
+        return processed != null ? processed : 0;
+    }
+
+    private StringRecord toRecord(OutboxRow row) {
+        try {
+            Map<String, String> fields = objectMapper.readValue(row.payload(), FIELDS_TYPE);
+            return StreamRecords.string(fields).withStreamKey(row.streamKey());
+        } catch (Exception e) {
+            // 无法解析的事件重试也不会成功，记录后随本批删除，避免阻塞后续投递
+            log.error("发件箱事件无法解析，已丢弃: id={}, streamKey={}, error={}",
+                    row.id(), row.streamKey(), e.getMessage());
+            return null;
+        }
+    }
+
+    private void xaddAll(List<StringRecord> records) {
+        List<Object> results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (StringRecord record : records) {
+                    ops.opsForStream().add(record);
+                }
+                return null;
+            }
+        });
+        for (Object result : results) {
+            if (!(result instanceof RecordId)) {
+                // 抛出异常使整批回滚，下轮重新认领（已写入的事件会重复投递，由消费端去重）
+                throw new IllegalStateException("XADD 未返回消息 ID: " + result);
+            }
+        }
+    }
+
+    private void refreshBacklogIfDue() {
+        long now = System.currentTimeMillis();
+        if (now - lastMetricsRefresh < metricsRefreshMillis) {
+            return;
+        }
+        lastMetricsRefresh = now;
+        try {
+            jdbcTemplate.query(BACKLOG_SQL, rs -> {
+                backlog.set(rs.getLong(1));
+                oldestAgeMillis.set(rs.getLong(2));
+            }, source);
+        } catch (RuntimeException e) {
+            log.debug("刷新发件箱积压指标失败: {}", e.getMessage());
+        }
+    }
+
+    private void await(long millis) {
+        try {
+            wakeups.tryAcquire(millis, TimeUnit.MILLISECONDS);
+            wakeups.drainPermits();
+        } catch (InterruptedException e) {
+            running = false;
+        }
+    }
+
+    private void registerMeters() {
+        relayLag = Timer.builder("event.outbox.relay.lag")
+                .description("事件写入发件箱到投递至 Redis Stream 的耗时")
+                .tag("source", source)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        relayedCounter = Counter.builder("event.outbox.relay.events")
+                .description("发件箱投递结果：relayed=已投递，discarded=无法解析被丢弃")
+                .tag("source", source)
+                .tag("result", "relayed")
+                .register(meterRegistry);
+        discardedCounter = Counter.builder("event.outbox.relay.events")
+                .description("发件箱投递结果：relayed=已投递，discarded=无法解析被丢弃")
+                .tag("source", source)
+                .tag("result", "discarded")
+                .register(meterRegistry);
+        failureCounter = Counter.builder("event.outbox.relay.failures")
+                .description("发件箱整批投递失败次数")
+                .tag("source", source)
+                .register(meterRegistry);
+        Gauge.builder("event.outbox.backlog", backlog, AtomicLong::get)
+                .description("发件箱中待投递的事件数")
+                .tag("source", source)
+                .register(meterRegistry);
+        Gauge.builder("event.outbox.oldest.age", oldestAgeMillis, millis -> millis.get() / 1000.0)
+                .description("发件箱中最早一条待投递事件的等待时间")
+                .tag("source", source)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    private record OutboxRow(long id, String streamKey, String payload) {
+    }
+}
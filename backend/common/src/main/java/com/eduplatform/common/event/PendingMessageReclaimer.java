@@ -0,0 +1,322 @@
+package com.eduplatform.common.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands.XClaimOptions;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pending 消息回收器
+ * 监听器处理失败（抛出异常、实例崩溃）时消息不会被 ACK，会一直停留在消费组的 pending list（PEL）中。
+ * 本组件由后台线程定期扫描各消费组的 PEL，按指数退避重新投递，超过最大次数后转入死信队列。
+ *
+ * 核心机制：
+ * 1. 扫描：XPENDING 按游标分页读取 pending 消息及其空闲时间、投递次数，游标到末尾后从头开始
+ * 2. 退避：第 n 次投递失败后需空闲 min-idle × 2^(n-1)（不超过 max-backoff）才会再次投递
+ * 3. 回收：XCLAIM（带 min-idle 条件，避免与其它实例重复认领）转给本消费者，投递次数 +1，交给原监听器处理
+ * 4. 死信：投递次数达到 max-attempts 且已过退避期的消息转入 stream:edu:dlq:{后缀} 并 ACK
+ * 5. 指标：各消费组的 PEL 大小与最早 pending 消息的年龄
+ *
+ * XAUTOCLAIM 只支持统一的 min-idle，无法按投递次数做退避，因此使用 XPENDING + XCLAIM 组合，
+ * 游标语义与 XAUTOCLAIM 一致。min-idle 应大于单条消息的最长处理时间，否则会抢走正在处理中的消息。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class PendingMessageReclaimer {
+
+    /**
+     * 单条 pending 消息的处理动作
+     */
+    enum Action {
+        /** 尚在退避期内 */
+        WAIT,
+        /** 重新投递 */
+        RECLAIM,
+        /** 转入死信队列 */
+        DEAD_LETTER
+    }
+
+    private final StringRedisTemplate redisTemplate;
+    private final DeadLetterQueue deadLetterQueue;
+    private final MeterRegistry meterRegistry;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    @Value("${edu.event.reclaim.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${edu.event.reclaim.scan-interval-millis:5000}")
+    private long scanIntervalMillis = 5000;
+
+    /** 首次重投递前的最短空闲时间，也是指数退避的基数 */
+    @Value("${edu.event.reclaim.min-idle-millis:30000}")
+    private long minIdleMillis = 30000;
+
+    @Value("${edu.event.reclaim.max-backoff-millis:600000}")
+    private long maxBackoffMillis = 600000;
+
+    /** 最大投递次数（含首次投递），达到后转入死信队列 */
+    @Value("${edu.event.reclaim.max-attempts:5}")
+    private int maxAttempts = 5;
+
+    @Value("${edu.event.reclaim.batch-size:100}")
+    private int batchSize = 100;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    @Autowired
+    public PendingMessageReclaimer(StringRedisTemplate redisTemplate,
+                                   DeadLetterQueue deadLetterQueue,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        this(redisTemplate, deadLetterQueue, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    PendingMessageReclaimer(StringRedisTemplate redisTemplate, DeadLetterQueue deadLetterQueue,
+                            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.deadLetterQueue = deadLetterQueue;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 登记一个消费组订阅，回收到的消息交给同一个监听器处理（首次登记时启动后台线程）
+     *
+     * @param type     事件类型（对应的 Stream）
+     * @param group    消费组
+     * @param consumer 认领消息使用的消费者名称
+     * @param listener 原监听器（需自行 ACK，例如 IdempotentStreamListener）
+     */
+    public synchronized void register(EventType type, String group, String consumer,
+                                      StreamListener<String, MapRecord<String, String, String>> listener) {
+        Subscription subscription = new Subscription(type, group, consumer, listener);
+        subscriptions.add(subscription);
+        registerMeters(subscription);
+        if (enabled && worker == null) {
+            running = true;
+            worker = new Thread(this::runLoop, "stream-reclaimer");
+            worker.setDaemon(true);
+            worker.start();
+            log.info("Pending 消息回收线程已启动: minIdleMillis={}, maxAttempts={}, scanIntervalMillis={}",
+                    minIdleMillis, maxAttempts, scanIntervalMillis);
+        }
+    }
+
+    @PreDestroy
+    synchronized void stop() {
+        Thread current = worker;
+        if (current == null) {
+            return;
+        }
+        running = false;
+        current.interrupt();
+        try {
+            current.join(scanIntervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    private void runLoop() {
+        while (running) {
+            for (Subscription subscription : subscriptions) {
+                try {
+                    reclaimOnce(subscription);
+                } catch (RuntimeException e) {
+                    log.warn("Pending 消息回收失败: stream={}, group={}, error={}",
+                            subscription.stream(), subscription.group, e.getMessage());
+                }
+                refreshPendingStats(subscription);
+            }
+            try {
+                Thread.sleep(scanIntervalMillis);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+        log.info("Pending 消息回收线程已退出");
+    }
+
+    /**
+     * 扫描一页 pending 消息：到期的重新投递，超过次数的转入死信，返回本轮重新投递的条数
+     */
+    int reclaimOnce(Subscription subscription) {
+        String stream = subscription.stream();
+        String cursor = subscription.cursor;
+        Range<String> range = cursor == null ? Range.unbounded() : Range.rightUnbounded(Range.Bound.inclusive(cursor));
+        PendingMessages page = redisTemplate.opsForStream().pending(stream, subscription.group, range, batchSize);
+        if (page == null || page.isEmpty()) {
+            subscription.cursor = null;
+            return 0;
+        }
+
+        List<RecordId> due = new ArrayList<>();
+        String lastId = null;
+        for (PendingMessage message : page) {
+            lastId = message.getIdAsString();
+            switch (classify(message.getTotalDeliveryCount(), message.getElapsedTimeSinceLastDelivery())) {
+                case RECLAIM -> due.add(message.getId());
+                case DEAD_LETTER -> {
+                    if (deadLetterQueue.deadLetter(subscription.type, subscription.group, message.getId(),
+                            message.getTotalDeliveryCount())) {
+                        subscription.deadLettered.increment();
+                    }
+                }
+                default -> {
+                    // 退避期内，下轮再看
+                }
+            }
+        }
+        // 不足一页说明已扫到末尾，下轮从头开始；否则从本页最后一条之后继续
+        subscription.cursor = page.size() < batchSize ? null : nextId(lastId);
+
+        if (due.isEmpty()) {
+            return 0;
+        }
+        List<MapRecord<String, Object, Object>> claimed = redisTemplate.opsForStream().claim(stream,
+                subscription.group, subscription.consumer,
+                XClaimOptions.minIdle(Duration.ofMillis(minIdleMillis)).ids(due));
+        if (claimed == null) {
+            return 0;
+        }
+        for (MapRecord<String, Object, Object> record : claimed) {
+            log.info("重新投递 pending 消息: stream={}, group={}, recordId={}",
+                    stream, subscription.group, record.getId());
+            subscription.listener.onMessage(toStringRecord(record));
+        }
+        subscription.reclaimed.increment(claimed.size());
+        return claimed.size();
+    }
+
+    /**
+     * 按投递次数与空闲时间决定处理动作
+     */
+    Action classify(long deliveryCount, Duration idle) {
+        if (idle.toMillis() < backoffMillis(deliveryCount)) {
+            return Action.WAIT;
+        }
+        return deliveryCount >= maxAttempts ? Action.DEAD_LETTER : Action.RECLAIM;
+    }
+
+    /**
+     * 第 deliveryCount 次投递失败后的退避时长：min-idle × 2^(n-1)，不超过 max-backoff
+     */
+    long backoffMillis(long deliveryCount) {
+        int exponent = (int) Math.min(Math.max(deliveryCount - 1, 0), 30);
+        return Math.min(minIdleMillis << exponent, Math.max(maxBackoffMillis, minIdleMillis));
+    }
+
+    private void refreshPendingStats(Subscription subscription) {
+        try {
+            PendingMessagesSummary summary = redisTemplate.opsForStream()
+                    .pending(subscription.stream(), subscription.group);
+            long total = summary != null ? summary.getTotalPendingMessages() : 0L;
+            subscription.pendingCount.set(total);
+            String minId = total > 0 ? summary.minMessageId() : null;
+            subscription.oldestPendingMillis.set(minId != null
+                    ? Math.max(0, System.currentTimeMillis() - RecordId.of(minId).getTimestamp())
+                    : 0L);
+        } catch (RuntimeException e) {
+            log.debug("刷新 pending 指标失败: stream={}, group={}, error={}",
+                    subscription.stream(), subscription.group, e.getMessage());
+        }
+    }
+
+    private void registerMeters(Subscription subscription) {
+        String stream = subscription.stream();
+        Gauge.builder("event.stream.pending", subscription.pendingCount, AtomicLong::get)
+                .description("消费组 pending list 中未 ACK 的消息数")
+                .tag("stream", stream)
+                .tag("group", subscription.group)
+                .register(meterRegistry);
+        Gauge.builder("event.stream.pending.oldest.age", subscription.oldestPendingMillis,
+                        millis -> millis.get() / 1000.0)
+                .description("消费组中最早一条 pending 消息自写入 Stream 以来的时间")
+                .tag("stream", stream)
+                .tag("group", subscription.group)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        subscription.reclaimed = resultCounter(stream, subscription.group, "reclaimed");
+        subscription.deadLettered = resultCounter(stream, subscription.group, "dead_lettered");
+    }
+
+    private Counter resultCounter(String stream, String group, String result) {
+        return Counter.builder("event.reclaim.events")
+                .description("Pending 消息回收结果：reclaimed=重新投递，dead_lettered=转入死信队列")
+                .tag("stream", stream)
+                .tag("group", group)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    static MapRecord<String, String, String> toStringRecord(MapRecord<String, Object, Object> record) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        record.getValue().forEach((k, v) -> fields.put(String.valueOf(k), String.valueOf(v)));
+        return StreamRecords.newRecord().in(record.getStream()).ofMap(fields).withId(record.getId());
+    }
+
+    /**
+     * 紧随给定消息 ID 之后的最小 ID（XPENDING 区间为闭区间）
+     */
+    static String nextId(String recordId) {
+        RecordId id = RecordId.of(recordId);
+        return id.getSequence() == Long.MAX_VALUE
+                ? (id.getTimestamp() + 1) + "-0"
+                : id.getTimestamp() + "-" + (id.getSequence() + 1);
+    }
+
+    /**
+     * 已登记的消费组订阅及其扫描游标、指标
+     */
+    static final class Subscription {
+
+        private final EventType type;
+        private final String group;
+        private final String consumer;
+        private final StreamListener<String, MapRecord<String, String, String>> listener;
+        private final AtomicLong pendingCount = new AtomicLong();
+        private final AtomicLong oldestPendingMillis = new AtomicLong();
+        /** 下一页起始消息 ID，null 表示从头开始 */
+        private volatile String cursor;
+        private Counter reclaimed;
+        private Counter deadLettered;
+
+        Subscription(EventType type, String group, String consumer,
+                     StreamListener<String, MapRecord<String, String, String>> listener) {
+            this.type = type;
+            this.group = group;
+            this.consumer = consumer;
+            this.listener = listener;
+        }
+
+        String stream() {
+            return type.getStreamKey();
+        }
+    }
+}
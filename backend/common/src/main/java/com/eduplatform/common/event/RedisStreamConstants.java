@@ -16,6 +16,9 @@ public final class RedisStreamConstants {
     /** Stream Key 前缀：所有教育平台事件统一使用此前缀 */
     public static final String STREAM_PREFIX = "stream:edu:";
 
+    /** 死信 Stream Key 前缀：stream:edu:dlq:{事件类型后缀} */
+    public static final String DLQ_STREAM_PREFIX = STREAM_PREFIX + "dlq:";
+
     /** Consumer Group 前缀：各服务通过 "group:{服务名}" 标识消费者组 */
     public static final String GROUP_PREFIX = "group:";
 
@@ -32,4 +35,9 @@ public final class RedisStreamConstants {
     public static final String GROUP_COURSE_SERVICE = GROUP_PREFIX + SERVICE_COURSE;
     public static final String GROUP_HOMEWORK_SERVICE = GROUP_PREFIX + SERVICE_HOMEWORK;
     public static final String GROUP_PROGRESS_SERVICE = GROUP_PREFIX + SERVICE_PROGRESS;
+
+    // ==================== 其它 ====================
+
+    /** 创建 Consumer Group 前用于初始化空 Stream 的占位消息字段，消费端直接 ACK */
+    public static final String STREAM_INIT_FIELD = "_init";
 }
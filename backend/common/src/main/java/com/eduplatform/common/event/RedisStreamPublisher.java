@@ -1,19 +1,29 @@
 package com.eduplatform.common.event;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.eduplatform.common.event.codec.EventCodec;
+import com.eduplatform.common.event.payload.EventPayload;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.connection.stream.RecordId;
 import org.springframework.data.redis.connection.stream.StreamRecords;
 import org.springframework.data.redis.connection.stream.StringRecord;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Redis Stream 通用消息发布器
@@ -21,9 +31,11 @@ import java.util.UUID;
  * 消费端通过 StreamMessageListenerContainer 自动监听并处理。
  *
  * 核心机制：
- * 1. 自动构建 EventMessage 并序列化为 Map 写入 Stream
+ * 1. 由 EventCodec 按配置的格式（json / bin1）把事件编码为 Map 写入 Stream
  * 2. Stream 不存在时由 Redis 自动创建（XADD 的隐式行为）
  * 3. 使用 SLF4J 记录发布日志，便于链路追踪
+ * 4. publish 同步写入并返回消息 ID；publishAsync 在开启异步模式后只入队，
+ *    由 StreamPublishBuffer 攒批后通过 Pipeline 写入，未开启时等同于同步发布
  *
  * @author Antigravity
  */
@@ -32,12 +44,84 @@ import java.util.UUID;
 public class RedisStreamPublisher {
 
     private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Timer syncLatency;
 
-    public RedisStreamPublisher(StringRedisTemplate redisTemplate) {
+    /**
+     * 写入编码格式：json（历史格式，默认）或 bin1（紧凑二进制）。
+     * 消费端按消息中的 codec 字段解码，切换为 bin1 前需确保所有消费端已升级。
+     */
+    @Value("${edu.event.codec:json}")
+    private String codec = EventCodec.CODEC_JSON;
+
+    @Value("${edu.event.publisher.async.enabled:false}")
+    private boolean asyncEnabled;
+
+    @Value("${edu.event.publisher.async.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${edu.event.publisher.async.batch-size:100}")
+    private int batchSize;
+
+    @Value("${edu.event.publisher.async.linger-millis:5}")
+    private long lingerMillis;
+
+    /**
+     * 缓冲区满时的处理策略：caller-runs（默认）、block、drop
+     */
+    @Value("${edu.event.publisher.async.overflow-policy:caller-runs}")
+    private String overflowPolicy;
+
+    @Value("${edu.event.publisher.async.block-timeout-millis:50}")
+    private long blockTimeoutMillis;
+
+    @Value("${edu.event.publisher.async.shutdown-timeout-millis:5000}")
+    private long shutdownTimeoutMillis;
+
+    private volatile StreamPublishBuffer buffer;
+
+    @Autowired
+    public RedisStreamPublisher(StringRedisTemplate redisTemplate, ObjectProvider<MeterRegistry> meterRegistry) {
+        this(redisTemplate, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    RedisStreamPublisher(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
+        this.meterRegistry = meterRegistry;
+        this.syncLatency = Timer.builder("event.publish.latency")
+                .description("事件从提交到 Redis 确认写入的耗时")
+                .tag("mode", "sync")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startAsyncBuffer() {
+        if (!asyncEnabled) {
+            return;
+        }
+        StreamPublishBuffer.OverflowPolicy policy = StreamPublishBuffer.OverflowPolicy.valueOf(
+                overflowPolicy.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        buffer = new StreamPublishBuffer(
+                redisTemplate,
+                bufferCapacity,
+                batchSize,
+                Duration.ofMillis(lingerMillis),
+                policy,
+                Duration.ofMillis(blockTimeoutMillis),
+                this::addRecord,
+                meterRegistry);
+        log.info("Redis Stream 异步发布已开启: capacity={}, batchSize={}, lingerMillis={}, overflowPolicy={}",
+                bufferCapacity, batchSize, lingerMillis, policy);
+    }
+
+    @PreDestroy
+    void stopAsyncBuffer() {
+        StreamPublishBuffer current = buffer;
+        if (current != null) {
+            buffer = null;
+            current.close(Duration.ofMillis(shutdownTimeoutMillis));
+        }
     }
 
     /**
@@ -45,44 +129,82 @@ public class RedisStreamPublisher {
      *
      * @param type       事件类型枚举
      * @param sourceName 来源服务名（如 RedisStreamConstants.SERVICE_HOMEWORK）
-     * @param data       业务数据载荷
+     * @param payload    类型化业务载荷（须与 type.getPayloadType() 一致）
+     * @return Redis Stream 消息 ID（如 "1234567890-0"）；发布失败返回 null
+     */
+    public String publish(EventType type, String sourceName, EventPayload payload) {
+        StringRecord record = toRecord(UUID.randomUUID().toString(), type, sourceName, payload);
+        return record != null ? addRecord(record) : null;
+    }
+
+    /**
+     * 发布事件到 Redis Stream（Map 形式的业务数据，字段名须与载荷类型的属性名一致）
+     *
      * @return Redis Stream 消息 ID（如 "1234567890-0"）；发布失败返回 null
      */
     public String publish(EventType type, String sourceName, Map<String, Object> data) {
-        // 1. 构建统一消息体
-        EventMessage message = EventMessage.builder()
-                .id(UUID.randomUUID().toString())
-                .type(type.name())
-                .source(sourceName)
-                .data(data)
-                .timestamp(LocalDateTime.now())
-                .build();
-
-        // 2. 序列化为扁平 Map（Redis Stream 要求 Map<String, String>）
-        Map<String, String> messageMap = new HashMap<>();
+        StringRecord record = toRecord(UUID.randomUUID().toString(), type, sourceName, data);
+        return record != null ? addRecord(record) : null;
+    }
+
+    /**
+     * 异步发布事件到 Redis Stream，适用于不需要消息 ID 的调用方（如请求线程内的业务事件）。
+     * 未开启异步模式时同步发布。
+     *
+     * @return 以 Redis Stream 消息 ID 完成的 Future；发布失败或被丢弃时以 null 完成
+     */
+    public CompletableFuture<String> publishAsync(EventType type, String sourceName, EventPayload payload) {
+        return submit(toRecord(UUID.randomUUID().toString(), type, sourceName, payload));
+    }
+
+    /**
+     * 异步发布事件到 Redis Stream（Map 形式的业务数据）
+     */
+    public CompletableFuture<String> publishAsync(EventType type, String sourceName, Map<String, Object> data) {
+        return submit(toRecord(UUID.randomUUID().toString(), type, sourceName, data));
+    }
+
+    private CompletableFuture<String> submit(StringRecord record) {
+        if (record == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        StreamPublishBuffer current = buffer;
+        if (current == null) {
+            return CompletableFuture.completedFuture(addRecord(record));
+        }
+        return current.submit(record);
+    }
+
+    /**
+     * 按当前编码格式构建 Stream 消息（Redis Stream 要求 Map<String, String>），编码失败返回 null
+     *
+     * @param messageId 消息唯一标识（UUID）
+     * @param data      类型化载荷或 Map 形式的业务数据
+     */
+    StringRecord toRecord(String messageId, EventType type, String sourceName, Object data) {
         try {
-            messageMap.put("id", message.getId());
-            messageMap.put("type", message.getType());
-            messageMap.put("source", message.getSource());
-            messageMap.put("timestamp", message.getTimestamp().toString());
-            messageMap.put("data", objectMapper.writeValueAsString(message.getData()));
-        } catch (JsonProcessingException e) {
-            log.error("事件序列化失败: type={}, error={}", type, e.getMessage());
+            Map<String, String> fields = EventCodec.encode(codec, messageId, type, sourceName, LocalDateTime.now(), data);
+            return StreamRecords.string(fields).withStreamKey(type.getStreamKey());
+        } catch (RuntimeException e) {
+            log.error("事件序列化失败: type={}, codec={}, error={}", type, codec, e.getMessage());
             return null;
         }
+    }
 
-        // 3. 写入 Redis Stream（Stream 不存在时自动创建）
-        String streamKey = type.getStreamKey();
+    /**
+     * 写入 Redis Stream（Stream 不存在时自动创建）
+     */
+    private String addRecord(StringRecord record) {
+        long startNanos = System.nanoTime();
         try {
-            StringRecord record = StreamRecords.string(messageMap).withStreamKey(streamKey);
             RecordId recordId = redisTemplate.opsForStream().add(record);
+            syncLatency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
 
-            log.info("事件发布成功: stream={}, recordId={}, type={}, messageId={}",
-                    streamKey, recordId, type, message.getId());
+            log.info("事件发布成功: stream={}, recordId={}", record.getStream(), recordId);
 
             return recordId != null ? recordId.getValue() : null;
         } catch (Exception e) {
-            log.error("事件发布失败: stream={}, type={}, error={}", streamKey, type, e.getMessage());
+            log.error("事件发布失败: stream={}, error={}", record.getStream(), e.getMessage());
             return null;
         }
     }
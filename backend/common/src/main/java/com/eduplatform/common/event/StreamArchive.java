@@ -0,0 +1,183 @@
+package com.eduplatform.common.event;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 事件 Stream 冷归档
+ * StreamRetentionManager 裁剪 Stream 前，把待裁剪的区间按批写入 PostgreSQL 表 event_stream_archive，
+ * 每批一行：记录 ID 与原字段序列化为 JSON 数组后 GZIP 压缩存入 BYTEA，只保留区间首尾 ID 与条数作为索引列。
+ *
+ * 写入以 (stream_key, first_record_id) 唯一，裁剪前实例崩溃导致同一批被再次归档时不会重复写入。
+ * 重放时读取指定归档批次，把原字段重新 XADD 到来源 Stream（生成新的记录 ID），
+ * 各消费组再次收到这些事件，处理过且去重标记未过期的由幂等监听器直接 ACK。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class StreamArchive {
+
+    static final String INSERT_SQL = "INSERT INTO event_stream_archive "
+            + "(stream_key, first_record_id, last_record_id, record_count, payload, archived_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (stream_key, first_record_id) DO NOTHING";
+
+    static final String LIST_SQL = "SELECT id, stream_key, first_record_id, last_record_id, record_count, "
+            + "octet_length(payload), archived_at FROM event_stream_archive "
+            + "WHERE stream_key = ? ORDER BY id DESC LIMIT ?";
+
+    static final String LOAD_SQL = "SELECT payload FROM event_stream_archive WHERE id = ? AND stream_key = ?";
+
+    private static final TypeReference<List<ArchivedRecord>> RECORDS_TYPE = new TypeReference<>() {
+    };
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+    private final StringRedisTemplate redisTemplate;
+
+    public StreamArchive(ObjectProvider<JdbcTemplate> jdbcTemplate, StringRedisTemplate redisTemplate) {
+        this.jdbcTemplateProvider = jdbcTemplate;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * 当前服务是否配置了数据源（未配置时无法归档，StreamRetentionManager 不会裁剪）
+     */
+    public boolean isAvailable() {
+        return jdbcTemplateProvider.getIfAvailable() != null;
+    }
+
+    /**
+     * 归档一批连续的 Stream 记录（按 ID 升序）
+     *
+     * @return 压缩后的字节数
+     */
+    public int archive(String stream, List<MapRecord<String, String, String>> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        byte[] payload = compress(records.stream()
+                .map(record -> new ArchivedRecord(record.getId().getValue(), record.getValue()))
+                .toList());
+        jdbcTemplate().update(INSERT_SQL,
+                stream,
+                records.get(0).getId().getValue(),
+                records.get(records.size() - 1).getId().getValue(),
+                records.size(),
+                payload,
+                Timestamp.valueOf(LocalDateTime.now()));
+        return payload.length;
+    }
+
+    /**
+     * 最近的归档批次（按归档顺序倒序）
+     */
+    public List<ArchiveBatch> list(EventType type, int limit) {
+        return jdbcTemplate().query(LIST_SQL, (rs, rowNum) -> new ArchiveBatch(
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4),
+                rs.getInt(5), rs.getLong(6), rs.getTimestamp(7).toLocalDateTime()),
+                type.getStreamKey(), limit);
+    }
+
+    /**
+     * 读取一个归档批次中的全部记录
+     */
+    public List<ArchivedRecord> load(EventType type, long batchId) {
+        List<byte[]> rows = jdbcTemplate().query(LOAD_SQL, (rs, rowNum) -> rs.getBytes(1),
+                batchId, type.getStreamKey());
+        return rows.isEmpty() ? List.of() : decompress(rows.get(0));
+    }
+
+    /**
+     * 把一个归档批次重新写回来源 Stream（一次 Pipeline），返回写入条数
+     */
+    public int replay(EventType type, long batchId) {
+        String stream = type.getStreamKey();
+        List<ArchivedRecord> records = load(type, batchId);
+        if (records.isEmpty()) {
+            return 0;
+        }
+        List<StringRecord> toAdd = new ArrayList<>(records.size());
+        for (ArchivedRecord record : records) {
+            if (!record.fields().containsKey(RedisStreamConstants.STREAM_INIT_FIELD)) {
+                toAdd.add(StreamRecords.string(record.fields()).withStreamKey(stream));
+            }
+        }
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                toAdd.forEach(record -> ops.opsForStream().add(record));
+                return null;
+            }
+        });
+        log.info("归档事件已重放: stream={}, batchId={}, count={}", stream, batchId, toAdd.size());
+        return toAdd.size();
+    }
+
+    static byte[] compress(List<ArchivedRecord> records) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            OBJECT_MAPPER.writeValue(gzip, records);
+        } catch (IOException e) {
+            throw new UncheckedIOException("归档记录压缩失败", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<ArchivedRecord> decompress(byte[] payload) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            return OBJECT_MAPPER.readValue(gzip, RECORDS_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("归档记录解压失败", e);
+        }
+    }
+
+    private JdbcTemplate jdbcTemplate() {
+        JdbcTemplate jdbcTemplate = jdbcTemplateProvider.getIfAvailable();
+        if (jdbcTemplate == null) {
+            throw new IllegalStateException("当前服务未配置数据源，无法访问事件归档");
+        }
+        return jdbcTemplate;
+    }
+
+    /**
+     * 归档中的一条 Stream 记录
+     *
+     * @param id     原记录 ID
+     * @param fields 原消息字段
+     */
+    public record ArchivedRecord(String id, Map<String, String> fields) {
+    }
+
+    /**
+     * 归档批次摘要
+     */
+    public record ArchiveBatch(long id, String stream, String firstRecordId, String lastRecordId,
+                               int recordCount, long compressedBytes, LocalDateTime archivedAt) {
+    }
+}
@@ -0,0 +1,299 @@
+package com.eduplatform.common.event;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.stream.StreamListener;
+import org.springframework.data.redis.stream.StreamMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stream 消费端公共支撑
+ * 统一各服务 RedisStreamConfig 中的订阅注册，使同一服务的多个副本可以水平扩展消费。
+ *
+ * 核心机制：
+ * 1. 消费者名称按实例区分：{服务名}:{实例ID}，实例 ID 默认取主机名（容器内即 Pod 名）+ 进程号，
+ *    多副本在同一消费组内各自认领消息，不再共用 "服务名:1"
+ * 2. 按键分道：IdempotentStreamListener 绑定 KeyedLaneExecutor，并发度按 Stream 配置
+ *    （edu.event.consumer.concurrency.{Stream 后缀}），同一顺序键的事件在实例内保持顺序
+ * 3. 批量消费：subscribeBatch 注册的 BatchStreamListener 由本类在虚拟线程上轮询，
+ *    每次 XREADGROUP COUNT batch-size 读取一批整体交给监听器，批内按顺序键分区并行
+ * 4. 订阅时同时登记到 PendingMessageReclaimer，处理失败的消息可被回收重投递
+ * 5. 清理：启动时删除本消费组中长期空闲且无 pending 消息的旧消费者（如已下线的实例），
+ *    停机时排空处理道，若本实例已无 pending 消息则删除自身消费者；仍有 pending 时保留，由其它实例回收
+ *
+ * 注意：消费组按消息而不是按键分配给各实例，顺序保证只在单个实例内成立。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class StreamConsumerSupport {
+
+    private final StringRedisTemplate redisTemplate;
+    private final PendingMessageReclaimer pendingMessageReclaimer;
+    private final Environment environment;
+    private final String consumerName;
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final Map<IdempotentStreamListener<?>, Integer> laneConcurrency = new LinkedHashMap<>();
+    private final List<KeyedLaneExecutor> laneExecutors = new ArrayList<>();
+    private final List<BatchSubscription> batchSubscriptions = new ArrayList<>();
+    private final List<Thread> batchPollers = new ArrayList<>();
+    private volatile boolean polling;
+
+    @Value("${edu.event.consumer.default-concurrency:4}")
+    private int defaultConcurrency = 4;
+
+    /** 单次 XREADGROUP 读取的最大记录数 */
+    @Value("${edu.event.consumer.batch-size:100}")
+    private int batchSize = 100;
+
+    /** XREADGROUP 无新消息时的阻塞等待时长 */
+    @Value("${edu.event.consumer.poll-timeout-millis:1000}")
+    private long pollTimeoutMillis = 1000;
+
+    @Value("${edu.event.consumer.lane-queue-capacity:256}")
+    private int laneQueueCapacity = 256;
+
+    /** 空闲超过该时长且无 pending 消息的其它消费者视为已下线 */
+    @Value("${edu.event.consumer.stale-consumer-idle-millis:3600000}")
+    private long staleConsumerIdleMillis = 3600000;
+
+    @Value("${edu.event.consumer.shutdown-timeout-millis:10000}")
+    private long shutdownTimeoutMillis = 10000;
+
+    public StreamConsumerSupport(StringRedisTemplate redisTemplate,
+                                 PendingMessageReclaimer pendingMessageReclaimer,
+                                 Environment environment,
+                                 @Value("${spring.application.name:edu-service}") String serviceName,
+                                 @Value("${edu.event.consumer.instance-id:}") String instanceId) {
+        this.redisTemplate = redisTemplate;
+        this.pendingMessageReclaimer = pendingMessageReclaimer;
+        this.environment = environment;
+        this.consumerName = resolveConsumerName(serviceName, instanceId);
+    }
+
+    /**
+     * 本实例在各消费组中使用的消费者名称
+     */
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    /**
+     * 单次 XREADGROUP 读取的最大记录数，供各服务配置 StreamMessageListenerContainer
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * XREADGROUP 的阻塞等待时长，供各服务配置 StreamMessageListenerContainer
+     */
+    public Duration getPollTimeout() {
+        return Duration.ofMillis(pollTimeoutMillis);
+    }
+
+    /**
+     * 以本实例的消费者身份订阅一个 Stream（从消费组的最后消费位置开始），并登记 pending 回收
+     */
+    public synchronized void subscribe(StreamMessageListenerContainer<String, MapRecord<String, String, String>> container,
+                                       EventType type, String group,
+                                       StreamListener<String, MapRecord<String, String, String>> listener) {
+        String stream = type.getStreamKey();
+        container.receive(
+                Consumer.from(group, consumerName),
+                StreamOffset.create(stream, ReadOffset.lastConsumed()),
+                listener);
+        pendingMessageReclaimer.register(type, group, consumerName, listener);
+        subscriptions.add(new Subscription(stream, group));
+
+        if (listener instanceof IdempotentStreamListener<?> idempotent) {
+            // 多个 Stream 共用一个监听器时共用处理道，取各 Stream 配置中的最大并发度
+            laneConcurrency.merge(idempotent, concurrency(type), Math::max);
+        }
+        pruneStaleConsumers(stream, group);
+    }
+
+    /**
+     * 以本实例的消费者身份批量订阅一个 Stream：由本类在虚拟线程上按 batch-size 批量读取，整批交给监听器
+     */
+    public synchronized void subscribeBatch(EventType type, String group, BatchStreamListener<?> listener) {
+        String stream = type.getStreamKey();
+        listener.bindConcurrency(concurrency(type));
+        pendingMessageReclaimer.register(type, group, consumerName, listener);
+        subscriptions.add(new Subscription(stream, group));
+        batchSubscriptions.add(new BatchSubscription(stream, group, listener));
+        pruneStaleConsumers(stream, group);
+    }
+
+    /**
+     * 为已订阅的监听器创建处理道、启动批量轮询，并启动容器
+     */
+    public synchronized void start(StreamMessageListenerContainer<String, MapRecord<String, String, String>> container) {
+        startWorkers();
+        container.start();
+    }
+
+    /**
+     * 仅有批量订阅时使用：启动批量轮询
+     */
+    public synchronized void start() {
+        startWorkers();
+    }
+
+    private void startWorkers() {
+        laneConcurrency.forEach((listener, lanes) -> {
+            KeyedLaneExecutor executor = new KeyedLaneExecutor(
+                    "stream-" + listener.getClass().getSimpleName(), lanes, laneQueueCapacity);
+            listener.bindLanes(executor);
+            laneExecutors.add(executor);
+        });
+        polling = true;
+        for (BatchSubscription subscription : batchSubscriptions) {
+            batchPollers.add(Thread.ofVirtual()
+                    .name("stream-batch-" + subscription.stream())
+                    .start(() -> pollBatches(subscription)));
+        }
+        log.info("Redis Stream 消费者已启动: consumer={}, subscriptions={}, batchSubscriptions={}, lanes={}",
+                consumerName, subscriptions.size(), batchSubscriptions.size(), laneConcurrency.values());
+    }
+
+    /**
+     * 批量轮询：XREADGROUP COUNT batch-size BLOCK poll-timeout，读到的记录整批交给监听器
+     */
+    private void pollBatches(BatchSubscription subscription) {
+        Consumer consumer = Consumer.from(subscription.group(), consumerName);
+        StreamReadOptions options = StreamReadOptions.empty().count(batchSize).block(getPollTimeout());
+        StreamOffset<String> offset = StreamOffset.create(subscription.stream(), ReadOffset.lastConsumed());
+        while (polling) {
+            try {
+                List<MapRecord<String, Object, Object>> records =
+                        redisTemplate.opsForStream().read(consumer, options, offset);
+                if (records == null || records.isEmpty()) {
+                    continue;
+                }
+                subscription.listener().onBatch(subscription.stream(),
+                        records.stream().map(PendingMessageReclaimer::toStringRecord).toList());
+            } catch (RuntimeException e) {
+                if (!polling) {
+                    return;
+                }
+                log.error("批量读取 Stream 失败: stream={}, group={}, error={}",
+                        subscription.stream(), subscription.group(), e.getMessage());
+                try {
+                    Thread.sleep(pollTimeoutMillis);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 停机：容器已随生命周期停止轮询，此处停止批量轮询（等待进行中的批次完成）、排空处理道并注销本实例的消费者
+     */
+    @PreDestroy
+    synchronized void shutdown() {
+        Duration timeout = Duration.ofMillis(shutdownTimeoutMillis);
+        polling = false;
+        for (Thread poller : batchPollers) {
+            try {
+                poller.join(pollTimeoutMillis + shutdownTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (KeyedLaneExecutor executor : laneExecutors) {
+            executor.shutdown(timeout);
+        }
+        for (Subscription subscription : subscriptions) {
+            removeConsumerIfIdle(subscription.stream(), subscription.group(), consumerName, 0L);
+        }
+    }
+
+    /**
+     * 指定 Stream 的处理并发度：edu.event.consumer.concurrency.{Stream 后缀}，未配置时取默认值
+     */
+    int concurrency(EventType type) {
+        Integer configured = environment.getProperty(
+                "edu.event.consumer.concurrency." + type.getStreamSuffix(), Integer.class);
+        return Math.max(1, configured != null ? configured : defaultConcurrency);
+    }
+
+    private void pruneStaleConsumers(String stream, String group) {
+        try {
+            StreamInfo.XInfoConsumers consumers = redisTemplate.opsForStream().consumers(stream, group);
+            for (StreamInfo.XInfoConsumer consumer : consumers) {
+                if (!consumer.consumerName().equals(consumerName)) {
+                    removeConsumerIfIdle(stream, group, consumer.consumerName(), staleConsumerIdleMillis);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("清理下线消费者失败: stream={}, group={}, error={}", stream, group, e.getMessage());
+        }
+    }
+
+    /**
+     * 消费者无 pending 消息且空闲超过 minIdleMillis 时删除（有 pending 时删除会丢失这些消息的认领记录）
+     */
+    private void removeConsumerIfIdle(String stream, String group, String name, long minIdleMillis) {
+        try {
+            for (StreamInfo.XInfoConsumer consumer : redisTemplate.opsForStream().consumers(stream, group)) {
+                if (consumer.consumerName().equals(name)
+                        && consumer.pendingCount() == 0
+                        && consumer.idleTimeMs() >= minIdleMillis) {
+                    redisTemplate.opsForStream().deleteConsumer(stream, Consumer.from(group, name));
+                    log.info("已删除消费者: stream={}, group={}, consumer={}", stream, group, name);
+                    return;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("删除消费者失败: stream={}, group={}, consumer={}, error={}",
+                    stream, group, name, e.getMessage());
+        }
+    }
+
+    /**
+     * 消费者名称：{服务名}:{实例ID}；未配置实例 ID 时使用 主机名-进程号
+     */
+    static String resolveConsumerName(String serviceName, String instanceId) {
+        String instance = instanceId != null && !instanceId.isBlank()
+                ? instanceId.trim()
+                : hostName() + "-" + ProcessHandle.current().pid();
+        return serviceName + ":" + instance;
+    }
+
+    private static String hostName() {
+        String hostname = System.getenv("HOSTNAME");
+        if (hostname != null && !hostname.isBlank()) {
+            return hostname;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    private record Subscription(String stream, String group) {
+    }
+
+    private record BatchSubscription(String stream, String group, BatchStreamListener<?> listener) {
+    }
+}
@@ -0,0 +1,313 @@
+package com.eduplatform.common.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Redis Stream 异步发布缓冲区
+ * 业务线程只负责入队，由单个后台线程按批量大小或等待时间攒批，
+ * 通过 Pipeline 一次往返写入多条 XADD，避免截止时间前的提交高峰逐条占用请求线程。
+ *
+ * 核心机制：
+ * 1. 有界队列：容量满时按 OverflowPolicy 处理，不会无限占用内存
+ * 2. 攒批：首条消息入批后最多等待 linger，或凑满 batchSize 立即发送
+ * 3. 失败重试一次，只重试没有拿到 RecordId 的消息（已写入的不重复发送），仍失败则记录日志并以 null 完成（与同步发布失败语义一致）
+ * 4. 关闭时停止攒批，在超时内把队列中剩余消息发送完；超时后队列中未发送的消息以 null 完成，不让调用方无限等待
+ *
+ * @author Antigravity
+ */
+@Slf4j
+class StreamPublishBuffer {
+
+    /**
+     * 缓冲区满时的处理策略
+     */
+    enum OverflowPolicy {
+        /** 由调用线程同步发布（退化为原有行为，不丢消息），默认策略 */
+        CALLER_RUNS,
+        /** 阻塞等待空位，超过 blockTimeout 后由调用线程同步发布 */
+        BLOCK,
+        /** 直接丢弃并计数，适用于可丢失的通知类事件 */
+        DROP
+    }
+
+    private static final Duration RETRY_BACKOFF = Duration.ofMillis(200);
+
+    private final StringRedisTemplate redisTemplate;
+    private final BlockingQueue<PendingRecord> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final Duration blockTimeout;
+    private final Function<StringRecord, String> syncPublisher;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    private final Timer asyncLatency;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+    private final Counter droppedCounter;
+    private final Counter callerRunsCounter;
+
+    StreamPublishBuffer(
+            StringRedisTemplate redisTemplate,
+            int capacity,
+            int batchSize,
+            Duration linger,
+            OverflowPolicy overflowPolicy,
+            Duration blockTimeout,
+            Function<StringRecord, String> syncPublisher,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = Math.max(0, linger.toNanos());
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeout = blockTimeout;
+        this.syncPublisher = syncPublisher;
+
+        this.asyncLatency = Timer.builder("event.publish.latency")
+                .description("事件从提交到 Redis 确认写入的耗时")
+                .tag("mode", "async")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("event.publish.batch.size")
+                .description("每次 Pipeline 写入的事件数")
+                .register(meterRegistry);
+        this.publishedCounter = resultCounter(meterRegistry, "published");
+        this.failedCounter = resultCounter(meterRegistry, "failed");
+        this.droppedCounter = resultCounter(meterRegistry, "dropped");
+        this.callerRunsCounter = resultCounter(meterRegistry, "caller_runs");
+        Gauge.builder("event.publish.buffer.depth", queue, BlockingQueue::size)
+                .description("异步发布缓冲区中待发送的事件数")
+                .register(meterRegistry);
+        Gauge.builder("event.publish.buffer.capacity", queue, q -> q.size() + q.remainingCapacity())
+                .description("异步发布缓冲区容量")
+                .register(meterRegistry);
+
+        this.flusher = new Thread(this::runFlushLoop, "redis-stream-publisher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 提交一条待发布记录，返回的 Future 以 Stream 消息 ID 完成，发布失败或被丢弃时以 null 完成。
+     */
+    CompletableFuture<String> submit(StringRecord record) {
+        PendingRecord pending = new PendingRecord(record, System.nanoTime(), new CompletableFuture<>());
+        if (running && queue.offer(pending)) {
+            return pending.future();
+        }
+        if (running && overflowPolicy == OverflowPolicy.BLOCK && offerWithTimeout(pending)) {
+            return pending.future();
+        }
+        if (running && overflowPolicy == OverflowPolicy.DROP) {
+            droppedCounter.increment();
+            log.warn("事件发布缓冲区已满，丢弃事件: stream={}, capacity={}",
+                    record.getStream(), queue.remainingCapacity() + queue.size());
+            pending.future().complete(null);
+            return pending.future();
+        }
+        // 缓冲区已满或已关闭：由调用线程同步发布
+        callerRunsCounter.increment();
+        pending.future().complete(syncPublisher.apply(record));
+        return pending.future();
+    }
+
+    int depth() {
+        return queue.size();
+    }
+
+    /**
+     * 停止接收新消息，并在超时内发送完队列中的剩余消息。
+     */
+    void close(Duration timeout) {
+        running = false;
+        try {
+            flusher.join(timeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingRecord> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (flusher.isAlive()) {
+            // 发布线程卡在 Redis 调用中，同步发布大概率同样阻塞：剩余消息按发布失败处理，
+            // 发布线程手中的当前批次由其自行完成
+            log.warn("异步发布线程未在超时内退出，放弃剩余事件: {}", rest.size());
+            for (PendingRecord pending : rest) {
+                failedCounter.increment();
+                pending.future().complete(null);
+            }
+            return;
+        }
+        // 与关闭并发提交、未被后台线程取走的消息，由关闭线程同步发布
+        for (PendingRecord pending : rest) {
+            pending.future().complete(syncPublisher.apply(pending.record()));
+        }
+    }
+
+    private boolean offerWithTimeout(PendingRecord pending) {
+        try {
+            return queue.offer(pending, blockTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void runFlushLoop() {
+        List<PendingRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // 发布线程被中断视为关闭：后续提交由调用线程同步发布，已入队的消息继续发完
+                log.warn("Redis Stream 异步发布线程被中断，转为同步发布");
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    flush(batch);
+                } catch (RuntimeException e) {
+                    // 兜底：任何未预期异常都不能让发布线程退出，否则后续事件会一直堆积
+                    log.error("事件批量发布出现未预期异常: size={}", batch.size(), e);
+                    batch.forEach(pending -> pending.future().complete(null));
+                }
+                batch.clear();
+            }
+        }
+        log.info("Redis Stream 异步发布线程已退出");
+    }
+
+    /**
+     * 攒批：阻塞等待首条消息，随后在 linger 时间内尽量凑满 batchSize。
+     */
+    private void collect(List<PendingRecord> batch) throws InterruptedException {
+        if (!running) {
+            queue.drainTo(batch, batchSize);
+            return;
+        }
+        PendingRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                return;
+            }
+            PendingRecord next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<PendingRecord> batch) {
+        batchSizeSummary.record(batch.size());
+        String[] recordIds = new String[batch.size()];
+        List<Integer> unsent = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            unsent.add(i);
+        }
+        unsent = pipelineAdd(batch, unsent, recordIds);
+        if (!unsent.isEmpty()) {
+            log.warn("事件批量发布部分失败，准备重试未写入的消息: size={}, unsent={}", batch.size(), unsent.size());
+            try {
+                Thread.sleep(RETRY_BACKOFF.toMillis());
+                unsent = pipelineAdd(batch, unsent, recordIds);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingRecord pending = batch.get(i);
+            String recordId = recordIds[i];
+            if (recordId == null) {
+                failedCounter.increment();
+                log.error("事件发布失败: stream={}", pending.record().getStream());
+            } else {
+                publishedCounter.increment();
+                asyncLatency.record(now - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            }
+            pending.future().complete(recordId);
+        }
+    }
+
+    /**
+     * 以 Pipeline 写入 batch 中指定下标的消息，把拿到的 RecordId 填入 recordIds。
+     * Pipeline 中个别命令失败时 Spring 抛出 RedisPipelineException，其中仍带有成功命令的结果，
+     * 据此只把失败的消息留给重试，避免已写入的消息重复进入 Stream。
+     *
+     * @return 仍未拿到 RecordId 的下标
+     */
+    private List<Integer> pipelineAdd(List<PendingRecord> batch, List<Integer> indices, String[] recordIds) {
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public Object execute(RedisOperations operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    for (int index : indices) {
+                        ops.opsForStream().add(batch.get(index).record());
+                    }
+                    return null;
+                }
+            });
+        } catch (RedisPipelineException e) {
+            log.warn("事件批量发布部分命令失败: size={}, error={}", indices.size(), e.getMessage());
+            results = e.getPipelineResult();
+        } catch (RuntimeException e) {
+            log.warn("事件批量发布失败: size={}, error={}", indices.size(), e.getMessage());
+            results = List.of();
+        }
+
+        List<Integer> unsent = new ArrayList<>();
+        for (int i = 0; i < indices.size(); i++) {
+            Object result = results != null && i < results.size() ? results.get(i) : null;
+            if (result instanceof RecordId id) {
+                recordIds[indices.get(i)] = id.getValue();
+            } else {
+                unsent.add(indices.get(i));
+            }
+        }
+        return unsent;
+    }
+
+    private static Counter resultCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("event.publish.events")
+                .description("异步发布结果：published=已写入，failed=写入失败，dropped=缓冲区满被丢弃，caller_runs=缓冲区满由调用线程同步发布")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record PendingRecord(StringRecord record, long enqueuedNanos, CompletableFuture<String> future) {
+    }
+}
@@ -0,0 +1,334 @@
+package com.eduplatform.common.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.Limit;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 事件 Stream 保留策略
+ * 发布端 XADD 不带 MAXLEN/MINID，各 stream:edu:* 会无限增长。本组件由后台线程定期按事件类型的保留策略
+ * （最大条数 edu.event.retention.streams.{后缀}.max-length、最长保留时间 .max-age-hours）裁剪 Stream 头部，
+ * 裁剪前先把待裁剪区间按批归档到 event_stream_archive（见 StreamArchive），之后仍可重放。
+ *
+ * 安全边界：只裁剪所有消费组都已读过、且不在任何消费组 pending list 中的记录，
+ * 即记录 ID 必须小于各消费组 last-delivered-id 与最早 pending ID 中的最小值。
+ * 消费组落后或有消息待重试时，超出策略的记录会继续保留，直到消费组追上；
+ * 尚未创建消费组的 Stream 没有需要保护的读取位置，只按策略裁剪。
+ *
+ * 处理流程（每个 Stream、每轮至多 max-batches-per-run 批）：
+ * 1. XRANGE 读取头部 batch-size 条，计算其中满足策略且在安全边界之前的前缀
+ * 2. 归档该前缀（一批一行，ON CONFLICT 去重），然后 XTRIM MINID 到前缀之后
+ * 3. 前缀不足一批说明已到达策略或安全边界，结束本 Stream 的本轮处理
+ *
+ * 多副本同时开启时，通过 Redis 锁保证每轮只有一个实例执行裁剪；长度与内存指标各实例都会刷新。
+ * 指标：event.stream.length、event.stream.memory、event.stream.trimmed、event.stream.archived。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class StreamRetentionManager {
+
+    static final String LOCK_KEY = "event:retention:lock";
+
+    private final StringRedisTemplate redisTemplate;
+    private final StreamArchive streamArchive;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Map<EventType, StreamStats> stats = new EnumMap<>(EventType.class);
+
+    @Value("${edu.event.retention.enabled:false}")
+    private boolean enabled;
+
+    @Value("${edu.event.retention.interval-millis:60000}")
+    private long intervalMillis = 60000;
+
+    /** 默认最大条数，0 表示不按条数裁剪 */
+    @Value("${edu.event.retention.default-max-length:100000}")
+    private long defaultMaxLength = 100000;
+
+    /** 默认最长保留时间，0 表示不按时间裁剪 */
+    @Value("${edu.event.retention.default-max-age-hours:168}")
+    private long defaultMaxAgeHours = 168;
+
+    /** 单批读取、归档与裁剪的条数 */
+    @Value("${edu.event.retention.batch-size:500}")
+    private int batchSize = 500;
+
+    /** 每个 Stream 每轮最多处理的批数，避免积压过多时单轮耗时过长 */
+    @Value("${edu.event.retention.max-batches-per-run:20}")
+    private int maxBatchesPerRun = 20;
+
+    /** 是否在裁剪前归档；开启但当前服务没有数据源时不裁剪 */
+    @Value("${edu.event.retention.archive.enabled:true}")
+    private boolean archiveEnabled = true;
+
+    private Thread worker;
+    private volatile boolean running;
+
+    @Autowired
+    public StreamRetentionManager(StringRedisTemplate redisTemplate,
+                                  StreamArchive streamArchive,
+                                  Environment environment,
+                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        this(redisTemplate, streamArchive, environment, meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    StreamRetentionManager(StringRedisTemplate redisTemplate, StreamArchive streamArchive,
+                           Environment environment, MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.streamArchive = streamArchive;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        if (archiveEnabled && !streamArchive.isAvailable()) {
+            log.warn("事件 Stream 保留策略未启动：已开启归档但当前服务没有数据源");
+            return;
+        }
+        for (EventType type : EventType.values()) {
+            stats.put(type, registerMeters(type));
+        }
+        running = true;
+        worker = new Thread(this::runLoop, "stream-retention");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("事件 Stream 保留策略已启动: intervalMillis={}, defaultMaxLength={}, defaultMaxAgeHours={}, archive={}",
+                intervalMillis, defaultMaxLength, defaultMaxAgeHours, archiveEnabled);
+    }
+
+    @PreDestroy
+    void stop() {
+        Thread current = worker;
+        if (current == null) {
+            return;
+        }
+        running = false;
+        current.interrupt();
+        try {
+            current.join(intervalMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    private void runLoop() {
+        while (running) {
+            boolean leader = tryAcquireLock();
+            for (EventType type : EventType.values()) {
+                try {
+                    if (leader) {
+                        retainOnce(type);
+                    }
+                    refreshStats(type);
+                } catch (RuntimeException e) {
+                    log.warn("事件 Stream 保留策略执行失败: stream={}, error={}", type.getStreamKey(), e.getMessage());
+                }
+            }
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+        log.info("事件 Stream 保留策略线程已退出");
+    }
+
+    /**
+     * 按策略归档并裁剪一个 Stream 的头部，返回本轮裁剪的条数
+     */
+    long retainOnce(EventType type) {
+        String stream = type.getStreamKey();
+        Long size = redisTemplate.opsForStream().size(stream);
+        if (size == null || size == 0) {
+            return 0;
+        }
+        long maxLength = policy(type, "max-length", defaultMaxLength);
+        long maxAgeHours = policy(type, "max-age-hours", defaultMaxAgeHours);
+        long overLength = maxLength > 0 ? Math.max(0, size - maxLength) : 0;
+        String ageCutoff = maxAgeHours > 0
+                ? (System.currentTimeMillis() - Duration.ofHours(maxAgeHours).toMillis()) + "-0"
+                : null;
+        if (overLength == 0 && ageCutoff == null) {
+            return 0;
+        }
+        String safeBoundary = safeBoundary(stream);
+
+        long trimmed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<MapRecord<String, Object, Object>> head = redisTemplate.opsForStream()
+                    .range(stream, Range.unbounded(), Limit.limit().count(batchSize));
+            if (head == null || head.isEmpty()) {
+                break;
+            }
+            List<String> ids = head.stream().map(record -> record.getId().getValue()).toList();
+            int count = trimmableCount(ids, overLength - trimmed, ageCutoff, safeBoundary);
+            if (count == 0) {
+                break;
+            }
+
+            if (archiveEnabled) {
+                streamArchive.archive(stream, head.subList(0, count).stream()
+                        .map(PendingMessageReclaimer::toStringRecord).toList());
+                stats.get(type).archived().increment(count);
+            }
+            Long removed = trimBefore(stream, PendingMessageReclaimer.nextId(ids.get(count - 1)));
+            long removedCount = removed != null ? removed : 0;
+            trimmed += removedCount;
+            stats.get(type).trimmed().increment(removedCount);
+            if (count < head.size()) {
+                break;
+            }
+        }
+        if (trimmed > 0) {
+            log.info("事件 Stream 已裁剪: stream={}, trimmed={}, safeBoundary={}", stream, trimmed, safeBoundary);
+        }
+        return trimmed;
+    }
+
+    /**
+     * 头部记录中可裁剪的前缀长度：满足任一策略（超出条数或超过保留时间）且严格早于安全边界
+     *
+     * @param ids               头部记录 ID（升序）
+     * @param remainingByLength 按条数策略还需裁剪的条数
+     * @param ageCutoff         早于该 ID 的记录已超过保留时间，null 表示不按时间裁剪
+     * @param safeBoundary      安全边界，null 表示不受消费组限制
+     */
+    static int trimmableCount(List<String> ids, long remainingByLength, String ageCutoff, String safeBoundary) {
+        int count = 0;
+        for (String id : ids) {
+            if (safeBoundary != null && compareIds(id, safeBoundary) >= 0) {
+                break;
+            }
+            boolean expired = ageCutoff != null && compareIds(id, ageCutoff) < 0;
+            if (count >= remainingByLength && !expired) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 各消费组 last-delivered-id 与最早 pending ID 中的最小值；没有消费组时返回 null
+     */
+    String safeBoundary(String stream) {
+        String boundary = null;
+        StreamInfo.XInfoGroups groups = redisTemplate.opsForStream().groups(stream);
+        for (StreamInfo.XInfoGroup group : groups) {
+            boundary = min(boundary, group.lastDeliveredId());
+            if (group.pendingCount() != null && group.pendingCount() > 0) {
+                PendingMessagesSummary pending = redisTemplate.opsForStream().pending(stream, group.groupName());
+                if (pending != null && pending.getTotalPendingMessages() > 0) {
+                    boundary = min(boundary, pending.minMessageId());
+                }
+            }
+        }
+        return boundary;
+    }
+
+    static int compareIds(String left, String right) {
+        RecordId a = RecordId.of(left);
+        RecordId b = RecordId.of(right);
+        int byTimestamp = Long.compare(a.getTimestamp(), b.getTimestamp());
+        return byTimestamp != 0 ? byTimestamp : Long.compare(a.getSequence(), b.getSequence());
+    }
+
+    private static String min(String current, String candidate) {
+        if (candidate == null) {
+            return current;
+        }
+        return current == null || compareIds(candidate, current) < 0 ? candidate : current;
+    }
+
+    private long policy(EventType type, String name, long defaultValue) {
+        Long configured = environment.getProperty(
+                "edu.event.retention.streams." + type.getStreamSuffix() + "." + name, Long.class);
+        return configured != null ? configured : defaultValue;
+    }
+
+    private boolean tryAcquireLock() {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                    .setIfAbsent(LOCK_KEY, "1", Duration.ofMillis(Math.max(1000, intervalMillis - 1000))));
+        } catch (RuntimeException e) {
+            log.debug("获取 Stream 保留策略锁失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private Long trimBefore(String stream, String minId) {
+        return redisTemplate.execute((RedisCallback<Long>) connection -> (Long) connection.execute("XTRIM",
+                bytes(stream), bytes("MINID"), bytes(minId)));
+    }
+
+    private void refreshStats(EventType type) {
+        StreamStats streamStats = stats.get(type);
+        String stream = type.getStreamKey();
+        Long size = redisTemplate.opsForStream().size(stream);
+        streamStats.length().set(size != null ? size : 0);
+        Long memory = redisTemplate.execute((RedisCallback<Long>) connection -> (Long) connection.execute("MEMORY",
+                bytes("USAGE"), bytes(stream)));
+        streamStats.memory().set(memory != null ? memory : 0);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private StreamStats registerMeters(EventType type) {
+        String stream = type.getStreamKey();
+        StreamStats streamStats = new StreamStats(new AtomicLong(), new AtomicLong(),
+                Counter.builder("event.stream.trimmed")
+                        .description("按保留策略从 Stream 裁剪的记录数")
+                        .tag("stream", stream)
+                        .register(meterRegistry),
+                Counter.builder("event.stream.archived")
+                        .description("裁剪前归档到 event_stream_archive 的记录数")
+                        .tag("stream", stream)
+                        .register(meterRegistry));
+        Gauge.builder("event.stream.length", streamStats.length(), AtomicLong::get)
+                .description("Stream 当前记录数（XLEN）")
+                .tag("stream", stream)
+                .register(meterRegistry);
+        Gauge.builder("event.stream.memory", streamStats.memory(), AtomicLong::get)
+                .description("Stream 占用的 Redis 内存（MEMORY USAGE）")
+                .tag("stream", stream)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        return streamStats;
+    }
+
+    private record StreamStats(AtomicLong length, AtomicLong memory, Counter trimmed, Counter archived) {
+    }
+}
@@ -0,0 +1,93 @@
+package com.eduplatform.common.event.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 紧凑二进制事件编码读取器，与 BinaryEventWriter 对应。
+ * 读到末尾后，可空字段一律返回 null：新版本只在负载末尾追加字段，旧消息缺少的字段按 null 处理，
+ * 旧版本读取新消息时则忽略末尾多出的字段。
+ *
+ * @author Antigravity
+ */
+public final class BinaryEventReader {
+
+    private final byte[] data;
+    private int position;
+
+    public BinaryEventReader(byte[] data) {
+        this.data = data;
+    }
+
+    public int readByte() {
+        ensureAvailable(1);
+        return data[position++] & 0xFF;
+    }
+
+    public UUID readUuid() {
+        return new UUID(readFixedLong(), readFixedLong());
+    }
+
+    public long readVarLong() {
+        long zigzag = readUnsigned();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public Long readLong() {
+        if (!hasRemaining()) {
+            return null;
+        }
+        long encoded = readUnsigned();
+        if (encoded == 0) {
+            return null;
+        }
+        long zigzag = encoded - 1;
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    public String readString() {
+        if (!hasRemaining()) {
+            return null;
+        }
+        long encoded = readUnsigned();
+        if (encoded == 0) {
+            return null;
+        }
+        int length = Math.toIntExact(encoded - 1);
+        ensureAvailable(length);
+        String value = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public boolean hasRemaining() {
+        return position < data.length;
+    }
+
+    private long readUnsigned() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("变长整数编码过长");
+    }
+
+    private long readFixedLong() {
+        ensureAvailable(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private void ensureAvailable(int length) {
+        if (length < 0 || position + length > data.length) {
+            throw new IllegalArgumentException("事件二进制负载已截断: position=" + position + ", length=" + length);
+        }
+    }
+}
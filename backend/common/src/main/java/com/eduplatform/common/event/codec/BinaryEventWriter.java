@@ -0,0 +1,85 @@
+package com.eduplatform.common.event.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * 紧凑二进制事件编码写入器
+ * 整数使用 ZigZag + 变长编码（小整数只占 1 字节），字符串为 "长度+1" 前缀的 UTF-8（0 表示 null），
+ * 可空整数以 0 表示 null，其余值整体加 1 后编码。
+ *
+ * @author Antigravity
+ */
+public final class BinaryEventWriter {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+
+    public BinaryEventWriter writeByte(int value) {
+        out.write(value);
+        return this;
+    }
+
+    public BinaryEventWriter writeUuid(UUID value) {
+        writeFixedLong(value.getMostSignificantBits());
+        writeFixedLong(value.getLeastSignificantBits());
+        return this;
+    }
+
+    /**
+     * 写入必填整数（ZigZag 变长编码）
+     */
+    public BinaryEventWriter writeVarLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.write((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.write((int) zigzag);
+        return this;
+    }
+
+    /**
+     * 写入可空整数（业务 ID 等）
+     */
+    public BinaryEventWriter writeLong(Long value) {
+        if (value == null) {
+            out.write(0);
+            return this;
+        }
+        writeUnsigned(((value << 1) ^ (value >> 63)) + 1);
+        return this;
+    }
+
+    /**
+     * 写入可空字符串
+     */
+    public BinaryEventWriter writeString(String value) {
+        if (value == null) {
+            out.write(0);
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeUnsigned(bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    private void writeUnsigned(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private void writeFixedLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.eduplatform.common.event.codec;
+
+import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.payload.EventPayload;
+
+import java.time.LocalDateTime;
+
+/**
+ * 解码后的事件（与编码格式无关）
+ *
+ * @param id        消息唯一标识（UUID，用于幂等性校验）
+ * @param type      事件类型
+ * @param source    来源服务名
+ * @param timestamp 消息发送时间
+ * @param payload   类型化业务载荷
+ * @author Antigravity
+ */
+public record DecodedEvent<P extends EventPayload>(
+        String id,
+        EventType type,
+        String source,
+        LocalDateTime timestamp,
+        P payload) {
+}
@@ -0,0 +1,176 @@
+package com.eduplatform.common.event.codec;
+
+import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.payload.EventPayload;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Redis Stream 事件编解码器
+ * 消息体中的 codec 字段声明编码格式，消费端据此选择解码方式，旧格式消息仍可正常读取。
+ *
+ * 支持的格式：
+ * 1. json（历史格式，无 codec 字段）：id / type / source / timestamp / data 五个字段，data 为 JSON 字符串
+ * 2. bin1：codec=bin1，payload 为 Base64 编码的紧凑二进制，依次为
+ *    格式版本(1B) | typeCode(1B) | 消息ID(UUID 16B) | 时间戳(变长毫秒) | 来源服务 | 类型化载荷字段
+ *    字段名不再逐条存储，数字按变长编码，时间戳与消息 ID 使用定长二进制而非字符串
+ *
+ * @author Antigravity
+ */
+public final class EventCodec {
+
+    public static final String FIELD_CODEC = "codec";
+    public static final String FIELD_PAYLOAD = "payload";
+
+    /** 历史 JSON 格式（写入时不带 codec 字段，与旧版本消费端兼容） */
+    public static final String CODEC_JSON = "json";
+
+    /** 紧凑二进制格式第 1 版 */
+    public static final String CODEC_BINARY_V1 = "bin1";
+
+    private static final int BINARY_FORMAT_VERSION = 1;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private EventCodec() {
+        // 工具类禁止实例化
+    }
+
+    /**
+     * 按指定格式编码为 Stream 消息字段
+     *
+     * @param codec 编码格式（CODEC_JSON / CODEC_BINARY_V1）
+     * @param data  类型化载荷，或历史调用方传入的 Map 数据
+     */
+    public static Map<String, String> encode(String codec, String id, EventType type, String source,
+                                             LocalDateTime timestamp, Object data) {
+        if (CODEC_BINARY_V1.equals(codec)) {
+            return encodeBinary(id, type, source, timestamp, toPayload(type, data));
+        }
+        if (CODEC_JSON.equals(codec)) {
+            return encodeJson(id, type, source, timestamp, data);
+        }
+        throw new IllegalArgumentException("不支持的事件编码格式: " + codec);
+    }
+
+    public static Map<String, String> encodeJson(String id, EventType type, String source,
+                                                 LocalDateTime timestamp, Object data) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("id", id);
+        fields.put("type", type.name());
+        fields.put("source", source);
+        fields.put("timestamp", timestamp.toString());
+        try {
+            fields.put("data", OBJECT_MAPPER.writeValueAsString(data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("事件序列化失败: type=" + type, e);
+        }
+        return fields;
+    }
+
+    public static Map<String, String> encodeBinary(String id, EventType type, String source,
+                                                   LocalDateTime timestamp, EventPayload payload) {
+        if (!type.getPayloadType().isInstance(payload)) {
+            throw new IllegalArgumentException("事件载荷类型不匹配: type=" + type
+                    + ", payload=" + (payload != null ? payload.getClass().getSimpleName() : null));
+        }
+        BinaryEventWriter out = new BinaryEventWriter()
+                .writeByte(BINARY_FORMAT_VERSION)
+                .writeByte(type.getTypeCode())
+                .writeUuid(UUID.fromString(id))
+                .writeVarLong(timestamp.toInstant(ZoneOffset.UTC).toEpochMilli())
+                .writeString(source);
+        payload.writeTo(out);
+
+        Map<String, String> fields = new HashMap<>(4);
+        fields.put(FIELD_CODEC, CODEC_BINARY_V1);
+        fields.put(FIELD_PAYLOAD, Base64.getEncoder().withoutPadding().encodeToString(out.toByteArray()));
+        return fields;
+    }
+
+    /**
+     * 解码 Stream 消息，按 codec 字段选择格式（缺省为历史 JSON 格式）
+     *
+     * @throws IllegalArgumentException 消息格式无法识别或已损坏
+     */
+    public static DecodedEvent<EventPayload> decode(Map<String, String> fields) {
+        String codec = fields.getOrDefault(FIELD_CODEC, CODEC_JSON);
+        return switch (codec) {
+            case CODEC_BINARY_V1 -> decodeBinary(fields.get(FIELD_PAYLOAD));
+            case CODEC_JSON -> decodeJson(fields);
+            default -> throw new IllegalArgumentException("不支持的事件编码格式: " + codec);
+        };
+    }
+
+    /**
+     * 解码 Stream 消息并校验载荷类型
+     */
+    @SuppressWarnings("unchecked")
+    public static <P extends EventPayload> DecodedEvent<P> decode(Map<String, String> fields, Class<P> payloadType) {
+        DecodedEvent<EventPayload> event = decode(fields);
+        if (!payloadType.isInstance(event.payload())) {
+            throw new IllegalArgumentException("事件载荷类型不匹配: expected=" + payloadType.getSimpleName()
+                    + ", type=" + event.type());
+        }
+        return (DecodedEvent<P>) (DecodedEvent<?>) event;
+    }
+
+    /**
+     * 将历史 Map 数据转换为类型化载荷（字段名与载荷类型的属性名一致）
+     */
+    public static EventPayload toPayload(EventType type, Object data) {
+        if (data instanceof EventPayload payload) {
+            return payload;
+        }
+        return OBJECT_MAPPER.convertValue(data, type.getPayloadType());
+    }
+
+    private static DecodedEvent<EventPayload> decodeBinary(String encoded) {
+        if (encoded == null) {
+            throw new IllegalArgumentException("事件消息缺少 payload 字段");
+        }
+        BinaryEventReader in = new BinaryEventReader(Base64.getDecoder().decode(encoded));
+        int version = in.readByte();
+        if (version != BINARY_FORMAT_VERSION) {
+            throw new IllegalArgumentException("不支持的二进制事件格式版本: " + version);
+        }
+        EventType type = EventType.fromTypeCode(in.readByte());
+        String id = in.readUuid().toString();
+        LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readVarLong()), ZoneOffset.UTC);
+        String source = in.readString();
+        return new DecodedEvent<>(id, type, source, timestamp, type.readPayload(in));
+    }
+
+    private static DecodedEvent<EventPayload> decodeJson(Map<String, String> fields) {
+        String typeName = fields.get("type");
+        if (typeName == null) {
+            throw new IllegalArgumentException("事件消息缺少 type 字段");
+        }
+        EventType type = EventType.valueOf(typeName);
+        String timestamp = fields.get("timestamp");
+        EventPayload payload;
+        try {
+            payload = OBJECT_MAPPER.readValue(fields.get("data"), type.getPayloadType());
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("事件数据解析失败: type=" + type, e);
+        }
+        return new DecodedEvent<>(
+                fields.get("id"),
+                type,
+                fields.get("source"),
+                timestamp != null ? LocalDateTime.parse(timestamp) : null,
+                payload);
+    }
+}
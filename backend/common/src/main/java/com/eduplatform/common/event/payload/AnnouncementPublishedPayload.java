@@ -0,0 +1,33 @@
+package com.eduplatform.common.event.payload;
+
+import com.eduplatform.common.event.codec.BinaryEventReader;
+import com.eduplatform.common.event.codec.BinaryEventWriter;
+
+/**
+ * ANNOUNCEMENT_PUBLISHED 事件载荷
+ *
+ * @author Antigravity
+ */
+public record AnnouncementPublishedPayload(
+        Long announcementId,
+        String title,
+        String content,
+        String targetAudience,
+        Long courseId,
+        Long createdBy) implements EventPayload {
+
+    @Override
+    public void writeTo(BinaryEventWriter out) {
+        out.writeLong(announcementId)
+                .writeString(title)
+                .writeString(content)
+                .writeString(targetAudience)
+                .writeLong(courseId)
+                .writeLong(createdBy);
+    }
+
+    public static AnnouncementPublishedPayload readFrom(BinaryEventReader in) {
+        return new AnnouncementPublishedPayload(
+                in.readLong(), in.readString(), in.readString(), in.readString(), in.readLong(), in.readLong());
+    }
+}
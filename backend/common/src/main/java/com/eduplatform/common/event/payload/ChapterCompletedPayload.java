@@ -0,0 +1,28 @@
+package com.eduplatform.common.event.payload;
+
+import com.eduplatform.common.event.codec.BinaryEventReader;
+import com.eduplatform.common.event.codec.BinaryEventWriter;
+
+/**
+ * CHAPTER_COMPLETED 事件载荷
+ *
+ * @author Antigravity
+ */
+public record ChapterCompletedPayload(
+        Long studentId,
+        Long chapterId,
+        Long courseId,
+        String chapterTitle) implements EventPayload {
+
+    @Override
+    public void writeTo(BinaryEventWriter out) {
+        out.writeLong(studentId)
+                .writeLong(chapterId)
+                .writeLong(courseId)
+                .writeString(chapterTitle);
+    }
+
+    public static ChapterCompletedPayload readFrom(BinaryEventReader in) {
+        return new ChapterCompletedPayload(in.readLong(), in.readLong(), in.readLong(), in.readString());
+    }
+}
@@ -0,0 +1,26 @@
+package com.eduplatform.common.event.payload;
+
+import com.eduplatform.common.event.codec.BinaryEventReader;
+import com.eduplatform.common.event.codec.BinaryEventWriter;
+
+/**
+ * COURSE_ENROLLED / COURSE_DROPPED 事件载荷
+ *
+ * @author Antigravity
+ */
+public record EnrollmentPayload(
+        Long studentId,
+        Long courseId,
+        String courseName) implements EventPayload {
+
+    @Override
+    public void writeTo(BinaryEventWriter out) {
+        out.writeLong(studentId)
+                .writeLong(courseId)
+                .writeString(courseName);
+    }
+
+    public static EnrollmentPayload readFrom(BinaryEventReader in) {
+        return new EnrollmentPayload(in.readLong(), in.readLong(), in.readString());
+    }
+}
@@ -0,0 +1,20 @@
+package com.eduplatform.common.event.payload;
+
+import com.eduplatform.common.event.codec.BinaryEventWriter;
+
+/**
+ * 事件业务载荷
+ * 每种 EventType 对应一个不可变的载荷类型（见 EventType#getPayloadType），
+ * 生产端与消费端共享同一份字段定义，不再通过 Map + 字符串键传递数据。
+ *
+ * 二进制编码约定：字段按声明顺序写入，只允许在末尾追加新字段，不允许删除或调整顺序。
+ *
+ * @author Antigravity
+ */
+public interface EventPayload {
+
+    /**
+     * 按字段声明顺序写入紧凑二进制编码
+     */
+    void writeTo(BinaryEventWriter out);
+}
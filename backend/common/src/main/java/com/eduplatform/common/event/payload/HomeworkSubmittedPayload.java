@@ -0,0 +1,33 @@
+package com.eduplatform.common.event.payload;
+
+import com.eduplatform.common.event.codec.BinaryEventReader;
+import com.eduplatform.common.event.codec.BinaryEventWriter;
+
+/**
+ * HOMEWORK_SUBMITTED 事件载荷
+ *
+ * @author Antigravity
+ */
+public record HomeworkSubmittedPayload(
+        Long homeworkId,
+        String homeworkTitle,
+        Long submissionId,
+        Long studentId,
+        Long courseId,
+        Long chapterId) implements EventPayload {
+
+    @Override
+    public void writeTo(BinaryEventWriter out) {
+        out.writeLong(homeworkId)
+                .writeString(homeworkTitle)
+                .writeLong(submissionId)
+                .writeLong(studentId)
+                .writeLong(courseId)
+                .writeLong(chapterId);
+    }
+
+    public static HomeworkSubmittedPayload readFrom(BinaryEventReader in) {
+        return new HomeworkSubmittedPayload(
+                in.readLong(), in.readString(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+    }
+}
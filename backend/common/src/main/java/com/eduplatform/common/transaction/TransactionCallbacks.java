@@ -0,0 +1,33 @@
+package com.eduplatform.common.transaction;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务回调工具
+ * 缓存失效、事件发布、内存结构更新等事务外副作用统一在提交后执行：回滚的变更不会外泄，
+ * 并发读取也不会在提交前把旧数据重新写回缓存。
+ *
+ * @author Antigravity
+ */
+public final class TransactionCallbacks {
+
+    private TransactionCallbacks() {
+    }
+
+    /**
+     * 有活动事务时在提交后执行，否则立即执行
+     */
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
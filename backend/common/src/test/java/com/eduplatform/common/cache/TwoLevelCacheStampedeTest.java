@@ -0,0 +1,200 @@
+package com.eduplatform.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TwoLevelCache 击穿保护测试：单飞加载、过期后返回旧值并后台刷新、XFetch 提前刷新、关闭时等待刷新结束。
+ * L2 以内存缓存代替 Redis，跨实例锁以共享 Map 代替 Redis SET NX。
+ */
+@DisplayName("TwoLevelCache 击穿保护单元测试")
+class TwoLevelCacheStampedeTest {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    private final ConcurrentMapCacheManager sharedRemote = new ConcurrentMapCacheManager();
+    private final Map<String, String> sharedLocks = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong(1_000_000L);
+
+    @Test
+    @DisplayName("两个实例共 500 个并发未命中-valueLoader 只执行一次，所有请求拿到同一结果")
+    void shouldLoadOnceUnderConcurrentMisses() throws Exception {
+        FakeGuard guard = new FakeGuard(false);
+        List<Cache> caches = List.of(newCache(guard, 1.0), newCache(guard, 1.0));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<Object>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 500; i++) {
+                Cache cache = caches.get(i % 2);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.get("dashboard", () -> {
+                        loads.incrementAndGet();
+                        TimeUnit.MILLISECONDS.sleep(200);
+                        return Map.of("total", 42L);
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                assertEquals(Map.of("total", 42L), result.get(10, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, sharedLocks.size());
+    }
+
+    @Test
+    @DisplayName("软过期后返回旧值并由一个后台任务刷新，刷新后读到新值")
+    void shouldServeStaleWhileRevalidating() {
+        Cache cache = newCache(new FakeGuard(true), 0);
+        AtomicInteger version = new AtomicInteger();
+
+        assertEquals("v1", cache.get(7L, () -> "v" + version.incrementAndGet()));
+        // 软过期 = TTL - stale-window(60s)，此时仍在硬过期之前
+        clock.addAndGet(TTL.minusSeconds(30).toMillis());
+        assertEquals("v1", cache.get(7L, () -> "v" + version.incrementAndGet()));
+        assertEquals(2, version.get());
+        assertEquals("v2", cache.get(7L, () -> "v" + version.incrementAndGet()));
+        assertEquals("v2", cache.get(7L).get());
+        assertEquals(2, version.get());
+    }
+
+    @Test
+    @DisplayName("XFetch-接近软过期且加载耗时较长时按概率提前刷新")
+    void shouldRefreshEarlyWithXFetch() {
+        FakeGuard guard = new FakeGuard(true);
+        Cache cache = newCache(guard, 1.0);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("all", () -> {
+            loads.incrementAndGet();
+            TimeUnit.MILLISECONDS.sleep(10);
+            return "slow";
+        });
+        // 距软过期还有 50ms，上次加载至少 10ms
+        clock.addAndGet(TTL.minusSeconds(60).toMillis() - 50);
+
+        guard.random = 1.0;
+        cache.get("all", () -> "early");
+        assertEquals(1, loads.get());
+
+        guard.random = 1e-9;
+        cache.get("all", () -> {
+            loads.incrementAndGet();
+            return "early";
+        });
+        assertEquals(2, loads.get());
+        assertEquals("early", cache.get("all").get());
+    }
+
+    @Test
+    @DisplayName("关闭管理器-等待进行中的后台刷新结束，之后软过期只返回旧值不再提交刷新")
+    void shouldDrainRefreshesOnShutdown() throws Exception {
+        FakeGuard guard = new FakeGuard(false);
+        TwoLevelCacheManager manager = newManager(guard, 0);
+        Cache cache = manager.getCache("course_stats");
+        cache.get("all", () -> "v1");
+        clock.addAndGet(TTL.minusSeconds(30).toMillis());
+
+        CountDownLatch refreshing = new CountDownLatch(1);
+        AtomicInteger refreshed = new AtomicInteger();
+        assertEquals("v1", cache.get("all", () -> {
+            refreshing.countDown();
+            TimeUnit.MILLISECONDS.sleep(100);
+            refreshed.incrementAndGet();
+            return "v2";
+        }));
+        assertTrue(refreshing.await(1, TimeUnit.SECONDS));
+
+        manager.shutdown();
+        assertEquals(1, refreshed.get());
+
+        clock.addAndGet(TTL.minusSeconds(30).toMillis());
+        assertEquals("v2", cache.get("all", () -> "v3"));
+        assertFalse(guard.refresh(() -> { }));
+    }
+
+    private Cache newCache(FakeGuard guard, double beta) {
+        return newManager(guard, beta).getCache("course_stats");
+    }
+
+    private TwoLevelCacheManager newManager(FakeGuard guard, double beta) {
+        TwoLevelCacheManager.CacheSpec spec = new TwoLevelCacheManager.CacheSpec(TTL, 100, Duration.ofMinutes(1),
+                new TwoLevelCacheManager.StampedeSpec(Duration.ofSeconds(60), beta,
+                        Duration.ofSeconds(10), Duration.ofSeconds(3)));
+        StringRedisTemplate bus = new StringRedisTemplate() {
+            @Override
+            public Long convertAndSend(String channel, Object message) {
+                return 0L;
+            }
+        };
+        return new TwoLevelCacheManager(sharedRemote, name -> spec, bus, new SimpleMeterRegistry(), guard);
+    }
+
+    /**
+     * 以共享 Map 代替 Redis 锁，时钟与随机数可控；inlineRefresh 为 true 时后台刷新在调用线程内同步执行
+     */
+    private final class FakeGuard extends StampedeGuard {
+
+        private final boolean inlineRefresh;
+        private volatile double random = 0.5;
+
+        private FakeGuard(boolean inlineRefresh) {
+            super(new StringRedisTemplate());
+            this.inlineRefresh = inlineRefresh;
+        }
+
+        @Override
+        boolean tryLock(String lockKey, String token, Duration lease) {
+            return sharedLocks.putIfAbsent(lockKey, token) == null;
+        }
+
+        @Override
+        void unlock(String lockKey, String token) {
+            sharedLocks.remove(lockKey, token);
+        }
+
+        @Override
+        boolean refresh(Runnable task) {
+            if (inlineRefresh) {
+                task.run();
+                return true;
+            }
+            return super.refresh(task);
+        }
+
+        @Override
+        long now() {
+            return clock.get();
+        }
+
+        @Override
+        double random() {
+            return random;
+        }
+    }
+}
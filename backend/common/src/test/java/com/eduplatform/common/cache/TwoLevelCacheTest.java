@@ -0,0 +1,137 @@
+package com.eduplatform.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TwoLevelCache 分级读取、跨实例失效与命中率测试。
+ * 两个 TwoLevelCacheManager 共享同一个内存 L2（代替 Redis），失效消息通过内存总线互相投递。
+ */
+@DisplayName("TwoLevelCache 单元测试")
+class TwoLevelCacheTest {
+
+    private static final TwoLevelCacheManager.CacheSpec SPEC =
+            new TwoLevelCacheManager.CacheSpec(Duration.ofMinutes(10), 100, Duration.ofMinutes(1));
+
+    private final ConcurrentMapCacheManager sharedRemote = new ConcurrentMapCacheManager();
+    private final List<TwoLevelCacheManager> instances = new CopyOnWriteArrayList<>();
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    @Test
+    @DisplayName("L1 命中时不访问 L2-各级命中率分别统计")
+    void shouldServeFromLocalBeforeRemote() {
+        TwoLevelCacheManager manager = newInstance();
+        Cache cache = manager.getCache("course_list");
+        Cache remote = sharedRemote.getCache("course_list");
+
+        assertNull(cache.get("all"));
+        remote.put("all", List.of("Java"));
+        assertEquals(List.of("Java"), cache.get("all").get());
+
+        // L2 被其它途径改写后，L1 仍返回已缓存的值，直到失效或 L1 过期
+        remote.put("all", List.of("Python"));
+        assertEquals(List.of("Java"), cache.get("all").get());
+        assertEquals(List.of("Java"), cache.get("all", List.class));
+
+        // 请求 4 次：L1 命中 2 次；到达 L2 的 2 次中命中 1 次
+        assertEquals(Double.valueOf(0.5), manager.hitRatios().get("course_list").get("l1"));
+        assertEquals(Double.valueOf(0.5), manager.hitRatios().get("course_list").get("l2"));
+        assertEquals(Double.valueOf(0.75), manager.hitRatios().get("course_list").get("overall"));
+    }
+
+    @Test
+    @DisplayName("写入与失效会广播-其它实例丢弃 L1 后从 L2 读到新值，本实例忽略自己的消息")
+    void shouldPropagateInvalidationAcrossInstances() {
+        TwoLevelCacheManager a = newInstance();
+        TwoLevelCacheManager b = newInstance();
+        Cache cacheA = a.getCache("learning_track");
+        Cache cacheB = b.getCache("learning_track");
+
+        cacheA.put(7L, "v1");
+        assertEquals("v1", cacheB.get(7L).get());
+
+        cacheA.put(7L, "v2");
+        assertEquals("v2", cacheA.get(7L).get());
+        assertEquals("v2", cacheB.get(7L).get());
+
+        cacheB.evict(7L);
+        assertNull(cacheA.get(7L));
+
+        cacheA.put(8L, "x");
+        cacheB.get(8L);
+        cacheA.clear();
+        assertNull(cacheB.get(8L));
+
+        assertTrue(published.contains(a.getInstanceId() + "|learning_track|7"));
+        assertTrue(published.contains(a.getInstanceId() + "|learning_track|"));
+    }
+
+    @Test
+    @DisplayName("失效消息编解码-键可包含分隔符，空键表示清空")
+    void shouldEncodeAndDecodeInvalidation() {
+        CacheInvalidation evict = CacheInvalidation.decode(
+                new CacheInvalidation("i-1", "course_list", "published:subject:a|b").encode());
+        assertEquals("published:subject:a|b", evict.key());
+        assertEquals("course_list", evict.cacheName());
+
+        assertTrue(CacheInvalidation.decode(new CacheInvalidation("i-1", "course_stats", null).encode()).isClear());
+        assertNull(CacheInvalidation.decode("broken"));
+        assertEquals(Duration.ofMinutes(5),
+                new TwoLevelCacheManager.CacheSpec(Duration.ofMinutes(5), 10, Duration.ofHours(1)).l1Ttl());
+    }
+
+    @Test
+    @DisplayName("缓存值序列化-白名单类型保持原类型读回，白名单外的类型标识被拒绝")
+    void shouldOnlyDeserializeAllowedTypes() {
+        GenericJackson2JsonRedisSerializer serializer =
+                new GenericJackson2JsonRedisSerializer(TwoLevelCacheConfig.cacheObjectMapper());
+        Map<String, Object> track = new HashMap<>();
+        track.put("recent", new ArrayList<>(List.of(1L, 2L)));
+        track.put("time", LocalDateTime.of(2024, 1, 1, 8, 0));
+        track.put("rate", new BigDecimal("0.75"));
+
+        Object restored = serializer.deserialize(serializer.serialize(track));
+        assertEquals(track, restored);
+
+        byte[] gadget = "{\"@class\":\"java.net.URL\",\"protocol\":\"http\",\"host\":\"evil\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(gadget));
+    }
+
+    private TwoLevelCacheManager newInstance() {
+        StringRedisTemplate bus = new StringRedisTemplate() {
+            @Override
+            public Long convertAndSend(String channel, Object message) {
+                published.add((String) message);
+                CacheInvalidation invalidation = CacheInvalidation.decode((String) message);
+                instances.forEach(instance -> instance.onInvalidation(invalidation));
+                return (long) instances.size();
+            }
+        };
+        TwoLevelCacheManager manager = new TwoLevelCacheManager(sharedRemote, name -> SPEC, bus,
+                new SimpleMeterRegistry());
+        instances.add(manager);
+        return manager;
+    }
+}
@@ -0,0 +1,173 @@
+package com.eduplatform.common.event;
+
+import com.eduplatform.common.event.codec.DecodedEvent;
+import com.eduplatform.common.event.codec.EventCodec;
+import com.eduplatform.common.event.payload.ChapterCompletedPayload;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BatchStreamListener 批量去重、分区与整批 ACK 测试。
+ */
+@DisplayName("BatchStreamListener 单元测试")
+class BatchStreamListenerTest {
+
+    private static final String GROUP = RedisStreamConstants.GROUP_HOMEWORK_SERVICE;
+    private static final String STREAM = EventType.CHAPTER_COMPLETED.getStreamKey();
+
+    private final InMemoryBatchDedupeStore store = new InMemoryBatchDedupeStore();
+    private final List<List<ChapterCompletedPayload>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    @DisplayName("一批记录-只处理首次到达的事件，整批以一次 completeAll（一条 XACK）确认")
+    void shouldHandleBatchOnceAndAckInSingleCall() {
+        store.states.put(id("done-1"), EventDedupeStore.STATE_DONE);
+        store.states.put(id("busy-1"), EventDedupeStore.STATE_PROCESSING);
+
+        listener(null).onBatch(STREAM, List.of(
+                StreamRecords.newRecord().in(STREAM)
+                        .ofMap(Map.of(RedisStreamConstants.STREAM_INIT_FIELD, "1")).withId(RecordId.of("1-0")),
+                record("a", "2-0", 1L, 10L),
+                record("done-1", "3-0", 1L, 11L),
+                record("busy-1", "4-0", 2L, 12L),
+                record("a", "5-0", 1L, 10L),
+                record("b", "6-0", 2L, 13L)));
+
+        assertEquals(1, batches.size());
+        assertEquals(List.of(10L, 13L), batches.get(0).stream().map(ChapterCompletedPayload::chapterId).toList());
+        assertEquals(1, store.claimCalls);
+        assertEquals(1, store.completeCalls);
+        assertEquals(List.of("1-0", "5-0", "3-0", "2-0", "6-0"), store.acked);
+        assertEquals(EventDedupeStore.STATE_DONE, store.states.get(id("a")));
+        assertEquals(EventDedupeStore.STATE_PROCESSING, store.states.get(id("busy-1")));
+    }
+
+    @Test
+    @DisplayName("按学生分区并行-分区内保持顺序，失败分区释放租约且不 ACK")
+    void shouldPartitionByKeyAndReleaseFailedPartition() {
+        BatchStreamListener<ChapterCompletedPayload> listener = listener(7L);
+        listener.bindConcurrency(4);
+
+        List<MapRecord<String, String, String>> records = new ArrayList<>();
+        for (long i = 1; i <= 40; i++) {
+            long studentId = i % 5 + 5;
+            records.add(record("m" + i, i + "-0", studentId, i));
+        }
+        listener.onBatch(STREAM, records);
+
+        for (List<ChapterCompletedPayload> batch : batches) {
+            Map<Long, Long> lastChapter = new LinkedHashMap<>();
+            for (ChapterCompletedPayload payload : batch) {
+                Long previous = lastChapter.put(payload.studentId(), payload.chapterId());
+                assertTrue(previous == null || previous < payload.chapterId(), "同一学生的事件顺序被打乱");
+            }
+        }
+        List<Long> handledChapters = batches.stream().flatMap(List::stream)
+                .map(ChapterCompletedPayload::chapterId).toList();
+        for (long i = 1; i <= 40; i++) {
+            boolean acked = store.acked.contains(i + "-0");
+            if (i % 5 + 5 == 7L) {
+                assertFalse(acked, "失败分区的事件不应被 ACK");
+            }
+            assertEquals(acked, handledChapters.contains(i));
+            // 未 ACK 的事件租约已释放，重投递后可重新处理
+            assertEquals(acked, store.states.containsKey(id("m" + i)));
+        }
+        assertFalse(handledChapters.isEmpty());
+        assertEquals(1, store.completeCalls);
+    }
+
+    /**
+     * @param failingStudentId 包含该学生的批次抛出异常；为 null 时全部成功
+     */
+    private BatchStreamListener<ChapterCompletedPayload> listener(Long failingStudentId) {
+        return new BatchStreamListener<>(store, GROUP, ChapterCompletedPayload.class) {
+            @Override
+            protected Object orderingKey(ChapterCompletedPayload payload) {
+                return payload.studentId();
+            }
+
+            @Override
+            protected void handleBatch(List<DecodedEvent<ChapterCompletedPayload>> events) {
+                List<ChapterCompletedPayload> payloads = events.stream().map(DecodedEvent::payload).toList();
+                if (payloads.stream().anyMatch(p -> p.studentId().equals(failingStudentId))) {
+                    throw new IllegalStateException("数据库不可用");
+                }
+                batches.add(payloads);
+            }
+        };
+    }
+
+    private static MapRecord<String, String, String> record(String messageId, String recordId,
+                                                            Long studentId, Long chapterId) {
+        Map<String, String> fields = EventCodec.encode(EventCodec.CODEC_BINARY_V1, id(messageId),
+                EventType.CHAPTER_COMPLETED, RedisStreamConstants.SERVICE_PROGRESS, LocalDateTime.now(),
+                new ChapterCompletedPayload(studentId, chapterId, 2L, "第" + chapterId + "章"));
+        return StreamRecords.newRecord().in(STREAM).ofMap(fields).withId(RecordId.of(recordId));
+    }
+
+    /**
+     * 由名称生成固定的消息 ID（二进制编码要求 UUID 格式）
+     */
+    private static String id(String name) {
+        return UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * 以内存 Map 代替 Redis 的批量去重存储，并统计往返次数
+     */
+    private static final class InMemoryBatchDedupeStore extends EventDedupeStore {
+
+        private final Map<String, String> states = new ConcurrentHashMap<>();
+        private final List<String> acked = Collections.synchronizedList(new ArrayList<>());
+        private int claimCalls;
+        private int completeCalls;
+
+        private InMemoryBatchDedupeStore() {
+            super(new StringRedisTemplate(), null);
+        }
+
+        @Override
+        public Map<String, ClaimResult> tryClaimAll(String group, List<String> messageIds) {
+            claimCalls++;
+            Map<String, ClaimResult> results = new LinkedHashMap<>();
+            for (String messageId : messageIds) {
+                String state = states.putIfAbsent(messageId, STATE_PROCESSING);
+                results.put(messageId, state == null ? ClaimResult.CLAIMED
+                        : STATE_DONE.equals(state) ? ClaimResult.PROCESSED : ClaimResult.IN_PROGRESS);
+            }
+            return results;
+        }
+
+        @Override
+        public void completeAll(String group, List<String> messageIds, String stream, List<RecordId> recordIds) {
+            completeCalls++;
+            messageIds.forEach(messageId -> states.put(messageId, STATE_DONE));
+            recordIds.forEach(recordId -> acked.add(recordId.getValue()));
+        }
+
+        @Override
+        public void releaseAll(String group, List<String> messageIds) {
+            messageIds.forEach(states::remove);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.eduplatform.common.event;
+
+import com.eduplatform.common.event.payload.EnrollmentPayload;
+import com.eduplatform.common.event.payload.HomeworkSubmittedPayload;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * EventOutbox 事务内登记与提交后发布行为测试。
+ */
+@DisplayName("EventOutbox 单元测试")
+class EventOutboxTest {
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final OutboxRelay relay = mock(OutboxRelay.class);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("开启发件箱-事务内只写入 event_outbox，提交后唤醒投递线程")
+    void shouldInsertIntoOutboxAndWakeRelayAfterCommit() {
+        EventOutbox outbox = newOutbox(new RedisStreamPublisher(redisTemplate, new SimpleMeterRegistry()), true);
+        TransactionSynchronizationManager.initSynchronization();
+
+        outbox.publish(EventType.HOMEWORK_SUBMITTED, RedisStreamConstants.SERVICE_HOMEWORK,
+                new HomeworkSubmittedPayload(1L, "第一章作业", 2L, 3L, 4L, 5L));
+
+        verify(jdbcTemplate).update(eq(EventOutbox.INSERT_SQL), eq(RedisStreamConstants.SERVICE_HOMEWORK),
+                eq(EventType.HOMEWORK_SUBMITTED.getStreamKey()), eq("HOMEWORK_SUBMITTED"), anyString(), anyString());
+        verify(relay, never()).wakeUp();
+        verify(redisTemplate, never()).opsForStream();
+
+        commit();
+        verify(relay).wakeUp();
+    }
+
+    @Test
+    @DisplayName("未开启发件箱-事务回滚时不发布事件，提交后才发布")
+    void shouldPublishOnlyAfterCommitWhenDisabled() {
+        RedisStreamPublisher publisher = mock(RedisStreamPublisher.class);
+        EventOutbox outbox = newOutbox(publisher, false);
+        EnrollmentPayload data = new EnrollmentPayload(1L, 2L, "Java 程序设计");
+
+        TransactionSynchronizationManager.initSynchronization();
+        outbox.publish(EventType.COURSE_ENROLLED, RedisStreamConstants.SERVICE_COURSE, data);
+        TransactionSynchronizationManager.clearSynchronization();
+        verify(publisher, never()).publishAsync(any(), anyString(), any(EnrollmentPayload.class));
+
+        TransactionSynchronizationManager.initSynchronization();
+        outbox.publish(EventType.COURSE_ENROLLED, RedisStreamConstants.SERVICE_COURSE, data);
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+        commit();
+        verify(publisher).publishAsync(EventType.COURSE_ENROLLED, RedisStreamConstants.SERVICE_COURSE, data);
+        verify(jdbcTemplate, never()).update(anyString(), any(Object[].class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private EventOutbox newOutbox(RedisStreamPublisher publisher, boolean enabled) {
+        ObjectProvider<JdbcTemplate> jdbcProvider = mock(ObjectProvider.class);
+        when(jdbcProvider.getObject()).thenReturn(jdbcTemplate);
+        ObjectProvider<OutboxRelay> relayProvider = mock(ObjectProvider.class);
+        doAnswer(invocation -> {
+            ((Consumer<OutboxRelay>) invocation.getArgument(0)).accept(relay);
+            return null;
+        }).when(relayProvider).ifAvailable(any());
+        EventOutbox outbox = new EventOutbox(publisher, jdbcProvider, relayProvider);
+        ReflectionTestUtils.setField(outbox, "enabled", enabled);
+        return outbox;
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+}
@@ -0,0 +1,185 @@
+package com.eduplatform.common.event;
+
+import com.eduplatform.common.event.codec.DecodedEvent;
+import com.eduplatform.common.event.codec.EventCodec;
+import com.eduplatform.common.event.payload.ChapterCompletedPayload;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IdempotentStreamListener 去重与 ACK 行为测试。
+ */
+@DisplayName("IdempotentStreamListener 单元测试")
+class IdempotentStreamListenerTest {
+
+    private static final String GROUP = RedisStreamConstants.GROUP_HOMEWORK_SERVICE;
+
+    private final InMemoryDedupeStore store = new InMemoryDedupeStore();
+    private final List<ChapterCompletedPayload> handled = new ArrayList<>();
+
+    @Test
+    @DisplayName("同一事件重投递-只处理一次，两次都 ACK")
+    void shouldHandleRedeliveredEventOnce() {
+        IdempotentStreamListener<ChapterCompletedPayload> listener = listener(false);
+        String messageId = UUID.randomUUID().toString();
+
+        listener.onMessage(record(messageId, "1-0"));
+        listener.onMessage(record(messageId, "1-0"));
+
+        assertEquals(1, handled.size());
+        assertEquals(List.of("1-0", "1-0"), store.acked);
+        assertEquals(EventDedupeStore.STATE_DONE, store.states.get(messageId));
+    }
+
+    @Test
+    @DisplayName("处理失败-释放租约且不 ACK，重投递后可再次处理")
+    void shouldReleaseClaimWhenHandlerFails() {
+        String messageId = UUID.randomUUID().toString();
+
+        listener(true).onMessage(record(messageId, "1-0"));
+        assertTrue(store.acked.isEmpty());
+        assertFalse(store.states.containsKey(messageId));
+
+        listener(false).onMessage(record(messageId, "1-0"));
+        assertEquals(1, handled.size());
+        assertEquals(List.of("1-0"), store.acked);
+    }
+
+    @Test
+    @DisplayName("其它消费者处理中-既不处理也不 ACK")
+    void shouldSkipEventInProgress() {
+        String messageId = UUID.randomUUID().toString();
+        store.states.put(messageId, EventDedupeStore.STATE_PROCESSING);
+
+        listener(false).onMessage(record(messageId, "1-0"));
+
+        assertTrue(handled.isEmpty());
+        assertTrue(store.acked.isEmpty());
+    }
+
+    @Test
+    @DisplayName("初始化占位消息与无法解析的消息-前者直接 ACK，后者保留在 pending list")
+    void shouldAckInitRecordAndKeepUndecodableRecord() {
+        IdempotentStreamListener<ChapterCompletedPayload> listener = listener(false);
+
+        listener.onMessage(StreamRecords.newRecord().in("stream:test")
+                .ofMap(Map.of(RedisStreamConstants.STREAM_INIT_FIELD, "1")).withId(RecordId.of("1-0")));
+        listener.onMessage(StreamRecords.newRecord().in("stream:test")
+                .ofMap(Map.of("type", "UNKNOWN")).withId(RecordId.of("2-0")));
+
+        assertEquals(List.of("1-0"), store.acked);
+        assertTrue(handled.isEmpty());
+    }
+
+    @Test
+    @DisplayName("绑定处理道-同一学生的事件按到达顺序处理")
+    void shouldProcessSameStudentInOrderOnLanes() {
+        IdempotentStreamListener<ChapterCompletedPayload> listener = new IdempotentStreamListener<>(
+                store, GROUP, ChapterCompletedPayload.class) {
+            @Override
+            protected Object orderingKey(ChapterCompletedPayload payload) {
+                return payload.studentId();
+            }
+
+            @Override
+            protected void handle(DecodedEvent<ChapterCompletedPayload> event) {
+                synchronized (handled) {
+                    handled.add(event.payload());
+                }
+            }
+        };
+        KeyedLaneExecutor lanes = new KeyedLaneExecutor("test", 4, 64);
+        listener.bindLanes(lanes);
+
+        for (long chapterId = 1; chapterId <= 20; chapterId++) {
+            listener.onMessage(record(UUID.randomUUID().toString(), chapterId + "-0", 7L, chapterId));
+        }
+        assertTrue(lanes.shutdown(Duration.ofSeconds(2)));
+
+        assertEquals(20, handled.size());
+        for (int i = 0; i < handled.size(); i++) {
+            assertEquals(Long.valueOf(i + 1), handled.get(i).chapterId());
+        }
+        assertEquals(20, store.acked.size());
+    }
+
+    private IdempotentStreamListener<ChapterCompletedPayload> listener(boolean failing) {
+        return new IdempotentStreamListener<>(store, GROUP, ChapterCompletedPayload.class) {
+            @Override
+            protected void handle(DecodedEvent<ChapterCompletedPayload> event) {
+                if (failing) {
+                    throw new IllegalStateException("数据库不可用");
+                }
+                handled.add(event.payload());
+            }
+        };
+    }
+
+    private static MapRecord<String, String, String> record(String messageId, String recordId) {
+        return record(messageId, recordId, 7L, 3L);
+    }
+
+    private static MapRecord<String, String, String> record(String messageId, String recordId,
+                                                            Long studentId, Long chapterId) {
+        Map<String, String> fields = EventCodec.encode(EventCodec.CODEC_BINARY_V1, messageId,
+                EventType.CHAPTER_COMPLETED, RedisStreamConstants.SERVICE_PROGRESS, LocalDateTime.now(),
+                new ChapterCompletedPayload(studentId, chapterId, 2L, "第三章"));
+        return StreamRecords.newRecord().in(EventType.CHAPTER_COMPLETED.getStreamKey())
+                .ofMap(fields).withId(RecordId.of(recordId));
+    }
+
+    /**
+     * 以内存 Map 代替 Redis 的去重存储
+     */
+    private static final class InMemoryDedupeStore extends EventDedupeStore {
+
+        private final Map<String, String> states = new ConcurrentHashMap<>();
+        private final List<String> acked = new CopyOnWriteArrayList<>();
+
+        private InMemoryDedupeStore() {
+            super(new StringRedisTemplate(), null);
+        }
+
+        @Override
+        public ClaimResult tryClaim(String group, String messageId) {
+            String state = states.putIfAbsent(messageId, STATE_PROCESSING);
+            if (state == null) {
+                return ClaimResult.CLAIMED;
+            }
+            return STATE_DONE.equals(state) ? ClaimResult.PROCESSED : ClaimResult.IN_PROGRESS;
+        }
+
+        @Override
+        public void complete(String group, String messageId, String stream, RecordId recordId) {
+            states.put(messageId, STATE_DONE);
+            acked.add(recordId.getValue());
+        }
+
+        @Override
+        public void release(String group, String messageId) {
+            states.remove(messageId);
+        }
+
+        @Override
+        public void acknowledge(String stream, String group, RecordId recordId) {
+            acked.add(recordId.getValue());
+        }
+    }
+}
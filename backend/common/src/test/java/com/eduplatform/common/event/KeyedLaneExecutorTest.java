@@ -0,0 +1,103 @@
+package com.eduplatform.common.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * KeyedLaneExecutor 分道顺序与并行测试。
+ */
+@DisplayName("KeyedLaneExecutor 单元测试")
+class KeyedLaneExecutorTest {
+
+    private KeyedLaneExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        if (executor != null) {
+            executor.shutdown(Duration.ofSeconds(2));
+        }
+    }
+
+    @Test
+    @DisplayName("同一 key 的任务按提交顺序执行")
+    void shouldPreserveOrderPerKey() {
+        executor = new KeyedLaneExecutor("test", 4, 16);
+        Map<Long, List<Integer>> executed = Collections.synchronizedMap(new HashMap<>());
+
+        for (int i = 0; i < 200; i++) {
+            long studentId = i % 10;
+            int sequence = i;
+            executor.execute(studentId, () -> executed
+                    .computeIfAbsent(studentId, k -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(sequence));
+        }
+        assertTrue(executor.shutdown(Duration.ofSeconds(5)));
+
+        assertEquals(10, executed.size());
+        executed.forEach((studentId, sequences) -> {
+            assertEquals(20, sequences.size());
+            for (int i = 1; i < sequences.size(); i++) {
+                assertTrue(sequences.get(i - 1) < sequences.get(i), "studentId=" + studentId + " 顺序被打乱");
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("不同处理道的 key 并行执行-一道阻塞不影响其它道")
+    void shouldRunDifferentLanesInParallel() throws Exception {
+        executor = new KeyedLaneExecutor("test", 2, 16);
+        Object blockedKey = keyOnLane(0);
+        Object freeKey = keyOnLane(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch freeDone = new CountDownLatch(1);
+
+        executor.execute(blockedKey, () -> {
+            try {
+                release.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(freeKey, freeDone::countDown);
+
+        assertTrue(freeDone.await(1, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("关闭后排空已入队任务并拒绝新任务")
+    void shouldDrainOnShutdownAndRejectNewTasks() {
+        executor = new KeyedLaneExecutor("test", 2, 64);
+        AtomicInteger executed = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            executor.execute(i, executed::incrementAndGet);
+        }
+
+        assertTrue(executor.shutdown(Duration.ofSeconds(2)));
+        assertEquals(50, executed.get());
+        assertFalse(executor.execute(1, executed::incrementAndGet));
+    }
+
+    private Object keyOnLane(int lane) {
+        for (long key = 0; ; key++) {
+            if (executor.laneOf(key) == lane) {
+                return key;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.eduplatform.common.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LocalBloomFilter 误判率与代际轮换测试。
+ */
+@DisplayName("LocalBloomFilter 单元测试")
+class LocalBloomFilterTest {
+
+    @Test
+    @DisplayName("已写入的元素一定命中-未写入元素的误判率接近配置值")
+    void shouldHaveNoFalseNegativesAndBoundedFalsePositives() {
+        LocalBloomFilter filter = new LocalBloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("seen-" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("seen-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("unseen-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "误判数过高: " + falsePositives);
+    }
+
+    @Test
+    @DisplayName("写满两代后最早的元素被淘汰")
+    void shouldForgetOldestGeneration() {
+        LocalBloomFilter filter = new LocalBloomFilter(100, 0.001);
+        filter.put("oldest");
+        for (int i = 0; i < 199; i++) {
+            filter.put("filler-" + i);
+        }
+        assertFalse(filter.mightContain("oldest"));
+        assertTrue(filter.mightContain("filler-198"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.eduplatform.common.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * PendingMessageReclaimer 退避与死信判定测试。
+ */
+@DisplayName("PendingMessageReclaimer 单元测试")
+class PendingMessageReclaimerTest {
+
+    private final PendingMessageReclaimer reclaimer = new PendingMessageReclaimer(
+            new StringRedisTemplate(), null, new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("退避时长按投递次数指数增长且不超过上限")
+    void shouldBackOffExponentiallyWithCap() {
+        assertEquals(30_000, reclaimer.backoffMillis(1));
+        assertEquals(60_000, reclaimer.backoffMillis(2));
+        assertEquals(240_000, reclaimer.backoffMillis(4));
+        assertEquals(600_000, reclaimer.backoffMillis(6));
+        assertEquals(600_000, reclaimer.backoffMillis(100));
+    }
+
+    @Test
+    @DisplayName("未过退避期等待-过期后重新投递-达到最大次数转入死信")
+    void shouldClassifyByDeliveryCountAndIdleTime() {
+        assertEquals(PendingMessageReclaimer.Action.WAIT, reclaimer.classify(1, Duration.ofSeconds(10)));
+        assertEquals(PendingMessageReclaimer.Action.RECLAIM, reclaimer.classify(1, Duration.ofSeconds(30)));
+        assertEquals(PendingMessageReclaimer.Action.WAIT, reclaimer.classify(3, Duration.ofSeconds(90)));
+        assertEquals(PendingMessageReclaimer.Action.RECLAIM, reclaimer.classify(3, Duration.ofSeconds(120)));
+        assertEquals(PendingMessageReclaimer.Action.WAIT, reclaimer.classify(5, Duration.ofSeconds(300)));
+        assertEquals(PendingMessageReclaimer.Action.DEAD_LETTER, reclaimer.classify(5, Duration.ofMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("扫描游标-取紧随当前消息 ID 之后的 ID")
+    void shouldAdvanceCursorPastLastId() {
+        assertEquals("1700000000000-1", PendingMessageReclaimer.nextId("1700000000000-0"));
+        assertEquals("1700000000001-0", PendingMessageReclaimer.nextId("1700000000000-" + Long.MAX_VALUE));
+    }
+
+    @Test
+    @DisplayName("死信 Stream Key 与来源 Stream 后缀一致")
+    void shouldUseDeadLetterStreamPerEventType() {
+        assertEquals("stream:edu:dlq:chapter-completed", EventType.CHAPTER_COMPLETED.getDeadLetterStreamKey());
+        assertEquals(EventType.CHAPTER_COMPLETED, EventType.fromStreamSuffix("chapter-completed"));
+    }
+}
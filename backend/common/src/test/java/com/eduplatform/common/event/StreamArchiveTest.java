@@ -0,0 +1,41 @@
+package com.eduplatform.common.event;
+
+import com.eduplatform.common.event.codec.EventCodec;
+import com.eduplatform.common.event.payload.ChapterCompletedPayload;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StreamArchive 归档批次压缩测试。
+ */
+@DisplayName("StreamArchive 单元测试")
+class StreamArchiveTest {
+
+    @Test
+    @DisplayName("归档批次压缩后可完整还原记录 ID 与原字段，且明显小于原始大小")
+    void shouldRoundTripCompressedBatch() {
+        List<StreamArchive.ArchivedRecord> records = new ArrayList<>();
+        int rawBytes = 0;
+        for (int i = 0; i < 500; i++) {
+            var fields = EventCodec.encode(EventCodec.CODEC_JSON, UUID.randomUUID().toString(),
+                    EventType.CHAPTER_COMPLETED, RedisStreamConstants.SERVICE_PROGRESS, LocalDateTime.now(),
+                    new ChapterCompletedPayload(1000L + i, 30L + i % 10, 2L, "第三章 面向对象编程"));
+            records.add(new StreamArchive.ArchivedRecord((1_700_000_000_000L + i) + "-0", fields));
+            rawBytes += fields.toString().getBytes(StandardCharsets.UTF_8).length;
+        }
+
+        byte[] compressed = StreamArchive.compress(records);
+
+        assertEquals(records, StreamArchive.decompress(compressed));
+        assertTrue(compressed.length * 3 < rawBytes, "compressed=" + compressed.length + ", raw=" + rawBytes);
+    }
+}
@@ -0,0 +1,32 @@
+package com.eduplatform.common.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StreamConsumerSupport 消费者命名测试。
+ */
+@DisplayName("StreamConsumerSupport 单元测试")
+class StreamConsumerSupportTest {
+
+    @Test
+    @DisplayName("配置了实例 ID-消费者名称为 服务名:实例ID")
+    void shouldUseConfiguredInstanceId() {
+        assertEquals("user-service:pod-7f9c",
+                StreamConsumerSupport.resolveConsumerName("user-service", " pod-7f9c "));
+    }
+
+    @Test
+    @DisplayName("未配置实例 ID-按主机名与进程号区分实例，不再使用固定的 :1")
+    void shouldDeriveInstanceIdFromHostAndPid() {
+        String name = StreamConsumerSupport.resolveConsumerName("user-service", "");
+
+        assertTrue(name.startsWith("user-service:"));
+        assertTrue(name.endsWith("-" + ProcessHandle.current().pid()));
+        assertFalse(name.equals("user-service:1"));
+    }
+}
@@ -0,0 +1,192 @@
+package com.eduplatform.common.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.connection.stream.StringRecord;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StreamPublishBuffer 攒批、部分重试、关闭与溢出策略测试。
+ */
+@DisplayName("StreamPublishBuffer 单元测试")
+class StreamPublishBufferTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private StreamPublishBuffer buffer;
+
+    @AfterEach
+    void tearDown() {
+        if (buffer != null) {
+            buffer.close(Duration.ofSeconds(2));
+        }
+    }
+
+    @Test
+    @DisplayName("攒批后一次 Pipeline 写入-各 Future 按顺序以消息 ID 完成")
+    void shouldFlushBatchThroughPipeline() throws Exception {
+        AtomicInteger pipelineCalls = new AtomicInteger();
+        StringRedisTemplate redisTemplate = pipelineTemplate(() -> {
+            int call = pipelineCalls.incrementAndGet();
+            List<Object> ids = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                ids.add(RecordId.of(call + "-" + i));
+            }
+            return ids;
+        });
+        buffer = newBuffer(redisTemplate, 10, 3, Duration.ofMillis(200),
+                StreamPublishBuffer.OverflowPolicy.CALLER_RUNS,
+                record -> "sync");
+
+        CompletableFuture<String> first = buffer.submit(record("a"));
+        CompletableFuture<String> second = buffer.submit(record("b"));
+        CompletableFuture<String> third = buffer.submit(record("c"));
+
+        assertEquals("1-0", first.get(2, TimeUnit.SECONDS));
+        assertEquals("1-1", second.get(2, TimeUnit.SECONDS));
+        assertEquals("1-2", third.get(2, TimeUnit.SECONDS));
+        assertEquals(1, pipelineCalls.get());
+        assertEquals(3.0, meterRegistry.get("event.publish.events").tag("result", "published").counter().count());
+    }
+
+    @Test
+    @DisplayName("Pipeline 部分命令失败-只重试未拿到消息 ID 的记录")
+    void shouldRetryOnlyUnsentRecords() throws Exception {
+        AtomicInteger pipelineCalls = new AtomicInteger();
+        StringRedisTemplate redisTemplate = pipelineTemplate(() -> {
+            if (pipelineCalls.incrementAndGet() == 1) {
+                List<Object> partial = new ArrayList<>();
+                partial.add(RecordId.of("1-0"));
+                partial.add(new IllegalStateException("OOM command not allowed"));
+                partial.add(RecordId.of("1-2"));
+                throw new RedisPipelineException(new IllegalStateException("OOM command not allowed"), partial);
+            }
+            return List.of(RecordId.of("2-0"));
+        });
+        buffer = newBuffer(redisTemplate, 10, 3, Duration.ofMillis(200),
+                StreamPublishBuffer.OverflowPolicy.CALLER_RUNS,
+                record -> "sync");
+
+        CompletableFuture<String> first = buffer.submit(record("a"));
+        CompletableFuture<String> second = buffer.submit(record("b"));
+        CompletableFuture<String> third = buffer.submit(record("c"));
+
+        assertEquals("1-0", first.get(2, TimeUnit.SECONDS));
+        assertEquals("2-0", second.get(2, TimeUnit.SECONDS));
+        assertEquals("1-2", third.get(2, TimeUnit.SECONDS));
+        assertEquals(2, pipelineCalls.get());
+        assertEquals(3.0, meterRegistry.get("event.publish.events").tag("result", "published").counter().count());
+    }
+
+    @Test
+    @DisplayName("关闭超时-发布线程仍卡住时队列中剩余消息以 null 完成")
+    void shouldCompleteQueuedRecordsWhenCloseTimesOut() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringRedisTemplate redisTemplate = pipelineTemplate(() -> {
+            entered.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(RecordId.of("1-0"));
+        });
+        buffer = newBuffer(redisTemplate, 10, 1, Duration.ZERO,
+                StreamPublishBuffer.OverflowPolicy.CALLER_RUNS,
+                record -> "sync");
+
+        CompletableFuture<String> inFlight = buffer.submit(record("a"));
+        assertTrue(entered.await(2, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = buffer.submit(record("b"));
+
+        buffer.close(Duration.ofMillis(100));
+
+        assertNull(queued.get(1, TimeUnit.SECONDS));
+        assertEquals(0, buffer.depth());
+        release.countDown();
+        assertEquals("1-0", inFlight.get(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("缓冲区已满-drop 策略直接丢弃并计数")
+    void shouldApplyOverflowPolicyWhenFull() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringRedisTemplate redisTemplate = pipelineTemplate(() -> {
+            entered.countDown();
+            try {
+                release.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return List.of(RecordId.of("1-0"));
+        });
+        buffer = newBuffer(redisTemplate, 1, 1, Duration.ZERO, StreamPublishBuffer.OverflowPolicy.DROP, record -> "sync");
+
+        // 第一条被发布线程取走并卡在 Pipeline 中，第二条占满队列
+        buffer.submit(record("a"));
+        assertTrue(entered.await(2, TimeUnit.SECONDS));
+        buffer.submit(record("b"));
+
+        assertNull(buffer.submit(record("c")).getNow("pending"));
+        assertEquals(1.0, meterRegistry.get("event.publish.events").tag("result", "dropped").counter().count());
+        assertEquals(1, buffer.depth());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("关闭后提交-由调用线程同步发布")
+    void shouldPublishSynchronouslyAfterClose() throws Exception {
+        buffer = newBuffer(pipelineTemplate(List::of), 10, 10, Duration.ofMillis(5),
+                StreamPublishBuffer.OverflowPolicy.DROP,
+                record -> "sync-" + record.getValue().get("id"));
+        buffer.close(Duration.ofSeconds(2));
+
+        assertEquals("sync-x", buffer.submit(record("x")).get(1, TimeUnit.SECONDS));
+        assertEquals(1.0, meterRegistry.get("event.publish.events").tag("result", "caller_runs").counter().count());
+    }
+
+    private StreamPublishBuffer newBuffer(StringRedisTemplate redisTemplate, int capacity, int batchSize,
+                                          Duration linger, StreamPublishBuffer.OverflowPolicy policy,
+                                          Function<StringRecord, String> syncPublisher) {
+        return new StreamPublishBuffer(redisTemplate, capacity, batchSize, linger, policy,
+                Duration.ofMillis(10), syncPublisher, meterRegistry);
+    }
+
+    /**
+     * 只替换 Pipeline 执行结果的 RedisTemplate，不建立真实连接
+     */
+    private static StringRedisTemplate pipelineTemplate(Supplier<List<Object>> results) {
+        return new StringRedisTemplate() {
+            @Override
+            public List<Object> executePipelined(SessionCallback<?> session) {
+                return results.get();
+            }
+        };
+    }
+
+    private static StringRecord record(String id) {
+        return StreamRecords.string(Map.of("id", id, "type", "TEST")).withStreamKey("stream:test");
+    }
+}
@@ -0,0 +1,41 @@
+package com.eduplatform.common.event;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * StreamRetentionManager 裁剪边界计算测试。
+ */
+@DisplayName("StreamRetentionManager 单元测试")
+class StreamRetentionManagerTest {
+
+    private static final List<String> HEAD = List.of("1000-0", "1000-1", "2000-0", "3000-0", "4000-0");
+
+    @Test
+    @DisplayName("按条数裁剪-只裁剪超出最大条数的部分")
+    void shouldTrimOnlyOverLength() {
+        assertEquals(2, StreamRetentionManager.trimmableCount(HEAD, 2, null, null));
+        assertEquals(0, StreamRetentionManager.trimmableCount(HEAD, 0, null, null));
+    }
+
+    @Test
+    @DisplayName("按时间裁剪-早于截止 ID 的记录即使未超出条数也裁剪")
+    void shouldTrimExpiredRecords() {
+        assertEquals(3, StreamRetentionManager.trimmableCount(HEAD, 0, "3000-0", null));
+        assertEquals(4, StreamRetentionManager.trimmableCount(HEAD, 4, "2000-0", null));
+    }
+
+    @Test
+    @DisplayName("安全边界-不裁剪最慢消费组尚未读取或仍在 pending 的记录")
+    void shouldStopAtSlowestConsumerGroup() {
+        assertEquals(1, StreamRetentionManager.trimmableCount(HEAD, 5, "9000-0", "1000-1"));
+        assertEquals(0, StreamRetentionManager.trimmableCount(HEAD, 5, null, "0-0"));
+        assertTrue(StreamRetentionManager.compareIds("1000-10", "1000-9") > 0);
+        assertTrue(StreamRetentionManager.compareIds("999-99", "1000-0") < 0);
+    }
+}
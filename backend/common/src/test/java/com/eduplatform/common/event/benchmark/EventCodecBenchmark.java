@@ -0,0 +1,91 @@
+package com.eduplatform.common.event.benchmark;
+
+import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.RedisStreamConstants;
+import com.eduplatform.common.event.codec.EventCodec;
+import com.eduplatform.common.event.payload.EventPayload;
+import com.eduplatform.common.event.payload.HomeworkSubmittedPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件编码基准：历史 JSON 格式 vs bin1 紧凑二进制格式的单条事件字节数与编解码耗时。
+ * 运行方式：mvn -pl common test-compile 后执行本类 main 方法，先打印每种格式的字节数再运行 JMH。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventCodecBenchmark {
+
+    private static final EventPayload PAYLOAD =
+            new HomeworkSubmittedPayload(1024L, "第三章 面向对象编程课后作业", 88_231L, 20_517L, 12L, 305L);
+
+    @Param({EventCodec.CODEC_JSON, EventCodec.CODEC_BINARY_V1})
+    public String codec;
+
+    private String messageId;
+    private LocalDateTime timestamp;
+    private Map<String, String> encoded;
+
+    @Setup
+    public void setUp() {
+        messageId = UUID.randomUUID().toString();
+        timestamp = LocalDateTime.now();
+        encoded = encode();
+    }
+
+    @Benchmark
+    public Map<String, String> encode() {
+        return EventCodec.encode(codec, messageId, EventType.HOMEWORK_SUBMITTED,
+                RedisStreamConstants.SERVICE_HOMEWORK, timestamp, PAYLOAD);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return EventCodec.decode(encoded);
+    }
+
+    /**
+     * Stream 条目在 Redis 中占用的字段名与字段值字节数（不含 listpack 自身开销）
+     */
+    static int entryBytes(Map<String, String> fields) {
+        int bytes = 0;
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            bytes += field.getKey().getBytes(StandardCharsets.UTF_8).length;
+            bytes += field.getValue().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return bytes;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (String codec : new String[]{EventCodec.CODEC_JSON, EventCodec.CODEC_BINARY_V1}) {
+            Map<String, String> fields = EventCodec.encode(codec, UUID.randomUUID().toString(),
+                    EventType.HOMEWORK_SUBMITTED, RedisStreamConstants.SERVICE_HOMEWORK, LocalDateTime.now(), PAYLOAD);
+            System.out.printf("codec=%s bytes/event=%d%n", codec, entryBytes(fields));
+        }
+        new Runner(new OptionsBuilder()
+                .include(EventCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
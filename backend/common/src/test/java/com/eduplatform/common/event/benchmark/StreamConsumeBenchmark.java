@@ -0,0 +1,209 @@
+package com.eduplatform.common.event.benchmark;
+
+import com.eduplatform.common.event.BatchStreamListener;
+import com.eduplatform.common.event.EventDedupeStore;
+import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.IdempotentStreamListener;
+import com.eduplatform.common.event.RedisStreamConstants;
+import com.eduplatform.common.event.codec.DecodedEvent;
+import com.eduplatform.common.event.codec.EventCodec;
+import com.eduplatform.common.event.payload.ChapterCompletedPayload;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stream 消费吞吐基准：逐条消费（IdempotentStreamListener，XREADGROUP COUNT 1）
+ * vs 批量消费（BatchStreamListener，XREADGROUP COUNT batchSize + 集合化数据库操作 + 整批 XACK）。
+ *
+ * 以进程内的延迟替身代替本地 Redis 与数据库：每次 Redis 命令（或一次 Pipeline）计一次 Redis 往返，
+ * 每条 SQL 计一次数据库往返，两种模式使用相同的去重、解码与 ACK 代码路径。
+ * 逐条模式按原 unlockHomeworkByChapter 计数据库往返（查章节作业、每个作业查解锁记录并插入、提交），
+ * 批量模式每批一条 upsert 加提交。
+ * 运行方式：mvn -pl common test-compile 后执行本类 main 方法，结果单位为 事件/秒。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StreamConsumeBenchmark {
+
+    static final int EVENTS = 2000;
+
+    /** 同机房 Redis 往返 */
+    static final long REDIS_RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /** 同机房 PostgreSQL 往返 */
+    static final long DB_RTT_NANOS = TimeUnit.MICROSECONDS.toNanos(300);
+
+    /** 逐条解锁（章节关联 2 个作业）：1 次查询章节作业 + 2 × (查询解锁记录 + 插入) + 提交 */
+    static final int DB_ROUND_TRIPS_PER_EVENT = 6;
+
+    /** 批量解锁：1 条 upsert + 提交 */
+    static final int DB_ROUND_TRIPS_PER_BATCH = 2;
+
+    @Param({"record", "batch"})
+    public String mode;
+
+    @Param({"100"})
+    public int batchSize;
+
+    private final List<MapRecord<String, String, String>> records = new ArrayList<>(EVENTS);
+    private final AtomicInteger handled = new AtomicInteger();
+    private LatencyDedupeStore store;
+    private IdempotentStreamListener<ChapterCompletedPayload> recordListener;
+    private BatchStreamListener<ChapterCompletedPayload> batchListener;
+
+    @Setup(Level.Trial)
+    public void encodeRecords() {
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < EVENTS; i++) {
+            Map<String, String> fields = EventCodec.encode(EventCodec.CODEC_JSON, UUID.randomUUID().toString(),
+                    EventType.CHAPTER_COMPLETED, RedisStreamConstants.SERVICE_PROGRESS, now,
+                    new ChapterCompletedPayload(10_000L + i % 500, 300L + i % 20, 12L, "第三章 面向对象编程"));
+            records.add(StreamRecords.newRecord().in(EventType.CHAPTER_COMPLETED.getStreamKey())
+                    .ofMap(fields).withId(RecordId.of((i + 1) + "-0")));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void resetConsumers() {
+        store = new LatencyDedupeStore();
+        handled.set(0);
+        recordListener = new IdempotentStreamListener<>(store, RedisStreamConstants.GROUP_HOMEWORK_SERVICE,
+                ChapterCompletedPayload.class) {
+            @Override
+            protected void handle(DecodedEvent<ChapterCompletedPayload> event) {
+                roundTrips(DB_RTT_NANOS, DB_ROUND_TRIPS_PER_EVENT);
+                handled.incrementAndGet();
+            }
+        };
+        batchListener = new BatchStreamListener<>(store, RedisStreamConstants.GROUP_HOMEWORK_SERVICE,
+                ChapterCompletedPayload.class) {
+            @Override
+            protected void handleBatch(List<DecodedEvent<ChapterCompletedPayload>> events) {
+                roundTrips(DB_RTT_NANOS, DB_ROUND_TRIPS_PER_BATCH);
+                handled.addAndGet(events.size());
+            }
+        };
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public int consume() {
+        String stream = EventType.CHAPTER_COMPLETED.getStreamKey();
+        if ("batch".equals(mode)) {
+            for (int from = 0; from < EVENTS; from += batchSize) {
+                roundTrips(REDIS_RTT_NANOS, 1);
+                batchListener.onBatch(stream, records.subList(from, Math.min(from + batchSize, EVENTS)));
+            }
+        } else {
+            for (MapRecord<String, String, String> record : records) {
+                roundTrips(REDIS_RTT_NANOS, 1);
+                recordListener.onMessage(record);
+            }
+        }
+        return handled.get();
+    }
+
+    static void roundTrips(long rttNanos, int count) {
+        long deadline = System.nanoTime() + rttNanos * count;
+        for (long remaining = rttNanos * count; remaining > 0; remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * Redis 替身：状态保存在内存中，每次命令或 Pipeline 计一次往返
+     */
+    static final class LatencyDedupeStore extends EventDedupeStore {
+
+        private final Map<String, String> states = new ConcurrentHashMap<>();
+
+        LatencyDedupeStore() {
+            super(new StringRedisTemplate());
+        }
+
+        @Override
+        public ClaimResult tryClaim(String group, String messageId) {
+            roundTrips(REDIS_RTT_NANOS, 1);
+            return states.putIfAbsent(messageId, "processing") == null ? ClaimResult.CLAIMED : ClaimResult.PROCESSED;
+        }
+
+        @Override
+        public void complete(String group, String messageId, String stream, RecordId recordId) {
+            roundTrips(REDIS_RTT_NANOS, 1);
+            states.put(messageId, "done");
+        }
+
+        @Override
+        public void release(String group, String messageId) {
+            roundTrips(REDIS_RTT_NANOS, 1);
+            states.remove(messageId);
+        }
+
+        @Override
+        public void acknowledge(String stream, String group, RecordId recordId) {
+            roundTrips(REDIS_RTT_NANOS, 1);
+        }
+
+        @Override
+        public Map<String, ClaimResult> tryClaimAll(String group, List<String> messageIds) {
+            roundTrips(REDIS_RTT_NANOS, 1);
+            Map<String, ClaimResult> results = new LinkedHashMap<>();
+            for (String messageId : messageIds) {
+                results.put(messageId, states.putIfAbsent(messageId, "processing") == null
+                        ? ClaimResult.CLAIMED : ClaimResult.PROCESSED);
+            }
+            return results;
+        }
+
+        @Override
+        public void completeAll(String group, List<String> messageIds, String stream, List<RecordId> recordIds) {
+            roundTrips(REDIS_RTT_NANOS, 1);
+            messageIds.forEach(messageId -> states.put(messageId, "done"));
+        }
+
+        @Override
+        public void releaseAll(String group, List<String> messageIds) {
+            roundTrips(REDIS_RTT_NANOS, 1);
+            messageIds.forEach(states::remove);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(StreamConsumeBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
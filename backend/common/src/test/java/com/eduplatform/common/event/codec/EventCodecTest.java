@@ -0,0 +1,132 @@
+package com.eduplatform.common.event.codec;
+
+import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.RedisStreamConstants;
+import com.eduplatform.common.event.payload.AnnouncementPublishedPayload;
+import com.eduplatform.common.event.payload.ChapterCompletedPayload;
+import com.eduplatform.common.event.payload.EnrollmentPayload;
+import com.eduplatform.common.event.payload.HomeworkSubmittedPayload;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * EventCodec 编解码与历史格式兼容测试。
+ */
+@DisplayName("EventCodec 单元测试")
+class EventCodecTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 3, 1, 10, 30, 15, 123_000_000);
+
+    @Test
+    @DisplayName("bin1 编码往返-元数据与载荷完整还原，且比 JSON 更小")
+    void shouldRoundTripBinaryAndBeSmallerThanJson() {
+        String id = UUID.randomUUID().toString();
+        HomeworkSubmittedPayload payload = new HomeworkSubmittedPayload(1L, "第一章作业", 200L, 30_000L, 4L, 5L);
+
+        Map<String, String> binary = EventCodec.encode(EventCodec.CODEC_BINARY_V1, id,
+                EventType.HOMEWORK_SUBMITTED, RedisStreamConstants.SERVICE_HOMEWORK, TIMESTAMP, payload);
+        DecodedEvent<HomeworkSubmittedPayload> event = EventCodec.decode(binary, HomeworkSubmittedPayload.class);
+
+        assertEquals(id, event.id());
+        assertEquals(EventType.HOMEWORK_SUBMITTED, event.type());
+        assertEquals(RedisStreamConstants.SERVICE_HOMEWORK, event.source());
+        assertEquals(TIMESTAMP, event.timestamp());
+        assertEquals(payload, event.payload());
+
+        Map<String, String> json = EventCodec.encode(EventCodec.CODEC_JSON, id,
+                EventType.HOMEWORK_SUBMITTED, RedisStreamConstants.SERVICE_HOMEWORK, TIMESTAMP, payload);
+        assertTrue(bytes(binary) * 2 < bytes(json));
+    }
+
+    @Test
+    @DisplayName("历史 JSON 消息-无 codec 字段按旧格式读取，忽略未知字段")
+    void shouldDecodeLegacyJsonRecord() {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("id", "3f2b9c0d-4e5a-46b7-a8c9-d0e1f2a3b4c5");
+        fields.put("type", "COURSE_ENROLLED");
+        fields.put("source", RedisStreamConstants.SERVICE_COURSE);
+        fields.put("timestamp", "2024-03-01T10:30:15.123");
+        fields.put("data", "{\"studentId\":7,\"courseId\":2,\"courseName\":\"Java 程序设计\",\"extra\":true}");
+
+        DecodedEvent<EnrollmentPayload> event = EventCodec.decode(fields, EnrollmentPayload.class);
+
+        assertEquals(EventType.COURSE_ENROLLED, event.type());
+        assertEquals(TIMESTAMP, event.timestamp());
+        assertEquals(new EnrollmentPayload(7L, 2L, "Java 程序设计"), event.payload());
+    }
+
+    @Test
+    @DisplayName("空值字段与 Map 形式数据-按载荷类型编码后原样还原")
+    void shouldPreserveNullsAndConvertMapData() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("announcementId", 9L);
+        data.put("title", "停课通知");
+        data.put("targetAudience", "ALL");
+
+        Map<String, String> fields = EventCodec.encode(EventCodec.CODEC_BINARY_V1, UUID.randomUUID().toString(),
+                EventType.ANNOUNCEMENT_PUBLISHED, RedisStreamConstants.SERVICE_USER, TIMESTAMP, data);
+        AnnouncementPublishedPayload payload =
+                EventCodec.decode(fields, AnnouncementPublishedPayload.class).payload();
+
+        assertEquals(new AnnouncementPublishedPayload(9L, "停课通知", null, "ALL", null, null), payload);
+    }
+
+    @Test
+    @DisplayName("旧版本消费端读取新版本消息-末尾追加的字段被忽略")
+    void shouldIgnoreAppendedFields() {
+        String id = UUID.randomUUID().toString();
+        BinaryEventWriter out = new BinaryEventWriter()
+                .writeByte(1)
+                .writeByte(EventType.CHAPTER_COMPLETED.getTypeCode())
+                .writeUuid(UUID.fromString(id))
+                .writeVarLong(0L)
+                .writeString(RedisStreamConstants.SERVICE_PROGRESS)
+                .writeLong(7L)
+                .writeLong(3L)
+                .writeLong(2L)
+                .writeString("第三章")
+                .writeLong(42L);
+        Map<String, String> fields = Map.of(
+                EventCodec.FIELD_CODEC, EventCodec.CODEC_BINARY_V1,
+                EventCodec.FIELD_PAYLOAD, Base64.getEncoder().encodeToString(out.toByteArray()));
+
+        ChapterCompletedPayload payload = EventCodec.decode(fields, ChapterCompletedPayload.class).payload();
+
+        assertEquals(new ChapterCompletedPayload(7L, 3L, 2L, "第三章"), payload);
+    }
+
+    @Test
+    @DisplayName("载荷类型与事件类型不匹配-编码与解码均拒绝")
+    void shouldRejectMismatchedPayloadType() {
+        EnrollmentPayload enrollment = new EnrollmentPayload(1L, 2L, null);
+        String id = UUID.randomUUID().toString();
+
+        assertThrows(IllegalArgumentException.class, () -> EventCodec.encode(EventCodec.CODEC_BINARY_V1, id,
+                EventType.HOMEWORK_SUBMITTED, RedisStreamConstants.SERVICE_COURSE, TIMESTAMP, enrollment));
+
+        Map<String, String> fields = EventCodec.encode(EventCodec.CODEC_BINARY_V1, id,
+                EventType.COURSE_DROPPED, RedisStreamConstants.SERVICE_COURSE, TIMESTAMP, enrollment);
+        assertNull(EventCodec.decode(fields, EnrollmentPayload.class).payload().courseName());
+        assertThrows(IllegalArgumentException.class,
+                () -> EventCodec.decode(fields, HomeworkSubmittedPayload.class));
+    }
+
+    private static int bytes(Map<String, String> fields) {
+        return fields.entrySet().stream()
+                .mapToInt(e -> e.getKey().getBytes(StandardCharsets.UTF_8).length
+                        + e.getValue().getBytes(StandardCharsets.UTF_8).length)
+                .sum();
+    }
+}
@@ -1,56 +1,31 @@
 package com.eduplatform.course.config;
 
-import com.fasterxml.jackson.annotation.JsonTypeInfo;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.eduplatform.course.service.BlockedWordMatcher;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.cache.RedisCacheConfiguration;
-import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.RedisSerializationContext;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
-
-import java.time.Duration;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 /**
  * Redis 缓存配置类
- * 开启缓存支持并配置默认过期时间
+ * 开启缓存支持；CacheManager 由 common 模块的两级缓存（TwoLevelCacheConfig）提供，
+ * 默认过期时间与各缓存的本地缓存容量见 application.yml 中的 edu.cache
  */
 @Configuration
 @EnableCaching
 public class RedisConfig {
 
     /**
-     * 配置 RedisCacheManager
-     * 默认过期时间为 10 分钟
+     * 订阅屏蔽词变更通知，使各实例的内存自动机与数据库保持一致
      */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        // 显式注册 JavaTimeModule，确保 LocalDateTime 等时间类型可序列化
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        // 写入缓存值类型信息，避免集合读取时被反序列化为 LinkedHashMap
-        objectMapper.activateDefaultTyping(
-                objectMapper.getPolymorphicTypeValidator(),
-                ObjectMapper.DefaultTyping.NON_FINAL,
-                JsonTypeInfo.As.PROPERTY
-        );
-
-        RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10)) // 设置默认缓存时间为 10 分钟
-                .serializeKeysWith(
-                        RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-                .serializeValuesWith(RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer(objectMapper)))
-                .disableCachingNullValues();
-
-        return RedisCacheManager.builder(connectionFactory)
-                .cacheDefaults(config)
-                .build();
+    public RedisMessageListenerContainer blockedWordListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                      BlockedWordMatcher blockedWordMatcher) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(blockedWordMatcher, new ChannelTopic(BlockedWordMatcher.CHANGED_CHANNEL));
+        return container;
     }
-}
\ No newline at end of file
+}
@@ -56,6 +56,29 @@ public class ChapterCommentController {
         return Result.success(data);
     }
 
+    /**
+     * 游标分页获取章节评论。
+     * 说明：供评论区无限滚动使用，首页不传 cursor，之后原样回传上一页的 nextCursor；总数按需返回。
+     */
+    @GetMapping("/chapter/{chapterId}/cursor")
+    public Result<Map<String, Object>> getCommentsByCursor(
+            @PathVariable("chapterId") Long chapterId,
+            @RequestHeader(value = "X-User-Id", required = false) String currentUserIdHeader,
+            @RequestParam(name = "userId", required = false) Long userId,
+            @RequestParam(name = "sort", defaultValue = "time") String sort,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "withTotal", defaultValue = "false") boolean withTotal) {
+
+        Long effectiveUserId = resolveUserId(currentUserIdHeader, userId);
+        try {
+            return Result.success(commentService.getCommentsByCursor(
+                    chapterId, effectiveUserId, sort, cursor, size, withTotal));
+        } catch (IllegalArgumentException e) {
+            return Result.failure(400, "分页游标无效，请从第一页重新加载");
+        }
+    }
+
     /**
      * 发表评论。
      * 业务原因：写入前需要校验禁言状态与屏蔽词策略。
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.eduplatform.course.entity.ChapterComment;
 import org.apache.ibatis.annotations.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -33,24 +34,109 @@ public interface ChapterCommentMapper extends BaseMapper<ChapterComment> {
     );
     
     /**
-     * 获取章节评论列表（按热度排序）
+     * 游标分页获取章节评论（按时间排序）
+     * 游标为上一页最后一条的 (is_pinned, created_at, id)，首页传 null；行值比较可直接走 idx_chapter_comments_time_cursor
      */
     @Select("""
+        <script>
         SELECT c.*, u.username as user_name, u.avatar as user_avatar
         FROM chapter_comments c
         LEFT JOIN users u ON c.user_id = u.id
         WHERE c.chapter_id = #{chapterId}
         AND c.parent_id IS NULL
         AND c.status = 1
-        ORDER BY c.is_pinned DESC, c.like_count DESC, c.reply_count DESC, c.created_at DESC
-        LIMIT #{offset}, #{limit}
+        <if test='cursorId != null'>
+        AND (c.is_pinned, c.created_at, c.id) &lt; (#{isPinned}, #{createdAt}, #{cursorId})
+        </if>
+        ORDER BY c.is_pinned DESC, c.created_at DESC, c.id DESC
+        LIMIT #{limit}
+        </script>
     """)
-    List<Map<String, Object>> findByChapterOrderByHot(
+    List<Map<String, Object>> findByChapterTimeCursor(
         @Param("chapterId") Long chapterId,
-        @Param("offset") int offset,
+        @Param("isPinned") Integer isPinned,
+        @Param("createdAt") LocalDateTime createdAt,
+        @Param("cursorId") Long cursorId,
         @Param("limit") int limit
     );
-    
+
+    /**
+     * 按 ID 批量获取主评论（热度页：排名来自 Redis，详情从数据库补齐），返回顺序不保证
+     */
+    @Select("""
+        <script>
+        SELECT c.*, u.username as user_name, u.avatar as user_avatar
+        FROM chapter_comments c
+        LEFT JOIN users u ON c.user_id = u.id
+        WHERE c.id IN
+        <foreach collection='ids' item='id' open='(' separator=',' close=')'>
+            #{id}
+        </foreach>
+        AND c.status = 1
+        </script>
+    """)
+    List<Map<String, Object>> findTopLevelByIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 获取章节的置顶主评论（热度排序时排在排行榜之前）
+     */
+    @Select("""
+        SELECT c.*, u.username as user_name, u.avatar as user_avatar
+        FROM chapter_comments c
+        LEFT JOIN users u ON c.user_id = u.id
+        WHERE c.chapter_id = #{chapterId}
+        AND c.parent_id IS NULL
+        AND c.status = 1
+        AND c.is_pinned = 1
+        ORDER BY c.like_count DESC, c.created_at DESC, c.id DESC
+    """)
+    List<Map<String, Object>> findPinnedTopLevel(@Param("chapterId") Long chapterId);
+
+    /**
+     * 获取构建热度排行榜所需的非置顶主评论计数（id、like_count、reply_count、created_at）
+     */
+    @Select("""
+        SELECT id, like_count, reply_count, created_at
+        FROM chapter_comments
+        WHERE chapter_id = #{chapterId}
+        AND parent_id IS NULL
+        AND status = 1
+        AND is_pinned = 0
+    """)
+    List<Map<String, Object>> findHotSeeds(@Param("chapterId") Long chapterId);
+
+    /**
+     * 查询评论所属章节，仅返回参与热度排行的评论（未删除、非置顶的主评论）
+     */
+    @Select("""
+        <script>
+        SELECT id, chapter_id FROM chapter_comments
+        WHERE id IN
+        <foreach collection='ids' item='id' open='(' separator=',' close=')'>
+            #{id}
+        </foreach>
+        AND parent_id IS NULL
+        AND status = 1
+        AND is_pinned = 0
+        </script>
+    """)
+    List<Map<String, Object>> findRankedChapterIds(@Param("ids") List<Long> ids);
+
+    /**
+     * 按 comment_likes 重新统计点赞数（点赞回写使用，重复执行结果不变）
+     */
+    @Update("""
+        <script>
+        UPDATE chapter_comments c
+        SET like_count = (SELECT COUNT(*) FROM comment_likes l WHERE l.comment_id = c.id)
+        WHERE c.id IN
+        <foreach collection='ids' item='id' open='(' separator=',' close=')'>
+            #{id}
+        </foreach>
+        </script>
+    """)
+    int recountLikes(@Param("ids") List<Long> ids);
+
     /**
      * 获取评论的回复列表
      */
@@ -63,7 +149,30 @@ public interface ChapterCommentMapper extends BaseMapper<ChapterComment> {
         ORDER BY c.created_at ASC
     """)
     List<Map<String, Object>> findReplies(@Param("parentId") Long parentId);
-    
+
+    /**
+     * 批量获取多条主评论的回复预览（每条主评论最早的 limit 条）
+     * 一次查询按 parent_id 分区编号后截取，结果按 parent_id、时间顺序返回
+     */
+    @Select("""
+        <script>
+        SELECT r.*, u.username as user_name, u.avatar as user_avatar
+        FROM (
+            SELECT c.*, ROW_NUMBER() OVER (PARTITION BY c.parent_id ORDER BY c.created_at ASC, c.id ASC) AS rn
+            FROM chapter_comments c
+            WHERE c.parent_id IN
+            <foreach collection='parentIds' item='id' open='(' separator=',' close=')'>
+                #{id}
+            </foreach>
+            AND c.status = 1
+        ) r
+        LEFT JOIN users u ON r.user_id = u.id
+        WHERE r.rn &lt;= #{limit}
+        ORDER BY r.parent_id, r.rn
+        </script>
+    """)
+    List<Map<String, Object>> findReplyPreviews(@Param("parentIds") List<Long> parentIds, @Param("limit") int limit);
+
     /**
      * 获取章节评论总数
      */
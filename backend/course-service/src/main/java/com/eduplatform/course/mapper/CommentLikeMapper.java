@@ -39,6 +39,44 @@ public interface CommentLikeMapper extends BaseMapper<CommentLike> {
     """)
     List<Long> findLikedCommentIds(@Param("userId") Long userId, @Param("commentIds") List<Long> commentIds);
     
+    /**
+     * 获取用户点赞过的全部评论ID（Redis 中的点赞集合过期后重建使用）
+     */
+    @Select("SELECT comment_id FROM comment_likes WHERE user_id = #{userId}")
+    List<Long> findCommentIdsByUser(@Param("userId") Long userId);
+
+    /**
+     * 批量写入点赞记录；已存在或评论已不存在的跳过
+     */
+    @Insert("""
+        <script>
+        INSERT INTO comment_likes (comment_id, user_id, created_at)
+        SELECT v.comment_id, v.user_id, CURRENT_TIMESTAMP
+        FROM (VALUES
+        <foreach collection='likes' item='like' separator=','>
+            (#{like.commentId}, #{like.userId})
+        </foreach>
+        ) AS v(comment_id, user_id)
+        JOIN chapter_comments c ON c.id = v.comment_id
+        ON CONFLICT (comment_id, user_id) DO NOTHING
+        </script>
+    """)
+    int insertIgnoreBatch(@Param("likes") List<CommentLike> likes);
+
+    /**
+     * 批量删除点赞记录
+     */
+    @Delete("""
+        <script>
+        DELETE FROM comment_likes
+        WHERE (comment_id, user_id) IN
+        <foreach collection='likes' item='like' open='(' separator=',' close=')'>
+            (#{like.commentId}, #{like.userId})
+        </foreach>
+        </script>
+    """)
+    int deleteBatch(@Param("likes") List<CommentLike> likes);
+
     /**
      * 删除用户的所有点赞记录
      */
@@ -0,0 +1,224 @@
+package com.eduplatform.course.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 屏蔽词 Aho-Corasick 自动机（不可变）
+ * 一次编译、多线程共享：单次扫描文本即可找出全部命中，耗时与文本长度 + 命中数成正比，与词库大小无关。
+ *
+ * 归一化：全角 ASCII（U+FF01–U+FF5E）与全角空格折叠为半角，再转小写；
+ * 每个字符一对一映射，命中位置可直接对应原文下标。
+ *
+ * 结构：节点的出边以有序 char 数组 + 目标数组存储、二分查找（中文字符集大，不宜用定长数组），
+ * 失配时沿 fail 链回退；每个节点记录以该节点结尾的词与 output 链（最近的、本身是完整词的 fail 祖先），
+ * 重叠与嵌套的词都会被报告。
+ *
+ * @author Antigravity
+ */
+public final class BlockedWordAutomaton {
+
+    private static final BlockedWordAutomaton EMPTY = compile(List.of());
+
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    private final int[] wordAt;
+    private final int[] outputLink;
+    private final String[] words;
+    private final int[] wordLengths;
+
+    private BlockedWordAutomaton(char[][] edgeChars, int[][] edgeTargets, int[] fail, int[] wordAt,
+                                 int[] outputLink, String[] words, int[] wordLengths) {
+        this.edgeChars = edgeChars;
+        this.edgeTargets = edgeTargets;
+        this.fail = fail;
+        this.wordAt = wordAt;
+        this.outputLink = outputLink;
+        this.words = words;
+        this.wordLengths = wordLengths;
+    }
+
+    public static BlockedWordAutomaton empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 编译词库；空白词忽略，归一化后相同的词只保留第一个
+     */
+    public static BlockedWordAutomaton compile(Collection<String> rawWords) {
+        Map<String, String> unique = new LinkedHashMap<>();
+        for (String word : rawWords) {
+            if (word != null && !word.isBlank()) {
+                unique.putIfAbsent(normalize(word), word);
+            }
+        }
+
+        List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        List<Integer> terminal = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        terminal.add(-1);
+        String[] words = new String[unique.size()];
+        int[] wordLengths = new int[unique.size()];
+        int index = 0;
+        for (Map.Entry<String, String> entry : unique.entrySet()) {
+            String normalized = entry.getKey();
+            int node = 0;
+            for (int i = 0; i < normalized.length(); i++) {
+                Integer next = trie.get(node).get(normalized.charAt(i));
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    terminal.add(-1);
+                    trie.get(node).put(normalized.charAt(i), next);
+                }
+                node = next;
+            }
+            terminal.set(node, index);
+            words[index] = entry.getValue();
+            wordLengths[index] = normalized.length();
+            index++;
+        }
+
+        int size = trie.size();
+        char[][] edgeChars = new char[size][];
+        int[][] edgeTargets = new int[size][];
+        int[] wordAt = new int[size];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> edges = trie.get(node);
+            edgeChars[node] = new char[edges.size()];
+            edgeTargets[node] = new int[edges.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> edge : edges.entrySet()) {
+                edgeChars[node][i] = edge.getKey();
+                edgeTargets[node][i] = edge.getValue();
+                i++;
+            }
+            wordAt[node] = terminal.get(node);
+        }
+
+        // 按 BFS 顺序计算 fail 与 output 链，父节点总是先于子节点完成
+        int[] fail = new int[size];
+        int[] outputLink = new int[size];
+        Arrays.fill(outputLink, -1);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : edgeTargets[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < edgeChars[node].length; i++) {
+                char c = edgeChars[node][i];
+                int child = edgeTargets[node][i];
+                int f = fail[node];
+                int target;
+                while ((target = step(edgeChars, edgeTargets, f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 ? target : 0;
+                outputLink[child] = wordAt[fail[child]] >= 0 ? fail[child] : outputLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        return new BlockedWordAutomaton(edgeChars, edgeTargets, fail, wordAt, outputLink, words, wordLengths);
+    }
+
+    /**
+     * 查找文本中的全部命中（按结束位置升序，同一结束位置先长后短）
+     */
+    public List<Match> findAll(String text) {
+        if (text == null || text.isEmpty() || words.length == 0) {
+            return List.of();
+        }
+        List<Match> matches = null;
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+            int next;
+            while ((next = step(edgeChars, edgeTargets, node, c)) < 0 && node != 0) {
+                node = fail[node];
+            }
+            node = next >= 0 ? next : 0;
+            for (int out = wordAt[node] >= 0 ? node : outputLink[node]; out >= 0; out = outputLink[out]) {
+                int word = wordAt[out];
+                if (matches == null) {
+                    matches = new ArrayList<>();
+                }
+                matches.add(new Match(words[word], i + 1 - wordLengths[word], i + 1));
+            }
+        }
+        return matches == null ? List.of() : Collections.unmodifiableList(matches);
+    }
+
+    /**
+     * 文本中是否包含任一屏蔽词（命中第一个即返回）
+     */
+    public boolean containsAny(String text) {
+        if (text == null || text.isEmpty() || words.length == 0) {
+            return false;
+        }
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+            int next;
+            while ((next = step(edgeChars, edgeTargets, node, c)) < 0 && node != 0) {
+                node = fail[node];
+            }
+            node = next >= 0 ? next : 0;
+            if (wordAt[node] >= 0 || outputLink[node] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 词库中的原始词（去重后，按编译顺序）
+     */
+    public List<String> words() {
+        return List.of(words);
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    static String normalize(String text) {
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = normalize(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    static char normalize(char c) {
+        if (c >= '！' && c <= '～') {
+            c = (char) (c - 0xFEE0);
+        } else if (c == '　') {
+            c = ' ';
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static int step(char[][] edgeChars, int[][] edgeTargets, int node, char c) {
+        int i = Arrays.binarySearch(edgeChars[node], c);
+        return i >= 0 ? edgeTargets[node][i] : -1;
+    }
+
+    /**
+     * 一次命中
+     *
+     * @param word  词库中的原始词
+     * @param start 原文中的起始下标（含）
+     * @param end   原文中的结束下标（不含）
+     */
+    public record Match(String word, int start, int end) {
+    }
+}
@@ -0,0 +1,151 @@
+package com.eduplatform.course.service;
+
+import com.eduplatform.course.entity.BlockedWord;
+import com.eduplatform.course.mapper.BlockedWordMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 屏蔽词匹配引擎
+ * 全局词库与各课程词库分别编译为 BlockedWordAutomaton，按作用域缓存在内存中，检测评论时不再查询数据库：
+ * 先匹配全局自动机，再匹配该课程的叠加自动机，合并命中结果。
+ *
+ * 更新：addWord/deleteWord 提交后只重新编译受影响的作用域（全局或单个课程），
+ * 新自动机编译完成后整体替换缓存中的旧实例，检测线程始终看到完整的新版本或旧版本。
+ * 其它实例通过 Redis 频道 course:blocked-words:changed 得知变更的作用域，丢弃后从数据库重新加载；
+ * 另外每个作用域的自动机在 refresh-minutes 后后台重新加载（期间继续使用旧版本），兜底丢失的变更通知。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class BlockedWordMatcher implements MessageListener {
+
+    public static final String CHANGED_CHANNEL = "course:blocked-words:changed";
+
+    /** 全局作用域在缓存中的键（课程 ID 均为正数） */
+    static final long GLOBAL_SCOPE = 0L;
+
+    private final BlockedWordMapper blockedWordMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final LoadingCache<Long, BlockedWordAutomaton> automata;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public BlockedWordMatcher(BlockedWordMapper blockedWordMapper,
+                              StringRedisTemplate redisTemplate,
+                              @Value("${edu.blocked-word.max-course-automata:2000}") long maxCourseAutomata,
+                              @Value("${edu.blocked-word.refresh-minutes:10}") long refreshMinutes) {
+        this.blockedWordMapper = blockedWordMapper;
+        this.redisTemplate = redisTemplate;
+        this.automata = Caffeine.newBuilder()
+                .maximumSize(maxCourseAutomata + 1)
+                .refreshAfterWrite(Duration.ofMinutes(refreshMinutes))
+                .build(this::load);
+    }
+
+    /**
+     * 检测文本在指定课程下命中的全部屏蔽词（先全局、后课程，各自按位置排序）
+     *
+     * @param courseId 为 null 时只检测全局词库
+     */
+    public List<BlockedWordAutomaton.Match> match(String content, Long courseId) {
+        List<BlockedWordAutomaton.Match> global = automata.get(GLOBAL_SCOPE).findAll(content);
+        if (courseId == null || courseId <= 0) {
+            return global;
+        }
+        List<BlockedWordAutomaton.Match> course = automata.get(courseId).findAll(content);
+        if (course.isEmpty()) {
+            return global;
+        }
+        if (global.isEmpty()) {
+            return course;
+        }
+        List<BlockedWordAutomaton.Match> merged = new ArrayList<>(global.size() + course.size());
+        merged.addAll(global);
+        merged.addAll(course);
+        merged.sort(Comparator.comparingInt(BlockedWordAutomaton.Match::start));
+        return merged;
+    }
+
+    /**
+     * 词条新增后调用：在当前自动机的词表上追加并重新编译该作用域。
+     * 读取、追加与替换在同一次 compute 内完成，同一作用域的并发新增依次执行，不会互相覆盖。
+     */
+    public void onWordAdded(BlockedWord word) {
+        long scope = scopeOf(word);
+        automata.asMap().computeIfPresent(scope, (key, current) -> {
+            List<String> words = new ArrayList<>(current.words());
+            words.add(word.getWord());
+            return BlockedWordAutomaton.compile(words);
+        });
+        publish(scope);
+    }
+
+    /**
+     * 词条删除后调用：重新加载并编译该作用域。
+     * 不在内存词表上直接移除：编译时归一化后相同的词只保留一个，删除其一时需要以数据库中剩余的词为准。
+     * 与新增一样在 compute 内替换，避免与同一作用域的并发新增交错后丢失其中一方。
+     */
+    public void onWordDeleted(BlockedWord word) {
+        long scope = scopeOf(word);
+        automata.asMap().computeIfPresent(scope, (key, current) -> load(key));
+        publish(scope);
+    }
+
+    /**
+     * 其它实例的变更通知（instanceId:scope）：丢弃该作用域，下次检测时从数据库重新加载
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.lastIndexOf(':');
+        if (separator <= 0 || instanceId.equals(body.substring(0, separator))) {
+            return;
+        }
+        try {
+            automata.invalidate(Long.parseLong(body.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的屏蔽词变更通知");
+        }
+    }
+
+    private BlockedWordAutomaton load(Long scope) {
+        List<BlockedWord> words = scope == GLOBAL_SCOPE
+                ? blockedWordMapper.findGlobalWords()
+                : blockedWordMapper.findCourseWords(scope);
+        if (words.isEmpty()) {
+            return BlockedWordAutomaton.empty();
+        }
+        long start = System.nanoTime();
+        BlockedWordAutomaton automaton = BlockedWordAutomaton.compile(words.stream().map(BlockedWord::getWord).toList());
+        log.debug("屏蔽词自动机已编译: scope={}, words={}, costMs={}",
+                scope, automaton.size(), Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return automaton;
+    }
+
+    private void publish(long scope) {
+        try {
+            redisTemplate.convertAndSend(CHANGED_CHANNEL, instanceId + ":" + scope);
+        } catch (Exception e) {
+            // 其它实例最迟在 refresh-minutes 后重新加载
+            log.warn("屏蔽词变更通知发布失败: scope={}, error={}", scope, e.getMessage());
+        }
+    }
+
+    private static long scopeOf(BlockedWord word) {
+        return "course".equals(word.getScope()) && word.getCourseId() != null ? word.getCourseId() : GLOBAL_SCOPE;
+    }
+}
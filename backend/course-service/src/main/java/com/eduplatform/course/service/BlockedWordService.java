@@ -1,5 +1,6 @@
 package com.eduplatform.course.service;
 
+import com.eduplatform.common.transaction.TransactionCallbacks;
 import com.eduplatform.course.entity.BlockedWord;
 import com.eduplatform.course.mapper.BlockedWordMapper;
 import com.eduplatform.course.vo.BlockedWordVO;
@@ -19,8 +20,9 @@ import java.util.stream.Collectors;
  * 
  * 核心机制：
  * 1. 作用域隔离：区分“全局敏感词”（平台通用）与“课程敏感词”（特定课程专属），实现灵活的业务管控。
- * 2. 模糊匹配：采用大小写不敏感的子串包含了检索，确保基本的规避手段无效化。
- * 3. 实时校验：作为评论发布、课程简介编辑等核心环节同步阻塞校验器。
+ * 2. 模糊匹配：大小写与全角/半角不敏感的子串检索，确保基本的规避手段无效化。
+ * 3. 实时校验：作为评论发布、课程简介编辑等核心环节同步阻塞校验器，
+ *    词库编译为内存中的 Aho-Corasick 自动机（见 BlockedWordMatcher），检测时不访问数据库。
  *
  * @author Antigravity
  */
@@ -30,6 +32,7 @@ import java.util.stream.Collectors;
 public class BlockedWordService {
 
     private final BlockedWordMapper blockedWordMapper;
+    private final BlockedWordMatcher blockedWordMatcher;
 
     /**
      * 检索全平台通用的敏感词词典
@@ -98,6 +101,7 @@ public class BlockedWordService {
         blockedWordMapper.insertWord(blockedWord);
         // 安全要求：不在日志中输出原始词条内容，避免日志注入与敏感信息泄漏。
         log.info("审计：敏感词库更新操作完成");
+        TransactionCallbacks.afterCommit(() -> blockedWordMatcher.onWordAdded(blockedWord));
 
         return blockedWord;
     }
@@ -107,42 +111,40 @@ public class BlockedWordService {
      */
     @Transactional
     public void deleteWord(Long id) {
+        BlockedWord blockedWord = blockedWordMapper.selectById(id);
         int affected = blockedWordMapper.deleteWord(id);
         if (affected == 0) {
             throw new RuntimeException("操作失败：词条不存在或已被移除");
         }
         log.info("审计：敏感词库注销 | ID: {}", id);
+        if (blockedWord != null) {
+            TransactionCallbacks.afterCommit(() -> blockedWordMatcher.onWordDeleted(blockedWord));
+        }
     }
 
     /**
      * 核心内容审计算法
      * 算法逻辑：
-     * 1. 聚合规则：加载 全局词库 + 当前课程私有词库。
-     * 2. 启发式匹配：执行全词大小写不敏感匹配。
+     * 1. 聚合规则：全局词库自动机 + 当前课程私有词库自动机，均已预编译在内存中。
+     * 2. 单次扫描：大小写与全角/半角不敏感，耗时与文本长度成正比，与词库大小无关。
      * 
      * @param content  待审核文本内容
      * @param courseId 业务上下文 ID
-     * @return 包含命中状态 (hasBlockedWord) 及命中明细 (blockedWords) 的结果集
+     * @return 包含命中状态 (hasBlockedWord)、命中词 (blockedWords，去重) 及命中位置 (matches) 的结果集
      */
     public Map<String, Object> checkContent(String content, Long courseId) {
         Map<String, Object> result = new HashMap<>();
 
         try {
-            // 聚合当前上下文所有生效的规则
-            List<BlockedWord> words = blockedWordMapper.findApplicableWords(courseId);
-
-            // 执行多词匹配 (当前采用 O(N*M) 暴力匹配，若词库增长建议后续重构为 Aho-Corasick 自动机)
-            List<String> foundWords = new ArrayList<>();
-            String lowerContent = content.toLowerCase();
-
-            for (BlockedWord word : words) {
-                if (lowerContent.contains(word.getWord().toLowerCase())) {
-                    foundWords.add(word.getWord());
-                }
-            }
+            List<BlockedWordAutomaton.Match> matches = blockedWordMatcher.match(content, courseId);
+            List<String> foundWords = matches.stream()
+                    .map(BlockedWordAutomaton.Match::word)
+                    .distinct()
+                    .collect(Collectors.toList());
 
             result.put("hasBlockedWord", !foundWords.isEmpty());
             result.put("blockedWords", foundWords);
+            result.put("matches", matches);
 
         } catch (Exception e) {
             log.error("安全合规异常：实时内容审计流中断, content_len={}, courseId={}",
@@ -150,6 +152,7 @@ public class BlockedWordService {
             // 降级策略：审计失败时选择放行，保证业务可用性 (Fail-open)
             result.put("hasBlockedWord", false);
             result.put("blockedWords", List.of());
+            result.put("matches", List.of());
         }
 
         return result;
@@ -1,12 +1,13 @@
 package com.eduplatform.course.service;
 
+import com.eduplatform.common.transaction.TransactionCallbacks;
 import com.eduplatform.course.dto.CommentDTO;
 import com.eduplatform.course.entity.ChapterComment;
-import com.eduplatform.course.entity.CommentLike;
 import com.eduplatform.course.mapper.ChapterCommentMapper;
-import com.eduplatform.course.mapper.CommentLikeMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,8 +21,8 @@ import java.util.stream.Collectors;
  *
  * 核心机制：
  * 1. 双层树形结构：支持主评论与二级回复的 1:N 嵌套，提供清晰的对话脉络。
- * 2. 动态排序：集成“热度排序”（基于点赞权重）与“时间排序”，满足不同场景下的消费需求。
- * 3. 社交化交互：管理点赞足迹与评论置顶权限，增强社区活跃度。
+ * 2. 动态排序：集成“热度排序”（Redis 中按时间衰减的热度排行榜）与“时间排序”，满足不同场景下的消费需求。
+ * 3. 社交化交互：管理点赞足迹与评论置顶权限，增强社区活跃度；点赞状态与计数先写 Redis，由 CommentLikeStore 批量回写。
  * 4. 软删除策略：执行合规性删除，确保主评论消失时，其下属回复序列同步处于不可见状态。
  *
  * @author Antigravity
@@ -31,14 +32,26 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ChapterCommentService {
 
+    /** 主评论列表中每条主评论预加载的回复条数 */
+    static final int REPLY_PREVIEW_SIZE = 3;
+
+    /** 游标分页单页上限 */
+    static final int MAX_CURSOR_PAGE_SIZE = 50;
+
+    /** 章节主评论总数缓存（TTL 见 edu.cache.caches.chapter_comment_count） */
+    static final String COUNT_CACHE = "chapter_comment_count";
+
     private final ChapterCommentMapper commentMapper;
-    private final CommentLikeMapper likeMapper;
+    private final CommentLikeStore likeStore;
+    private final CommentHotRanking hotRanking;
+    private final CommentPushPublisher pushPublisher;
+    private final CacheManager cacheManager;
 
     /**
      * 分页检索章节下的主评论列表
      * 逻辑包含：
-     * 1. 执行排序算法路由（热度 vs 时间）。
-     * 2. 注入当前用户的社交足记（是否已点赞）。
+     * 1. 执行排序算法路由（热度 vs 时间）：热度页为置顶评论 + 热度排行榜的对应排名区间。
+     * 2. 注入当前用户的社交足记（是否已点赞）与尚未回写的点赞增量。
      * 3. 实现预加载逻辑：为每条主评论关联展示前 3 条精选回复。
      *
      * @param chapterId 目标章节 ID
@@ -54,7 +67,7 @@ public class ChapterCommentService {
 
         // 执行排序路由
         if ("hot".equals(sort)) {
-            rawComments = commentMapper.findByChapterOrderByHot(chapterId, offset, size);
+            rawComments = findHotPage(chapterId, offset, size);
         } else {
             rawComments = commentMapper.findByChapterOrderByTime(chapterId, offset, size);
         }
@@ -64,22 +77,11 @@ public class ChapterCommentService {
                 .collect(Collectors.toList());
 
         // 社交态注水：标记用户点赞过的项
-        if (userId != null && !comments.isEmpty()) {
-            List<Long> commentIds = comments.stream().map(CommentDTO::getId).collect(Collectors.toList());
-            List<Long> likedIds = likeMapper.findLikedCommentIds(userId, commentIds);
-            Set<Long> likedSet = new HashSet<>(likedIds);
-            comments.forEach(c -> c.setIsLiked(likedSet.contains(c.getId())));
-        }
+        markLiked(comments, userId);
+        applyPendingLikes(comments);
 
-        // 二级评论预加载：为每条主评论抓取浅层回复列表 (Top 3)
-        for (CommentDTO comment : comments) {
-            List<Map<String, Object>> rawReplies = commentMapper.findReplies(comment.getId());
-            List<CommentDTO> replies = rawReplies.stream()
-                    .limit(3)
-                    .map(this::mapToDTO)
-                    .collect(Collectors.toList());
-            comment.setReplies(replies);
-        }
+        // 二级评论预加载：一次查询取回本页所有主评论的浅层回复 (Top 3)，按 parent_id 归组挂载
+        attachReplyPreviews(comments);
 
         int total = commentMapper.countByChapter(chapterId);
 
@@ -93,9 +95,86 @@ public class ChapterCommentService {
         return result;
     }
 
+    /**
+     * 游标分页检索章节下的主评论列表
+     * 与 getComments 的区别：
+     * 1. 以上一页最后一条的排序键定位下一页（行值比较 + 复合索引），翻到多深都只扫描 size + 1 行，不再随 OFFSET 线性变慢。
+     * 2. 总数默认不查询；withTotal 为 true 时读取缓存的章节主评论总数（新增/删除主评论时失效）。
+     * 热度排序：首页先返回全部置顶评论，之后按热度排行榜的 (score, id) 定位；
+     * 翻页期间热度变化的评论可能在后续页重复出现或被跳过，前端按 id 去重即可。
+     *
+     * @param chapterId 目标章节 ID
+     * @param userId    当前访问用户 ID（用于计算点赞态）
+     * @param sort      排序模式 (hot/time)
+     * @param cursor    上一页返回的 nextCursor，首页为空
+     * @param size      页大小（上限 MAX_CURSOR_PAGE_SIZE）
+     * @param withTotal 是否附带总数
+     * @return comments、nextCursor（无更多数据时为 null）、hasMore，以及可选的 total
+     * @throws IllegalArgumentException 游标损坏或与排序模式不符
+     */
+    public Map<String, Object> getCommentsByCursor(Long chapterId, Long userId, String sort, String cursor,
+                                                   int size, boolean withTotal) {
+        String mode = CommentCursor.SORT_HOT.equals(sort) ? CommentCursor.SORT_HOT : CommentCursor.SORT_TIME;
+        CommentCursor after = CommentCursor.decode(cursor, mode);
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+
+        List<Map<String, Object>> rawComments;
+        boolean hasMore;
+        String nextCursor = null;
+        if (CommentCursor.SORT_HOT.equals(mode)) {
+            // 首页：置顶评论 + 排行榜前若干名；多取一名用于判断是否还有下一页
+            rawComments = new ArrayList<>(after == null ? commentMapper.findPinnedTopLevel(chapterId) : List.of());
+            int needed = Math.max(0, limit - rawComments.size());
+            CommentHotRanking.Position position = after == null
+                    ? null : new CommentHotRanking.Position(after.score(), after.epoch(), after.id());
+            CommentHotRanking.Slice slice = hotRanking.pageAfter(chapterId, position, needed + 1);
+            List<CommentHotRanking.Position> ranked = slice.positions()
+                    .subList(0, Math.min(needed, slice.positions().size()));
+            rawComments.addAll(findInOrder(ranked.stream().map(CommentHotRanking.Position::id).toList()));
+            hasMore = slice.positions().size() > needed;
+            if (hasMore) {
+                // 置顶评论占满首页时，游标指向排行榜榜首之前
+                CommentHotRanking.Position last = ranked.isEmpty()
+                        ? new CommentHotRanking.Position(Double.POSITIVE_INFINITY, slice.epoch(), 0L)
+                        : ranked.get(ranked.size() - 1);
+                nextCursor = new CommentCursor(mode, 0, null, last.score(), last.epoch(), last.id()).encode();
+            }
+        } else {
+            // 多取一条用于判断是否还有下一页
+            rawComments = after == null
+                    ? commentMapper.findByChapterTimeCursor(chapterId, null, null, null, limit + 1)
+                    : commentMapper.findByChapterTimeCursor(chapterId, after.isPinned(), after.createdAt(),
+                            after.id(), limit + 1);
+            hasMore = rawComments.size() > limit;
+            if (hasMore) {
+                rawComments = rawComments.subList(0, limit);
+                Map<String, Object> last = rawComments.get(rawComments.size() - 1);
+                nextCursor = new CommentCursor(mode, getIntValue(last, "is_pinned"),
+                        (LocalDateTime) last.get("created_at"), 0, 0, getLongValue(last, "id")).encode();
+            }
+        }
+
+        List<CommentDTO> comments = rawComments.stream()
+                .map(this::mapToDTO)
+                .collect(Collectors.toList());
+        markLiked(comments, userId);
+        applyPendingLikes(comments);
+        attachReplyPreviews(comments);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("comments", comments);
+        result.put("size", limit);
+        result.put("hasMore", hasMore);
+        result.put("nextCursor", nextCursor);
+        if (withTotal) {
+            result.put("total", countTopLevel(chapterId));
+        }
+        return result;
+    }
+
     /**
      * 发布互动内容 (评论/回复)
-     * 操作流程：插入新评论记录 -> 若为回复则触发父评论计数器自增。
+     * 操作流程：插入新评论记录 -> 若为回复则触发父评论计数器自增 -> 事务提交后通知正在浏览该章节的客户端。
      * 
      * @param chapterId 章节上下文
      * @param courseId  课程上下文
@@ -123,7 +202,13 @@ public class ChapterCommentService {
         // 如果是二级互动，维护父节点的影子计数
         if (parentId != null) {
             commentMapper.updateReplyCount(parentId, 1);
+            TransactionCallbacks.afterCommit(() -> hotRanking.onReplyCreated(chapterId, parentId));
+        } else {
+            evictCount(chapterId);
+            TransactionCallbacks.afterCommit(() -> hotRanking.onCommentCreated(chapterId, comment.getId()));
         }
+        TransactionCallbacks.afterCommit(
+                () -> pushPublisher.publishCreated(chapterId, comment.getId(), parentId, userId));
 
         CommentDTO dto = new CommentDTO();
         dto.setId(comment.getId());
@@ -170,6 +255,8 @@ public class ChapterCommentService {
         if (comment.getParentId() == null) {
             // 一级评论消失导致回复群集集体隐藏
             commentMapper.softDeleteReplies(commentId);
+            evictCount(comment.getChapterId());
+            TransactionCallbacks.afterCommit(() -> hotRanking.remove(comment.getChapterId(), commentId));
         } else {
             // 二级评论删除需扣减父节点计数
             commentMapper.updateReplyCount(comment.getParentId(), -1);
@@ -178,37 +265,26 @@ public class ChapterCommentService {
 
     /**
      * 切换评论置顶状态 (CMS 管理权限)
+     * 置顶评论不参与热度排行，状态变更后该章节的排行榜失效重建。
      */
     @Transactional
     public void togglePin(Long commentId) {
         commentMapper.togglePin(commentId);
+        ChapterComment comment = commentMapper.selectById(commentId);
+        if (comment != null && comment.getParentId() == null) {
+            TransactionCallbacks.afterCommit(() -> hotRanking.invalidate(comment.getChapterId()));
+        }
     }
 
     /**
      * 社交点赞原子操作
-     * 实现：检查是否存在记录 -> 存在则取消(Delete + Decrement) -> 不存在则添加(Insert + Increment)。
+     * 实现：在 Redis 中切换用户点赞集合并累计待回写增量（单次 Lua 脚本），
+     * comment_likes 与 like_count 由 CommentLikeStore 批量回写，热度分在回写时更新。
      * 
      * @return 返回最终状态：true 表示当前处于点赞态
      */
-    @Transactional
     public boolean toggleLike(Long commentId, Long userId) {
-        int liked = likeMapper.checkLiked(commentId, userId);
-
-        if (liked > 0) {
-            // 撤销动作
-            likeMapper.deleteLike(commentId, userId);
-            commentMapper.updateLikeCount(commentId, -1);
-            return false;
-        } else {
-            // 注入动作
-            CommentLike like = new CommentLike();
-            like.setCommentId(commentId);
-            like.setUserId(userId);
-            like.setCreatedAt(LocalDateTime.now());
-            likeMapper.insert(like);
-            commentMapper.updateLikeCount(commentId, 1);
-            return true;
-        }
+        return likeStore.toggle(commentId, userId);
     }
 
     /**
@@ -222,12 +298,8 @@ public class ChapterCommentService {
                 .collect(Collectors.toList());
 
         // 补全社交行为标识
-        if (userId != null && !replies.isEmpty()) {
-            List<Long> commentIds = replies.stream().map(CommentDTO::getId).collect(Collectors.toList());
-            List<Long> likedIds = likeMapper.findLikedCommentIds(userId, commentIds);
-            Set<Long> likedSet = new HashSet<>(likedIds);
-            replies.forEach(c -> c.setIsLiked(likedSet.contains(c.getId())));
-        }
+        markLiked(replies, userId);
+        applyPendingLikes(replies);
 
         return replies;
     }
@@ -261,6 +333,100 @@ public class ChapterCommentService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 批量标记当前用户点赞过的评论
+     */
+    private void markLiked(List<CommentDTO> comments, Long userId) {
+        if (userId == null || comments.isEmpty()) {
+            return;
+        }
+        List<Long> commentIds = comments.stream().map(CommentDTO::getId).collect(Collectors.toList());
+        Set<Long> likedSet = likeStore.likedAmong(userId, commentIds);
+        comments.forEach(c -> c.setIsLiked(likedSet.contains(c.getId())));
+    }
+
+    /**
+     * 叠加尚未回写到数据库的点赞增量
+     */
+    private void applyPendingLikes(List<CommentDTO> comments) {
+        if (comments.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> deltas = likeStore.pendingDeltas(
+                comments.stream().map(CommentDTO::getId).collect(Collectors.toList()));
+        if (deltas.isEmpty()) {
+            return;
+        }
+        comments.forEach(c -> c.setLikeCount((int) Math.max(0,
+                c.getLikeCount() + deltas.getOrDefault(c.getId(), 0L))));
+    }
+
+    /**
+     * 热度排序的一页：置顶评论排在最前，其后接排行榜中对应排名区间的评论
+     */
+    private List<Map<String, Object>> findHotPage(Long chapterId, int offset, int size) {
+        List<Map<String, Object>> pinned = commentMapper.findPinnedTopLevel(chapterId);
+        List<Map<String, Object>> page = new ArrayList<>(size);
+        if (offset < pinned.size()) {
+            page.addAll(pinned.subList(offset, Math.min(pinned.size(), offset + size)));
+        }
+        List<Long> rankedIds = hotRanking.page(chapterId, Math.max(0, offset - pinned.size()), size - page.size());
+        page.addAll(findInOrder(rankedIds));
+        return page;
+    }
+
+    /**
+     * 按给定 ID 顺序批量读取主评论，已删除的跳过
+     */
+    private List<Map<String, Object>> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Map<String, Object>> byId = new HashMap<>();
+        for (Map<String, Object> row : commentMapper.findTopLevelByIds(ids)) {
+            byId.put(getLongValue(row, "id"), row);
+        }
+        return ids.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * 章节主评论总数：优先读缓存，未命中时执行 countByChapter
+     */
+    private int countTopLevel(Long chapterId) {
+        Cache cache = cacheManager.getCache(COUNT_CACHE);
+        if (cache == null) {
+            return commentMapper.countByChapter(chapterId);
+        }
+        Integer total = cache.get(chapterId, () -> commentMapper.countByChapter(chapterId));
+        return total == null ? 0 : total;
+    }
+
+    /**
+     * 主评论增删后失效总数缓存；放在事务提交后执行，避免并发读取在提交前把旧总数重新写回缓存
+     */
+    private void evictCount(Long chapterId) {
+        Cache cache = cacheManager.getCache(COUNT_CACHE);
+        if (cache != null && chapterId != null) {
+            TransactionCallbacks.afterCommit(() -> cache.evict(chapterId));
+        }
+    }
+
+    /**
+     * 批量挂载回复预览：无论本页多少条主评论，只执行一次 findReplyPreviews 查询
+     */
+    private void attachReplyPreviews(List<CommentDTO> comments) {
+        if (comments.isEmpty()) {
+            return;
+        }
+        List<Long> parentIds = comments.stream().map(CommentDTO::getId).collect(Collectors.toList());
+        Map<Long, List<CommentDTO>> repliesByParent = new HashMap<>();
+        for (Map<String, Object> raw : commentMapper.findReplyPreviews(parentIds, REPLY_PREVIEW_SIZE)) {
+            CommentDTO reply = mapToDTO(raw);
+            repliesByParent.computeIfAbsent(reply.getParentId(), k -> new ArrayList<>()).add(reply);
+        }
+        comments.forEach(c -> c.setReplies(repliesByParent.getOrDefault(c.getId(), new ArrayList<>())));
+    }
+
     /**
      * SQL 结果聚合 Map 映射 DTO 的归约逻辑
      */
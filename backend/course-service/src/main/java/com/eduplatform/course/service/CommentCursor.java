@@ -0,0 +1,61 @@
+package com.eduplatform.course.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 章节主评论游标分页的位置（上一页最后一条的排序键）
+ * 对外以不透明字符串传递：URL 安全 Base64 编码，格式版本与排序模式一并编码，
+ * 客户端只能原样回传，不能拼装或跨排序模式复用。
+ *
+ * 时间排序的键为 (isPinned, createdAt, id)；热度排序的键为热度排行榜中的 (score, id)，
+ * 并记录分数所基于的 epoch，排行榜重建后据此折算；末尾的 id 保证并列时顺序稳定。
+ *
+ * @author Antigravity
+ */
+record CommentCursor(String sort, int isPinned, LocalDateTime createdAt, double score, long epoch, long id) {
+
+    static final String SORT_TIME = "time";
+    static final String SORT_HOT = "hot";
+
+    private static final String VERSION = "c2";
+    private static final String SEPARATOR = "|";
+
+    String encode() {
+        String raw = String.join(SEPARATOR, VERSION, sort, String.valueOf(isPinned),
+                createdAt == null ? "" : createdAt.toString(), String.valueOf(score), String.valueOf(epoch),
+                String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析客户端回传的游标
+     *
+     * @param token        游标字符串，为空表示第一页
+     * @param expectedSort 当前请求的排序模式
+     * @return 第一页返回 null
+     * @throws IllegalArgumentException 游标损坏或与排序模式不符
+     */
+    static CommentCursor decode(String token, String expectedSort) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 7 || !VERSION.equals(parts[0]) || !parts[1].equals(expectedSort)) {
+                throw new IllegalArgumentException("分页游标无效");
+            }
+            LocalDateTime createdAt = parts[3].isEmpty() ? null : LocalDateTime.parse(parts[3]);
+            if (SORT_TIME.equals(expectedSort) && createdAt == null) {
+                throw new IllegalArgumentException("分页游标无效");
+            }
+            return new CommentCursor(parts[1], Integer.parseInt(parts[2]), createdAt, Double.parseDouble(parts[4]),
+                    Long.parseLong(parts[5]), Long.parseLong(parts[6]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("分页游标无效", e);
+        }
+    }
+}
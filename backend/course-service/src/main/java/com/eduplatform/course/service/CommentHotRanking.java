@@ -0,0 +1,397 @@
+package com.eduplatform.course.service;
+
+import com.eduplatform.course.mapper.ChapterCommentMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 章节主评论热度排行榜
+ * 每个章节一个 Redis 有序集合（成员为评论 ID），热度页直接按排名读取，不再在数据库中 ORDER BY like_count。
+ *
+ * 衰减：采用前向衰减（forward decay），事件在时刻 t 贡献 weight × 2^((t - epoch) / halfLife)，
+ * 与按当前时刻折算的指数衰减分数只差一个公共因子，排序等价；因此分数只需在事件发生时 ZINCRBY，无需定期重算。
+ * 发表评论计 1，每个点赞计 like-weight，每条回复计 reply-weight；取消点赞按当前时刻扣回（略多于当初的贡献，下限为 0）。
+ *
+ * 重建：排行榜与记录 epoch 的键同时设置 max-age 过期，过期后的首次读取按数据库计数重建并以当前时刻为新 epoch，
+ * 使指数始终不超过 max-age / halfLife，不会溢出；重建时历史点赞按评论发表时刻折算（数据库不记录点赞时刻）。
+ * 重建开始前先写入构建标记（记录新 epoch），查询种子期间发生的事件按该 epoch 累加到构建中的临时键，发布时随之生效；
+ * 标记写入与种子查询之间已回写到数据库的少量事件可能被计两次，但不会丢失。同一章节只有一个实例构建，其它实例等待发布。
+ * 置顶评论不进入排行榜，由调用方排在排行榜之前；置顶状态变更时整个章节的排行榜失效重建。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class CommentHotRanking {
+
+    static final String KEY_PREFIX = "course:comment:hot:";
+
+    /** 指数下限：极早的评论分数不下溢为 0，相互之间仍按计数排序 */
+    private static final double MIN_EXPONENT = -900;
+
+    /**
+     * 若排行榜存在则按当前 epoch 累加分数（分数下限为 0），并让有序集合与 epoch 键同时过期；
+     * 排行榜正在重建时按构建标记中的 epoch 累加到临时键，两者都不存在时忽略
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = RedisScript.of("""
+            local target, ttlKey = KEYS[1], KEYS[2]
+            local epoch = redis.call('get', KEYS[2])
+            if not epoch then
+              epoch = redis.call('get', KEYS[4])
+              if not epoch then return 0 end
+              target, ttlKey = KEYS[3], KEYS[4]
+            end
+            local factor = 2 ^ ((tonumber(ARGV[1]) - tonumber(epoch)) / tonumber(ARGV[2]))
+            for i = 3, #ARGV, 2 do
+              local score = tonumber(redis.call('zincrby', target, tonumber(ARGV[i + 1]) * factor, ARGV[i]))
+              if score < 0 then redis.call('zadd', target, 0, ARGV[i]) end
+            end
+            if redis.call('pttl', target) == -1 then redis.call('pexpire', target, redis.call('pttl', ttlKey)) end
+            return 1
+            """, Long.class);
+
+    /** 没有其它构建进行中时写入构建标记（值为新 epoch）并清理上次中断的临时键，返回 1 表示由调用方构建 */
+    private static final RedisScript<Long> BEGIN_BUILD_SCRIPT = RedisScript.of("""
+            if redis.call('exists', KEYS[2]) == 1 then return 0 end
+            redis.call('del', KEYS[1])
+            redis.call('set', KEYS[2], ARGV[1], 'PX', ARGV[2])
+            return 1
+            """, Long.class);
+
+    /** 种子分数累加到临时键（构建期间的事件可能已先写入），临时键随构建标记过期 */
+    private static final RedisScript<Long> SEED_SCRIPT = RedisScript.of("""
+            for i = 2, #ARGV, 2 do redis.call('zincrby', KEYS[1], ARGV[i + 1], ARGV[i]) end
+            redis.call('pexpire', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /** 原子替换为新构建的排行榜并移除构建标记；章节没有可排行的评论时只写入 epoch 键 */
+    private static final RedisScript<Long> PUBLISH_SCRIPT = RedisScript.of("""
+            if redis.call('exists', KEYS[3]) == 1 then
+              redis.call('rename', KEYS[3], KEYS[1])
+              redis.call('pexpire', KEYS[1], ARGV[2])
+            else
+              redis.call('del', KEYS[1])
+            end
+            redis.call('set', KEYS[2], ARGV[1], 'PX', ARGV[2])
+            redis.call('del', KEYS[4])
+            return 1
+            """, Long.class);
+
+    /** 等待其它实例发布排行榜时的轮询间隔 */
+    private static final long BUILD_POLL_MILLIS = 50;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ChapterCommentMapper commentMapper;
+    private final ConcurrentHashMap<Long, CompletableFuture<Long>> building = new ConcurrentHashMap<>();
+
+    @Value("${edu.comment-hot.half-life-hours:24}")
+    private double halfLifeHours = 24;
+
+    @Value("${edu.comment-hot.max-age-hours:72}")
+    private long maxAgeHours = 72;
+
+    @Value("${edu.comment-hot.like-weight:1}")
+    private double likeWeight = 1;
+
+    @Value("${edu.comment-hot.reply-weight:2}")
+    private double replyWeight = 2;
+
+    /** 重建时每批写入的成员数 */
+    @Value("${edu.comment-hot.build-batch-size:1000}")
+    private int buildBatchSize = 1000;
+
+    /** 构建标记的租约：构建实例中途退出时，标记与临时键在此之后过期，由下一次读取重建 */
+    @Value("${edu.comment-hot.build-lease-millis:60000}")
+    private long buildLeaseMillis = 60_000;
+
+    /** 其它实例正在构建时最多等待的时长，超时后按构建中的 epoch 读取（排行榜暂为空） */
+    @Value("${edu.comment-hot.build-wait-millis:3000}")
+    private long buildWaitMillis = 3000;
+
+    public CommentHotRanking(StringRedisTemplate redisTemplate, ChapterCommentMapper commentMapper) {
+        this.redisTemplate = redisTemplate;
+        this.commentMapper = commentMapper;
+    }
+
+    /**
+     * 按排名读取一页（offset 从 0 开始），返回评论 ID
+     */
+    public List<Long> page(Long chapterId, long offset, int count) {
+        if (count <= 0) {
+            return List.of();
+        }
+        ensureBuilt(chapterId);
+        Set<String> members = redisTemplate.opsForZSet().reverseRange(key(chapterId), offset, offset + count - 1);
+        return members == null ? List.of() : members.stream().map(Long::valueOf).toList();
+    }
+
+    /**
+     * 读取排在游标 (score, id) 之后的 count 条
+     *
+     * @param cursor 上一页最后一条；为 null 时从榜首开始
+     */
+    public Slice pageAfter(Long chapterId, Position cursor, int count) {
+        long epoch = ensureBuilt(chapterId);
+        if (count <= 0) {
+            return new Slice(List.of(), epoch);
+        }
+        double max = Double.POSITIVE_INFINITY;
+        if (cursor != null) {
+            // 排行榜重建后 epoch 变化，游标分数按新 epoch 折算
+            max = cursor.epoch() == epoch ? cursor.score() : cursor.score() * factor(cursor.epoch(), epoch);
+            cursor = new Position(max, epoch, cursor.id());
+        }
+        List<Position> result = new ArrayList<>(count);
+        long offset = 0;
+        int window = count + 1;
+        while (result.size() < count) {
+            Set<ZSetOperations.TypedTuple<String>> batch = redisTemplate.opsForZSet()
+                    .reverseRangeByScoreWithScores(key(chapterId), Double.NEGATIVE_INFINITY, max, offset, window);
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            for (ZSetOperations.TypedTuple<String> tuple : batch) {
+                Position position = new Position(tuple.getScore() == null ? 0 : tuple.getScore(), epoch,
+                        Long.parseLong(tuple.getValue()));
+                if (isAfter(position, cursor) && result.size() < count) {
+                    result.add(position);
+                }
+            }
+            if (batch.size() < window) {
+                break;
+            }
+            offset += batch.size();
+        }
+        return new Slice(result, epoch);
+    }
+
+    /**
+     * 新发表的主评论进入排行榜
+     */
+    public void onCommentCreated(Long chapterId, Long commentId) {
+        increment(chapterId, Map.of(commentId, 1.0));
+    }
+
+    /**
+     * 主评论收到回复
+     */
+    public void onReplyCreated(Long chapterId, Long parentId) {
+        increment(chapterId, Map.of(parentId, replyWeight));
+    }
+
+    /**
+     * 点赞净增量（来自回写批次，取消点赞为负数）
+     */
+    public void onLikes(Long chapterId, Map<Long, Long> likeDeltas) {
+        Map<Long, Double> weights = new HashMap<>();
+        likeDeltas.forEach((commentId, delta) -> {
+            if (delta != 0) {
+                weights.put(commentId, delta * likeWeight);
+            }
+        });
+        increment(chapterId, weights);
+    }
+
+    /**
+     * 主评论删除后移出排行榜
+     */
+    public void remove(Long chapterId, Long commentId) {
+        try {
+            redisTemplate.opsForZSet().remove(key(chapterId), String.valueOf(commentId));
+        } catch (RuntimeException e) {
+            // 已删除的评论在详情查询时被过滤
+            log.warn("评论移出热度排行榜失败: chapterId={}, commentId={}, error={}", chapterId, commentId, e.getMessage());
+        }
+    }
+
+    /**
+     * 丢弃章节排行榜，下次读取时重建（置顶状态变更后调用）
+     */
+    public void invalidate(Long chapterId) {
+        redisTemplate.delete(List.of(key(chapterId), epochKey(chapterId)));
+    }
+
+    /**
+     * 读取当前 epoch；排行榜不存在时从数据库重建（同一章节在本实例内只有一个线程、跨实例只有一个实例重建）
+     */
+    long ensureBuilt(Long chapterId) {
+        String epoch = redisTemplate.opsForValue().get(epochKey(chapterId));
+        if (epoch != null) {
+            return Long.parseLong(epoch);
+        }
+        CompletableFuture<Long> mine = new CompletableFuture<>();
+        CompletableFuture<Long> running = building.putIfAbsent(chapterId, mine);
+        if (running != null) {
+            return running.join();
+        }
+        try {
+            long built = rebuild(chapterId);
+            mine.complete(built);
+            return built;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            building.remove(chapterId, mine);
+        }
+    }
+
+    /**
+     * 抢到构建标记则由本实例构建；否则等待其它实例发布，超时后返回构建中的 epoch
+     */
+    private long rebuild(Long chapterId) {
+        long deadline = System.currentTimeMillis() + buildWaitMillis;
+        while (true) {
+            long epoch = System.currentTimeMillis();
+            Long begun = redisTemplate.execute(BEGIN_BUILD_SCRIPT,
+                    List.of(buildingKey(chapterId), buildingEpochKey(chapterId)),
+                    String.valueOf(epoch), String.valueOf(buildLeaseMillis));
+            if (begun != null && begun == 1) {
+                return build(chapterId, epoch);
+            }
+            String published = redisTemplate.opsForValue().get(epochKey(chapterId));
+            if (published != null) {
+                return Long.parseLong(published);
+            }
+            if (epoch >= deadline) {
+                String pending = redisTemplate.opsForValue().get(buildingEpochKey(chapterId));
+                return pending != null ? Long.parseLong(pending) : epoch;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(BUILD_POLL_MILLIS));
+        }
+    }
+
+    private long build(Long chapterId, long epoch) {
+        double halfLifeMillis = halfLifeMillis();
+        String temp = buildingKey(chapterId);
+        List<Map<String, Object>> seeds = commentMapper.findHotSeeds(chapterId);
+        List<String> batch = new ArrayList<>();
+        batch.add(String.valueOf(buildLeaseMillis));
+        for (Map<String, Object> seed : seeds) {
+            double units = 1 + likeWeight * toLong(seed.get("like_count")) + replyWeight * toLong(seed.get("reply_count"));
+            long createdAt = seed.get("created_at") instanceof LocalDateTime time
+                    ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : epoch;
+            batch.add(String.valueOf(seed.get("id")));
+            batch.add(String.valueOf(decayedScore(units, createdAt, epoch, halfLifeMillis)));
+            if (batch.size() > buildBatchSize * 2L) {
+                redisTemplate.execute(SEED_SCRIPT, List.of(temp), batch.toArray());
+                batch.subList(1, batch.size()).clear();
+            }
+        }
+        if (batch.size() > 1) {
+            redisTemplate.execute(SEED_SCRIPT, List.of(temp), batch.toArray());
+        }
+        redisTemplate.execute(PUBLISH_SCRIPT,
+                List.of(key(chapterId), epochKey(chapterId), temp, buildingEpochKey(chapterId)),
+                String.valueOf(epoch), String.valueOf(maxAgeHours * 3_600_000L));
+        log.debug("章节热度排行榜已重建: chapterId={}, members={}, costMs={}",
+                chapterId, seeds.size(), System.currentTimeMillis() - epoch);
+        return epoch;
+    }
+
+    private void increment(Long chapterId, Map<Long, Double> weights) {
+        if (chapterId == null || weights.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>(2 + weights.size() * 2);
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(String.valueOf(halfLifeMillis()));
+        weights.forEach((commentId, weight) -> {
+            args.add(String.valueOf(commentId));
+            args.add(String.valueOf(weight));
+        });
+        try {
+            redisTemplate.execute(INCREMENT_SCRIPT, List.of(key(chapterId), epochKey(chapterId),
+                    buildingKey(chapterId), buildingEpochKey(chapterId)), args.toArray());
+        } catch (RuntimeException e) {
+            // 排行榜最迟在 max-age 后按数据库计数重建
+            log.warn("更新评论热度失败: chapterId={}, error={}", chapterId, e.getMessage());
+        }
+    }
+
+    private double factor(long fromEpoch, long toEpoch) {
+        return Math.pow(2, (fromEpoch - toEpoch) / halfLifeMillis());
+    }
+
+    private double halfLifeMillis() {
+        return halfLifeHours * 3_600_000d;
+    }
+
+    /**
+     * 前向衰减分数：units × 2^((eventMillis - epochMillis) / halfLifeMillis)，指数不低于 MIN_EXPONENT
+     */
+    static double decayedScore(double units, long eventMillis, long epochMillis, double halfLifeMillis) {
+        return units * Math.pow(2, Math.max(MIN_EXPONENT, (eventMillis - epochMillis) / halfLifeMillis));
+    }
+
+    /**
+     * position 是否排在游标之后：分数更低，或分数相同且成员按字节序更小（与 ZREVRANGE 的同分顺序一致）
+     */
+    static boolean isAfter(Position position, Position cursor) {
+        if (cursor == null) {
+            return true;
+        }
+        int byScore = Double.compare(position.score(), cursor.score());
+        if (byScore != 0) {
+            return byScore < 0;
+        }
+        return String.valueOf(position.id()).compareTo(String.valueOf(cursor.id())) < 0;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static String key(Long chapterId) {
+        return KEY_PREFIX + chapterId;
+    }
+
+    private static String epochKey(Long chapterId) {
+        return KEY_PREFIX + chapterId + ":epoch";
+    }
+
+    private static String buildingKey(Long chapterId) {
+        return KEY_PREFIX + chapterId + ":building";
+    }
+
+    private static String buildingEpochKey(Long chapterId) {
+        return KEY_PREFIX + chapterId + ":building:epoch";
+    }
+
+    /**
+     * 排行榜中的位置（游标分页使用）
+     *
+     * @param score 热度分（相对 epoch）
+     * @param epoch 分数所基于的 epoch（毫秒）
+     * @param id    评论 ID
+     */
+    public record Position(double score, long epoch, long id) {
+    }
+
+    /**
+     * 一页排行结果
+     *
+     * @param positions 按热度降序
+     * @param epoch     读取时排行榜的 epoch
+     */
+    public record Slice(List<Position> positions, long epoch) {
+    }
+}
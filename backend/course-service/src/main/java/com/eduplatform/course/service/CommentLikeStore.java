@@ -0,0 +1,383 @@
+package com.eduplatform.course.service;
+
+import com.eduplatform.course.entity.CommentLike;
+import com.eduplatform.course.mapper.ChapterCommentMapper;
+import com.eduplatform.course.mapper.CommentLikeMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 评论点赞的 Redis 状态与批量回写（write-behind）
+ * 点赞/取消点赞只执行一次 Lua 脚本，不再同步写 comment_likes 与更新 chapter_comments.like_count 热点行：
+ * 1. 用户点赞状态：每个用户一个 Set（course:comment:liked:{userId}），成员为评论 ID，另含哨兵成员 0 表示已从数据库加载；
+ *    成员全是整数，元素不多时 Redis 以 intset 紧凑编码存储。集合不存在（首次访问或过期）时先从 comment_likes 加载。
+ * 2. 待回写数据：点赞净增量 Hash（评论 ID → 增量）与最终状态 Hash（评论:用户 → 1 点赞 / 0 取消），同一对多次切换只保留最后状态。
+ *
+ * 回写线程每 flush-interval-millis 执行一轮（多实例以 Redis 锁互斥）：将两个 Hash 原子改名为 flushing 快照，
+ * 在一个事务内批量写入/删除 comment_likes，再按 comment_likes 重新统计涉及评论的 like_count（可重复执行，
+ * 回写中途失败时下一轮重做同一快照不会重复计数）。提交后立即把增量快照原子并入待更新热度的 Hash 并删除两个快照，
+ * 读取计数不再叠加已落库的增量；热度排行榜随后按该 Hash 分批更新，每批更新后移除对应评论，中断时下一轮只补做剩余部分。
+ * 读取评论时 like_count 为数据库值加上尚未回写的增量。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class CommentLikeStore {
+
+    static final String LIKED_PREFIX = "course:comment:liked:";
+    static final String DELTA_KEY = "course:comment:like-delta";
+    static final String OPS_KEY = "course:comment:like-ops";
+    static final String FLUSHING_DELTA_KEY = DELTA_KEY + ":flushing";
+    static final String FLUSHING_OPS_KEY = OPS_KEY + ":flushing";
+    static final String FLUSH_LOCK_KEY = "course:comment:like-flush:lock";
+    static final String HOT_PENDING_KEY = "course:comment:like-hot-pending";
+
+    /** 用户点赞集合中的哨兵成员：集合存在即表示已加载，即使用户没有点赞过任何评论 */
+    private static final String LOADED_SENTINEL = "0";
+
+    /** 返回 1 点赞、0 取消点赞、-1 用户集合未加载 */
+    private static final RedisScript<Long> TOGGLE_SCRIPT = RedisScript.of("""
+            if redis.call('exists', KEYS[1]) == 0 then return -1 end
+            redis.call('pexpire', KEYS[1], ARGV[3])
+            local field = ARGV[1] .. ':' .. ARGV[2]
+            if redis.call('srem', KEYS[1], ARGV[1]) == 1 then
+              redis.call('hincrby', KEYS[2], ARGV[1], -1)
+              redis.call('hset', KEYS[3], field, 0)
+              return 0
+            end
+            redis.call('sadd', KEYS[1], ARGV[1])
+            redis.call('hincrby', KEYS[2], ARGV[1], 1)
+            redis.call('hset', KEYS[3], field, 1)
+            return 1
+            """, Long.class);
+
+    /** 集合不存在时才写入，避免覆盖其它实例已加载并修改过的集合 */
+    private static final RedisScript<Long> LOAD_SCRIPT = RedisScript.of("""
+            if redis.call('exists', KEYS[1]) == 1 then return 0 end
+            for i = 2, #ARGV do redis.call('sadd', KEYS[1], ARGV[i]) end
+            redis.call('pexpire', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    /** 返回 1 已生成新快照、2 存在上一轮未完成的快照、0 没有待回写数据 */
+    private static final RedisScript<Long> SNAPSHOT_SCRIPT = RedisScript.of("""
+            if redis.call('exists', KEYS[3]) == 1 or redis.call('exists', KEYS[4]) == 1 then return 2 end
+            local moved = 0
+            if redis.call('exists', KEYS[1]) == 1 then redis.call('rename', KEYS[1], KEYS[3]); moved = 1 end
+            if redis.call('exists', KEYS[2]) == 1 then redis.call('rename', KEYS[2], KEYS[4]); moved = 1 end
+            return moved
+            """, Long.class);
+
+    /** 数据库提交后：增量快照并入待更新热度的 Hash，删除增量与状态快照，返回并入的评论数 */
+    private static final RedisScript<Long> SETTLE_SCRIPT = RedisScript.of("""
+            local entries = redis.call('hgetall', KEYS[1])
+            for i = 1, #entries, 2 do redis.call('hincrby', KEYS[3], entries[i], entries[i + 1]) end
+            redis.call('del', KEYS[1], KEYS[2])
+            return #entries / 2
+            """, Long.class);
+
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CommentLikeMapper likeMapper;
+    private final ChapterCommentMapper commentMapper;
+    private final CommentHotRanking hotRanking;
+    private final ObjectProvider<PlatformTransactionManager> transactionManagerProvider;
+    private final MeterRegistry meterRegistry;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    @Value("${edu.comment-like.flush.enabled:true}")
+    private boolean flushEnabled = true;
+
+    @Value("${edu.comment-like.flush.interval-millis:2000}")
+    private long flushIntervalMillis = 2000;
+
+    /** 单条 SQL 最多携带的记录数 */
+    @Value("${edu.comment-like.flush.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${edu.comment-like.user-set-ttl-hours:168}")
+    private long userSetTtlHours = 168;
+
+    private TransactionTemplate transactionTemplate;
+    private Timer flushTimer;
+    private Counter flushedCounter;
+    private Thread worker;
+    private volatile boolean running;
+
+    @Autowired
+    public CommentLikeStore(StringRedisTemplate redisTemplate,
+                            CommentLikeMapper likeMapper,
+                            ChapterCommentMapper commentMapper,
+                            CommentHotRanking hotRanking,
+                            ObjectProvider<PlatformTransactionManager> transactionManager,
+                            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.likeMapper = likeMapper;
+        this.commentMapper = commentMapper;
+        this.hotRanking = hotRanking;
+        this.transactionManagerProvider = transactionManager;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!flushEnabled) {
+            return;
+        }
+        PlatformTransactionManager transactionManager = transactionManagerProvider.getIfAvailable();
+        if (transactionManager == null) {
+            log.warn("评论点赞回写线程未启动：缺少事务管理器");
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        flushTimer = Timer.builder("comment.like.flush")
+                .description("评论点赞单轮回写耗时")
+                .register(meterRegistry);
+        flushedCounter = Counter.builder("comment.like.flushed")
+                .description("回写到数据库的点赞状态变更数")
+                .register(meterRegistry);
+
+        running = true;
+        worker = new Thread(this::runLoop, "comment-like-flush");
+        worker.setDaemon(true);
+        worker.start();
+        log.info("评论点赞回写线程已启动: intervalMillis={}, batchSize={}", flushIntervalMillis, batchSize);
+    }
+
+    @PreDestroy
+    void stop() {
+        Thread current = worker;
+        if (current == null) {
+            return;
+        }
+        running = false;
+        current.interrupt();
+        try {
+            current.join(flushIntervalMillis * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+        // 停机前把本实例能拿到的待回写数据写完，其余由其它实例或下次启动处理
+        try {
+            flushOnce();
+        } catch (RuntimeException e) {
+            log.warn("停机前回写评论点赞失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 切换点赞状态
+     *
+     * @return true 表示当前处于点赞态
+     */
+    public boolean toggle(Long commentId, Long userId) {
+        List<String> keys = List.of(likedKey(userId), DELTA_KEY, OPS_KEY);
+        String ttl = String.valueOf(Duration.ofHours(userSetTtlHours).toMillis());
+        Long result = redisTemplate.execute(TOGGLE_SCRIPT, keys, String.valueOf(commentId), String.valueOf(userId), ttl);
+        if (result != null && result < 0) {
+            loadUser(userId);
+            result = redisTemplate.execute(TOGGLE_SCRIPT, keys, String.valueOf(commentId), String.valueOf(userId), ttl);
+        }
+        return result != null && result == 1;
+    }
+
+    /**
+     * 用户在给定评论中已点赞的评论 ID
+     */
+    public Set<Long> likedAmong(Long userId, List<Long> commentIds) {
+        if (userId == null || commentIds.isEmpty()) {
+            return Set.of();
+        }
+        String key = likedKey(userId);
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(key))) {
+            loadUser(userId);
+        }
+        Map<Object, Boolean> members = redisTemplate.opsForSet()
+                .isMember(key, commentIds.stream().map(String::valueOf).toArray());
+        Set<Long> liked = new HashSet<>();
+        if (members != null) {
+            members.forEach((member, isMember) -> {
+                if (Boolean.TRUE.equals(isMember)) {
+                    liked.add(Long.valueOf(member.toString()));
+                }
+            });
+        }
+        return liked;
+    }
+
+    /**
+     * 尚未回写到数据库的点赞增量（含正在回写的快照），没有增量的评论不出现在结果中
+     */
+    public Map<Long, Long> pendingDeltas(List<Long> commentIds) {
+        if (commentIds.isEmpty()) {
+            return Map.of();
+        }
+        List<Object> fields = commentIds.stream().map(String::valueOf).map(Object.class::cast).toList();
+        List<Object> live = redisTemplate.opsForHash().multiGet(DELTA_KEY, fields);
+        List<Object> flushing = redisTemplate.opsForHash().multiGet(FLUSHING_DELTA_KEY, fields);
+        Map<Long, Long> deltas = new HashMap<>();
+        for (int i = 0; i < commentIds.size(); i++) {
+            long delta = parseLong(live.get(i)) + parseLong(flushing.get(i));
+            if (delta != 0) {
+                deltas.put(commentIds.get(i), delta);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 执行一轮回写，返回回写的点赞状态变更数
+     */
+    int flushOnce() {
+        if (transactionTemplate == null) {
+            return 0;
+        }
+        String token = instanceId + ":" + System.nanoTime();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(FLUSH_LOCK_KEY, token, Duration.ofMillis(Math.max(flushIntervalMillis * 10, 30_000))))) {
+            return 0;
+        }
+        try {
+            // 上一轮数据库已提交但热度未更新完的部分
+            applyHotScores();
+            Long snapshot = redisTemplate.execute(SNAPSHOT_SCRIPT,
+                    List.of(DELTA_KEY, OPS_KEY, FLUSHING_DELTA_KEY, FLUSHING_OPS_KEY));
+            if (snapshot == null || snapshot == 0) {
+                return 0;
+            }
+            return flushTimer.record(this::flushSnapshot);
+        } finally {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(FLUSH_LOCK_KEY), token);
+        }
+    }
+
+    private int flushSnapshot() {
+        Map<Object, Object> rawOps = redisTemplate.opsForHash().entries(FLUSHING_OPS_KEY);
+        Map<Object, Object> rawDeltas = redisTemplate.opsForHash().entries(FLUSHING_DELTA_KEY);
+
+        List<CommentLike> likes = new ArrayList<>();
+        List<CommentLike> unlikes = new ArrayList<>();
+        Set<Long> touched = new HashSet<>();
+        rawOps.forEach((field, state) -> {
+            String[] parts = field.toString().split(":");
+            CommentLike like = new CommentLike();
+            like.setCommentId(Long.valueOf(parts[0]));
+            like.setUserId(Long.valueOf(parts[1]));
+            ("1".equals(state.toString()) ? likes : unlikes).add(like);
+            touched.add(like.getCommentId());
+        });
+        rawDeltas.keySet().forEach(field -> touched.add(Long.valueOf(field.toString())));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (List<CommentLike> chunk : chunks(unlikes)) {
+                likeMapper.deleteBatch(chunk);
+            }
+            for (List<CommentLike> chunk : chunks(likes)) {
+                likeMapper.insertIgnoreBatch(chunk);
+            }
+            for (List<Long> chunk : chunks(new ArrayList<>(touched))) {
+                commentMapper.recountLikes(chunk);
+            }
+        });
+        // 数据库已是最终状态：立即移出两个快照，读取计数不再叠加已落库的增量；热度更新单独记录进度
+        redisTemplate.execute(SETTLE_SCRIPT, List.of(FLUSHING_DELTA_KEY, FLUSHING_OPS_KEY, HOT_PENDING_KEY));
+        applyHotScores();
+
+        flushedCounter.increment(rawOps.size());
+        log.debug("评论点赞已回写: changes={}, comments={}", rawOps.size(), touched.size());
+        return rawOps.size();
+    }
+
+    /**
+     * 按待更新热度的 Hash 更新章节排行榜；每批更新后从 Hash 中移除，重试时不会重复累加已更新的批次
+     */
+    private void applyHotScores() {
+        Map<Object, Object> pending = redisTemplate.opsForHash().entries(HOT_PENDING_KEY);
+        if (pending.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> deltas = new HashMap<>();
+        pending.forEach((field, delta) -> deltas.put(Long.valueOf(field.toString()), parseLong(delta)));
+        for (List<Long> chunk : chunks(new ArrayList<>(deltas.keySet()))) {
+            Map<Long, Map<Long, Long>> byChapter = new HashMap<>();
+            for (Map<String, Object> row : commentMapper.findRankedChapterIds(chunk)) {
+                Long commentId = ((Number) row.get("id")).longValue();
+                Long chapterId = ((Number) row.get("chapter_id")).longValue();
+                if (deltas.get(commentId) != 0) {
+                    byChapter.computeIfAbsent(chapterId, k -> new HashMap<>()).put(commentId, deltas.get(commentId));
+                }
+            }
+            byChapter.forEach(hotRanking::onLikes);
+            redisTemplate.opsForHash().delete(HOT_PENDING_KEY, chunk.stream().map(String::valueOf).toArray());
+        }
+    }
+
+    private void loadUser(Long userId) {
+        List<Long> liked = likeMapper.findCommentIdsByUser(userId);
+        List<String> args = new ArrayList<>(liked.size() + 2);
+        args.add(String.valueOf(Duration.ofHours(userSetTtlHours).toMillis()));
+        args.add(LOADED_SENTINEL);
+        liked.forEach(id -> args.add(String.valueOf(id)));
+        redisTemplate.execute(LOAD_SCRIPT, List.of(likedKey(userId)), args.toArray());
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                flushOnce();
+            } catch (RuntimeException e) {
+                // 快照保留在 Redis 中，下一轮重做
+                log.warn("评论点赞回写失败: {}", e.getMessage());
+            }
+            try {
+                Thread.sleep(flushIntervalMillis);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+        log.info("评论点赞回写线程已退出");
+    }
+
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += batchSize) {
+            chunks.add(items.subList(i, Math.min(items.size(), i + batchSize)));
+        }
+        return chunks;
+    }
+
+    private static long parseLong(Object value) {
+        return value == null ? 0L : Long.parseLong(value.toString());
+    }
+
+    private static String likedKey(Long userId) {
+        return LIKED_PREFIX + userId;
+    }
+}
@@ -0,0 +1,39 @@
+package com.eduplatform.course.service;
+
+import com.eduplatform.common.event.ChapterCommentPush;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 新评论实时推送的发布端
+ * 评论事务提交后向 Redis 频道广播一条紧凑通知，由 user-service 推送给正在浏览该章节的 WebSocket 会话。
+ * 推送只是减少客户端轮询的优化，发布失败只记录日志，不影响评论本身。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CommentPushPublisher {
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${edu.comment-push.enabled:true}")
+    private boolean enabled = true;
+
+    public void publishCreated(Long chapterId, Long commentId, Long parentId, Long userId) {
+        if (!enabled) {
+            return;
+        }
+        ChapterCommentPush push = new ChapterCommentPush(chapterId, commentId, parentId, userId,
+                System.currentTimeMillis());
+        try {
+            redisTemplate.convertAndSend(ChapterCommentPush.CHANNEL, push.encode());
+        } catch (Exception e) {
+            log.warn("新评论推送通知发布失败: chapterId={}, commentId={}, error={}", chapterId, commentId, e.getMessage());
+        }
+    }
+}
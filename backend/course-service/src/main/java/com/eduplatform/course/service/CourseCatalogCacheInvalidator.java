@@ -0,0 +1,78 @@
+package com.eduplatform.course.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * 课程目录缓存失效器。
+ * 说明：课程状态变更会改变“已发布课程”列表与统计口径，需同时清理服务端 Spring Cache
+ * 与网关响应缓存；清理失败仅记录日志，由各级缓存 TTL 兜底，不影响状态变更主流程。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseCatalogCacheInvalidator {
+
+    private static final String CACHE_COURSE_LIST = "course_list";
+    private static final String CACHE_COURSE_STATS = "course_stats";
+    private static final String KEY_STATS_BY_SUBJECT = "by_subject";
+
+    /**
+     * 网关缓存中课程目录相关路径的公共前缀。
+     */
+    private static final String GATEWAY_PURGE_PREFIX = "/api/courses";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+
+    /**
+     * 网关响应缓存清除通道：网关订阅后按路径前缀清除本地缓存。
+     */
+    @Value("${gateway.response-cache.purge-channel:gateway:response-cache:purge}")
+    private String purgeChannel;
+
+    /**
+     * 课程状态变更后调用：先清服务端缓存，再通知网关，避免网关回源时读到旧列表。
+     */
+    public void onCourseStatusChanged() {
+        clear(CACHE_COURSE_LIST);
+        clear(CACHE_COURSE_STATS);
+        try {
+            redisTemplate.convertAndSend(purgeChannel, GATEWAY_PURGE_PREFIX);
+        } catch (Exception e) {
+            log.warn("网关响应缓存清除推送失败: channel={}, error={}", purgeChannel, e.getMessage());
+        }
+    }
+
+    /**
+     * 课程在学人数变更后调用：学科分布统计包含各学科在学人数，仅剔除该条目；
+     * 看板统计与课程列表只依赖课程状态，不受影响。
+     */
+    public void onStudentCountChanged() {
+        try {
+            Cache cache = cacheManager.getCache(CACHE_COURSE_STATS);
+            if (cache != null) {
+                cache.evict(KEY_STATS_BY_SUBJECT);
+            }
+        } catch (Exception e) {
+            log.warn("课程统计缓存剔除失败: cache={}, key={}, error={}",
+                    CACHE_COURSE_STATS, KEY_STATS_BY_SUBJECT, e.getMessage());
+        }
+    }
+
+    private void clear(String cacheName) {
+        try {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        } catch (Exception e) {
+            log.warn("课程缓存清理失败: cache={}, error={}", cacheName, e.getMessage());
+        }
+    }
+}
@@ -293,9 +293,9 @@ public class CourseReadService {
     }
 
     /**
-     * 获取课程看板统计（带缓存）。
+     * 获取课程看板统计（带缓存，过期时单飞加载并在后台刷新）。
      */
-    @org.springframework.cache.annotation.Cacheable(value = "course_stats", key = "'dashboard'")
+    @org.springframework.cache.annotation.Cacheable(value = "course_stats", key = "'dashboard'", sync = true)
     public Map<String, Object> getCourseStatistics() {
         Map<String, Object> stats = new HashMap<>();
         stats.put("total", countByStatus(null));
@@ -315,8 +315,9 @@ public class CourseReadService {
     }
 
     /**
-     * 获取按学科分组的课程分布统计。
+     * 获取按学科分组的课程分布统计（带缓存，过期时单飞加载并在后台刷新）。
      */
+    @org.springframework.cache.annotation.Cacheable(value = "course_stats", key = "'by_subject'", sync = true)
     public Map<String, Object> getCourseStatsBySubject() {
         Map<String, Object> result = new HashMap<>();
         List<String> subjects = new ArrayList<>();
@@ -31,6 +31,7 @@ public class CourseService {
     private final CourseMapper courseMapper;
     private final CourseReadService courseReadService;
     private final CourseWorkflowService courseWorkflowService;
+    private final CourseCatalogCacheInvalidator catalogCacheInvalidator;
 
     /**
      * 将持久层课程实体映射为视图对象 (VO)
@@ -175,6 +176,7 @@ public class CourseService {
         existing.setAuditRemark(null);
         existing.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(existing);
+        catalogCacheInvalidator.onCourseStatusChanged();
     }
 
     /**
@@ -272,6 +274,7 @@ public class CourseService {
      */
     public void deleteCourse(Long id) {
         courseMapper.deleteById(id);
+        catalogCacheInvalidator.onCourseStatusChanged();
     }
 
     /**
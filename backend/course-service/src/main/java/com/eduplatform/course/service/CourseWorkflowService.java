@@ -22,6 +22,7 @@ public class CourseWorkflowService {
 
     private final CourseMapper courseMapper;
     private final AuditLogClient auditLogClient;
+    private final CourseCatalogCacheInvalidator catalogCacheInvalidator;
 
     /**
      * 原子化更新课程状态。
@@ -36,6 +37,7 @@ public class CourseWorkflowService {
         course.setStatus(normalizedStatus);
         course.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        catalogCacheInvalidator.onCourseStatusChanged();
     }
 
     /**
@@ -50,6 +52,7 @@ public class CourseWorkflowService {
         course.setStatus(normalizedStatus);
         course.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        catalogCacheInvalidator.onCourseStatusChanged();
 
         String actionType = Course.STATUS_OFFLINE.equals(normalizedStatus) ? "COURSE_OFFLINE" : "COURSE_ONLINE";
         String details = Course.STATUS_OFFLINE.equals(normalizedStatus) ? "下架课程" : "上架课程";
@@ -86,6 +89,7 @@ public class CourseWorkflowService {
         course.setSubmitTime(LocalDateTime.now());
         course.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        catalogCacheInvalidator.onCourseStatusChanged();
     }
 
     /**
@@ -102,6 +106,7 @@ public class CourseWorkflowService {
         course.setStatus(Course.STATUS_DRAFT);
         course.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        catalogCacheInvalidator.onCourseStatusChanged();
     }
 
     /**
@@ -135,6 +140,7 @@ public class CourseWorkflowService {
         course.setAuditRemark(remark);
         course.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        catalogCacheInvalidator.onCourseStatusChanged();
 
         if (auditBy != null && auditByName != null) {
             try {
@@ -179,6 +185,7 @@ public class CourseWorkflowService {
         course.setAuditRemark(remark);
         course.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        catalogCacheInvalidator.onCourseStatusChanged();
     }
 
     /**
@@ -193,6 +200,7 @@ public class CourseWorkflowService {
         course.setStatus(Course.STATUS_OFFLINE);
         course.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        catalogCacheInvalidator.onCourseStatusChanged();
 
         if (operatorId != null && operatorName != null) {
             try {
@@ -264,6 +272,10 @@ public class CourseWorkflowService {
             }
         }
 
+        if (successCount > 0) {
+            catalogCacheInvalidator.onCourseStatusChanged();
+        }
+
         Map<String, Object> result = new HashMap<>();
         result.put("successCount", successCount);
         result.put("failCount", failCount);
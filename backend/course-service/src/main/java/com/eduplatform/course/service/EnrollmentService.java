@@ -1,10 +1,12 @@
 package com.eduplatform.course.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.eduplatform.common.event.EventOutbox;
 import com.eduplatform.common.event.EventType;
 import com.eduplatform.common.event.RedisStreamConstants;
-import com.eduplatform.common.event.RedisStreamPublisher;
+import com.eduplatform.common.event.payload.EnrollmentPayload;
 import com.eduplatform.common.result.Result;
+import com.eduplatform.common.transaction.TransactionCallbacks;
 import com.eduplatform.course.config.LearningStatusConfig;
 import com.eduplatform.course.dto.UserBriefDTO;
 import com.eduplatform.course.entity.Chapter;
@@ -48,7 +50,8 @@ public class EnrollmentService {
     private final ChapterMapper chapterMapper;
     private final UserServiceClient userServiceClient;
     private final LearningStatusConfig learningStatusConfig;
-    private final RedisStreamPublisher redisStreamPublisher;
+    private final EventOutbox eventOutbox;
+    private final CourseCatalogCacheInvalidator catalogCacheInvalidator;
 
     /**
      * 将报名持久层实体转换为视图对象 (VO)
@@ -135,6 +138,8 @@ public class EnrollmentService {
         course.setStudentCount(course.getStudentCount() + 1);
         course.setUpdatedAt(LocalDateTime.now());
         courseMapper.updateById(course);
+        // 学科分布统计缓存含在学人数，提交后剔除，避免并发读取把旧人数重新写回缓存
+        TransactionCallbacks.afterCommit(catalogCacheInvalidator::onStudentCountChanged);
 
         // 发布选课事件，由 user-service 异步消费发送通知
         publishEnrollmentEvent(EventType.COURSE_ENROLLED, studentId, courseId, course.getTitle());
@@ -167,6 +172,7 @@ public class EnrollmentService {
             course.setStudentCount(course.getStudentCount() - 1);
             course.setUpdatedAt(LocalDateTime.now());
             courseMapper.updateById(course);
+            TransactionCallbacks.afterCommit(catalogCacheInvalidator::onStudentCountChanged);
         }
 
         // 发布退课事件，由 user-service 异步消费发送通知
@@ -850,7 +856,7 @@ public class EnrollmentService {
     }
 
     /**
-     * 发布选课/退课事件到 Redis Stream
+     * 在当前事务内登记选课/退课事件，事务提交后由发件箱投递到 Redis Stream
      *
      * @param eventType  事件类型（COURSE_ENROLLED / COURSE_DROPPED）
      * @param studentId  学生ID
@@ -858,16 +864,7 @@ public class EnrollmentService {
      * @param courseName 课程名称
      */
     private void publishEnrollmentEvent(EventType eventType, Long studentId, Long courseId, String courseName) {
-        try {
-            Map<String, Object> data = new HashMap<>();
-            data.put("studentId", studentId);
-            data.put("courseId", courseId);
-            data.put("courseName", courseName);
-
-            redisStreamPublisher.publish(eventType, RedisStreamConstants.SERVICE_COURSE, data);
-        } catch (Exception e) {
-            log.error("发布选课事件失败: type={}, studentId={}, courseId={}, error={}",
-                    eventType, studentId, courseId, e.getMessage());
-        }
+        eventOutbox.publish(eventType, RedisStreamConstants.SERVICE_COURSE,
+                new EnrollmentPayload(studentId, courseId, courseName));
     }
 }
@@ -0,0 +1,78 @@
+package com.eduplatform.course.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BlockedWordAutomaton 匹配正确性测试。
+ */
+@DisplayName("BlockedWordAutomaton 单元测试")
+class BlockedWordAutomatonTest {
+
+    @Test
+    @DisplayName("重叠与嵌套的词全部命中-位置对应原文下标")
+    void shouldReportOverlappingMatchesWithPositions() {
+        BlockedWordAutomaton automaton = BlockedWordAutomaton.compile(List.of("he", "she", "his", "hers", "代写", "作业代写"));
+
+        List<BlockedWordAutomaton.Match> matches = automaton.findAll("ushers，找人作业代写");
+
+        assertEquals(List.of(
+                new BlockedWordAutomaton.Match("she", 1, 4),
+                new BlockedWordAutomaton.Match("he", 2, 4),
+                new BlockedWordAutomaton.Match("hers", 2, 6),
+                new BlockedWordAutomaton.Match("作业代写", 9, 13),
+                new BlockedWordAutomaton.Match("代写", 11, 13)), matches);
+    }
+
+    @Test
+    @DisplayName("全角/半角与大小写归一化-原词按编译顺序去重")
+    void shouldNormalizeWidthAndCase() {
+        BlockedWordAutomaton automaton = BlockedWordAutomaton.compile(List.of("QQ群", "ｑｑ群", "Vx：abc", " "));
+
+        assertEquals(List.of("QQ群", "Vx：abc"), automaton.words());
+        List<BlockedWordAutomaton.Match> matches = automaton.findAll("加ｑＱ群或 vx:ABC");
+        assertEquals(List.of(
+                new BlockedWordAutomaton.Match("QQ群", 1, 4),
+                new BlockedWordAutomaton.Match("Vx：abc", 6, 12)), matches);
+        assertTrue(automaton.containsAny("ＶＸ：ａｂｃ"));
+        assertFalse(automaton.containsAny("正常的提问内容"));
+        assertTrue(BlockedWordAutomaton.empty().findAll("任意内容").isEmpty());
+    }
+
+    @Test
+    @DisplayName("随机词库与文本-结果与逐词 indexOf 扫描一致")
+    void shouldAgreeWithNaiveScan() {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            words.add(randomText(random, 1 + random.nextInt(4)));
+        }
+        BlockedWordAutomaton automaton = BlockedWordAutomaton.compile(words);
+        for (int round = 0; round < 50; round++) {
+            String text = randomText(random, 200);
+            long expected = 0;
+            for (String word : automaton.words()) {
+                for (int from = text.indexOf(word); from >= 0; from = text.indexOf(word, from + 1)) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, automaton.findAll(text).size());
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append("abcd考试作弊".charAt(random.nextInt(8)));
+        }
+        return builder.toString();
+    }
+}
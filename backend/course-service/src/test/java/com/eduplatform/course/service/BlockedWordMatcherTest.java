@@ -0,0 +1,145 @@
+package com.eduplatform.course.service;
+
+import com.eduplatform.course.entity.BlockedWord;
+import com.eduplatform.course.mapper.BlockedWordMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.endsWith;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * BlockedWordMatcher 单元测试
+ *
+ * 覆盖场景:
+ * 1. 新增词条：已加载的作用域追加后立即生效，未加载的作用域不预先编译，均发布变更通知
+ * 2. 同一作用域并发新增时每个词条都保留在新自动机中
+ * 3. 删除词条：以数据库中剩余的词为准重新编译
+ * 4. 其它实例的变更通知使本地作用域失效并重新加载，自身发出的通知被忽略
+ */
+@DisplayName("BlockedWordMatcher 单元测试")
+class BlockedWordMatcherTest {
+
+    private BlockedWordMapper blockedWordMapper;
+    private StringRedisTemplate redisTemplate;
+    private BlockedWordMatcher matcher;
+
+    @BeforeEach
+    void setUp() {
+        blockedWordMapper = mock(BlockedWordMapper.class);
+        redisTemplate = mock(StringRedisTemplate.class);
+        matcher = new BlockedWordMatcher(blockedWordMapper, redisTemplate, 100, 10);
+    }
+
+    @Test
+    @DisplayName("新增词条-已加载的作用域追加后立即命中，未加载的课程不预先编译")
+    void shouldAppendToLoadedScopeOnly() {
+        when(blockedWordMapper.findGlobalWords()).thenReturn(List.of(word("spam", "global", null)));
+        when(blockedWordMapper.findCourseWords(7L)).thenReturn(List.of(word("cheat", "course", 7L)));
+        assertEquals(1, matcher.match("spam here", null).size());
+
+        matcher.onWordAdded(word("scam", "global", null));
+        matcher.onWordAdded(word("leak", "course", 7L));
+
+        assertEquals(List.of("spam", "scam"), words(matcher.match("spam and scam", null)));
+        // 课程 7 此前未加载，首次检测时从数据库加载，不包含仅在内存中追加的词
+        assertEquals(List.of("cheat"), words(matcher.match("cheat or leak", 7L)));
+        verify(blockedWordMapper, times(1)).findGlobalWords();
+        verify(redisTemplate).convertAndSend(eq(BlockedWordMatcher.CHANGED_CHANNEL), endsWith(":0"));
+        verify(redisTemplate).convertAndSend(eq(BlockedWordMatcher.CHANGED_CHANNEL), endsWith(":7"));
+    }
+
+    @Test
+    @DisplayName("同一作用域并发新增 200 个词条-全部保留，没有被并发替换覆盖")
+    void shouldKeepEveryConcurrentlyAddedWord() throws Exception {
+        when(blockedWordMapper.findGlobalWords()).thenReturn(List.of());
+        matcher.match("warm up", null);
+
+        CountDownLatch start = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 200; i++) {
+                BlockedWord word = word("w" + i + "x", "global", null);
+                executor.submit(() -> {
+                    start.await();
+                    matcher.onWordAdded(word);
+                    return null;
+                });
+            }
+            start.countDown();
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("w").append(i).append("x ");
+        }
+        assertEquals(200, matcher.match(text.toString(), null).size());
+    }
+
+    @Test
+    @DisplayName("删除词条-按数据库剩余词条重新编译，归一化后相同的另一词仍然生效")
+    void shouldReloadScopeOnDelete() {
+        BlockedWord upper = word("SPAM", "global", null);
+        BlockedWord lower = word("spam", "global", null);
+        when(blockedWordMapper.findGlobalWords())
+                .thenReturn(List.of(upper, lower, word("scam", "global", null)))
+                .thenReturn(List.of(upper));
+        assertEquals(2, matcher.match("spam scam", null).size());
+
+        matcher.onWordDeleted(lower);
+
+        assertEquals(List.of("SPAM"), words(matcher.match("spam scam", null)));
+        verify(blockedWordMapper, times(2)).findGlobalWords();
+    }
+
+    @Test
+    @DisplayName("变更通知-其它实例的通知使作用域重新加载，自身通知与格式错误的通知被忽略")
+    void shouldInvalidateOnForeignNotification() {
+        when(blockedWordMapper.findCourseWords(7L))
+                .thenReturn(List.of(word("cheat", "course", 7L)))
+                .thenReturn(List.of(word("leak", "course", 7L)));
+        when(blockedWordMapper.findGlobalWords()).thenReturn(List.of());
+        assertEquals(List.of("cheat"), words(matcher.match("cheat leak", 7L)));
+
+        matcher.onWordAdded(word("copy", "course", 7L));
+        ArgumentCaptor<String> own = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(BlockedWordMatcher.CHANGED_CHANNEL), own.capture());
+        matcher.onMessage(message(own.getValue()), null);
+        matcher.onMessage(message("other-instance:abc"), null);
+        assertEquals(List.of("cheat", "copy"), words(matcher.match("cheat copy leak", 7L)));
+
+        matcher.onMessage(message("other-instance:7"), null);
+        assertEquals(List.of("leak"), words(matcher.match("cheat copy leak", 7L)));
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(BlockedWordMatcher.CHANGED_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> words(List<BlockedWordAutomaton.Match> matches) {
+        List<String> words = new ArrayList<>();
+        matches.forEach(match -> words.add(match.word()));
+        return words;
+    }
+
+    private static BlockedWord word(String text, String scope, Long courseId) {
+        BlockedWord word = new BlockedWord();
+        word.setWord(text);
+        word.setScope(scope);
+        word.setCourseId(courseId);
+        return word;
+    }
+}
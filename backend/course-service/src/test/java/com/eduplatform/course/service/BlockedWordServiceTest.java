@@ -0,0 +1,122 @@
+package com.eduplatform.course.service;
+
+import com.eduplatform.course.entity.BlockedWord;
+import com.eduplatform.course.mapper.BlockedWordMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * BlockedWordService 单元测试
+ *
+ * 覆盖场景:
+ * 1. 新增、删除词条在事务提交后才更新内存词库，回滚时不更新
+ * 2. 没有活动事务时立即更新内存词库
+ * 3. 重复新增、删除不存在的词条时失败，且不通知内存词库
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BlockedWordService 单元测试")
+class BlockedWordServiceTest {
+
+    @InjectMocks
+    private BlockedWordService blockedWordService;
+
+    @Mock
+    private BlockedWordMapper blockedWordMapper;
+
+    @Mock
+    private BlockedWordMatcher blockedWordMatcher;
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("新增词条-事务提交后才追加到内存词库，课程作用域保留课程 ID")
+    void shouldNotifyMatcherAfterCommitOnAdd() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        BlockedWord added = blockedWordService.addWord("cheat", "course", 7L, 1L);
+
+        verify(blockedWordMapper).insertWord(added);
+        assertEquals(Long.valueOf(7L), added.getCourseId());
+        verify(blockedWordMatcher, never()).onWordAdded(any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(blockedWordMatcher).onWordAdded(added);
+    }
+
+    @Test
+    @DisplayName("新增词条-事务回滚时不更新内存词库")
+    void shouldSkipMatcherOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        blockedWordService.addWord("spam", "global", 7L, 1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(blockedWordMatcher, never()).onWordAdded(any());
+    }
+
+    @Test
+    @DisplayName("新增词条-没有活动事务时立即更新，全局作用域不带课程 ID")
+    void shouldNotifyMatcherImmediatelyWithoutTransaction() {
+        BlockedWord added = blockedWordService.addWord("spam", "global", 7L, 1L);
+
+        assertNull(added.getCourseId());
+        verify(blockedWordMatcher).onWordAdded(added);
+    }
+
+    @Test
+    @DisplayName("新增重复词条-抛出异常，不写库也不通知内存词库")
+    void shouldRejectDuplicateWord() {
+        when(blockedWordMapper.checkExists("spam", "global", null)).thenReturn(1);
+
+        assertThrows(RuntimeException.class, () -> blockedWordService.addWord("spam", "global", null, 1L));
+
+        verify(blockedWordMapper, never()).insertWord(any());
+        verify(blockedWordMatcher, never()).onWordAdded(any());
+    }
+
+    @Test
+    @DisplayName("删除词条-事务提交后按被删词条的作用域重新加载")
+    void shouldNotifyMatcherAfterCommitOnDelete() {
+        BlockedWord existing = new BlockedWord();
+        existing.setId(5L);
+        existing.setWord("cheat");
+        existing.setScope("course");
+        existing.setCourseId(7L);
+        when(blockedWordMapper.selectById(5L)).thenReturn(existing);
+        when(blockedWordMapper.deleteWord(5L)).thenReturn(1);
+        TransactionSynchronizationManager.initSynchronization();
+
+        blockedWordService.deleteWord(5L);
+        verify(blockedWordMatcher, never()).onWordDeleted(any());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(blockedWordMatcher).onWordDeleted(existing);
+    }
+
+    @Test
+    @DisplayName("删除不存在的词条-抛出异常，不通知内存词库")
+    void shouldRejectMissingWordOnDelete() {
+        when(blockedWordMapper.deleteWord(5L)).thenReturn(0);
+
+        assertThrows(RuntimeException.class, () -> blockedWordService.deleteWord(5L));
+
+        verify(blockedWordMatcher, never()).onWordDeleted(any());
+    }
+}
@@ -0,0 +1,171 @@
+package com.eduplatform.course.service;
+
+import com.eduplatform.course.dto.CommentDTO;
+import com.eduplatform.course.entity.ChapterComment;
+import com.eduplatform.course.mapper.ChapterCommentMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ChapterCommentService 单元测试
+ *
+ * 覆盖场景:
+ * 1. 主评论分页的查询次数与页大小无关（回复预览批量加载，无 N+1）
+ * 2. 回复预览按 parent_id 正确归组，无回复的主评论得到空列表
+ * 3. 游标分页：下一页游标取本页最后一条的排序键，损坏或跨排序模式的游标被拒绝
+ * 4. 热度页：置顶评论在前，其后按 Redis 排行榜顺序补齐详情，点赞数叠加未回写的增量
+ * 5. 发表评论后向浏览该章节的客户端发布实时推送通知
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ChapterCommentService 单元测试")
+class ChapterCommentServiceTest {
+
+    @InjectMocks
+    private ChapterCommentService commentService;
+
+    @Mock
+    private ChapterCommentMapper commentMapper;
+
+    @Mock
+    private CommentLikeStore likeStore;
+
+    @Mock
+    private CommentHotRanking hotRanking;
+
+    @Mock
+    private CommentPushPublisher pushPublisher;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20, 100})
+    @DisplayName("任意页大小-每页固定 3 次数据库查询与 2 次 Redis 读取，不再逐条查询回复")
+    void shouldIssueConstantQueriesPerPage(int size) {
+        when(commentMapper.findByChapterOrderByTime(10L, 0, size)).thenReturn(topLevel(size));
+        when(commentMapper.findReplyPreviews(anyList(), eq(ChapterCommentService.REPLY_PREVIEW_SIZE)))
+                .thenReturn(List.of());
+        when(commentMapper.countByChapter(10L)).thenReturn(size);
+
+        commentService.getComments(10L, 7L, "time", 1, size);
+
+        verify(commentMapper, times(1)).findReplyPreviews(anyList(), anyInt());
+        verify(commentMapper, never()).findReplies(anyLong());
+        assertEquals(3, mockingDetails(commentMapper).getInvocations().size());
+        assertEquals(2, mockingDetails(likeStore).getInvocations().size());
+    }
+
+    @Test
+    @DisplayName("回复预览按 parent_id 归组挂载-保持查询返回的顺序")
+    @SuppressWarnings("unchecked")
+    void shouldAttachPreviewsToTheirParents() {
+        when(commentMapper.findByChapterOrderByTime(10L, 0, 3)).thenReturn(topLevel(3));
+        when(commentMapper.findReplyPreviews(List.of(1L, 2L, 3L), ChapterCommentService.REPLY_PREVIEW_SIZE))
+                .thenReturn(List.of(row(11L, 1L), row(12L, 1L), row(31L, 3L)));
+        when(commentMapper.countByChapter(10L)).thenReturn(3);
+
+        Map<String, Object> result = commentService.getComments(10L, null, "time", 1, 3);
+
+        List<CommentDTO> comments = (List<CommentDTO>) result.get("comments");
+        assertEquals(List.of(11L, 12L), comments.get(0).getReplies().stream().map(CommentDTO::getId).toList());
+        assertTrue(comments.get(1).getReplies().isEmpty());
+        assertEquals(List.of(31L), comments.get(2).getReplies().stream().map(CommentDTO::getId).toList());
+        verify(likeStore, never()).likedAmong(any(), anyList());
+    }
+
+    @Test
+    @DisplayName("游标分页-多取一条判断 hasMore，下一页以上一页末条的 (is_pinned, created_at, id) 定位")
+    @SuppressWarnings("unchecked")
+    void shouldPageByCursor() {
+        when(commentMapper.findByChapterTimeCursor(10L, null, null, null, 3)).thenReturn(topLevel(3));
+        when(commentMapper.findReplyPreviews(anyList(), anyInt())).thenReturn(List.of());
+
+        Map<String, Object> first = commentService.getCommentsByCursor(10L, null, "time", null, 2, false);
+
+        assertEquals(2, ((List<CommentDTO>) first.get("comments")).size());
+        assertEquals(true, first.get("hasMore"));
+        assertFalse(first.containsKey("total"));
+        String next = (String) first.get("nextCursor");
+        CommentCursor decoded = CommentCursor.decode(next, "time");
+        assertEquals(new CommentCursor("time", 0, LocalDateTime.of(2024, 1, 1, 0, 2), 0, 0, 2L), decoded);
+
+        when(commentMapper.findByChapterTimeCursor(10L, 0, decoded.createdAt(), 2L, 3)).thenReturn(List.of(row(1L, null)));
+        Map<String, Object> second = commentService.getCommentsByCursor(10L, null, "time", next, 2, false);
+
+        assertEquals(false, second.get("hasMore"));
+        assertNull(second.get("nextCursor"));
+        assertThrows(IllegalArgumentException.class,
+                () -> commentService.getCommentsByCursor(10L, null, "hot", next, 2, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> commentService.getCommentsByCursor(10L, null, "time", "not-a-cursor", 2, false));
+    }
+
+    @Test
+    @DisplayName("热度页-置顶评论在前，其后按排行榜顺序返回，点赞数叠加未回写增量")
+    @SuppressWarnings("unchecked")
+    void shouldServeHotPageFromRanking() {
+        Map<String, Object> pinned = row(9L, null);
+        pinned.put("is_pinned", 1);
+        when(commentMapper.findPinnedTopLevel(10L)).thenReturn(List.of(pinned));
+        when(hotRanking.page(10L, 0, 2)).thenReturn(List.of(3L, 1L));
+        when(commentMapper.findTopLevelByIds(List.of(3L, 1L))).thenReturn(List.of(row(1L, null), row(3L, null)));
+        when(commentMapper.findReplyPreviews(anyList(), anyInt())).thenReturn(List.of());
+        when(likeStore.pendingDeltas(List.of(9L, 3L, 1L))).thenReturn(Map.of(3L, 2L));
+        when(commentMapper.countByChapter(10L)).thenReturn(3);
+
+        Map<String, Object> result = commentService.getComments(10L, null, "hot", 1, 3);
+
+        List<CommentDTO> comments = (List<CommentDTO>) result.get("comments");
+        assertEquals(List.of(9L, 3L, 1L), comments.stream().map(CommentDTO::getId).toList());
+        assertEquals(List.of(0, 2, 0), comments.stream().map(CommentDTO::getLikeCount).toList());
+    }
+
+    @Test
+    @DisplayName("发表回复-更新父评论热度并发布章节推送通知")
+    void shouldPushCreatedComment() {
+        doAnswer(invocation -> {
+            invocation.getArgument(0, ChapterComment.class).setId(42L);
+            return 1;
+        }).when(commentMapper).insert(any(ChapterComment.class));
+
+        CommentDTO created = commentService.createComment(10L, 100L, 7L, "回复内容", 5L);
+
+        assertEquals(42L, created.getId());
+        verify(commentMapper).updateReplyCount(5L, 1);
+        verify(hotRanking).onReplyCreated(10L, 5L);
+        verify(pushPublisher).publishCreated(10L, 42L, 5L, 7L);
+    }
+
+    private static List<Map<String, Object>> topLevel(int count) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            rows.add(row(id, null));
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> row(Long id, Long parentId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("id", id);
+        row.put("chapter_id", 10L);
+        row.put("course_id", 100L);
+        row.put("user_id", 7L);
+        row.put("parent_id", parentId);
+        row.put("content", "评论" + id);
+        row.put("created_at", LocalDateTime.of(2024, 1, 1, 0, 0).plusMinutes(id));
+        return row;
+    }
+}
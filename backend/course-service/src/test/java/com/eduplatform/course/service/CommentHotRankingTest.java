@@ -0,0 +1,52 @@
+package com.eduplatform.course.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CommentHotRanking 分数与游标顺序测试（不依赖 Redis）。
+ */
+@DisplayName("CommentHotRanking 单元测试")
+class CommentHotRankingTest {
+
+    private static final double HALF_LIFE = 3_600_000d;
+
+    @Test
+    @DisplayName("前向衰减-晚一个半衰期发生的事件权重翻倍，排序与 epoch 无关")
+    void shouldDecayByHalfLife() {
+        long epoch = 1_000_000L;
+        assertEquals(Double.valueOf(3.0), Double.valueOf(CommentHotRanking.decayedScore(3, epoch, epoch, HALF_LIFE)));
+        assertEquals(Double.valueOf(2.0), Double.valueOf(
+                CommentHotRanking.decayedScore(1, epoch + (long) HALF_LIFE, epoch, HALF_LIFE)));
+
+        // 两小时前的 4 个点赞与刚发生的 1 个点赞相当，换一个 epoch 结论不变
+        for (long base : new long[]{epoch, epoch + 50 * (long) HALF_LIFE}) {
+            double older = CommentHotRanking.decayedScore(4, epoch, base, HALF_LIFE);
+            double newer = CommentHotRanking.decayedScore(1, epoch + 2 * (long) HALF_LIFE, base, HALF_LIFE);
+            assertEquals(Double.valueOf(older), Double.valueOf(newer));
+        }
+        // 极早的评论分数不下溢为 0，仍按计数区分
+        long ancient = epoch - 5000 * (long) HALF_LIFE;
+        assertTrue(CommentHotRanking.decayedScore(2, ancient, epoch, HALF_LIFE)
+                > CommentHotRanking.decayedScore(1, ancient, epoch, HALF_LIFE));
+    }
+
+    @Test
+    @DisplayName("游标之后-分数更低，或同分且成员字节序更小（与 ZREVRANGE 同分顺序一致）")
+    void shouldOrderTiesLikeRedis() {
+        CommentHotRanking.Position cursor = new CommentHotRanking.Position(5.0, 0L, 20L);
+
+        assertTrue(CommentHotRanking.isAfter(new CommentHotRanking.Position(4.9, 0L, 99L), cursor));
+        assertFalse(CommentHotRanking.isAfter(new CommentHotRanking.Position(5.1, 0L, 1L), cursor));
+        assertFalse(CommentHotRanking.isAfter(new CommentHotRanking.Position(5.0, 0L, 20L), cursor));
+        // 按字符串比较："100" < "20" < "3"
+        assertTrue(CommentHotRanking.isAfter(new CommentHotRanking.Position(5.0, 0L, 100L), cursor));
+        assertFalse(CommentHotRanking.isAfter(new CommentHotRanking.Position(5.0, 0L, 3L), cursor));
+        assertTrue(CommentHotRanking.isAfter(new CommentHotRanking.Position(1e308, 0L, 1L),
+                new CommentHotRanking.Position(Double.POSITIVE_INFINITY, 0L, 0L)));
+    }
+}
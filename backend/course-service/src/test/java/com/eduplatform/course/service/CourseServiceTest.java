@@ -51,6 +51,9 @@ class CourseServiceTest {
     @Mock
     private CourseWorkflowService courseWorkflowService;
 
+    @Mock
+    private CourseCatalogCacheInvalidator catalogCacheInvalidator;
+
     @Nested
     @DisplayName("课程编辑保存流转")
     class UpdateCourseStatusTests {
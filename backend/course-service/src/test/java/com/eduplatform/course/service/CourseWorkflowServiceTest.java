@@ -34,6 +34,9 @@ class CourseWorkflowServiceTest {
     @Mock
     private AuditLogClient auditLogClient;
 
+    @Mock
+    private CourseCatalogCacheInvalidator catalogCacheInvalidator;
+
     @Nested
     @DisplayName("管理员审核流转")
     class AuditFlowTests {
@@ -57,6 +60,7 @@ class CourseWorkflowServiceTest {
                 assertEquals("通过", updated.getAuditRemark());
                 return true;
             }));
+            verify(catalogCacheInvalidator).onCourseStatusChanged();
         }
 
         @Test
@@ -80,4 +84,46 @@ class CourseWorkflowServiceTest {
             }));
         }
     }
+
+    @Nested
+    @DisplayName("教师提审流转")
+    class ReviewSubmissionTests {
+
+        @Test
+        @DisplayName("提交审核后课程变为审核中并清理目录缓存")
+        void submitReviewShouldBecomeReviewing() {
+            Course draft = new Course();
+            draft.setId(300L);
+            draft.setStatus(Course.STATUS_DRAFT);
+
+            when(courseMapper.selectById(300L)).thenReturn(draft);
+
+            courseWorkflowService.submitReview(300L);
+
+            verify(courseMapper).updateById(argThat(updated -> {
+                assertEquals(Course.STATUS_REVIEWING, updated.getStatus());
+                assertNotNull(updated.getSubmitTime());
+                return true;
+            }));
+            verify(catalogCacheInvalidator).onCourseStatusChanged();
+        }
+
+        @Test
+        @DisplayName("撤回审核后课程回到草稿并清理目录缓存")
+        void withdrawReviewShouldBecomeDraft() {
+            Course reviewing = new Course();
+            reviewing.setId(301L);
+            reviewing.setStatus(Course.STATUS_REVIEWING);
+
+            when(courseMapper.selectById(301L)).thenReturn(reviewing);
+
+            courseWorkflowService.withdrawReview(301L);
+
+            verify(courseMapper).updateById(argThat(updated -> {
+                assertEquals(Course.STATUS_DRAFT, updated.getStatus());
+                return true;
+            }));
+            verify(catalogCacheInvalidator).onCourseStatusChanged();
+        }
+    }
 }
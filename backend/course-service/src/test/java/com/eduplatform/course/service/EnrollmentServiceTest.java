@@ -1,7 +1,7 @@
 package com.eduplatform.course.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
-import com.eduplatform.common.event.RedisStreamPublisher;
+import com.eduplatform.common.event.EventOutbox;
 import com.eduplatform.course.entity.Course;
 import com.eduplatform.course.entity.Enrollment;
 import com.eduplatform.course.mapper.ChapterMapper;
@@ -29,7 +29,7 @@ import static org.mockito.Mockito.*;
  * 覆盖场景:
  * 1. 选课: 正常选课、重复选课、课程未发布、课程不存在
  * 2. 退课: 正常退课、未选课退课
- * 3. 数据一致性: 选课/退课时课程学生数同步更新
+ * 3. 数据一致性: 选课/退课时课程学生数同步更新，并剔除学科分布统计缓存
  */
 @ExtendWith(MockitoExtension.class)
 @DisplayName("EnrollmentService 单元测试")
@@ -55,7 +55,10 @@ class EnrollmentServiceTest {
 
     // 使用 Mock 避免事件发布器为空导致测试日志噪音
     @Mock
-    private RedisStreamPublisher redisStreamPublisher;
+    private EventOutbox eventOutbox;
+
+    @Mock
+    private CourseCatalogCacheInvalidator catalogCacheInvalidator;
 
     private Course publishedCourse;
 
@@ -93,6 +96,8 @@ class EnrollmentServiceTest {
             verify(enrollmentMapper).insert(any(Enrollment.class));
             // 验证课程学生数 +1
             verify(courseMapper).updateById(argThat(course -> course.getStudentCount() == 11));
+            // 验证学科分布统计缓存被剔除
+            verify(catalogCacheInvalidator).onStudentCountChanged();
         }
 
         @Test
@@ -157,6 +162,7 @@ class EnrollmentServiceTest {
             verify(enrollmentMapper).updateById(argThat(e -> Enrollment.STATUS_DROPPED.equals(e.getStatus())));
             // 验证课程学生数 -1
             verify(courseMapper).updateById(argThat(course -> course.getStudentCount() == 9));
+            verify(catalogCacheInvalidator).onStudentCountChanged();
         }
 
         @Test
@@ -189,6 +195,7 @@ class EnrollmentServiceTest {
 
             // 学生数为 0 时不应该再减
             verify(courseMapper, never()).updateById(any(Course.class));
+            verify(catalogCacheInvalidator, never()).onStudentCountChanged();
         }
     }
 
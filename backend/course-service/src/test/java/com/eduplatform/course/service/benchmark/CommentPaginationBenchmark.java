@@ -0,0 +1,181 @@
+package com.eduplatform.course.service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 章节主评论分页基准（时间排序）：OFFSET 分页 vs 游标（keyset）分页，分别取第 1 页与第 500 页，页大小 20。
+ * 热度排序的页由 Redis 排行榜按排名读取，不在此基准范围内。
+ * 在临时表中为同一章节生成 50k 条主评论（附带其它章节的干扰数据），建立与 schema.sql 相同的部分复合索引；
+ * SQL 与 ChapterCommentMapper 中的查询一致，只去掉了 users 表关联。
+ * OFFSET 分页额外执行一次 COUNT（与 getComments 一致），游标分页不查总数（与 getCommentsByCursor 默认一致）。
+ *
+ * 需要一个可写的 PostgreSQL：
+ * mvn -pl course-service test-compile 后执行本类 main 方法，
+ * 以 -Dbench.jdbc.url=jdbc:postgresql://localhost:5432/edu_platform -Dbench.jdbc.user=postgres -Dbench.jdbc.password=... 指定连接，
+ * 结果单位为 微秒/次。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommentPaginationBenchmark {
+
+    private static final long CHAPTER_ID = 1L;
+    private static final int PAGE_SIZE = 20;
+    private static final int ROWS = 50_000;
+
+    private static final String TIME_OFFSET = """
+            SELECT c.* FROM bench_chapter_comments c
+            WHERE c.chapter_id = ? AND c.parent_id IS NULL AND c.status = 1
+            ORDER BY c.is_pinned DESC, c.created_at DESC
+            LIMIT ? OFFSET ?""";
+    private static final String TIME_CURSOR = """
+            SELECT c.* FROM bench_chapter_comments c
+            WHERE c.chapter_id = ? AND c.parent_id IS NULL AND c.status = 1
+            AND (c.is_pinned, c.created_at, c.id) < (?, ?, ?)
+            ORDER BY c.is_pinned DESC, c.created_at DESC, c.id DESC
+            LIMIT ?""";
+    private static final String COUNT = """
+            SELECT COUNT(*) FROM bench_chapter_comments
+            WHERE chapter_id = ? AND parent_id IS NULL AND status = 1""";
+
+    @Param({"1", "500"})
+    public int page;
+
+    private Connection connection;
+    private PreparedStatement offsetQuery;
+    private PreparedStatement cursorQuery;
+    private PreparedStatement countQuery;
+    /** 第 page 页之前最后一条的排序键：is_pinned, created_at, id；第 1 页为 null */
+    private Object[] cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        String url = System.getProperty("bench.jdbc.url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("缺少 -Dbench.jdbc.url（PostgreSQL 连接串）");
+        }
+        connection = DriverManager.getConnection(url,
+                System.getProperty("bench.jdbc.user", "postgres"), System.getProperty("bench.jdbc.password", ""));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    CREATE TEMP TABLE bench_chapter_comments (
+                        id BIGSERIAL PRIMARY KEY, chapter_id BIGINT NOT NULL, parent_id BIGINT,
+                        like_count INT DEFAULT 0, reply_count INT DEFAULT 0, is_pinned SMALLINT DEFAULT 0,
+                        status SMALLINT DEFAULT 1, created_at TIMESTAMP, content TEXT)""");
+            // 目标章节 50k 条 + 其它 9 个章节各 5k 条；少量置顶，约 2% 已删除
+            statement.execute("""
+                    INSERT INTO bench_chapter_comments (chapter_id, like_count, reply_count, is_pinned, status, created_at, content)
+                    SELECT CASE WHEN g <= %d THEN 1 ELSE 2 + g %% 9 END,
+                           floor(power(random(), 4) * 500)::int, floor(random() * 20)::int,
+                           CASE WHEN g %% 10000 = 0 THEN 1 ELSE 0 END,
+                           CASE WHEN g %% 50 = 0 THEN 0 ELSE 1 END,
+                           TIMESTAMP '2024-01-01' + g * INTERVAL '7 seconds',
+                           repeat('评论内容', 10)
+                    FROM generate_series(1, %d) g""".formatted(ROWS, ROWS + 45_000));
+            statement.execute("CREATE INDEX ON bench_chapter_comments(chapter_id)");
+            statement.execute("""
+                    CREATE INDEX ON bench_chapter_comments(chapter_id, is_pinned DESC, created_at DESC, id DESC)
+                    WHERE parent_id IS NULL AND status = 1""");
+            statement.execute("ANALYZE bench_chapter_comments");
+        }
+
+        offsetQuery = connection.prepareStatement(TIME_OFFSET);
+        cursorQuery = connection.prepareStatement(TIME_CURSOR);
+        countQuery = connection.prepareStatement(COUNT);
+        cursor = page == 1 ? null : lastRowBefore(page);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public int offsetPage() throws SQLException {
+        offsetQuery.setLong(1, CHAPTER_ID);
+        offsetQuery.setInt(2, PAGE_SIZE);
+        offsetQuery.setInt(3, (page - 1) * PAGE_SIZE);
+        int rows = drain(offsetQuery);
+        countQuery.setLong(1, CHAPTER_ID);
+        return rows + drain(countQuery);
+    }
+
+    @Benchmark
+    public int cursorPage() throws SQLException {
+        if (cursor == null) {
+            // 首页不带游标条件，与 Mapper 中 <if> 省略条件一致
+            offsetQuery.setLong(1, CHAPTER_ID);
+            offsetQuery.setInt(2, PAGE_SIZE + 1);
+            offsetQuery.setInt(3, 0);
+            return drain(offsetQuery);
+        }
+        cursorQuery.setLong(1, CHAPTER_ID);
+        cursorQuery.setInt(2, (Integer) cursor[0]);
+        cursorQuery.setTimestamp(3, (Timestamp) cursor[1]);
+        cursorQuery.setLong(4, (Long) cursor[2]);
+        cursorQuery.setInt(5, PAGE_SIZE + 1);
+        return drain(cursorQuery);
+    }
+
+    private Object[] lastRowBefore(int targetPage) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT is_pinned, created_at, id FROM bench_chapter_comments"
+                        + " WHERE chapter_id = ? AND parent_id IS NULL AND status = 1"
+                        + " ORDER BY is_pinned DESC, created_at DESC, id DESC LIMIT 1 OFFSET ?")) {
+            statement.setLong(1, CHAPTER_ID);
+            statement.setInt(2, (targetPage - 1) * PAGE_SIZE - 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("测试数据不足 " + targetPage + " 页");
+                }
+                return new Object[]{rs.getInt(1), rs.getTimestamp(2), rs.getLong(3)};
+            }
+        }
+    }
+
+    private static int drain(PreparedStatement statement) throws SQLException {
+        int rows = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CommentPaginationBenchmark.class.getSimpleName())
+                .jvmArgsAppend("-Dbench.jdbc.url=" + System.getProperty("bench.jdbc.url", ""),
+                        "-Dbench.jdbc.user=" + System.getProperty("bench.jdbc.user", "postgres"),
+                        "-Dbench.jdbc.password=" + System.getProperty("bench.jdbc.password", ""))
+                .build()).run();
+    }
+}
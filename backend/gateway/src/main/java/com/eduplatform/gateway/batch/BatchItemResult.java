@@ -0,0 +1,21 @@
+package com.eduplatform.gateway.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * 单个子请求的执行结果。
+ *
+ * @param id             子请求标识
+ * @param status         HTTP 状态码（网关拒绝、超时或下游不可达时由网关给出）
+ * @param body           下游响应体（JSON 原样嵌入，非 JSON 时为字符串）
+ * @param error          网关侧错误说明，下游正常返回时为空
+ * @param durationMillis 子请求耗时
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResult(String id, int status, JsonNode body, String error, long durationMillis) {
+
+    public static BatchItemResult error(String id, int status, String error, long durationMillis) {
+        return new BatchItemResult(id, status, null, error, durationMillis);
+    }
+}
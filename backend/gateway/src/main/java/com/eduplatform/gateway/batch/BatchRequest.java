@@ -0,0 +1,21 @@
+package com.eduplatform.gateway.batch;
+
+import java.util.List;
+
+/**
+ * 网关批量请求体。
+ * 示例：{"requests":[{"id":"dashboard","path":"/api/stats/student/1/dashboard"},{"path":"/api/homeworks/student/1/urgent"}]}
+ *
+ * @param requests 子请求列表，按声明顺序返回结果
+ */
+public record BatchRequest(List<Item> requests) {
+
+    /**
+     * 单个子请求，只支持 GET。
+     *
+     * @param id   调用方自定义标识，缺省时使用下标
+     * @param path 以 /api/ 开头的相对路径，可带查询串
+     */
+    public record Item(String id, String path) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.eduplatform.gateway.batch;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 批量子请求的下游路由解析。
+ * 设计意图：
+ * 1. 复用网关已配置的路由谓词（Path/Method/Query 等）判定子请求归属，避免另维护一份路径到服务的映射。
+ * 2. 只允许命中 lb:// 且不带路由过滤器的路由：子请求直接发往下游服务，不会经过路由过滤器，
+ *    带 StripPrefix/RewritePath 等过滤器的路由（含服务发现自动路由）批量调用结果会与直连不一致。
+ */
+public class BatchRouteResolver {
+
+    private static final String LOAD_BALANCED_SCHEME = "lb";
+
+    private final Supplier<RouteLocator> routeLocator;
+
+    public BatchRouteResolver(Supplier<RouteLocator> routeLocator) {
+        this.routeLocator = routeLocator;
+    }
+
+    /**
+     * 解析子请求命中的可批量调用路由，无可批量调用的路由时返回空。
+     */
+    public Mono<Route> resolve(ServerWebExchange exchange, URI target) {
+        ServerWebExchange probe = new ProbeExchange(exchange.mutate()
+                .request(request -> request.method(HttpMethod.GET)
+                        .uri(target)
+                        .headers(headers -> {
+                            headers.remove(HttpHeaders.CONTENT_TYPE);
+                            headers.remove(HttpHeaders.CONTENT_LENGTH);
+                        }))
+                .build());
+        return routeLocator.get().getRoutes()
+                .concatMap(route -> Mono.from(route.getPredicate().apply(probe))
+                        .filter(Boolean::booleanValue)
+                        .map(matched -> route))
+                .next()
+                .filter(BatchRouteResolver::isBatchable);
+    }
+
+    /**
+     * 路由对应的下游服务基础地址（如 http://course-service）。
+     */
+    public static URI baseUriOf(Route route) {
+        return URI.create("http://" + route.getUri().getHost());
+    }
+
+    static boolean isBatchable(Route route) {
+        URI uri = route.getUri();
+        return LOAD_BALANCED_SCHEME.equalsIgnoreCase(uri.getScheme())
+                && uri.getHost() != null
+                && route.getFilters().isEmpty();
+    }
+
+    /**
+     * 路由匹配用的探测交换对象。
+     * 说明：Path 谓词会把解析后的路径与模板变量缓存到交换属性中，探测时必须使用独立属性表，
+     * 否则会与批量请求本身及并行的其他子请求互相污染。
+     */
+    private static class ProbeExchange extends ServerWebExchangeDecorator {
+
+        private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+        ProbeExchange(ServerWebExchange delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+    }
+}
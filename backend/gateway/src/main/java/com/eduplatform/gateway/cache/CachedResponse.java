@@ -0,0 +1,15 @@
+package com.eduplatform.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * 网关响应缓存条目。
+ * 说明：只保存与表示相关的白名单响应头，CORS、限流、链路追踪等逐请求头由网关在每次响应时重新生成。
+ *
+ * @param headers  白名单响应头（只读）
+ * @param body     响应体原始字节（含下游压缩编码）
+ * @param etag     强 ETag（已带双引号）
+ * @param ttlNanos 条目存活时间
+ */
+public record CachedResponse(HttpHeaders headers, byte[] body, String etag, long ttlNanos) {
+}
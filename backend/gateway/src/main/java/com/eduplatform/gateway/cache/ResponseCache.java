@@ -0,0 +1,281 @@
+package com.eduplatform.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 网关响应缓存（仅用于配置的公开 GET 路由）。
+ * 设计意图：
+ * 1. 以 路径 + 规范化查询参数 + 指定请求头 为键，命中时完全不回源下游服务。
+ * 2. 按字节数加权淘汰，总内存有硬上限；单条超过上限的响应直接不缓存。
+ * 3. 条目存入时计算基于响应体的强 ETag，If-None-Match 命中时网关直接返回 304。
+ * 4. 课程状态变更等事件通过前缀清除（purge）立即失效，TTL 仅作为推送丢失时的兜底。
+ */
+@Slf4j
+public class ResponseCache {
+
+    private static final PathPatternParser PATTERN_PARSER = PathPatternParser.defaultInstance;
+
+    /**
+     * 每条缓存的固定开销估算（键、头部、对象头），用于加权淘汰。
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("JVM 不支持 SHA-256", e);
+        }
+    });
+
+    private final List<Rule> rules;
+    private final List<String> varyHeaders;
+    private final long maxEntryBytes;
+    private final Cache<String, CachedResponse> cache;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter notModifiedCounter;
+    private final Counter upstreamBytesSaved;
+    private final Counter clientBytesSaved;
+    private final Counter purgeCounter;
+
+    public ResponseCache(
+            Map<String, Integer> routeTtlSeconds,
+            List<String> varyHeaders,
+            long maxBytes,
+            long maxEntryBytes,
+            MeterRegistry meterRegistry) {
+        List<Rule> compiled = new ArrayList<>(routeTtlSeconds.size());
+        routeTtlSeconds.forEach((pattern, ttlSeconds) -> compiled.add(
+                new Rule(PATTERN_PARSER.parse(pattern), Duration.ofSeconds(Math.max(1, ttlSeconds)))));
+        this.rules = List.copyOf(compiled);
+        this.varyHeaders = List.copyOf(varyHeaders);
+        this.maxEntryBytes = Math.max(1, maxEntryBytes);
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(Math.max(1, maxBytes))
+                .weigher((String key, CachedResponse value) ->
+                        value.body().length + key.length() * 2 + ENTRY_OVERHEAD_BYTES)
+                .expireAfter(new Expiry<String, CachedResponse>() {
+                    @Override
+                    public long expireAfterCreate(String key, CachedResponse value, long currentTime) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CachedResponse value, long currentTime,
+                                                  long currentDuration) {
+                        return value.ttlNanos();
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CachedResponse value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        this.hitCounter = requestCounter(meterRegistry, "hit");
+        this.missCounter = requestCounter(meterRegistry, "miss");
+        this.notModifiedCounter = Counter.builder("gateway.response.cache.not_modified")
+                .description("网关直接返回 304 的次数")
+                .register(meterRegistry);
+        this.upstreamBytesSaved = bytesSavedCounter(meterRegistry, "upstream");
+        this.clientBytesSaved = bytesSavedCounter(meterRegistry, "client");
+        this.purgeCounter = Counter.builder("gateway.response.cache.purges")
+                .description("按前缀清除的缓存条目数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.hit_ratio", this, ResponseCache::hitRatio)
+                .description("网关响应缓存命中率（进程启动以来）")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.size", cache, Cache::estimatedSize)
+                .description("网关响应缓存条目数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.weight", this, ResponseCache::weightedBytes)
+                .description("网关响应缓存占用字节数（估算）")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 返回路径对应的缓存 TTL，未配置缓存的路径返回 null。
+     */
+    public Duration ttlFor(PathContainer path) {
+        for (Rule rule : rules) {
+            if (rule.pattern().matches(path)) {
+                return rule.ttl();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 构造缓存键：路径 + 按参数名排序的查询串 + 指定请求头。
+     * 说明：键以路径开头，便于按路径前缀清除。
+     */
+    public String keyOf(ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(request.getPath().pathWithinApplication().value());
+        MultiValueMap<String, String> queryParams = request.getQueryParams();
+        if (!queryParams.isEmpty()) {
+            char separator = '?';
+            for (Map.Entry<String, List<String>> entry : new TreeMap<>(queryParams).entrySet()) {
+                for (String value : entry.getValue()) {
+                    key.append(separator).append(entry.getKey()).append('=').append(value == null ? "" : value);
+                    separator = '&';
+                }
+            }
+        }
+        HttpHeaders headers = request.getHeaders();
+        for (String header : varyHeaders) {
+            key.append('|').append(header).append('=');
+            List<String> values = headers.get(header);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    public CachedResponse get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    /**
+     * 写入缓存，超过单条上限时放弃并返回 null。
+     */
+    public CachedResponse put(String key, HttpHeaders headers, byte[] body, Duration ttl) {
+        if (body.length > maxEntryBytes) {
+            log.debug("响应超过单条缓存上限，跳过缓存: key={}, bytes={}, limit={}", key, body.length, maxEntryBytes);
+            return null;
+        }
+        CachedResponse entry = new CachedResponse(
+                HttpHeaders.readOnlyHttpHeaders(headers), body, etagOf(body), ttl.toNanos());
+        cache.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * 清除所有以指定路径前缀开头的条目，"*" 表示清空。
+     *
+     * @return 清除的条目数
+     */
+    public int purge(String pathPrefix) {
+        if ("*".equals(pathPrefix)) {
+            int size = (int) cache.estimatedSize();
+            cache.invalidateAll();
+            purgeCounter.increment(size);
+            return size;
+        }
+        List<String> keys = new ArrayList<>();
+        for (String key : cache.asMap().keySet()) {
+            if (key.startsWith(pathPrefix)) {
+                keys.add(key);
+            }
+        }
+        cache.invalidateAll(keys);
+        purgeCounter.increment(keys.size());
+        return keys.size();
+    }
+
+    public long maxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public void recordHit(int bodyBytes) {
+        hitCounter.increment();
+        upstreamBytesSaved.increment(bodyBytes);
+    }
+
+    public void recordMiss() {
+        missCounter.increment();
+    }
+
+    public void recordNotModified(int bodyBytes) {
+        notModifiedCounter.increment();
+        clientBytesSaved.increment(bodyBytes);
+    }
+
+    /**
+     * 基于响应体 SHA-256 的强 ETag（Base64URL，截取 128 位）。
+     */
+    public static String etagOf(byte[] body) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        byte[] hash = digest.digest(body);
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"";
+    }
+
+    /**
+     * If-None-Match 比较（RFC 9110：弱比较，支持 * 与逗号分隔列表）。
+     */
+    public static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if ("*".equals(trimmed) || stripWeak(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private double hitRatio() {
+        double hits = hitCounter.count();
+        double total = hits + missCounter.count();
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private double weightedBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.response.cache.requests")
+                .description("网关响应缓存查询次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter bytesSavedCounter(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("gateway.response.cache.bytes_saved")
+                .description("缓存节省的响应体字节数：upstream=未回源下游，client=304 未下发客户端")
+                .baseUnit("bytes")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    private record Rule(PathPattern pattern, Duration ttl) {
+    }
+}
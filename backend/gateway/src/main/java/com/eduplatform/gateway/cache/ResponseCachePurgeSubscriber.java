@@ -0,0 +1,31 @@
+package com.eduplatform.gateway.cache;
+
+import com.eduplatform.gateway.pubsub.RedisChannelSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * 网关响应缓存清除订阅器。
+ * 设计意图：course-service 在课程状态变更后向 Redis Pub/Sub 通道发布路径前缀，
+ * 网关各实例订阅后立即清除对应缓存条目；订阅中断期间由缓存 TTL 兜底。
+ * 消息体为逗号分隔的路径前缀列表，"*" 表示清空全部。
+ */
+@Slf4j
+public class ResponseCachePurgeSubscriber extends RedisChannelSubscriber {
+
+    private final ResponseCache responseCache;
+
+    public ResponseCachePurgeSubscriber(
+            ReactiveStringRedisTemplate redisTemplate,
+            ResponseCache responseCache,
+            String channel) {
+        super(redisTemplate, channel, "网关响应缓存清除");
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    protected void onItem(String prefix) {
+        int purged = responseCache.purge(prefix);
+        log.debug("网关响应缓存已清除: prefix={}, entries={}", prefix, purged);
+    }
+}
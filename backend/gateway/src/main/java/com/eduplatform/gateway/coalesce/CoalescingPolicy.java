@@ -0,0 +1,89 @@
+package com.eduplatform.gateway.coalesce;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 请求合并路由白名单（启动时预编译，运行期只读）。
+ * 设计意图：只有显式列出的幂等 GET 路由参与合并；每条路由声明共享范围，
+ * 决定哪些调用者可以拿到同一份下游响应，避免按用户区分的数据被串号。
+ */
+public final class CoalescingPolicy {
+
+    private static final PathPatternParser PATTERN_PARSER = PathPatternParser.defaultInstance;
+
+    private final List<Route> routes;
+
+    private CoalescingPolicy(List<Route> routes) {
+        this.routes = routes;
+    }
+
+    /**
+     * 编译白名单。
+     *
+     * @param routes 路由模式 -> 共享范围（user/role），按配置顺序匹配，先命中者生效
+     */
+    public static CoalescingPolicy compile(Map<String, String> routes) {
+        List<Route> compiled = new ArrayList<>(routes.size());
+        routes.forEach((pattern, scope) -> compiled.add(
+                new Route(PATTERN_PARSER.parse(pattern.trim()), Scope.parse(scope))));
+        return new CoalescingPolicy(List.copyOf(compiled));
+    }
+
+    /**
+     * 返回路径的共享范围，未列入白名单返回 null。
+     */
+    public Scope scopeOf(PathContainer path) {
+        for (Route route : routes) {
+            if (route.pattern().matches(path)) {
+                return route.scope();
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return routes.isEmpty();
+    }
+
+    /**
+     * 共享范围。
+     */
+    public enum Scope {
+        /**
+         * 同一用户的并发请求共享（响应含个人数据时使用）。
+         */
+        USER,
+        /**
+         * 同一角色（含匿名）的并发请求共享（响应只随角色权限变化时使用）。
+         */
+        ROLE;
+
+        static Scope parse(String raw) {
+            if (!StringUtils.hasText(raw)) {
+                return USER;
+            }
+            return Scope.valueOf(raw.trim().toUpperCase(Locale.ROOT));
+        }
+
+        /**
+         * 生成共享范围标识，匿名请求统一归入 anon。
+         */
+        public String token(String userId, String role) {
+            if (!StringUtils.hasText(userId)) {
+                return "anon";
+            }
+            return this == USER ? "user:" + userId : "role:" + role;
+        }
+    }
+
+    private record Route(PathPattern pattern, Scope scope) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.eduplatform.gateway.coalesce;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * 合并请求中由领头请求捕获、供跟随请求回放的下游响应。
+ *
+ * @param status  响应状态码
+ * @param headers 可回放的响应头（只读，已剔除逐请求头）
+ * @param body    完整响应体
+ */
+public record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+}
@@ -0,0 +1,88 @@
+package com.eduplatform.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个下游路由的自适应并发限制器。
+ * 设计意图：
+ * 1. 以“进行中请求数 < 当前上限 × 优先级份额”作为准入条件，超出立即拒绝，不在网关内排队。
+ * 2. 请求结束时上报 RTT；按时间窗聚合（平均 RTT、最大并发）后交给 Gradient2Limit 调整上限，
+ *    避免逐请求更新带来的抖动和锁竞争。
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    private final Gradient2Limit limit;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private long windowStartNanos;
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInflight;
+
+    public AdaptiveConcurrencyLimiter(Gradient2Limit limit, long windowNanos, int minWindowSamples) {
+        this.limit = limit;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = Math.max(1, minWindowSamples);
+        this.windowStartNanos = System.nanoTime();
+    }
+
+    /**
+     * 尝试获取并发许可。
+     *
+     * @return 许可获取时的进行中请求数（含本次），被拒绝时返回 -1
+     */
+    public int tryAcquire(RequestPriority priority) {
+        int admissionLimit = priority.admissionLimit(limit.getLimit());
+        while (true) {
+            int current = inflight.get();
+            if (current >= admissionLimit) {
+                return -1;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * 释放许可并上报样本。
+     *
+     * @param rttNanos         请求耗时
+     * @param inflightAtStart  获取许可时的进行中请求数
+     */
+    public void release(long rttNanos, int inflightAtStart) {
+        inflight.decrementAndGet();
+        sample(System.nanoTime(), rttNanos, inflightAtStart);
+    }
+
+    /**
+     * 释放许可但不上报样本（客户端取消等无法代表下游延迟的情况）。
+     */
+    public void releaseWithoutSample() {
+        inflight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    synchronized void sample(long nowNanos, long rttNanos, int inflightAtStart) {
+        windowRttSum += rttNanos;
+        windowSamples++;
+        windowMaxInflight = Math.max(windowMaxInflight, inflightAtStart);
+        if (nowNanos - windowStartNanos < windowNanos || windowSamples < minWindowSamples) {
+            return;
+        }
+        limit.update(windowRttSum / windowSamples, windowMaxInflight);
+        windowStartNanos = nowNanos;
+        windowRttSum = 0;
+        windowSamples = 0;
+        windowMaxInflight = 0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.eduplatform.gateway.concurrency;
+
+/**
+ * 基于 RTT 梯度的自适应并发上限（Gradient2 算法）。
+ * 设计意图：
+ * 1. 长期 RTT（指数滑动平均）近似“无排队”延迟，短期 RTT 为最近一个采样窗口的平均延迟；
+ *    两者之比即梯度，下游开始排队时梯度小于 1，上限随之收缩。
+ * 2. 容忍系数允许延迟在基线上浮动一定比例而不收缩，避免正常抖动触发限流。
+ * 3. 并发远未用满时不增长上限（应用自身受限），避免空闲期上限虚高、突发时来不及收缩。
+ * 说明：类本身不感知时间与并发计数，由 AdaptiveConcurrencyLimiter 按窗口喂入样本。
+ */
+public final class Gradient2Limit {
+
+    /**
+     * 长期 RTT 预热样本数，预热期间使用算术平均。
+     */
+    private static final int LONG_RTT_WARMUP = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double queueSize;
+    private final double longRttFactor;
+
+    private double estimatedLimit;
+    private double longRtt;
+    private int longRttSamples;
+    private volatile int limit;
+
+    /**
+     * @param initialLimit   初始并发上限
+     * @param minLimit       下限，防止极端情况下完全饿死
+     * @param maxLimit       上限
+     * @param tolerance      延迟容忍系数（1.5 表示短期 RTT 比基线高 50% 以内不收缩）
+     * @param smoothing      新旧上限的平滑系数（0~1，越小越平稳）
+     * @param queueSize      每次更新允许增长的排队余量
+     * @param longRttWindow  长期 RTT 滑动平均的等效窗口样本数
+     */
+    public Gradient2Limit(int initialLimit, int minLimit, int maxLimit,
+                          double tolerance, double smoothing, int queueSize, int longRttWindow) {
+        if (minLimit <= 0 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("并发上限区间非法: min=" + minLimit + ", max=" + maxLimit);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = Math.max(1.0, tolerance);
+        this.smoothing = Math.min(1.0, Math.max(0.01, smoothing));
+        this.queueSize = Math.max(0, queueSize);
+        this.longRttFactor = 2.0 / (Math.max(1, longRttWindow) + 1);
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 以一个采样窗口的结果更新上限。
+     *
+     * @param rttNanos    窗口内平均 RTT
+     * @param maxInflight 窗口内观测到的最大并发
+     * @return 更新后的并发上限
+     */
+    public synchronized int update(long rttNanos, int maxInflight) {
+        if (rttNanos <= 0) {
+            return limit;
+        }
+        double shortRtt = rttNanos;
+        double currentLongRtt = updateLongRtt(shortRtt);
+
+        // 负载回落后长期 RTT 可能被高峰期拉高，主动衰减以尽快恢复基线
+        if (currentLongRtt / shortRtt > 2) {
+            longRtt = currentLongRtt * 0.95;
+        }
+
+        // 并发不足上限一半时属于应用自身受限，不据此调整
+        if (maxInflight < estimatedLimit / 2) {
+            return limit;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * currentLongRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + queueSize;
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+        return limit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 长期 RTT 基线（纳秒），用于观测。
+     */
+    public synchronized double getLongRttNanos() {
+        return longRtt;
+    }
+
+    private double updateLongRtt(double sample) {
+        if (longRttSamples < LONG_RTT_WARMUP) {
+            longRttSamples++;
+            longRtt = longRtt + (sample - longRtt) / longRttSamples;
+        } else {
+            longRtt = longRtt * (1 - longRttFactor) + sample * longRttFactor;
+        }
+        return longRtt;
+    }
+}
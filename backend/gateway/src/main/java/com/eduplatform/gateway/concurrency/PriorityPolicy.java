@@ -0,0 +1,51 @@
+package com.eduplatform.gateway.concurrency;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+/**
+ * 请求优先级划分（启动时预编译，运行期只读）。
+ * 说明：先匹配关键路由，再匹配低优先级路由，其余为 NORMAL。
+ */
+public final class PriorityPolicy {
+
+    private static final PathPatternParser PATTERN_PARSER = PathPatternParser.defaultInstance;
+
+    private final List<PathPattern> criticalPatterns;
+    private final List<PathPattern> lowPatterns;
+
+    private PriorityPolicy(List<PathPattern> criticalPatterns, List<PathPattern> lowPatterns) {
+        this.criticalPatterns = criticalPatterns;
+        this.lowPatterns = lowPatterns;
+    }
+
+    public static PriorityPolicy compile(List<String> criticalRoutes, List<String> lowRoutes) {
+        return new PriorityPolicy(parse(criticalRoutes), parse(lowRoutes));
+    }
+
+    public RequestPriority priorityOf(PathContainer path) {
+        if (matchesAny(criticalPatterns, path)) {
+            return RequestPriority.CRITICAL;
+        }
+        if (matchesAny(lowPatterns, path)) {
+            return RequestPriority.LOW;
+        }
+        return RequestPriority.NORMAL;
+    }
+
+    private static boolean matchesAny(List<PathPattern> patterns, PathContainer path) {
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathPattern> parse(List<String> routes) {
+        return routes.stream().map(String::trim).map(PATTERN_PARSER::parse).toList();
+    }
+}
@@ -0,0 +1,37 @@
+package com.eduplatform.gateway.concurrency;
+
+/**
+ * 请求优先级。
+ * 说明：share 表示该级别请求可使用的并发上限比例；并发逼近上限时低优先级先被拒绝，
+ * 作业提交等关键写操作最后被拒绝。
+ */
+public enum RequestPriority {
+
+    /**
+     * 关键写操作（如作业提交），可用满全部并发。
+     */
+    CRITICAL(1.0),
+
+    /**
+     * 默认级别。
+     */
+    NORMAL(0.9),
+
+    /**
+     * 可延后的读操作（如统计看板），最先被拒绝。
+     */
+    LOW(0.6);
+
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+
+    /**
+     * 该优先级在当前上限下允许的最大并发（至少为 1）。
+     */
+    public int admissionLimit(int limit) {
+        return Math.max(1, (int) Math.ceil(limit * share));
+    }
+}
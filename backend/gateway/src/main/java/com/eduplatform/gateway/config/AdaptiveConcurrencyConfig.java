@@ -0,0 +1,99 @@
+package com.eduplatform.gateway.config;
+
+import com.eduplatform.gateway.concurrency.Gradient2Limit;
+import com.eduplatform.gateway.concurrency.PriorityPolicy;
+import com.eduplatform.gateway.filter.AdaptiveConcurrencyFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * 网关自适应并发限制配置。
+ * 说明：每条路由独立维护上限，初始值只影响冷启动，之后由 RTT 梯度自动收敛。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.adaptive-concurrency", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AdaptiveConcurrencyConfig {
+
+    @Value("${gateway.adaptive-concurrency.initial-limit:50}")
+    private int initialLimit;
+
+    @Value("${gateway.adaptive-concurrency.min-limit:10}")
+    private int minLimit;
+
+    @Value("${gateway.adaptive-concurrency.max-limit:500}")
+    private int maxLimit;
+
+    /**
+     * 延迟容忍系数：短期 RTT 不超过基线的该倍数时不收缩上限。
+     */
+    @Value("${gateway.adaptive-concurrency.rtt-tolerance:1.5}")
+    private double rttTolerance;
+
+    @Value("${gateway.adaptive-concurrency.smoothing:0.2}")
+    private double smoothing;
+
+    @Value("${gateway.adaptive-concurrency.queue-size:4}")
+    private int queueSize;
+
+    @Value("${gateway.adaptive-concurrency.long-rtt-window:600}")
+    private int longRttWindow;
+
+    @Value("${gateway.adaptive-concurrency.sample-window-millis:500}")
+    private long sampleWindowMillis;
+
+    @Value("${gateway.adaptive-concurrency.min-window-samples:10}")
+    private int minWindowSamples;
+
+    @Value("${gateway.adaptive-concurrency.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    /**
+     * 不参与并发限制的路由 ID（长连接、对象存储代理等）。
+     */
+    @Value("${gateway.adaptive-concurrency.excluded-routes:}")
+    private String excludedRoutes;
+
+    /**
+     * 关键路由（最后被拒绝），PathPattern 语法，逗号分隔。
+     */
+    @Value("${gateway.adaptive-concurrency.critical-routes:}")
+    private String criticalRoutes;
+
+    /**
+     * 低优先级路由（最先被拒绝），PathPattern 语法，逗号分隔。
+     */
+    @Value("${gateway.adaptive-concurrency.low-priority-routes:}")
+    private String lowPriorityRoutes;
+
+    @Bean
+    public AdaptiveConcurrencyFilter adaptiveConcurrencyFilter(MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyFilter(
+                PriorityPolicy.compile(splitList(criticalRoutes), splitList(lowPriorityRoutes)),
+                () -> new Gradient2Limit(initialLimit, minLimit, maxLimit,
+                        rttTolerance, smoothing, queueSize, longRttWindow),
+                Duration.ofMillis(Math.max(10, sampleWindowMillis)),
+                minWindowSamples,
+                new HashSet<>(splitList(excludedRoutes)),
+                retryAfterSeconds,
+                meterRegistry);
+    }
+
+    private static List<String> splitList(String raw) {
+        if (!StringUtils.hasText(raw)) {
+            return List.of();
+        }
+        return Arrays.stream(raw.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .toList();
+    }
+}
@@ -0,0 +1,80 @@
+package com.eduplatform.gateway.config;
+
+import com.eduplatform.gateway.batch.BatchRouteResolver;
+import com.eduplatform.gateway.filter.AdaptiveConcurrencyFilter;
+import com.eduplatform.gateway.filter.BatchAggregationFilter;
+import com.eduplatform.gateway.ratelimit.GcraRateLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+
+/**
+ * 网关批量聚合接口配置。
+ * 说明：POST /api/batch 注册为普通网关路由，因此同样经过鉴权、限流与并发限制等全局过滤器，
+ * 路由过滤器在全局过滤器之后直接写出聚合结果，不再转发；子请求数的追加计费与逐个并发许可由路由过滤器自身完成。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.batch", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BatchConfig {
+
+    @Value("${gateway.batch.max-items:10}")
+    private int maxItems;
+
+    @Value("${gateway.batch.max-request-bytes:16384}")
+    private int maxRequestBytes;
+
+    /**
+     * 单个子请求下游响应体上限，超过时该子请求返回 502。
+     */
+    @Value("${gateway.batch.max-item-bytes:262144}")
+    private int maxItemBytes;
+
+    @Value("${gateway.batch.item-timeout-millis:3000}")
+    private long itemTimeoutMillis;
+
+    @Bean
+    public BatchAggregationFilter batchAggregationFilter(
+            ObjectProvider<RouteLocator> routeLocator,
+            ObjectProvider<GcraRateLimiter> rateLimiter,
+            ObjectProvider<AdaptiveConcurrencyFilter> concurrencyFilter,
+            WebClient.Builder webClientBuilder,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        // 路由定位器在路由加载后才可用，且本身包含批量路由，这里延迟获取以避免循环依赖
+        WebClient webClient = webClientBuilder.clone()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxItemBytes))
+                .build();
+        return new BatchAggregationFilter(
+                new BatchRouteResolver(routeLocator::getObject),
+                webClient,
+                rateLimiter.getIfAvailable(),
+                concurrencyFilter.getIfAvailable(),
+                objectMapper,
+                maxItems,
+                maxRequestBytes,
+                Duration.ofMillis(itemTimeoutMillis),
+                meterRegistry);
+    }
+
+    @Bean
+    public RouteLocator batchRouteLocator(RouteLocatorBuilder builder, BatchAggregationFilter batchAggregationFilter) {
+        return builder.routes()
+                .route(BatchAggregationFilter.ROUTE_ID, route -> route
+                        .path(BatchAggregationFilter.PATH)
+                        .and()
+                        .method(HttpMethod.POST)
+                        .filters(filters -> filters.filter(batchAggregationFilter))
+                        .uri("no://op"))
+                .build();
+    }
+}
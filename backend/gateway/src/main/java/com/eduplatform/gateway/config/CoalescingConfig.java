@@ -0,0 +1,56 @@
+package com.eduplatform.gateway.config;
+
+import com.eduplatform.gateway.coalesce.CoalescingPolicy;
+import com.eduplatform.gateway.filter.RequestCoalescingFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 网关请求合并配置（默认关闭，需显式开启）。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.coalescing", name = "enabled", havingValue = "true")
+public class CoalescingConfig {
+
+    /**
+     * 合并白名单，格式：pattern=scope,pattern=scope（scope 取 user 或 role）。
+     */
+    @Value("${gateway.coalescing.routes:}")
+    private String routes;
+
+    @Value("${gateway.coalescing.max-body-bytes:262144}")
+    private int maxBodyBytes;
+
+    @Bean
+    public RequestCoalescingFilter requestCoalescingFilter(MeterRegistry meterRegistry) {
+        return new RequestCoalescingFilter(CoalescingPolicy.compile(parseRoutes()), maxBodyBytes, meterRegistry);
+    }
+
+    /**
+     * 解析白名单配置，保持声明顺序；格式非法时启动失败。
+     */
+    private Map<String, String> parseRoutes() {
+        Map<String, String> result = new LinkedHashMap<>();
+        if (!StringUtils.hasText(routes)) {
+            return result;
+        }
+        for (String item : routes.split(",")) {
+            if (!StringUtils.hasText(item)) {
+                continue;
+            }
+            int separator = item.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("请求合并路由配置格式错误，应为 pattern=scope: " + item.trim());
+            }
+            result.put(item.substring(0, separator).trim(), item.substring(separator + 1).trim());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,75 @@
+package com.eduplatform.gateway.config;
+
+import com.eduplatform.gateway.filter.RequestTimingFilter;
+import com.eduplatform.gateway.filter.UpstreamTimingFilter;
+import com.eduplatform.gateway.timing.LatencyEndpoint;
+import com.eduplatform.gateway.timing.LatencyRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 网关分阶段延迟指标配置。
+ * 说明：关闭后不挂载 RequestTimings，JwtAuthFilter/RateLimitFilter 中的计时点自动透传。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.latency-metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class LatencyMetricsConfig {
+
+    /**
+     * route 标签上限，超过后新路由统一记为 other（服务发现路由按服务数增长）。
+     */
+    @Value("${gateway.latency-metrics.max-routes:50}")
+    private int maxRoutes;
+
+    /**
+     * 导出到 Prometheus 的 SLO 桶（毫秒），逗号分隔。
+     */
+    @Value("${gateway.latency-metrics.slo-millis:5,10,25,50,100,250,500,1000,2500,5000}")
+    private String sloMillis;
+
+    /**
+     * 分位数滑动窗口长度：/actuator/latency 反映最近该时间段内的分布。
+     */
+    @Value("${gateway.latency-metrics.window-seconds:60}")
+    private long windowSeconds;
+
+    @Bean
+    public LatencyRecorder latencyRecorder(MeterRegistry meterRegistry) {
+        return new LatencyRecorder(meterRegistry, maxRoutes, parseSlo(), Duration.ofSeconds(Math.max(1, windowSeconds)));
+    }
+
+    @Bean
+    public RequestTimingFilter requestTimingFilter(LatencyRecorder latencyRecorder) {
+        return new RequestTimingFilter(latencyRecorder);
+    }
+
+    @Bean
+    public UpstreamTimingFilter upstreamTimingFilter() {
+        return new UpstreamTimingFilter();
+    }
+
+    @Bean
+    public LatencyEndpoint latencyEndpoint(LatencyRecorder latencyRecorder) {
+        return new LatencyEndpoint(latencyRecorder);
+    }
+
+    private List<Duration> parseSlo() {
+        if (!StringUtils.hasText(sloMillis)) {
+            return List.of();
+        }
+        return Arrays.stream(sloMillis.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .map(value -> Duration.ofMillis(Long.parseLong(value)))
+                .sorted()
+                .toList();
+    }
+}
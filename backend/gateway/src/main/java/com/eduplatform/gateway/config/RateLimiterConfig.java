@@ -1,6 +1,12 @@
 package com.eduplatform.gateway.config;
 
 import com.eduplatform.gateway.filter.RateLimitFilter;
+import com.eduplatform.gateway.filter.UserRateLimitFilter;
+import com.eduplatform.gateway.ratelimit.GcraRateLimiter;
+import com.eduplatform.gateway.ratelimit.HeavyHitterEndpoint;
+import com.eduplatform.gateway.ratelimit.HeavyHitterTracker;
+import com.eduplatform.gateway.ratelimit.RateLimitPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
@@ -8,8 +14,11 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -37,19 +46,148 @@ public class RateLimiterConfig {
     @Value("${gateway.rate-limit.trusted-proxies:}")
     private String trustedProxies;
 
+    /**
+     * 已登录用户默认窗口内许可数，未配置时沿用 permits-per-second。
+     */
+    @Value("${gateway.rate-limit.user-permits:0}")
+    private int userPermits;
+
+    /**
+     * 携带凭证的请求在鉴权前按 IP 预限流的许可数（同一 NAT 出口的所有登录用户共享），未配置时沿用 permits-per-second。
+     */
+    @Value("${gateway.rate-limit.credentialed-ip-permits:0}")
+    private int credentialedIpPermits;
+
+    /**
+     * 角色分级配额，格式：role=permits,role=permits。
+     */
+    @Value("${gateway.rate-limit.role-permits:}")
+    private String rolePermits;
+
+    /**
+     * 路由计费，格式：pattern=cost,pattern=cost（PathPattern 语法，按顺序先命中者生效）。
+     */
+    @Value("${gateway.rate-limit.route-costs:}")
+    private String routeCosts;
+
+    @Value("${gateway.rate-limit.heavy-hitters.enabled:true}")
+    private boolean heavyHittersEnabled;
+
+    @Value("${gateway.rate-limit.heavy-hitters.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${gateway.rate-limit.heavy-hitters.sketch-width:4096}")
+    private int sketchWidth;
+
+    @Value("${gateway.rate-limit.heavy-hitters.top-k:20}")
+    private int topK;
+
+    @Value("${gateway.rate-limit.heavy-hitters.window-seconds:60}")
+    private long heavyHitterWindowSeconds;
+
+    /**
+     * 自动封禁默认关闭：同一 NAT 出口的正常流量也可能较大，需结合榜单观察后再设定阈值。
+     */
+    @Value("${gateway.rate-limit.heavy-hitters.auto-ban.enabled:false}")
+    private boolean autoBanEnabled;
+
+    @Value("${gateway.rate-limit.heavy-hitters.auto-ban.threshold:20000}")
+    private long autoBanThreshold;
+
+    @Value("${gateway.rate-limit.heavy-hitters.auto-ban.minutes:10}")
+    private long autoBanMinutes;
+
+    @Value("${gateway.rate-limit.heavy-hitters.auto-ban.max-size:10000}")
+    private long autoBanMaxSize;
+
     @Bean
-    public RateLimitFilter rateLimitFilter(ObjectProvider<ReactiveStringRedisTemplate> redisTemplateProvider) {
-        return new RateLimitFilter(
+    public HeavyHitterTracker heavyHitterTracker(MeterRegistry meterRegistry) {
+        return new HeavyHitterTracker(
+                sketchDepth,
+                sketchWidth,
+                topK,
+                Duration.ofSeconds(heavyHitterWindowSeconds),
+                autoBanEnabled,
+                autoBanThreshold,
+                Duration.ofMinutes(Math.max(1, autoBanMinutes)),
+                autoBanMaxSize,
+                meterRegistry);
+    }
+
+    @Bean
+    public HeavyHitterEndpoint heavyHitterEndpoint(HeavyHitterTracker heavyHitterTracker) {
+        return new HeavyHitterEndpoint(heavyHitterTracker);
+    }
+
+    @Bean
+    public GcraRateLimiter gcraRateLimiter(ObjectProvider<ReactiveStringRedisTemplate> redisTemplateProvider) {
+        return new GcraRateLimiter(
                 redisTemplateProvider.getIfAvailable(),
-                permitsPerSecond,
+                redisEnabled,
+                windowSeconds,
                 cacheExpireMinutes,
-                cacheMaxSize,
+                cacheMaxSize);
+    }
+
+    /**
+     * 鉴权前的 IP 预限流与封禁检查。
+     */
+    @Bean
+    public RateLimitFilter rateLimitFilter(
+            GcraRateLimiter gcraRateLimiter,
+            RateLimitPolicy rateLimitPolicy,
+            HeavyHitterTracker heavyHitterTracker) {
+        return new RateLimitFilter(
+                gcraRateLimiter,
+                rateLimitPolicy,
+                heavyHittersEnabled ? heavyHitterTracker : null,
                 trustForwardedHeaders,
-                windowSeconds,
-                redisEnabled,
                 parseTrustedProxyIps());
     }
 
+    /**
+     * 鉴权后的用户分桶限流。
+     */
+    @Bean
+    public UserRateLimitFilter userRateLimitFilter(GcraRateLimiter gcraRateLimiter, RateLimitPolicy rateLimitPolicy) {
+        return new UserRateLimitFilter(gcraRateLimiter, rateLimitPolicy);
+    }
+
+    /**
+     * 启动时预编译限流策略，运行期选桶只做 Map 查找与少量 PathPattern 匹配。
+     */
+    @Bean
+    public RateLimitPolicy rateLimitPolicy() {
+        int anonymousPermits = (int) Math.floor(permitsPerSecond);
+        return RateLimitPolicy.compile(
+                anonymousPermits,
+                credentialedIpPermits > 0 ? credentialedIpPermits : anonymousPermits,
+                userPermits > 0 ? userPermits : anonymousPermits,
+                parseWeights(rolePermits),
+                parseWeights(routeCosts));
+    }
+
+    /**
+     * 解析 key=value 逗号分隔配置，保持声明顺序；格式非法的项直接启动失败，避免策略静默失效。
+     */
+    private Map<String, Integer> parseWeights(String raw) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        if (!StringUtils.hasText(raw)) {
+            return weights;
+        }
+        for (String item : raw.split(",")) {
+            if (!StringUtils.hasText(item)) {
+                continue;
+            }
+            int separator = item.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("限流策略配置格式错误，应为 key=value: " + item.trim());
+            }
+            weights.put(item.substring(0, separator).trim(), Integer.parseInt(item.substring(separator + 1).trim()));
+        }
+        return weights;
+    }
+
     /**
      * 解析受信代理地址列表，仅这些来源允许透传 X-Forwarded-For/X-Real-IP。
      */
@@ -0,0 +1,96 @@
+package com.eduplatform.gateway.config;
+
+import com.eduplatform.gateway.cache.ResponseCache;
+import com.eduplatform.gateway.cache.ResponseCachePurgeSubscriber;
+import com.eduplatform.gateway.filter.ResponseCacheFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 网关响应缓存配置。
+ * 说明：只应配置与调用者身份无关的公开 GET 路由，缓存键不包含用户身份。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "gateway.response-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfig {
+
+    /**
+     * 缓存路由，格式：pattern=ttlSeconds,pattern=ttlSeconds（PathPattern 语法，按顺序先命中者生效）。
+     */
+    @Value("${gateway.response-cache.routes:/api/courses/published=60}")
+    private String routes;
+
+    /**
+     * 参与缓存键的请求头，逗号分隔。
+     */
+    @Value("${gateway.response-cache.vary-headers:Accept-Encoding,Accept-Language}")
+    private String varyHeaders;
+
+    @Value("${gateway.response-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${gateway.response-cache.max-entry-bytes:1048576}")
+    private long maxEntryBytes;
+
+    @Value("${gateway.response-cache.purge-channel:gateway:response-cache:purge}")
+    private String purgeChannel;
+
+    @Bean
+    public ResponseCache responseCache(MeterRegistry meterRegistry) {
+        return new ResponseCache(parseRoutes(), parseVaryHeaders(), maxBytes, maxEntryBytes, meterRegistry);
+    }
+
+    @Bean
+    public ResponseCacheFilter responseCacheFilter(ResponseCache responseCache) {
+        return new ResponseCacheFilter(responseCache);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public ResponseCachePurgeSubscriber responseCachePurgeSubscriber(
+            ObjectProvider<ReactiveStringRedisTemplate> redisTemplateProvider,
+            ResponseCache responseCache) {
+        return new ResponseCachePurgeSubscriber(redisTemplateProvider.getIfAvailable(), responseCache, purgeChannel);
+    }
+
+    /**
+     * 解析路由 TTL 配置，保持声明顺序；格式非法时启动失败。
+     */
+    private Map<String, Integer> parseRoutes() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        if (!StringUtils.hasText(routes)) {
+            return result;
+        }
+        for (String item : routes.split(",")) {
+            if (!StringUtils.hasText(item)) {
+                continue;
+            }
+            int separator = item.lastIndexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("响应缓存路由配置格式错误，应为 pattern=ttlSeconds: " + item.trim());
+            }
+            result.put(item.substring(0, separator).trim(), Integer.parseInt(item.substring(separator + 1).trim()));
+        }
+        return result;
+    }
+
+    private List<String> parseVaryHeaders() {
+        if (!StringUtils.hasText(varyHeaders)) {
+            return List.of();
+        }
+        return Arrays.stream(varyHeaders.split(","))
+                .map(String::trim)
+                .filter(StringUtils::hasText)
+                .toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.eduplatform.gateway.config;
+
+import com.eduplatform.gateway.session.SessionInvalidationSubscriber;
+import com.eduplatform.gateway.session.SessionValidityCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+import java.time.Duration;
+
+/**
+ * 网关会话有效性缓存配置。
+ * 说明：硬 TTL 决定撤销推送丢失时的最长陈旧窗口，软 TTL 决定后台复核频率。
+ */
+@Configuration
+public class SessionCacheConfig {
+
+    @Value("${gateway.session-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gateway.session-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${gateway.session-cache.soft-ttl-seconds:10}")
+    private long softTtlSeconds;
+
+    @Value("${gateway.session-cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${gateway.session-cache.invalidation-channel:gateway:session:invalidate}")
+    private String invalidationChannel;
+
+    @Bean
+    public SessionValidityCache sessionValidityCache(MeterRegistry meterRegistry) {
+        return new SessionValidityCache(
+                enabled,
+                Duration.ofSeconds(Math.max(1, ttlSeconds)),
+                Duration.ofSeconds(Math.max(1, softTtlSeconds)),
+                maxSize,
+                meterRegistry);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public SessionInvalidationSubscriber sessionInvalidationSubscriber(
+            ObjectProvider<ReactiveStringRedisTemplate> redisTemplateProvider,
+            SessionValidityCache sessionValidityCache) {
+        return new SessionInvalidationSubscriber(
+                redisTemplateProvider.getIfAvailable(), sessionValidityCache, invalidationChannel);
+    }
+}
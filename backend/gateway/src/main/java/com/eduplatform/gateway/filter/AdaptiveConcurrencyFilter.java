@@ -0,0 +1,159 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.concurrency.AdaptiveConcurrencyLimiter;
+import com.eduplatform.gateway.concurrency.Gradient2Limit;
+import com.eduplatform.gateway.concurrency.PriorityPolicy;
+import com.eduplatform.gateway.concurrency.RequestPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 按下游路由（routes[].id）的自适应并发限制与降载过滤器。
+ * 设计意图：
+ * 1. Sentinel 的 QPS 规则是静态值，下游变慢时请求仍会在网关堆积；这里以 RTT 梯度动态调整每条路由的
+ *    并发上限，超出即返回 503 + Retry-After，在队列形成之前降载。
+ * 2. 按优先级分配并发份额：统计看板等低优先级请求最先被拒，作业提交等关键写操作最后被拒。
+ * 3. 排在限流、响应缓存与请求合并之后：缓存命中和被合并的请求不占用下游并发，也不污染 RTT 样本。
+ * 4. 批量子请求不经过全局过滤器链，由 BatchAggregationFilter 通过 {@link #withPermit} 按目标路由逐个占用许可。
+ * 说明：WebSocket 等长连接路由需配置在 excluded-routes 中，否则会长期占用许可。
+ */
+@Slf4j
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = RequestCoalescingFilter.ORDER + 1;
+
+    private final PriorityPolicy priorityPolicy;
+    private final Supplier<Gradient2Limit> limitFactory;
+    private final Duration sampleWindow;
+    private final int minWindowSamples;
+    private final Set<String> excludedRoutes;
+    private final long retryAfterSeconds;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyFilter(
+            PriorityPolicy priorityPolicy,
+            Supplier<Gradient2Limit> limitFactory,
+            Duration sampleWindow,
+            int minWindowSamples,
+            Set<String> excludedRoutes,
+            long retryAfterSeconds,
+            MeterRegistry meterRegistry) {
+        this.priorityPolicy = priorityPolicy;
+        this.limitFactory = limitFactory;
+        this.sampleWindow = sampleWindow;
+        this.minWindowSamples = minWindowSamples;
+        this.excludedRoutes = Set.copyOf(excludedRoutes);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        if (route == null || excludedRoutes.contains(route.getId()) || isWebSocketUpgrade(exchange)) {
+            return chain.filter(exchange);
+        }
+
+        String routeId = route.getId();
+        AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(routeId, this::newLimiter);
+        RequestPriority priority = priorityPolicy.priorityOf(exchange.getRequest().getPath().pathWithinApplication());
+        int inflightAtStart = limiter.tryAcquire(priority);
+        if (inflightAtStart < 0) {
+            shedCounter(routeId, priority).increment();
+            log.debug("触发网关自适应降载: route={}, priority={}, limit={}, inflight={}, path={}",
+                    routeId, priority, limiter.getLimit(), limiter.getInflight(), exchange.getRequest().getPath());
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            exchange.getResponse().getHeaders().add("X-Concurrency-Limited", "true");
+            exchange.getResponse().getHeaders().add("Retry-After", String.valueOf(retryAfterSeconds));
+            return exchange.getResponse().setComplete();
+        }
+
+        long startNanos = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> release(limiter, signal, startNanos, inflightAtStart));
+    }
+
+    /**
+     * 为不经过全局过滤器链的下游调用（批量子请求）占用目标路由的并发许可，与普通请求共用同一限制器。
+     *
+     * @param onShed 并发超限时的替代结果
+     */
+    public <T> Mono<T> withPermit(String routeId, PathContainer path, Mono<T> call, Supplier<T> onShed) {
+        if (excludedRoutes.contains(routeId)) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            AdaptiveConcurrencyLimiter limiter = limiters.computeIfAbsent(routeId, this::newLimiter);
+            RequestPriority priority = priorityPolicy.priorityOf(path);
+            int inflightAtStart = limiter.tryAcquire(priority);
+            if (inflightAtStart < 0) {
+                shedCounter(routeId, priority).increment();
+                log.debug("批量子请求触发网关自适应降载: route={}, priority={}, limit={}, path={}",
+                        routeId, priority, limiter.getLimit(), path);
+                return Mono.fromSupplier(onShed);
+            }
+            long startNanos = System.nanoTime();
+            return call.doFinally(signal -> release(limiter, signal, startNanos, inflightAtStart));
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private static void release(
+            AdaptiveConcurrencyLimiter limiter, SignalType signal, long startNanos, int inflightAtStart) {
+        if (signal == SignalType.CANCEL) {
+            limiter.releaseWithoutSample();
+        } else {
+            limiter.release(System.nanoTime() - startNanos, inflightAtStart);
+        }
+    }
+
+    private AdaptiveConcurrencyLimiter newLimiter(String routeId) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                limitFactory.get(), sampleWindow.toNanos(), minWindowSamples);
+        Gauge.builder("gateway.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("路由当前自适应并发上限")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limiter, AdaptiveConcurrencyLimiter::getInflight)
+                .description("路由当前进行中的请求数")
+                .tag("route", routeId)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private Counter shedCounter(String routeId, RequestPriority priority) {
+        return Counter.builder("gateway.concurrency.shed")
+                .description("因并发超限被拒绝的请求数")
+                .tag("route", routeId)
+                .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+
+    private static boolean isWebSocketUpgrade(ServerWebExchange exchange) {
+        return "websocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade());
+    }
+}
@@ -0,0 +1,369 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.batch.BatchItemResult;
+import com.eduplatform.gateway.batch.BatchRequest;
+import com.eduplatform.gateway.batch.BatchRouteResolver;
+import com.eduplatform.gateway.ratelimit.GcraRateLimiter;
+import com.eduplatform.gateway.ratelimit.RateLimitPolicy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 网关批量聚合过滤器（挂在 POST /api/batch 路由上）。
+ * 设计意图：
+ * 1. 学生首页等页面一次加载需要多个 GET，逐个请求时每个都要重复 JWT 校验、会话校验与限流；
+ *    批量请求只在网关鉴权一次，子请求并行直连下游服务，结果按请求顺序合并为一个响应返回。
+ * 2. 子请求携带网关已签名的身份头，下游按原有方式校验；每个子请求独立超时、独立返回状态码，
+ *    单个失败不影响其他结果。
+ * 3. 子请求只允许 /api/ 下的 GET，禁止嵌套批量与内部 cascade 接口，数量受 max-items 限制。
+ * 4. 限流按子请求数计费：批量路由本身按 route-costs 预扣，解析出子请求数后从同一限流桶追加扣减差额，
+ *    额度不足时整批返回 429；每个子请求按目标路由占用自适应并发许可，超限的子请求返回 503。
+ * 说明：子请求不经过网关的响应缓存与请求合并。
+ */
+@Slf4j
+public class BatchAggregationFilter implements GatewayFilter, Ordered {
+
+    public static final int ORDER = AdaptiveConcurrencyFilter.ORDER + 1;
+
+    public static final String ROUTE_ID = "gateway-batch";
+    public static final String PATH = "/api/batch";
+
+    /**
+     * 透传给下游的请求头：网关签名的身份头、原始令牌、链路与语言偏好。
+     * 说明：不透传 Accept-Encoding，网关需要解析明文 JSON 后再嵌入批量响应。
+     */
+    private static final List<String> FORWARDED_HEADERS = List.of(
+            HttpHeaders.AUTHORIZATION,
+            "X-User-Id",
+            "X-User-Name",
+            "X-User-Role",
+            "X-User-Ts",
+            "X-User-Signature",
+            "X-Trace-Id",
+            "traceparent",
+            HttpHeaders.ACCEPT_LANGUAGE);
+
+    private static final GcraRateLimiter.Decision ALLOWED = new GcraRateLimiter.Decision(true, -1, 0, -1);
+
+    private final BatchRouteResolver routeResolver;
+    private final WebClient webClient;
+    private final GcraRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyFilter concurrencyFilter;
+    private final ObjectMapper objectMapper;
+    private final int maxItems;
+    private final int maxRequestBytes;
+    private final Duration itemTimeout;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary batchSize;
+
+    /**
+     * @param rateLimiter       子请求数追加计费用的限流器，为 null 时只按 route-costs 计费
+     * @param concurrencyFilter 子请求占用并发许可用的过滤器，为 null 时不做并发限制
+     */
+    public BatchAggregationFilter(
+            BatchRouteResolver routeResolver,
+            WebClient webClient,
+            GcraRateLimiter rateLimiter,
+            AdaptiveConcurrencyFilter concurrencyFilter,
+            ObjectMapper objectMapper,
+            int maxItems,
+            int maxRequestBytes,
+            Duration itemTimeout,
+            MeterRegistry meterRegistry) {
+        this.routeResolver = routeResolver;
+        this.webClient = webClient;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyFilter = concurrencyFilter;
+        this.objectMapper = objectMapper;
+        this.maxItems = Math.max(1, maxItems);
+        this.maxRequestBytes = Math.max(1, maxRequestBytes);
+        this.itemTimeout = itemTimeout;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = DistributionSummary.builder("gateway.batch.size")
+                .description("单次批量请求包含的子请求数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return DataBufferUtils.join(exchange.getRequest().getBody(), maxRequestBytes)
+                .map(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    return bytes;
+                })
+                .defaultIfEmpty(new byte[0])
+                .flatMap(bytes -> {
+                    List<BatchRequest.Item> items;
+                    try {
+                        items = parse(bytes);
+                    } catch (IllegalArgumentException e) {
+                        return writeError(exchange, HttpStatus.BAD_REQUEST, 400, e.getMessage());
+                    }
+                    batchSize.record(items.size());
+                    return chargeItems(exchange, items.size()).flatMap(decision -> {
+                        if (!decision.allowed()) {
+                            exchange.getResponse().getHeaders()
+                                    .add("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+                            return writeError(exchange, HttpStatus.TOO_MANY_REQUESTS, 429,
+                                    "请求过于频繁，批量请求包含 " + items.size() + " 个子请求");
+                        }
+                        List<Mono<BatchItemResult>> calls = new ArrayList<>(items.size());
+                        for (int i = 0; i < items.size(); i++) {
+                            calls.add(execute(exchange, i, items.get(i)));
+                        }
+                        return Flux.mergeSequential(calls)
+                                .collectList()
+                                .flatMap(results -> writeResults(exchange, results));
+                    });
+                })
+                .onErrorResume(DataBufferLimitException.class, e -> writeError(exchange,
+                        HttpStatus.PAYLOAD_TOO_LARGE, 413, "批量请求体超过 " + maxRequestBytes + " 字节"));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * 按子请求数追加计费：每个子请求 1 个许可，扣除进入批量路由时已按 route-costs 预扣的部分。
+     * 追加部分不超过桶容量，否则该批请求永远无法通过。
+     */
+    private Mono<GcraRateLimiter.Decision> chargeItems(ServerWebExchange exchange, int itemCount) {
+        RateLimitPolicy.Bucket charged = exchange.getAttribute(RateLimitFilter.ATTR_CHARGED_BUCKET);
+        if (rateLimiter == null || charged == null || itemCount <= charged.cost()) {
+            return Mono.just(ALLOWED);
+        }
+        int extra = Math.min(itemCount - charged.cost(), charged.permits());
+        return rateLimiter.acquire(new RateLimitPolicy.Bucket(charged.key(), charged.permits(), extra))
+                .doOnNext(decision -> {
+                    if (!decision.allowed()) {
+                        log.warn("批量请求子请求数超出限流额度: key={}, items={}, extra={}",
+                                charged.key(), itemCount, extra);
+                    }
+                });
+    }
+
+    private List<BatchRequest.Item> parse(byte[] bytes) {
+        BatchRequest request;
+        try {
+            request = objectMapper.readValue(bytes, BatchRequest.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("批量请求格式错误");
+        }
+        if (request == null || request.requests() == null || request.requests().isEmpty()) {
+            throw new IllegalArgumentException("批量请求不能为空");
+        }
+        if (request.requests().size() > maxItems) {
+            throw new IllegalArgumentException("单次批量请求最多包含 " + maxItems + " 个子请求");
+        }
+        for (BatchRequest.Item item : request.requests()) {
+            if (item == null) {
+                throw new IllegalArgumentException("批量请求格式错误");
+            }
+        }
+        return request.requests();
+    }
+
+    private Mono<BatchItemResult> execute(ServerWebExchange exchange, int index, BatchRequest.Item item) {
+        String id = StringUtils.hasText(item.id()) ? item.id() : String.valueOf(index);
+        String rejection = rejectReason(item.path());
+        if (rejection != null) {
+            itemCounter("rejected").increment();
+            return Mono.just(BatchItemResult.error(id, HttpStatus.BAD_REQUEST.value(), rejection, 0));
+        }
+
+        URI target = exchange.getRequest().getURI().resolve(item.path());
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return routeResolver.resolve(exchange, target)
+                    .flatMap(route -> withConcurrencyPermit(route, target,
+                            call(exchange, BatchRouteResolver.baseUriOf(route), target, id, startNanos),
+                            id, startNanos))
+                    .switchIfEmpty(Mono.fromSupplier(() -> {
+                        itemCounter("rejected").increment();
+                        return BatchItemResult.error(id, HttpStatus.NOT_FOUND.value(),
+                                "未找到支持批量调用的路由", elapsedMillis(startNanos));
+                    }))
+                    .timeout(itemTimeout)
+                    .onErrorResume(e -> {
+                        boolean timeout = e instanceof TimeoutException;
+                        itemCounter(timeout ? "timeout" : "error").increment();
+                        if (!timeout) {
+                            log.warn("批量子请求失败: path={}, error={}", item.path(), e.toString());
+                        }
+                        return Mono.just(timeout
+                                ? BatchItemResult.error(id, HttpStatus.GATEWAY_TIMEOUT.value(),
+                                        "子请求超时", elapsedMillis(startNanos))
+                                : BatchItemResult.error(id, HttpStatus.BAD_GATEWAY.value(),
+                                        "下游服务不可用", elapsedMillis(startNanos)));
+                    });
+        });
+    }
+
+    /**
+     * 按子请求的目标路由占用自适应并发许可，超限时该子请求返回 503，不影响其他子请求。
+     */
+    private Mono<BatchItemResult> withConcurrencyPermit(
+            Route route, URI target, Mono<BatchItemResult> call, String id, long startNanos) {
+        if (concurrencyFilter == null) {
+            return call;
+        }
+        return concurrencyFilter.withPermit(route.getId(), PathContainer.parsePath(target.getRawPath()), call, () -> {
+            itemCounter("shed").increment();
+            return BatchItemResult.error(id, HttpStatus.SERVICE_UNAVAILABLE.value(),
+                    "下游服务繁忙，请稍后重试", elapsedMillis(startNanos));
+        });
+    }
+
+    private Mono<BatchItemResult> call(ServerWebExchange exchange, URI base, URI target, String id, long startNanos) {
+        String rawQuery = target.getRawQuery();
+        URI uri = URI.create(base + target.getRawPath() + (rawQuery == null ? "" : "?" + rawQuery));
+        HttpHeaders incoming = exchange.getRequest().getHeaders();
+        return webClient.get()
+                .uri(uri)
+                .headers(headers -> {
+                    for (String name : FORWARDED_HEADERS) {
+                        List<String> values = incoming.get(name);
+                        if (values != null) {
+                            headers.put(name, values);
+                        }
+                    }
+                })
+                .exchangeToMono(response -> response.bodyToMono(byte[].class)
+                        .defaultIfEmpty(new byte[0])
+                        .map(body -> {
+                            int status = response.statusCode().value();
+                            itemCounter(response.statusCode().is2xxSuccessful() ? "ok" : "error").increment();
+                            return new BatchItemResult(id, status, toJson(body), null, elapsedMillis(startNanos));
+                        }));
+    }
+
+    /**
+     * 子请求路径校验，返回拒绝原因，合法时返回 null。
+     */
+    static String rejectReason(String path) {
+        if (!StringUtils.hasText(path)) {
+            return "path 不能为空";
+        }
+        if (!path.startsWith("/api/")) {
+            return "仅支持 /api/ 下的相对路径";
+        }
+        URI uri;
+        try {
+            uri = new URI(path);
+        } catch (URISyntaxException e) {
+            return "路径格式错误";
+        }
+        String rawPath = uri.getRawPath();
+        String lowerPath = rawPath.toLowerCase(Locale.ROOT);
+        if (uri.getRawFragment() != null
+                || !rawPath.equals(uri.normalize().getRawPath())
+                || rawPath.contains("//")
+                || lowerPath.contains("%2e")
+                || lowerPath.contains("%2f")
+                || lowerPath.contains("%5c")) {
+            return "路径不允许包含片段、相对段或编码分隔符";
+        }
+        if (rawPath.equals(PATH) || rawPath.startsWith(PATH + "/")) {
+            return "不允许嵌套批量请求";
+        }
+        if (JwtAuthFilter.isInternalCascadePath(rawPath)) {
+            return "内部接口不允许批量调用";
+        }
+        return null;
+    }
+
+    private JsonNode toJson(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            return TextNode.valueOf(new String(body, StandardCharsets.UTF_8));
+        }
+    }
+
+    private Mono<Void> writeResults(ServerWebExchange exchange, List<BatchItemResult> results) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("responses", results);
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("code", 200);
+        payload.put("message", "操作成功");
+        payload.put("data", data);
+        // 批量结果包含个人数据，禁止任何中间层缓存
+        exchange.getResponse().getHeaders().setCacheControl("no-store");
+        return write(exchange, HttpStatus.OK, payload);
+    }
+
+    /**
+     * 与 JwtAuthFilter 保持一致的错误响应格式，前端可按 code/message 解析。
+     */
+    private Mono<Void> writeError(ServerWebExchange exchange, HttpStatus status, int code, String message) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("code", code);
+        payload.put("message", message);
+        payload.put("data", null);
+        return write(exchange, status, payload);
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, HttpStatus status, Map<String, Object> payload) {
+        exchange.getResponse().setStatusCode(status);
+        exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(payload);
+            return exchange.getResponse()
+                    .writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+        } catch (Exception e) {
+            log.error("网关写入批量响应失败", e);
+            return exchange.getResponse().setComplete();
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private Counter itemCounter(String result) {
+        return Counter.builder("gateway.batch.items")
+                .description("批量子请求结果：ok=下游 2xx，error=下游非 2xx 或不可达，timeout=超时，rejected=网关拒绝，shed=并发超限")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,9 +1,12 @@
 package com.eduplatform.gateway.filter;
 
+import com.eduplatform.gateway.security.JwtClaimsVerifier;
+import com.eduplatform.gateway.security.UserHeaderSigner;
+import com.eduplatform.gateway.session.SessionValidityCache;
+import com.eduplatform.gateway.timing.RequestPhase;
+import com.eduplatform.gateway.timing.RequestTimings;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
@@ -18,13 +21,9 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import javax.crypto.SecretKey;
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
-import java.util.Base64;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -40,6 +39,17 @@ import java.util.UUID;
 @Component
 public class JwtAuthFilter implements GlobalFilter, Ordered {
 
+    /**
+     * 过滤器顺序：先于业务路由执行，晚于最高优先级的极少数系统过滤器。
+     */
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    /**
+     * 鉴权通过后写入 exchange 的可信身份属性，供后续过滤器（如限流）读取，避免信任客户端同名请求头。
+     */
+    public static final String ATTR_USER_ID = JwtAuthFilter.class.getName() + ".userId";
+    public static final String ATTR_USER_ROLE = JwtAuthFilter.class.getName() + ".userRole";
+
     private static final String HEADER_AUTHORIZATION = "Authorization";
     private static final String HEADER_INTERNAL_TOKEN = "X-Internal-Token";
     private static final String HEADER_USER_ID = "X-User-Id";
@@ -63,6 +73,7 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
 
     private final ObjectMapper objectMapper;
     private final WebClient userServiceWebClient;
+    private final SessionValidityCache sessionValidityCache;
 
     @Value("${jwt.secret}")
     private String jwtSecret;
@@ -70,13 +81,39 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
     @Value("${security.internal-token}")
     private String internalToken;
 
-    public JwtAuthFilter(ObjectMapper objectMapper, @LoadBalanced WebClient.Builder webClientBuilder) {
+    /**
+     * 已验签 token 缓存容量，0 表示关闭缓存。
+     */
+    @Value("${gateway.jwt.verified-cache-size:50000}")
+    private long verifiedCacheSize;
+
+    /**
+     * 已验签 token 缓存最长存活时间（秒），实际不超过 token 的 exp。
+     */
+    @Value("${gateway.jwt.verified-cache-max-ttl-seconds:300}")
+    private long verifiedCacheMaxTtlSeconds;
+
+    /**
+     * 验签器与签名器依赖 @Value 注入的密钥，首次使用时构建一次并复用。
+     */
+    private volatile JwtClaimsVerifier claimsVerifier;
+    private volatile UserHeaderSigner headerSigner;
+
+    public JwtAuthFilter(
+            ObjectMapper objectMapper,
+            @LoadBalanced WebClient.Builder webClientBuilder,
+            SessionValidityCache sessionValidityCache) {
         this.objectMapper = objectMapper;
         this.userServiceWebClient = webClientBuilder.build();
+        this.sessionValidityCache = sessionValidityCache;
     }
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        return RequestTimings.measure(exchange, RequestPhase.AUTH, chain, next -> authenticate(exchange, next));
+    }
+
+    private Mono<Void> authenticate(ServerWebExchange exchange, GatewayFilterChain chain) {
         String path = exchange.getRequest().getURI().getPath();
 
         // 非 API 与 WebSocket 请求先放行，避免影响静态资源和站点路由。
@@ -134,14 +171,17 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
         }
 
         long ts = Instant.now().getEpochSecond();
-        String signature = signUserHeaders(internalToken, userId, username, role, ts);
+        String signature = signUserHeaders(userId, username, role, ts);
         // 在网关鉴权链闭环会话有效性：签名正确但已失效的 jti 不允许继续访问。
-        return validateSession(userId, username, role, token, ts, signature)
+        return RequestTimings.time(exchange, RequestPhase.SESSION_VALIDATE,
+                        validateSession(claims.getId(), userId, username, role, token, ts, signature))
                 .flatMap(sessionValid -> {
                     if (!sessionValid) {
                         return writeError(exchange, HttpStatus.UNAUTHORIZED, 401, "身份认证失败：会话已失效，请重新登录");
                     }
 
+                    exchange.getAttributes().put(ATTR_USER_ID, userId);
+                    exchange.getAttributes().put(ATTR_USER_ROLE, role);
                     ServerHttpRequest mutatedRequest = exchange.getRequest().mutate()
                             .headers(headers -> {
                                 headers.remove(HEADER_INTERNAL_TOKEN);
@@ -169,7 +209,7 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
     /**
      * 内部高危接口路径判定：仅允许服务间调用。
      */
-    private boolean isInternalCascadePath(String path) {
+    static boolean isInternalCascadePath(String path) {
         return path.startsWith("/api/courses/cascade/")
                 || path.startsWith("/api/homeworks/cascade/")
                 || path.startsWith("/api/progress/cascade/");
@@ -197,18 +237,63 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
     }
 
     private Claims parseClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return claimsVerifier().verify(token);
+    }
+
+    private JwtClaimsVerifier claimsVerifier() {
+        JwtClaimsVerifier verifier = claimsVerifier;
+        if (verifier == null) {
+            synchronized (this) {
+                verifier = claimsVerifier;
+                if (verifier == null) {
+                    verifier = new JwtClaimsVerifier(jwtSecret, verifiedCacheSize,
+                            Duration.ofSeconds(Math.max(1, verifiedCacheMaxTtlSeconds)));
+                    claimsVerifier = verifier;
+                }
+            }
+        }
+        return verifier;
+    }
+
+    private UserHeaderSigner headerSigner() {
+        UserHeaderSigner signer = headerSigner;
+        if (signer == null) {
+            synchronized (this) {
+                signer = headerSigner;
+                if (signer == null) {
+                    signer = new UserHeaderSigner(internalToken);
+                    headerSigner = signer;
+                }
+            }
+        }
+        return signer;
     }
 
     /**
      * 校验会话是否仍有效（jti 在服务端白名单中）。
-     * 说明：调用 user-service 的 validate-token 接口，并沿用网关签名头，避免身份头被伪造。
+     * 说明：优先读取网关本地会话缓存，仅未命中时回源 user-service；回源异常时按会话无效处理。
      */
     private Mono<Boolean> validateSession(
+            String jti,
+            String userId,
+            String username,
+            String role,
+            String token,
+            long ts,
+            String signature) {
+        return sessionValidityCache.get(jti,
+                        () -> requestSessionValidation(userId, username, role, token, ts, signature))
+                .onErrorResume(e -> {
+                    log.warn("网关会话校验失败: userId={}, error={}", userId, e.getMessage());
+                    return Mono.just(false);
+                });
+    }
+
+    /**
+     * 回源 user-service 的 validate-token 接口，并沿用网关签名头，避免身份头被伪造。
+     * 说明：调用异常原样抛出，由缓存层决定不写入，再由上层统一降级。
+     */
+    private Mono<Boolean> requestSessionValidation(
             String userId,
             String username,
             String role,
@@ -226,10 +311,7 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
                 .retrieve()
                 .bodyToMono(Map.class)
                 .map(this::isValidateTokenResponseSuccess)
-                .onErrorResume(e -> {
-                    log.warn("网关会话校验失败: userId={}, error={}", userId, e.getMessage());
-                    return Mono.just(false);
-                });
+                .defaultIfEmpty(false);
     }
 
     /**
@@ -246,17 +328,9 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
         return codeOk && dataOk;
     }
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-    }
-
-    private String signUserHeaders(String secret, String userId, String username, String role, long ts) {
-        String payload = userId + "|" + username + "|" + role + "|" + ts;
+    private String signUserHeaders(String userId, String username, String role, long ts) {
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
-            byte[] digest = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+            return headerSigner().sign(userId, username, role, ts);
         } catch (Exception e) {
             log.error("网关生成身份签名失败", e);
             return "";
@@ -343,7 +417,6 @@ public class JwtAuthFilter implements GlobalFilter, Ordered {
 
     @Override
     public int getOrder() {
-        // 先于业务路由执行，晚于最高优先级的极少数系统过滤器。
-        return Ordered.HIGHEST_PRECEDENCE + 10;
+        return ORDER;
     }
 }
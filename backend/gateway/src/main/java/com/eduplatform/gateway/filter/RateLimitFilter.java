@@ -1,8 +1,10 @@
 package com.eduplatform.gateway.filter;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-import com.google.common.util.concurrent.RateLimiter;
+import com.eduplatform.gateway.ratelimit.GcraRateLimiter;
+import com.eduplatform.gateway.ratelimit.HeavyHitterTracker;
+import com.eduplatform.gateway.ratelimit.RateLimitPolicy;
+import com.eduplatform.gateway.timing.RequestPhase;
+import com.eduplatform.gateway.timing.RequestTimings;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
@@ -13,24 +15,51 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.Collections;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+/**
+ * 网关限流过滤器（鉴权前的 IP 预限流）。
+ * 设计意图：
+ * 1. 紧随最外层的计时过滤器执行：缺失、伪造、过期或已吊销 token 的请求在 JWT 解析与会话校验之前即被限流、
+ *    计入热点来源统计并可被自动封禁；封禁与限流判定计入 rate-limit 阶段耗时，被拒绝的请求同样上报。
+ * 2. 未携带凭证的请求按匿名配额扣 IP 桶；携带凭证的请求扣更宽的 NAT 出口 IP 桶，
+ *    鉴权通过后再由 UserRateLimitFilter 按用户分桶。
+ * 3. 路由按 RateLimitPolicy 计费，重接口一次消耗多个许可；许可判定由 GcraRateLimiter 完成。
+ */
 @Slf4j
 public class RateLimitFilter implements GlobalFilter, Ordered {
 
-    private static final String REDIS_RATE_LIMIT_KEY_PREFIX = "gateway:ratelimit:";
+    /**
+     * 先于鉴权执行，限流与封禁不依赖 token 是否有效；位于 RequestTimingFilter 之内，以便计时。
+     */
+    public static final int ORDER = RequestTimingFilter.ORDER + 1;
+
+    /**
+     * 本过滤器解析出的客户端地址，供鉴权后的限流阶段复用。
+     */
+    public static final String ATTR_CLIENT_IP = RateLimitFilter.class.getName() + ".clientIp";
+
+    /**
+     * 请求已按匿名配额扣过 IP 桶（未携带凭证），鉴权后的限流阶段不再重复扣减。
+     */
+    public static final String ATTR_ANONYMOUS_CHARGED = RateLimitFilter.class.getName() + ".anonymousCharged";
+
+    /**
+     * 最后一次扣减成功的限流桶（鉴权后阶段覆盖鉴权前阶段），批量接口解析出子请求数后按此桶追加计费。
+     */
+    public static final String ATTR_CHARGED_BUCKET = RateLimitFilter.class.getName() + ".chargedBucket";
 
-    private final Cache<String, RateLimiter> limiterCache;
-    private final ReactiveStringRedisTemplate redisTemplate;
-    private final int permitsPerSecond;
-    private final int windowSeconds;
+    private static final String HEADER_LIMIT = "X-RateLimit-Limit";
+    private static final String HEADER_REMAINING = "X-RateLimit-Remaining";
+    private static final String HEADER_RESET = "X-RateLimit-Reset";
+
+    private final GcraRateLimiter limiter;
+    private final RateLimitPolicy policy;
+    private final HeavyHitterTracker heavyHitterTracker;
     private final boolean trustForwardedHeaders;
     private final Set<String> trustedProxyIps;
-    private final boolean redisEnabled;
 
     public RateLimitFilter(double permitsPerSecond, long expireMinutes, long maxSize, boolean trustForwardedHeaders) {
         this(null, permitsPerSecond, expireMinutes, maxSize, trustForwardedHeaders, 1, false, Collections.emptySet());
@@ -57,9 +86,20 @@ public class RateLimitFilter implements GlobalFilter, Ordered {
             int windowSeconds,
             boolean redisEnabled,
             Set<String> trustedProxyIps) {
-        this.redisTemplate = redisTemplate;
-        this.permitsPerSecond = Math.max(1, (int) Math.floor(permitsPerSecond));
-        this.windowSeconds = Math.max(1, windowSeconds);
+        this(new GcraRateLimiter(redisTemplate, redisEnabled, windowSeconds, expireMinutes, maxSize),
+                RateLimitPolicy.uniform((int) Math.floor(permitsPerSecond)), null, trustForwardedHeaders,
+                trustedProxyIps);
+    }
+
+    public RateLimitFilter(
+            GcraRateLimiter limiter,
+            RateLimitPolicy policy,
+            HeavyHitterTracker heavyHitterTracker,
+            boolean trustForwardedHeaders,
+            Set<String> trustedProxyIps) {
+        this.limiter = limiter;
+        this.policy = policy;
+        this.heavyHitterTracker = heavyHitterTracker;
         this.trustForwardedHeaders = trustForwardedHeaders;
         this.trustedProxyIps = trustedProxyIps == null
                 ? Collections.emptySet()
@@ -67,15 +107,6 @@ public class RateLimitFilter implements GlobalFilter, Ordered {
                         .filter(StringUtils::hasText)
                         .map(String::trim)
                         .collect(Collectors.toSet());
-        this.redisEnabled = redisEnabled && redisTemplate != null;
-        this.limiterCache = Caffeine.newBuilder()
-                .expireAfterAccess(Duration.ofMinutes(expireMinutes))
-                .maximumSize(maxSize)
-                .build();
-
-        if (redisEnabled && redisTemplate == null) {
-            log.warn("网关限流已开启 Redis 模式，但未注入 RedisTemplate，将自动降级为本地限流");
-        }
         if (trustForwardedHeaders && this.trustedProxyIps.isEmpty()) {
             log.warn("网关限流开启了转发头信任，但未配置受信代理 IP，将仅使用 remoteAddress 作为限流键");
         }
@@ -83,78 +114,83 @@ public class RateLimitFilter implements GlobalFilter, Ordered {
 
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-        String clientIp = resolveClientKey(exchange);
-        return allowRequest(clientIp, exchange)
-                .flatMap(allowed -> {
-                    if (allowed) {
-                        return chain.filter(exchange);
-                    }
-
-                    log.warn("触发网关限流: ip={}, path={}", clientIp, exchange.getRequest().getPath());
-                    exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
-                    exchange.getResponse().getHeaders().add("X-Rate-Limit-Exceeded", "true");
-                    exchange.getResponse().getHeaders().add("Retry-After", String.valueOf(windowSeconds));
-                    return exchange.getResponse().setComplete();
-                });
+        return RequestTimings.measure(exchange, RequestPhase.RATE_LIMIT, chain, next -> limit(exchange, next));
     }
 
-    /**
-     * 优先使用 Redis 分布式限流，失败时自动降级到本地限流，保障网关可用性。
-     */
-    private Mono<Boolean> allowRequest(String clientIp, ServerWebExchange exchange) {
-        if (!redisEnabled) {
-            return Mono.just(allowByLocal(clientIp));
+    private Mono<Void> limit(ServerWebExchange exchange, GatewayFilterChain chain) {
+        String clientIp = resolveClientKey(exchange);
+        exchange.getAttributes().put(ATTR_CLIENT_IP, clientIp);
+        if (heavyHitterTracker != null) {
+            heavyHitterTracker.record(clientIp, exchange.getRequest().getPath().value());
+            long banRemainingMillis = heavyHitterTracker.banRemainingMillis(clientIp);
+            if (banRemainingMillis > 0) {
+                exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                exchange.getResponse().getHeaders().add("X-Rate-Limit-Exceeded", "true");
+                exchange.getResponse().getHeaders().add("Retry-After",
+                        String.valueOf(Math.max(1, (banRemainingMillis + 999) / 1000)));
+                return exchange.getResponse().setComplete();
+            }
+        }
+
+        boolean credentialed = hasCredential(exchange);
+        if (!credentialed) {
+            exchange.getAttributes().put(ATTR_ANONYMOUS_CHARGED, Boolean.TRUE);
         }
-        return allowByRedis(clientIp).onErrorResume(e -> {
-            log.warn("Redis限流失败，降级为本地限流: ip={}, path={}, error={}",
-                    clientIp,
-                    exchange.getRequest().getPath(),
-                    e.getMessage());
-            return Mono.just(allowByLocal(clientIp));
-        });
+        RateLimitPolicy.Bucket bucket =
+                policy.resolveClient(exchange.getRequest().getPath().pathWithinApplication(), clientIp, credentialed);
+        return enforce(limiter, bucket, exchange, chain);
     }
 
     /**
-     * 本地令牌桶限流（降级兜底）。
+     * 是否携带 JwtAuthFilter 会校验的凭证：Bearer Token，或 WebSocket 握手的 token 参数。
+     * 这里只看是否存在，不解析 token；凭证无效的请求由 JwtAuthFilter 拒绝，但已先计入 IP 桶。
      */
-    private boolean allowByLocal(String clientIp) {
-        RateLimiter limiter = limiterCache.get(clientIp, key -> RateLimiter.create(permitsPerSecond));
-        return limiter != null && limiter.tryAcquire();
+    static boolean hasCredential(ServerWebExchange exchange) {
+        String authorization = exchange.getRequest().getHeaders().getFirst("Authorization");
+        if (StringUtils.hasText(authorization) && authorization.startsWith("Bearer ")) {
+            return true;
+        }
+        return exchange.getRequest().getPath().value().startsWith("/ws/")
+                && StringUtils.hasText(exchange.getRequest().getQueryParams().getFirst("token"));
     }
 
     /**
-     * Redis 固定时间窗限流（多实例共享）。
+     * 从桶中扣减许可：通过则输出限流头并继续过滤链，否则返回 429 + Retry-After。
      */
-    private Mono<Boolean> allowByRedis(String clientIp) {
-        String redisKey = buildRedisWindowKey(clientIp);
-        return redisTemplate.opsForValue().increment(redisKey)
-                .flatMap(counter -> {
-                    if (counter == null) {
-                        return Mono.just(false);
-                    }
-
-                    Mono<Boolean> expireOperation = Mono.just(true);
-                    if (counter == 1L) {
-                        // 首次命中窗口时设置过期时间，避免 Redis Key 无限增长。
-                        expireOperation = redisTemplate.expire(redisKey, Duration.ofSeconds(windowSeconds + 1))
-                                .onErrorResume(e -> {
-                                    log.warn("设置Redis限流Key过期时间失败: key={}, error={}", redisKey, e.getMessage());
-                                    return Mono.just(false);
-                                });
+    static Mono<Void> enforce(
+            GcraRateLimiter limiter,
+            RateLimitPolicy.Bucket bucket,
+            ServerWebExchange exchange,
+            GatewayFilterChain chain) {
+        return limiter.acquire(bucket)
+                .flatMap(decision -> {
+                    applyRateLimitHeaders(exchange, bucket, decision);
+                    if (decision.allowed()) {
+                        exchange.getAttributes().put(ATTR_CHARGED_BUCKET, bucket);
+                        return chain.filter(exchange);
                     }
 
-                    long currentCounter = counter;
-                    return expireOperation.thenReturn(currentCounter <= permitsPerSecond);
-                })
-                .defaultIfEmpty(false);
+                    log.warn("触发网关限流: key={}, path={}, cost={}",
+                            bucket.key(), exchange.getRequest().getPath(), bucket.cost());
+                    exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                    exchange.getResponse().getHeaders().add("X-Rate-Limit-Exceeded", "true");
+                    exchange.getResponse().getHeaders().add("Retry-After", String.valueOf(decision.retryAfterSeconds()));
+                    return exchange.getResponse().setComplete();
+                });
     }
 
     /**
-     * 构建 Redis 限流窗口键。
+     * 输出 X-RateLimit-* 响应头，便于客户端自适应退避；后执行的限流阶段覆盖先执行的。
      */
-    private String buildRedisWindowKey(String clientIp) {
-        long windowId = Instant.now().getEpochSecond() / windowSeconds;
-        return REDIS_RATE_LIMIT_KEY_PREFIX + clientIp + ":" + windowId;
+    private static void applyRateLimitHeaders(
+            ServerWebExchange exchange, RateLimitPolicy.Bucket bucket, GcraRateLimiter.Decision decision) {
+        exchange.getResponse().getHeaders().set(HEADER_LIMIT, String.valueOf(bucket.permits()));
+        if (decision.remaining() >= 0) {
+            exchange.getResponse().getHeaders().set(HEADER_REMAINING, String.valueOf(decision.remaining()));
+        }
+        if (decision.resetAfterMillis() >= 0) {
+            exchange.getResponse().getHeaders().set(HEADER_RESET, String.valueOf(decision.resetAfterSeconds()));
+        }
     }
 
     /**
@@ -209,6 +245,6 @@ public class RateLimitFilter implements GlobalFilter, Ordered {
 
     @Override
     public int getOrder() {
-        return Ordered.HIGHEST_PRECEDENCE;
+        return ORDER;
     }
 }
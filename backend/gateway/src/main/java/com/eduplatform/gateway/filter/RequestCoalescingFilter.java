@@ -0,0 +1,254 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.coalesce.CoalescingPolicy;
+import com.eduplatform.gateway.coalesce.SharedResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网关请求合并（single-flight）过滤器。
+ * 设计意图：
+ * 1. 上课高峰大量学生同时打开同一课程/章节，白名单内相同的幂等 GET 在同一共享范围内只回源一次，
+ *    其余并发请求等待领头请求的响应并原样回放。
+ * 2. 领头请求的响应体边转发边复制，不增加领头请求延迟；超过缓冲上限、带 Set-Cookie 或回源失败时，
+ *    跟随请求各自回源，保证合并只是优化而不改变语义。
+ * 3. 只合并“进行中”的请求，领头请求结束即移除，不承担缓存职责（缓存见 ResponseCacheFilter）。
+ */
+@Slf4j
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ResponseCacheFilter.ORDER + 1;
+
+    /**
+     * 逐请求生成的响应头不回放，由跟随请求自身的过滤链负责。
+     */
+    private static final Set<String> PER_REQUEST_HEADERS = Set.of(
+            "set-cookie", "content-length", "transfer-encoding", "connection", "date",
+            "x-trace-id", "x-cache", "x-ratelimit-limit", "x-ratelimit-remaining", "x-ratelimit-reset");
+
+    private final CoalescingPolicy policy;
+    private final int maxBodyBytes;
+    private final Map<String, Sinks.One<SharedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter leaderCounter;
+    private final Counter collapsedCounter;
+    private final Counter fallbackCounter;
+
+    public RequestCoalescingFilter(CoalescingPolicy policy, int maxBodyBytes, MeterRegistry meterRegistry) {
+        this.policy = policy;
+        this.maxBodyBytes = Math.max(1, maxBodyBytes);
+        this.leaderCounter = requestCounter(meterRegistry, "leader");
+        this.collapsedCounter = requestCounter(meterRegistry, "collapsed");
+        this.fallbackCounter = requestCounter(meterRegistry, "fallback");
+        Gauge.builder("gateway.coalescing.inflight", inFlight, Map::size)
+                .description("当前进行中的合并回源请求数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (!HttpMethod.GET.equals(request.getMethod())) {
+            return chain.filter(exchange);
+        }
+        CoalescingPolicy.Scope scope = policy.scopeOf(request.getPath().pathWithinApplication());
+        if (scope == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = keyOf(exchange, scope);
+        Sinks.One<SharedResponse> sink = Sinks.one();
+        Sinks.One<SharedResponse> leader = inFlight.putIfAbsent(key, sink);
+        if (leader != null) {
+            return follow(exchange, chain, leader.asMono());
+        }
+
+        leaderCounter.increment();
+        CapturingResponseDecorator decorator = new CapturingResponseDecorator(exchange.getResponse(), key, sink);
+        return chain.filter(exchange.mutate().response(decorator).build())
+                .doFinally(signal -> decorator.abandon());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * 合并键：共享范围 + 路径 + 原始查询串 + 影响表示的请求头。
+     */
+    private String keyOf(ServerWebExchange exchange, CoalescingPolicy.Scope scope) {
+        ServerHttpRequest request = exchange.getRequest();
+        String userId = exchange.getAttribute(JwtAuthFilter.ATTR_USER_ID);
+        String role = exchange.getAttribute(JwtAuthFilter.ATTR_USER_ROLE);
+        String rawQuery = request.getURI().getRawQuery();
+        HttpHeaders headers = request.getHeaders();
+        return scope.token(userId, role)
+                + '|' + request.getPath().pathWithinApplication().value()
+                + (rawQuery == null ? "" : "?" + rawQuery)
+                + '|' + headers.getFirst(HttpHeaders.ACCEPT_ENCODING)
+                + '|' + headers.getFirst(HttpHeaders.ACCEPT_LANGUAGE);
+    }
+
+    /**
+     * 跟随请求：等待领头响应并回放；领头响应不可共享时自行回源。
+     */
+    private Mono<Void> follow(ServerWebExchange exchange, GatewayFilterChain chain, Mono<SharedResponse> shared) {
+        return shared.map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(response -> {
+                    if (response.isEmpty()) {
+                        fallbackCounter.increment();
+                        return chain.filter(exchange);
+                    }
+                    collapsedCounter.increment();
+                    return replay(exchange.getResponse(), response.get());
+                });
+    }
+
+    private Mono<Void> replay(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(shared.status());
+        HttpHeaders headers = response.getHeaders();
+        shared.headers().forEach((name, values) -> {
+            if (!headers.containsKey(name)) {
+                headers.put(name, values);
+            }
+        });
+        if (shared.body().length == 0) {
+            return response.setComplete();
+        }
+        headers.setContentLength(shared.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body())));
+    }
+
+    private static HttpHeaders replayableHeaders(HttpHeaders source) {
+        HttpHeaders copy = new HttpHeaders();
+        source.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!PER_REQUEST_HEADERS.contains(lower) && !lower.startsWith("access-control-")) {
+                copy.put(name, List.copyOf(values));
+            }
+        });
+        return HttpHeaders.readOnlyHttpHeaders(copy);
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.coalescing.requests")
+                .description("请求合并结果：leader=实际回源，collapsed=被合并，fallback=领头不可共享后自行回源")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 领头请求响应装饰器：透传响应体的同时复制到有界缓冲区，完成后发布给跟随请求。
+     * 说明：先从进行中表移除再发布，保证发布之后到达的请求会重新回源而不是读到已结束的结果。
+     */
+    private class CapturingResponseDecorator extends ServerHttpResponseDecorator {
+
+        private final String key;
+        private final Sinks.One<SharedResponse> sink;
+        private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private boolean shareable = true;
+
+        CapturingResponseDecorator(ServerHttpResponse delegate, String key, Sinks.One<SharedResponse> sink) {
+            super(delegate);
+            this.key = key;
+            this.sink = sink;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                abandon();
+                return super.writeWith(body);
+            }
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(this::copy)
+                    .doOnComplete(this::publish)
+                    .doOnError(e -> abandon())
+                    .doOnCancel(this::abandon));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // 流式响应（SSE 等）不参与合并
+            abandon();
+            return super.writeAndFlushWith(body);
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return super.setComplete().doOnSuccess(v -> publish());
+        }
+
+        private synchronized void copy(DataBuffer dataBuffer) {
+            if (!shareable) {
+                return;
+            }
+            int readable = dataBuffer.readableByteCount();
+            if (buffer.size() + readable > maxBodyBytes) {
+                log.debug("合并请求响应超过缓冲上限，跟随请求将各自回源: key={}, limit={}", key, maxBodyBytes);
+                abandon();
+                return;
+            }
+            try (DataBuffer.ByteBufferIterator iterator = dataBuffer.readableByteBuffers()) {
+                while (iterator.hasNext()) {
+                    ByteBuffer byteBuffer = iterator.next();
+                    byte[] chunk = new byte[byteBuffer.remaining()];
+                    byteBuffer.get(chunk);
+                    buffer.write(chunk, 0, chunk.length);
+                }
+            }
+        }
+
+        private synchronized void publish() {
+            if (!shareable) {
+                return;
+            }
+            shareable = false;
+            HttpStatusCode status = getStatusCode();
+            SharedResponse response = new SharedResponse(
+                    status != null ? status : HttpStatus.OK, replayableHeaders(getHeaders()), buffer.toByteArray());
+            buffer = null;
+            inFlight.remove(key, sink);
+            sink.tryEmitValue(response);
+        }
+
+        /**
+         * 放弃共享：跟随请求收到空结果后各自回源。可重复调用。
+         */
+        synchronized void abandon() {
+            shareable = false;
+            buffer = null;
+            inFlight.remove(key, sink);
+            sink.tryEmitEmpty();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.timing.LatencyRecorder;
+import com.eduplatform.gateway.timing.RequestPhase;
+import com.eduplatform.gateway.timing.RequestTimings;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * 网关分阶段计时过滤器（最外层）。
+ * 设计意图：
+ * 1. 请求进入时挂载 RequestTimings，鉴权、限流、会话校验与上游调用各自向其累加耗时。
+ * 2. 请求结束时按 路由 + 状态码类别 + 阶段 统一上报，total 覆盖从进入网关到响应体写完的全过程。
+ * 说明：以最高优先级执行，排在鉴权前的 IP 预限流与 JwtAuthFilter 之前，被封禁、限流或鉴权拒绝的请求同样计入。
+ */
+public class RequestTimingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE;
+
+    private final LatencyRecorder recorder;
+
+    public RequestTimingFilter(LatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        RequestTimings timings = new RequestTimings();
+        exchange.getAttributes().put(RequestTimings.ATTR, timings);
+        long startNanos = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> report(exchange, timings, signal, System.nanoTime() - startNanos));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private void report(ServerWebExchange exchange, RequestTimings timings, SignalType signal, long totalNanos) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+        String status = signal == SignalType.CANCEL ? "cancelled" : statusClass(exchange);
+        for (RequestPhase phase : RequestPhase.values()) {
+            long nanos = phase == RequestPhase.TOTAL ? totalNanos : timings.nanos(phase);
+            if (nanos >= 0) {
+                recorder.record(routeId, status, phase, nanos);
+            }
+        }
+    }
+
+    private static String statusClass(ServerWebExchange exchange) {
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return LatencyRecorder.statusClass(status != null ? status.value() : null);
+    }
+}
@@ -0,0 +1,278 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.cache.CachedResponse;
+import com.eduplatform.gateway.cache.ResponseCache;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 网关响应缓存过滤器。
+ * 设计意图：
+ * 1. 仅对配置的 GET 路由生效（如 /api/courses/published），命中时直接由网关响应，不回源下游。
+ * 2. 命中与首次回源均下发强 ETag；客户端携带匹配的 If-None-Match 时返回 304，不下发响应体。
+ * 3. 只缓存 HTTP 200 且业务码为 200 的响应，带 Set-Cookie 或 Cache-Control: private/no-store 的响应不缓存。
+ * 4. 回源响应边转发边计数，最多暂存 maxEntryBytes 字节；超出后停止暂存，已暂存部分与剩余数据直接透传（X-Cache: BYPASS），
+ *    大响应不会在网关内整体聚合。
+ * 说明：排在限流之后，缓存命中同样计入限流，避免缓存成为绕过限流的通道。
+ */
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = UserRateLimitFilter.ORDER + 1;
+
+    private static final String HEADER_CACHE_STATUS = "X-Cache";
+
+    /**
+     * 仅复制与表示相关的响应头，CORS/限流/链路头由网关逐请求生成，不能被缓存回放。
+     */
+    private static final List<String> CACHED_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE,
+            HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CONTENT_LANGUAGE,
+            HttpHeaders.CACHE_CONTROL,
+            HttpHeaders.VARY);
+
+    /**
+     * 统一响应体 Result 以 code 字段开头，只需检查前若干字节即可判定业务是否成功。
+     */
+    private static final int ENVELOPE_PROBE_BYTES = 64;
+    private static final String SUCCESS_CODE_FIELD = "\"code\":200,";
+
+    private final ResponseCache responseCache;
+
+    public ResponseCacheFilter(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+            return chain.filter(exchange);
+        }
+        Duration ttl = responseCache.ttlFor(exchange.getRequest().getPath().pathWithinApplication());
+        if (ttl == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = responseCache.keyOf(exchange.getRequest());
+        CachedResponse cached = responseCache.get(key);
+        if (cached != null) {
+            responseCache.recordHit(cached.body().length);
+            return writeCached(exchange, cached);
+        }
+
+        responseCache.recordMiss();
+        return chain.filter(exchange.mutate()
+                .response(new CachingResponseDecorator(exchange, key, ttl))
+                .build());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.putAll(cached.headers());
+        headers.setETag(cached.etag());
+        headers.set(HEADER_CACHE_STATUS, "HIT");
+
+        if (ResponseCache.matchesIfNoneMatch(exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH),
+                cached.etag())) {
+            responseCache.recordNotModified(cached.body().length);
+            return writeNotModified(response);
+        }
+        response.setStatusCode(HttpStatus.OK);
+        headers.setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Mono<Void> writeNotModified(ServerHttpResponse response) {
+        markNotModified(response);
+        return response.setComplete();
+    }
+
+    private static void markNotModified(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        response.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+        response.getHeaders().remove(HttpHeaders.CONTENT_TYPE);
+    }
+
+    /**
+     * 判定下游响应是否允许进入共享缓存。
+     */
+    private static boolean isCacheable(ServerHttpResponse response) {
+        if (!HttpStatus.OK.equals(response.getStatusCode())) {
+            return false;
+        }
+        HttpHeaders headers = response.getHeaders();
+        if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null
+                || !(cacheControl.contains("no-store") || cacheControl.contains("private"));
+    }
+
+    /**
+     * JSON 响应要求业务码为 200：下游异常统一以 HTTP 200 + Result.code 返回，不能被缓存。
+     */
+    static boolean isSuccessEnvelope(MediaType contentType, byte[] body) {
+        if (contentType == null || !MediaType.APPLICATION_JSON.isCompatibleWith(contentType)) {
+            return true;
+        }
+        String head = new String(body, 0, Math.min(body.length, ENVELOPE_PROBE_BYTES), StandardCharsets.UTF_8);
+        return head.replace(" ", "").contains(SUCCESS_CODE_FIELD);
+    }
+
+    /**
+     * 回源响应装饰器：边转发边计数，响应体不超过单条缓存上限时写入缓存并补充 ETag，再原样下发。
+     */
+    private class CachingResponseDecorator extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final String key;
+        private final Duration ttl;
+
+        CachingResponseDecorator(ServerWebExchange exchange, String key, Duration ttl) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.key = key;
+            this.ttl = ttl;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            ServerHttpResponse delegate = getDelegate();
+            long limit = responseCache.maxEntryBytes();
+            if (!isCacheable(delegate) || delegate.getHeaders().getContentLength() > limit) {
+                delegate.getHeaders().set(HEADER_CACHE_STATUS, "BYPASS");
+                return super.writeWith(body);
+            }
+            BodyCapture capture = new BodyCapture(delegate, limit);
+            Flux<DataBuffer> forwarded = Flux.<DataBuffer>from(body)
+                    .concatMap(capture::onNext)
+                    .concatWith(Flux.defer(capture::onComplete))
+                    .doFinally(signal -> capture.release())
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+            return delegate.writeWith(forwarded);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMapSequential(p -> p));
+        }
+
+        /**
+         * 响应体暂存与计数：未超过上限时只暂存不下发，完整收到后一次性判定缓存；
+         * 一旦超过上限即切换为透传，之后的数据块不再暂存。
+         * 数据块由 concatMap 顺序送达，无需同步。
+         */
+        private final class BodyCapture {
+
+            private final ServerHttpResponse delegate;
+            private final long limit;
+            private final List<DataBuffer> pending = new ArrayList<>();
+            private long size;
+            private boolean bypassed;
+
+            BodyCapture(ServerHttpResponse delegate, long limit) {
+                this.delegate = delegate;
+                this.limit = limit;
+            }
+
+            Publisher<DataBuffer> onNext(DataBuffer buffer) {
+                if (bypassed) {
+                    return Mono.just(buffer);
+                }
+                pending.add(buffer);
+                size += buffer.readableByteCount();
+                if (size <= limit) {
+                    return Flux.empty();
+                }
+                // 响应头尚未提交，此时仍可标记 BYPASS
+                bypassed = true;
+                delegate.getHeaders().set(HEADER_CACHE_STATUS, "BYPASS");
+                List<DataBuffer> buffered = new ArrayList<>(pending);
+                pending.clear();
+                return Flux.fromIterable(buffered);
+            }
+
+            Publisher<DataBuffer> onComplete() {
+                if (bypassed) {
+                    return Flux.empty();
+                }
+                byte[] bytes = new byte[(int) size];
+                int offset = 0;
+                for (DataBuffer buffer : pending) {
+                    int length = buffer.readableByteCount();
+                    buffer.read(bytes, offset, length);
+                    offset += length;
+                    DataBufferUtils.release(buffer);
+                }
+                pending.clear();
+                return cacheAndRespond(delegate, bytes);
+            }
+
+            void release() {
+                pending.forEach(DataBufferUtils::release);
+                pending.clear();
+            }
+        }
+
+        /**
+         * 完整响应体已在上限内：写入缓存并补充 ETag；If-None-Match 命中时改为 304 不下发响应体。
+         */
+        private Publisher<DataBuffer> cacheAndRespond(ServerHttpResponse delegate, byte[] bytes) {
+            HttpHeaders headers = delegate.getHeaders();
+            CachedResponse entry = null;
+            if (isSuccessEnvelope(headers.getContentType(), bytes)) {
+                entry = responseCache.put(key, cachedHeaders(headers), bytes, ttl);
+            }
+            if (entry == null) {
+                headers.set(HEADER_CACHE_STATUS, "BYPASS");
+                return Mono.just(delegate.bufferFactory().wrap(bytes));
+            }
+
+            headers.setETag(entry.etag());
+            headers.set(HEADER_CACHE_STATUS, "MISS");
+            if (ResponseCache.matchesIfNoneMatch(
+                    exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH), entry.etag())) {
+                responseCache.recordNotModified(bytes.length);
+                markNotModified(delegate);
+                return Flux.empty();
+            }
+            return Mono.just(delegate.bufferFactory().wrap(bytes));
+        }
+
+        private HttpHeaders cachedHeaders(HttpHeaders source) {
+            HttpHeaders copy = new HttpHeaders();
+            for (String name : CACHED_HEADERS) {
+                List<String> values = source.get(name);
+                if (values != null) {
+                    copy.put(name, List.copyOf(values));
+                }
+            }
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.timing.RequestPhase;
+import com.eduplatform.gateway.timing.RequestTimings;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * 上游耗时计时过滤器：紧贴 NettyRoutingFilter 之前，测量从发起转发到收到下游响应头的时间。
+ * 说明：负载均衡选址在此之前完成，不计入 upstream；响应体传输计入 total。
+ * 缓存命中、被合并的请求不会走到这里，因此没有 upstream 阶段。WebSocket 长连接不计时。
+ */
+public class UpstreamTimingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = NettyRoutingFilter.ORDER - 2;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI requestUrl = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        String scheme = requestUrl != null ? requestUrl.getScheme() : null;
+        if (!"http".equals(scheme) && !"https".equals(scheme)) {
+            return chain.filter(exchange);
+        }
+        return RequestTimings.time(exchange, RequestPhase.UPSTREAM, chain.filter(exchange));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
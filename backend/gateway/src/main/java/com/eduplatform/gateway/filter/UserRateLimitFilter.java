@@ -0,0 +1,67 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.ratelimit.GcraRateLimiter;
+import com.eduplatform.gateway.ratelimit.RateLimitPolicy;
+import com.eduplatform.gateway.timing.RequestPhase;
+import com.eduplatform.gateway.timing.RequestTimings;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * 网关限流过滤器（鉴权后的用户分桶）。
+ * 设计意图：
+ * 1. 位于 JwtAuthFilter 之后，仅信任其写入的 exchange 属性，按用户 ID 分桶并使用角色配额，
+ *    不读取客户端可伪造的 X-User-Id 请求头。
+ * 2. 携带凭证但未识别出用户的请求（白名单接口、非 API 路径）在此补扣匿名 IP 桶，
+ *    避免附带任意 Authorization 头即可绕开匿名配额。
+ */
+public class UserRateLimitFilter implements GlobalFilter, Ordered {
+
+    /**
+     * 紧随鉴权过滤器之后执行，以便读取可信身份属性。
+     */
+    public static final int ORDER = JwtAuthFilter.ORDER + 1;
+
+    private final GcraRateLimiter limiter;
+    private final RateLimitPolicy policy;
+
+    public UserRateLimitFilter(GcraRateLimiter limiter, RateLimitPolicy policy) {
+        this.limiter = limiter;
+        this.policy = policy;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        RateLimitPolicy.Bucket bucket = resolveBucket(exchange);
+        if (bucket == null) {
+            return chain.filter(exchange);
+        }
+        return RequestTimings.measure(exchange, RequestPhase.RATE_LIMIT, chain,
+                next -> RateLimitFilter.enforce(limiter, bucket, exchange, next));
+    }
+
+    /**
+     * 选择限流桶，无需再扣减时返回 null。
+     */
+    RateLimitPolicy.Bucket resolveBucket(ServerWebExchange exchange) {
+        String userId = exchange.getAttribute(JwtAuthFilter.ATTR_USER_ID);
+        if (StringUtils.hasText(userId)) {
+            String role = exchange.getAttribute(JwtAuthFilter.ATTR_USER_ROLE);
+            return policy.resolveUser(exchange.getRequest().getPath().pathWithinApplication(), userId, role);
+        }
+        String clientIp = exchange.getAttribute(RateLimitFilter.ATTR_CLIENT_IP);
+        if (clientIp == null || Boolean.TRUE.equals(exchange.getAttribute(RateLimitFilter.ATTR_ANONYMOUS_CHARGED))) {
+            return null;
+        }
+        return policy.resolveClient(exchange.getRequest().getPath().pathWithinApplication(), clientIp, false);
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,83 @@
+package com.eduplatform.gateway.pubsub;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.util.StringUtils;
+import reactor.core.Disposable;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Redis Pub/Sub 通道订阅器基类。
+ * 设计意图：
+ * 1. 统一订阅、断线指数退避重订阅与停止逻辑，子类只处理消息内容。
+ * 2. 消息体约定为逗号分隔的列表，逐项（去空白、跳过空项）交给 {@link #onItem(String)}。
+ * 3. 未注入 RedisTemplate 时不订阅，由各缓存自身的 TTL 兜底。
+ */
+@Slf4j
+public abstract class RedisChannelSubscriber {
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String description;
+
+    private volatile Disposable subscription;
+
+    /**
+     * @param description 通道用途，用于日志（如"网关会话失效"）
+     */
+    protected RedisChannelSubscriber(ReactiveStringRedisTemplate redisTemplate, String channel, String description) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.description = description;
+    }
+
+    /**
+     * 启动订阅。
+     */
+    public void start() {
+        if (redisTemplate == null) {
+            log.warn("未注入 ReactiveStringRedisTemplate，{}推送不可用，仅依赖缓存 TTL 生效", description);
+            return;
+        }
+        subscription = redisTemplate.listenToChannel(channel)
+                .doOnSubscribe(s -> log.info("{}通道订阅成功: channel={}", description, channel))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("{}通道订阅中断，准备重连: channel={}, error={}",
+                                description, channel, signal.failure().getMessage())))
+                .subscribe(message -> handle(message.getMessage()),
+                        e -> log.error("{}通道订阅终止: channel={}", description, channel, e));
+    }
+
+    /**
+     * 停止订阅。
+     */
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    /**
+     * 处理一条通道消息：按逗号拆分后逐项回调。
+     */
+    public void handle(String payload) {
+        if (!StringUtils.hasText(payload)) {
+            return;
+        }
+        for (String item : payload.split(",")) {
+            String trimmed = item.trim();
+            if (StringUtils.hasText(trimmed)) {
+                onItem(trimmed);
+            }
+        }
+    }
+
+    /**
+     * 处理消息中的单项。
+     */
+    protected abstract void onItem(String item);
+}
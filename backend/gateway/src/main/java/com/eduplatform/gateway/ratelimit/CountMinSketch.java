@@ -0,0 +1,77 @@
+package com.eduplatform.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的 Count-Min Sketch。
+ * 设计意图：以固定 depth × width 个计数器近似统计任意多个不同键的出现次数，内存与键的基数无关；
+ * 估计值只会偏大不会偏小，误差上界约为 总次数 × e / width（置信度 1 - e^-depth）。
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int width;
+    private final AtomicLongArray counters;
+
+    public CountMinSketch(int depth, int width) {
+        if (depth <= 0 || width <= 0) {
+            throw new IllegalArgumentException("depth 与 width 必须为正数");
+        }
+        this.depth = depth;
+        this.width = width;
+        this.counters = new AtomicLongArray(depth * width);
+    }
+
+    /**
+     * 计数加一并返回该键当前的估计值。
+     */
+    public long add(String item) {
+        long hash = mix(item.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            long value = counters.incrementAndGet(row * width + index(h1, h2, row));
+            estimate = Math.min(estimate, value);
+        }
+        return estimate;
+    }
+
+    /**
+     * 查询该键的估计值。
+     */
+    public long estimate(String item) {
+        long hash = mix(item.hashCode());
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + index(h1, h2, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * 占用的计数器数量（用于容量评估）。
+     */
+    public int size() {
+        return counters.length();
+    }
+
+    /**
+     * 双重哈希：第 row 行下标 = h1 + row × h2，对 width 取模。
+     */
+    private int index(int h1, int h2, int row) {
+        return Math.floorMod(h1 + row * h2, width);
+    }
+
+    /**
+     * SplitMix64 终结函数，把 32 位 hashCode 扩散为 64 位，降低相近字符串的行间相关性。
+     */
+    private static long mix(int hashCode) {
+        long z = hashCode * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
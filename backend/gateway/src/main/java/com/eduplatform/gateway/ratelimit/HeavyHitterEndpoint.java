@@ -0,0 +1,33 @@
+package com.eduplatform.gateway.ratelimit;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 热点来源 Actuator 端点：/actuator/heavyhitters。
+ * 只读：查看当前窗口与上一窗口榜单及封禁表。
+ * 说明：榜单含客户端 IP，Actuator 不经 JwtAuthFilter，只在独立管理端口（management.server.port）上暴露，
+ * 不对外发布；同样不暴露解封等写操作，封禁到期自动解除。
+ */
+@Endpoint(id = "heavyhitters")
+public class HeavyHitterEndpoint {
+
+    private final HeavyHitterTracker tracker;
+
+    public HeavyHitterEndpoint(HeavyHitterTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @ReadOperation
+    public Map<String, Object> heavyHitters() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("current", tracker.currentSnapshot());
+        result.put("lastWindow", tracker.lastCompletedSnapshot());
+        result.put("banned", tracker.bannedClients());
+        result.put("sketchBytes", tracker.sketchBytes());
+        return result;
+    }
+}
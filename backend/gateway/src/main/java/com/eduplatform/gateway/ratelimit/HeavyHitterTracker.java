@@ -0,0 +1,246 @@
+package com.eduplatform.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * 网关热点来源（heavy hitter）追踪器。
+ * 设计意图：
+ * 1. 以 Count-Min Sketch + Top-K 按时间窗统计客户端键与请求路径，内存固定，与不同 IP 的数量无关。
+ *    路径先归一化为路由模板（ID 类路径段替换为 {id}），榜单按接口聚合而非按资源打散。
+ * 2. 窗口滚动时把上一窗口的计数按名次发布为 Prometheus 指标，仅打 rank 标签，基数恒为 K；
+ *    客户端 IP 等明细只在管理端口的 /actuator/heavyhitters 查看，不进入时序库。
+ * 3. 可选自动封禁：单窗口内请求数超过阈值的客户端在 N 分钟内直接拒绝，封禁表本身也有容量上限。
+ */
+@Slf4j
+public class HeavyHitterTracker {
+
+    /**
+     * 归一化后保留的最大路径段数，超出部分折叠为 /**。
+     */
+    private static final int MAX_PATH_SEGMENTS = 6;
+
+    /**
+     * 视为资源 ID 的路径段：纯数字、UUID、16 位以上十六进制串。
+     */
+    private static final Pattern ID_SEGMENT = Pattern.compile(
+            "\\d+|[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}|[0-9a-fA-F]{16,}");
+
+    /**
+     * 超过该长度的路径段视为令牌/哈希等变量。
+     */
+    private static final int MAX_SEGMENT_LENGTH = 32;
+
+    private final int depth;
+    private final int width;
+    private final int topK;
+    private final long windowMillis;
+    private final boolean autoBanEnabled;
+    private final long banThreshold;
+    private final Duration banDuration;
+
+    private final AtomicReference<Window> current;
+    private volatile Snapshot lastCompleted;
+    private final Cache<String, Long> bans;
+
+    private final MultiGauge topClientGauge;
+    private final MultiGauge topPathGauge;
+    private final Counter banCounter;
+
+    public HeavyHitterTracker(
+            int depth,
+            int width,
+            int topK,
+            Duration window,
+            boolean autoBanEnabled,
+            long banThreshold,
+            Duration banDuration,
+            long banMaxSize,
+            MeterRegistry meterRegistry) {
+        this.depth = depth;
+        this.width = width;
+        this.topK = topK;
+        this.windowMillis = Math.max(1000, window.toMillis());
+        this.autoBanEnabled = autoBanEnabled;
+        this.banThreshold = Math.max(1, banThreshold);
+        this.banDuration = banDuration;
+        this.current = new AtomicReference<>(newWindow(System.currentTimeMillis()));
+        this.lastCompleted = new Snapshot(0, 0, List.of(), List.of());
+        this.bans = Caffeine.newBuilder()
+                .expireAfterWrite(banDuration)
+                .maximumSize(Math.max(1, banMaxSize))
+                .build();
+
+        this.topClientGauge = MultiGauge.builder("gateway.ratelimit.heavy_hitter.client.requests")
+                .description("上一统计窗口请求数最高的客户端（按名次）")
+                .register(meterRegistry);
+        this.topPathGauge = MultiGauge.builder("gateway.ratelimit.heavy_hitter.path.requests")
+                .description("上一统计窗口请求数最高的路径（按名次）")
+                .register(meterRegistry);
+        this.banCounter = Counter.builder("gateway.ratelimit.heavy_hitter.bans")
+                .description("自动封禁次数")
+                .register(meterRegistry);
+        Gauge.builder("gateway.ratelimit.heavy_hitter.banned", bans, Cache::estimatedSize)
+                .description("当前处于封禁期的客户端数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次请求，并在达到阈值时触发自动封禁。
+     *
+     * @param path 原始请求路径，入 Sketch 前归一化为路由模板
+     */
+    public void record(String clientKey, String path) {
+        Window window = currentWindow(System.currentTimeMillis());
+
+        long clientCount = window.clients().add(clientKey);
+        window.topClients().offer(clientKey, clientCount);
+        String routePattern = normalizePath(path);
+        long pathCount = window.paths().add(routePattern);
+        window.topPaths().offer(routePattern, pathCount);
+
+        if (autoBanEnabled && clientCount >= banThreshold && bans.getIfPresent(clientKey) == null) {
+            bans.put(clientKey, System.currentTimeMillis() + banDuration.toMillis());
+            banCounter.increment();
+            log.warn("网关自动封禁热点客户端: key={}, windowCount={}, threshold={}, duration={}",
+                    clientKey, clientCount, banThreshold, banDuration);
+        }
+    }
+
+    /**
+     * 返回剩余封禁毫秒数，未封禁返回 0。
+     */
+    public long banRemainingMillis(String clientKey) {
+        Long bannedUntil = bans.getIfPresent(clientKey);
+        if (bannedUntil == null) {
+            return 0;
+        }
+        return Math.max(0, bannedUntil - System.currentTimeMillis());
+    }
+
+    /**
+     * 当前窗口（进行中）的榜单快照。
+     */
+    public Snapshot currentSnapshot() {
+        Window window = currentWindow(System.currentTimeMillis());
+        return new Snapshot(window.startMillis(), System.currentTimeMillis(),
+                window.topClients().snapshot(), window.topPaths().snapshot());
+    }
+
+    /**
+     * 上一个完整窗口的榜单快照。
+     */
+    public Snapshot lastCompletedSnapshot() {
+        return lastCompleted;
+    }
+
+    /**
+     * 当前封禁表：客户端键 -> 剩余秒数。
+     */
+    public Map<String, Long> bannedClients() {
+        long now = System.currentTimeMillis();
+        Map<String, Long> result = new LinkedHashMap<>();
+        bans.asMap().forEach((key, until) -> result.put(key, Math.max(0, (until - now) / 1000)));
+        return result;
+    }
+
+    /**
+     * Sketch 计数器占用字节数（两个维度），用于确认内存固定。
+     */
+    public long sketchBytes() {
+        return 2L * depth * width * Long.BYTES;
+    }
+
+    /**
+     * 将请求路径归一化为路由模板：ID 类路径段替换为 {id}，超长路径折叠为 /**。
+     * 例：/api/courses/123/chapters/9f1c...e2 -> /api/courses/{id}/chapters/{id}
+     */
+    static String normalizePath(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder pattern = new StringBuilder();
+        int segments = 0;
+        for (String segment : path.split("/")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (++segments > MAX_PATH_SEGMENTS) {
+                pattern.append("/**");
+                break;
+            }
+            pattern.append('/');
+            if (segment.length() > MAX_SEGMENT_LENGTH || ID_SEGMENT.matcher(segment).matches()) {
+                pattern.append("{id}");
+            } else {
+                pattern.append(segment);
+            }
+        }
+        return pattern.length() == 0 ? "/" : pattern.toString();
+    }
+
+    private Window currentWindow(long now) {
+        Window window = current.get();
+        if (now - window.startMillis() < windowMillis) {
+            return window;
+        }
+        Window fresh = newWindow(now);
+        if (current.compareAndSet(window, fresh)) {
+            publish(window, now);
+            return fresh;
+        }
+        return current.get();
+    }
+
+    /**
+     * 窗口滚动：保存上一窗口快照并刷新按名次打标的指标（overwrite 会移除旧名次行）。
+     * 指标只打 rank 标签：客户端键含 IP 属于个人信息，且取值无界，不能作为标签进入时序库。
+     */
+    private void publish(Window window, long endMillis) {
+        Snapshot snapshot = new Snapshot(window.startMillis(), endMillis,
+                window.topClients().snapshot(), window.topPaths().snapshot());
+        lastCompleted = snapshot;
+        topClientGauge.register(toRows(snapshot.topClients()), true);
+        topPathGauge.register(toRows(snapshot.topPaths()), true);
+    }
+
+    private List<MultiGauge.Row<?>> toRows(List<TopK.Entry> entries) {
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            TopK.Entry entry = entries.get(i);
+            rows.add(MultiGauge.Row.of(Tags.of("rank", String.valueOf(i + 1)), entry.count()));
+        }
+        return rows;
+    }
+
+    private Window newWindow(long startMillis) {
+        return new Window(startMillis,
+                new CountMinSketch(depth, width), new TopK(topK),
+                new CountMinSketch(depth, width), new TopK(topK));
+    }
+
+    private record Window(long startMillis, CountMinSketch clients, TopK topClients,
+                          CountMinSketch paths, TopK topPaths) {
+    }
+
+    /**
+     * 榜单快照。
+     */
+    public record Snapshot(long windowStartMillis, long windowEndMillis,
+                           List<TopK.Entry> topClients, List<TopK.Entry> topPaths) {
+    }
+}
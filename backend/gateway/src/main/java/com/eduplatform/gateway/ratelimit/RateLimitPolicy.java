@@ -0,0 +1,185 @@
+package com.eduplatform.gateway.ratelimit;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 网关限流策略（启动时预编译，运行期只读）。
+ * 设计意图：
+ * 1. 按路由计费：导出等重接口消耗多个许可，心跳等轻接口消耗 1 个。
+ * 2. 按身份分桶：已登录请求以用户 ID 为键并按角色分级配额；仅匿名请求以客户端 IP 为键，
+ *    避免同一 NAT 出口下的整间教室被一起限流。
+ * 3. 两段限流：鉴权前按 IP 预限流（未携带凭证走匿名配额，携带凭证走更宽的 NAT 出口配额），
+ *    令无效或过期 token 的请求在解析 JWT 前即受限；鉴权通过后再按用户分桶。
+ * 4. 查找开销恒定：字面量路径走 HashMap，通配路径使用预解析的 PathPattern 顺序匹配（规则数通常个位数）。
+ */
+public final class RateLimitPolicy {
+
+    private static final PathPatternParser PATTERN_PARSER = PathPatternParser.defaultInstance;
+
+    private final int anonymousPermits;
+    private final int credentialedIpPermits;
+    private final int defaultUserPermits;
+    private final Map<String, Integer> rolePermits;
+    private final Map<String, Integer> literalCosts;
+    private final List<PatternCost> patternCosts;
+
+    private RateLimitPolicy(
+            int anonymousPermits,
+            int credentialedIpPermits,
+            int defaultUserPermits,
+            Map<String, Integer> rolePermits,
+            Map<String, Integer> literalCosts,
+            List<PatternCost> patternCosts) {
+        this.anonymousPermits = anonymousPermits;
+        this.credentialedIpPermits = credentialedIpPermits;
+        this.defaultUserPermits = defaultUserPermits;
+        this.rolePermits = rolePermits;
+        this.literalCosts = literalCosts;
+        this.patternCosts = patternCosts;
+    }
+
+    /**
+     * 统一策略：所有请求消耗 1 个许可、所有身份同一配额（兼容旧版单一 permitsPerSecond 配置）。
+     */
+    public static RateLimitPolicy uniform(int permits) {
+        return compile(permits, permits, Collections.emptyMap(), Collections.emptyMap());
+    }
+
+    /**
+     * 编译策略，携带凭证请求的 IP 预限流与匿名请求使用相同配额。
+     */
+    public static RateLimitPolicy compile(
+            int anonymousPermits,
+            int defaultUserPermits,
+            Map<String, Integer> rolePermits,
+            Map<String, Integer> routeCosts) {
+        return compile(anonymousPermits, anonymousPermits, defaultUserPermits, rolePermits, routeCosts);
+    }
+
+    /**
+     * 编译策略。
+     *
+     * @param anonymousPermits      匿名请求（按 IP）窗口内许可数
+     * @param credentialedIpPermits 携带凭证的请求在鉴权前按 IP 预限流的窗口内许可数（同一 NAT 出口共享）
+     * @param defaultUserPermits    已登录但角色未单独配置时的窗口内许可数
+     * @param rolePermits           角色 -> 窗口内许可数（角色名大小写不敏感）
+     * @param routeCosts            路由模式 -> 单次请求消耗许可数，按配置顺序匹配，先命中者生效
+     * @throws IllegalArgumentException 某路由的消耗超过最小的桶容量（GCRA 永远无法放行，路由将恒定 429）
+     */
+    public static RateLimitPolicy compile(
+            int anonymousPermits,
+            int credentialedIpPermits,
+            int defaultUserPermits,
+            Map<String, Integer> rolePermits,
+            Map<String, Integer> routeCosts) {
+        Map<String, Integer> roles = new HashMap<>();
+        rolePermits.forEach((role, permits) -> roles.put(role.trim().toLowerCase(Locale.ROOT), Math.max(1, permits)));
+
+        int minPermits = Math.max(1, Math.min(Math.min(anonymousPermits, credentialedIpPermits), defaultUserPermits));
+        for (int permits : roles.values()) {
+            minPermits = Math.min(minPermits, permits);
+        }
+
+        Map<String, Integer> literals = new HashMap<>();
+        List<PatternCost> patterns = new ArrayList<>();
+        int bucketCapacity = minPermits;
+        routeCosts.forEach((route, cost) -> {
+            String trimmed = route.trim();
+            int normalizedCost = Math.max(1, cost);
+            if (normalizedCost > bucketCapacity) {
+                throw new IllegalArgumentException("限流策略配置错误：路由 " + trimmed + " 的消耗 " + normalizedCost
+                        + " 超过最小桶容量 " + bucketCapacity + "，该路由将永远被限流");
+            }
+            PathPattern pattern = PATTERN_PARSER.parse(trimmed);
+            if (pattern.hasPatternSyntax()) {
+                patterns.add(new PatternCost(pattern, normalizedCost));
+            } else {
+                literals.putIfAbsent(trimmed, normalizedCost);
+            }
+        });
+
+        return new RateLimitPolicy(
+                Math.max(1, anonymousPermits),
+                Math.max(1, credentialedIpPermits),
+                Math.max(1, defaultUserPermits),
+                Map.copyOf(roles),
+                Map.copyOf(literals),
+                List.copyOf(patterns));
+    }
+
+    /**
+     * 选择限流桶。
+     *
+     * @param path     请求路径（应用内路径）
+     * @param userId   网关已认证的用户 ID，匿名请求传 null
+     * @param role     网关已认证的角色，匿名请求传 null
+     * @param clientIp 客户端地址（仅匿名请求使用）
+     */
+    public Bucket resolve(PathContainer path, String userId, String role, String clientIp) {
+        if (StringUtils.hasText(userId)) {
+            return resolveUser(path, userId, role);
+        }
+        return resolveClient(path, clientIp, false);
+    }
+
+    /**
+     * 鉴权前按客户端 IP 选桶。
+     *
+     * @param credentialed 请求是否携带凭证（Bearer Token / WebSocket token）；携带时使用 NAT 出口配额，
+     *                     匿名配额留待鉴权后未识别出用户时再扣
+     */
+    public Bucket resolveClient(PathContainer path, String clientIp, boolean credentialed) {
+        int cost = costOf(path);
+        if (credentialed) {
+            return new Bucket("ip-auth:" + clientIp, credentialedIpPermits, cost);
+        }
+        return new Bucket("ip:" + clientIp, anonymousPermits, cost);
+    }
+
+    /**
+     * 鉴权后按用户 ID 选桶，角色未单独配置时使用已登录默认配额。
+     */
+    public Bucket resolveUser(PathContainer path, String userId, String role) {
+        Integer permits = role == null ? null : rolePermits.get(role.toLowerCase(Locale.ROOT));
+        return new Bucket("user:" + userId, permits != null ? permits : defaultUserPermits, costOf(path));
+    }
+
+    /**
+     * 计算路由消耗的许可数，未配置的路由消耗 1 个。
+     */
+    int costOf(PathContainer path) {
+        Integer literal = literalCosts.get(path.value());
+        if (literal != null) {
+            return literal;
+        }
+        for (PatternCost patternCost : patternCosts) {
+            if (patternCost.pattern().matches(path)) {
+                return patternCost.cost();
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * 限流桶。
+     *
+     * @param key     限流键（user:{id} 或 ip:{addr}）
+     * @param permits 该桶在一个窗口内的许可数（亦为突发容量）
+     * @param cost    本次请求消耗的许可数
+     */
+    public record Bucket(String key, int permits, int cost) {
+    }
+
+    private record PatternCost(PathPattern pattern, int cost) {
+    }
+}
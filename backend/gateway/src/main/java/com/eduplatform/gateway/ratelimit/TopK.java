@@ -0,0 +1,68 @@
+package com.eduplatform.gateway.ratelimit;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 固定容量的 Top-K 候选集，配合 Count-Min Sketch 的估计值使用。
+ * 设计意图：绝大多数请求的估计值低于当前第 K 名，只读一次 volatile 门槛即可返回，
+ * 只有可能进榜的请求才进入同步块，保证热路径无锁。
+ */
+public final class TopK {
+
+    private final int capacity;
+    private final Map<String, Long> counts;
+    private volatile long admissionThreshold;
+
+    public TopK(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.counts = new HashMap<>(this.capacity * 2);
+    }
+
+    /**
+     * 以最新估计值尝试更新榜单。
+     */
+    public void offer(String key, long estimate) {
+        if (estimate <= admissionThreshold) {
+            return;
+        }
+        synchronized (this) {
+            if (counts.containsKey(key) || counts.size() < capacity) {
+                counts.put(key, estimate);
+            } else {
+                String minKey = null;
+                long minCount = Long.MAX_VALUE;
+                for (Map.Entry<String, Long> entry : counts.entrySet()) {
+                    if (entry.getValue() < minCount) {
+                        minCount = entry.getValue();
+                        minKey = entry.getKey();
+                    }
+                }
+                if (estimate <= minCount) {
+                    return;
+                }
+                counts.remove(minKey);
+                counts.put(key, estimate);
+            }
+            if (counts.size() >= capacity) {
+                admissionThreshold = counts.values().stream().mapToLong(Long::longValue).min().orElse(0);
+            }
+        }
+    }
+
+    /**
+     * 按计数降序返回榜单快照。
+     */
+    public synchronized List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>(counts.size());
+        counts.forEach((key, count) -> entries.add(new Entry(key, count)));
+        entries.sort(Comparator.comparingLong(Entry::count).reversed());
+        return entries;
+    }
+
+    public record Entry(String key, long count) {
+    }
+}
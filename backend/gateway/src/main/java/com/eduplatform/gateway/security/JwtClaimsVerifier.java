@@ -0,0 +1,111 @@
+package com.eduplatform.gateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 网关 JWT 验签器。
+ * 设计意图：
+ * 1. 签名密钥与 JwtParser 仅构建一次，JwtParser 本身线程安全，可在事件循环线程间共享。
+ * 2. 对已验签通过的 token 以 SHA-256 摘要为键缓存 Claims，过期时间与 token 的 exp 对齐，
+ *    重复请求只需一次摘要计算，跳过 Base64 解码、JSON 解析与 HMAC 校验。
+ * 3. 验签失败的 token 不进入缓存，异常原样抛给调用方。
+ */
+public class JwtClaimsVerifier {
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前 JVM 不支持 SHA-256", e);
+        }
+    });
+
+    private final JwtParser parser;
+    private final Cache<String, Claims> verifiedClaims;
+
+    /**
+     * @param secret   JWT 签名密钥
+     * @param maxSize  已验签缓存容量，小于等于 0 表示关闭缓存
+     * @param maxTtl   缓存条目最长存活时间（token 无 exp 或 exp 过远时生效）
+     */
+    public JwtClaimsVerifier(String secret, long maxSize, Duration maxTtl) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.verifiedClaims = maxSize <= 0 ? null : Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new ExpireAtTokenExp(maxTtl.toNanos()))
+                .build();
+    }
+
+    /**
+     * 验签并返回 Claims；命中已验签缓存时直接返回。
+     *
+     * @throws io.jsonwebtoken.JwtException token 无效、签名不符或已过期
+     */
+    public Claims verify(String token) {
+        if (verifiedClaims == null) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+        String digest = digest(token);
+        Claims cached = verifiedClaims.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        verifiedClaims.put(digest, claims);
+        return claims;
+    }
+
+    /**
+     * 已验签缓存条目估算值（用于监控与测试）。
+     */
+    public long cachedSize() {
+        return verifiedClaims == null ? 0 : verifiedClaims.estimatedSize();
+    }
+
+    private static String digest(String token) {
+        MessageDigest md = SHA256.get();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    /**
+     * 条目在 token 的 exp 到期时失效，且不超过配置的最长存活时间。
+     */
+    private record ExpireAtTokenExp(long maxTtlNanos) implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return maxTtlNanos;
+            }
+            long remainingNanos = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(remainingNanos, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.eduplatform.gateway.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+/**
+ * 可信用户头签名器。
+ * 设计意图：Mac 实例非线程安全，按线程持有已 init 的实例（网关事件循环线程数固定且较少），
+ * 避免每个请求重复执行 Mac.getInstance 与 init 带来的查找与密钥调度开销。
+ * 签名格式需与 common 模块 GatewayUserHeaderSignatureFilter 的校验逻辑保持一致。
+ */
+public class UserHeaderSigner {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<Mac> threadMac;
+
+    public UserHeaderSigner(String secret) {
+        SecretKeySpec keySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.threadMac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(keySpec);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("初始化身份签名 Mac 失败", e);
+            }
+        });
+    }
+
+    /**
+     * 生成 userId|username|role|ts 的 HMAC-SHA256 签名（URL 安全 Base64，无填充）。
+     */
+    public String sign(String userId, String username, String role, long ts) {
+        String payload = userId + "|" + username + "|" + role + "|" + ts;
+        // doFinal 会自动 reset，线程内复用无需额外清理。
+        byte[] digest = threadMac.get().doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+}
@@ -0,0 +1,32 @@
+package com.eduplatform.gateway.session;
+
+import com.eduplatform.gateway.pubsub.RedisChannelSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+
+/**
+ * 会话失效推送订阅器。
+ * 设计意图：user-service 在登出/踢下线时向 Redis Pub/Sub 通道发布 jti，
+ * 网关各实例订阅后立即写入本地失效墓碑，使撤销不必等待缓存 TTL。
+ * 连接中断时按指数退避自动重订阅，期间由缓存硬 TTL 兜底。
+ * 消息体为逗号分隔的 jti 列表，兼容批量踢下线。
+ */
+@Slf4j
+public class SessionInvalidationSubscriber extends RedisChannelSubscriber {
+
+    private final SessionValidityCache sessionValidityCache;
+
+    public SessionInvalidationSubscriber(
+            ReactiveStringRedisTemplate redisTemplate,
+            SessionValidityCache sessionValidityCache,
+            String channel) {
+        super(redisTemplate, channel, "网关会话失效");
+        this.sessionValidityCache = sessionValidityCache;
+    }
+
+    @Override
+    protected void onItem(String jti) {
+        sessionValidityCache.invalidate(jti);
+        log.debug("网关会话缓存已失效: jti={}", jti);
+    }
+}
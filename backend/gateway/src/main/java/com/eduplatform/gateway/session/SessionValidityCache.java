@@ -0,0 +1,162 @@
+package com.eduplatform.gateway.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 网关本地会话有效性缓存。
+ * 设计意图：
+ * 1. 以 jti 为键缓存 user-service validate-token 的结论，仅在未命中时才回源，削减网关到 user-service 的同步调用。
+ * 2. 条目分为软/硬两级 TTL：超过软 TTL 的命中记为 stale hit，立即返回旧结论并在后台异步复核。
+ * 3. 登出/踢下线通过推送通道写入失效墓碑，保证撤销即时生效，不依赖 TTL 自然过期。
+ */
+@Slf4j
+public class SessionValidityCache {
+
+    private static final String METRIC_REQUESTS = "gateway.session.cache.requests";
+    private static final String METRIC_REVALIDATIONS = "gateway.session.cache.revalidations";
+    private static final String METRIC_INVALIDATIONS = "gateway.session.cache.invalidations";
+    private static final String METRIC_SIZE = "gateway.session.cache.size";
+
+    private final Cache<String, Entry> cache;
+    private final boolean enabled;
+    private final long softTtlNanos;
+    private final Set<String> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+    private final Counter hitCounter;
+    private final Counter staleHitCounter;
+    private final Counter missCounter;
+    private final Counter revalidationCounter;
+    private final Counter invalidationCounter;
+
+    public SessionValidityCache(
+            boolean enabled,
+            Duration ttl,
+            Duration softTtl,
+            long maxSize,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.softTtlNanos = Math.min(softTtl.toNanos(), ttl.toNanos());
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build();
+
+        this.hitCounter = Counter.builder(METRIC_REQUESTS)
+                .description("网关会话缓存查询次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.staleHitCounter = Counter.builder(METRIC_REQUESTS)
+                .description("网关会话缓存查询次数")
+                .tag("result", "stale_hit")
+                .register(meterRegistry);
+        this.missCounter = Counter.builder(METRIC_REQUESTS)
+                .description("网关会话缓存查询次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.revalidationCounter = Counter.builder(METRIC_REVALIDATIONS)
+                .description("stale hit 触发的后台回源复核次数")
+                .register(meterRegistry);
+        this.invalidationCounter = Counter.builder(METRIC_INVALIDATIONS)
+                .description("收到的会话失效推送次数")
+                .register(meterRegistry);
+        Gauge.builder(METRIC_SIZE, cache, Cache::estimatedSize)
+                .description("网关会话缓存条目数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 查询会话有效性：命中直接返回，未命中调用 loader 回源。
+     * 说明：loader 返回 error 时不写缓存，由调用方决定降级策略；回源结论为无效时也不缓存，避免下游短暂故障放大为长时间拒绝。
+     *
+     * @param jti    JWT 唯一标识，为空时不走缓存
+     * @param loader 回源校验（validate-token 调用）
+     * @return 会话是否有效
+     */
+    public Mono<Boolean> get(String jti, Supplier<Mono<Boolean>> loader) {
+        if (!enabled || !StringUtils.hasText(jti)) {
+            return loader.get();
+        }
+
+        Entry entry = cache.getIfPresent(jti);
+        if (entry == null) {
+            missCounter.increment();
+            return loader.get().doOnNext(valid -> {
+                if (Boolean.TRUE.equals(valid)) {
+                    putIfNotRevoked(jti);
+                }
+            });
+        }
+
+        if (entry.valid() && System.nanoTime() - entry.cachedAtNanos() > softTtlNanos) {
+            staleHitCounter.increment();
+            refreshInBackground(jti, loader);
+        } else {
+            hitCounter.increment();
+        }
+        return Mono.just(entry.valid());
+    }
+
+    /**
+     * 失效指定会话：写入墓碑而非直接删除，避免在途回源把已撤销的 jti 重新写回为有效。
+     */
+    public void invalidate(String jti) {
+        if (!StringUtils.hasText(jti)) {
+            return;
+        }
+        cache.put(jti, new Entry(false, System.nanoTime()));
+        invalidationCounter.increment();
+    }
+
+    /**
+     * 当前缓存条目估算值（用于监控与测试）。
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 后台复核：同一 jti 同时只允许一个复核请求在途。
+     */
+    private void refreshInBackground(String jti, Supplier<Mono<Boolean>> loader) {
+        if (!refreshingKeys.add(jti)) {
+            return;
+        }
+        revalidationCounter.increment();
+        loader.get()
+                .doFinally(signal -> refreshingKeys.remove(jti))
+                .subscribe(valid -> {
+                    if (Boolean.TRUE.equals(valid)) {
+                        putIfNotRevoked(jti);
+                    } else {
+                        cache.put(jti, new Entry(false, System.nanoTime()));
+                    }
+                }, e -> log.warn("网关会话缓存后台复核失败，保留旧结论至硬过期: jti={}, error={}", jti, e.getMessage()));
+    }
+
+    /**
+     * 仅在没有失效墓碑时写入有效结论。
+     */
+    private void putIfNotRevoked(String jti) {
+        cache.asMap().compute(jti, (key, existing) -> {
+            if (existing != null && !existing.valid()) {
+                return existing;
+            }
+            return new Entry(true, System.nanoTime());
+        });
+    }
+
+    private record Entry(boolean valid, long cachedAtNanos) {
+    }
+}
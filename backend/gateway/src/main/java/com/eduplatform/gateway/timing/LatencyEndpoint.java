@@ -0,0 +1,31 @@
+package com.eduplatform.gateway.timing;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.Map;
+
+/**
+ * 网关分阶段延迟 Actuator 端点：/actuator/latency、/actuator/latency/{route}。
+ * 只读：按路由查看各阶段当前统计窗口内的 p50/p99/p999，长期趋势以 Prometheus 为准。
+ */
+@Endpoint(id = "latency")
+public class LatencyEndpoint {
+
+    private final LatencyRecorder recorder;
+
+    public LatencyEndpoint(LatencyRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Map<String, Map<String, Object>>>> latency() {
+        return recorder.snapshot();
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Map<String, Object>>> route(@Selector String route) {
+        return recorder.snapshot().getOrDefault(route, Map.of());
+    }
+}
@@ -0,0 +1,132 @@
+package com.eduplatform.gateway.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关分阶段延迟指标：gateway.request.phase{route, phase, status}。
+ * 设计意图：
+ * 1. 客户端分位数（p50/p99/p999）由 Micrometer 基于 HdrHistogram 的滑动窗口直方图计算，
+ *    供 /actuator/latency 实时查看；SLO 桶同时导出到 Prometheus，可跨实例 histogram_quantile 聚合。
+ * 2. 标签基数有上限：route 只取网关路由 id，超过 max-routes 后新路由统一记为 other；
+ *    status 只保留状态码类别（2xx/4xx 等），phase 为固定枚举。
+ */
+public class LatencyRecorder {
+
+    public static final String METRIC_NAME = "gateway.request.phase";
+
+    static final String NO_ROUTE = "none";
+    static final String OTHER_ROUTE = "other";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry meterRegistry;
+    private final int maxRoutes;
+    private final Duration[] serviceLevelObjectives;
+    private final Duration statisticExpiry;
+    private final Set<String> routes = ConcurrentHashMap.newKeySet();
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public LatencyRecorder(
+            MeterRegistry meterRegistry,
+            int maxRoutes,
+            List<Duration> serviceLevelObjectives,
+            Duration statisticExpiry) {
+        this.meterRegistry = meterRegistry;
+        this.maxRoutes = Math.max(1, maxRoutes);
+        this.serviceLevelObjectives = serviceLevelObjectives.toArray(new Duration[0]);
+        this.statisticExpiry = statisticExpiry;
+    }
+
+    public void record(String routeId, String statusClass, RequestPhase phase, long nanos) {
+        TimerKey key = new TimerKey(routeTag(routeId), phase, statusClass);
+        timers.computeIfAbsent(key, this::newTimer).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 当前统计窗口内的分位数视图：route -> phase -> status -> {count, p50Ms, p99Ms, p999Ms, maxMs}。
+     */
+    public Map<String, Map<String, Map<String, Map<String, Object>>>> snapshot() {
+        Map<String, Map<String, Map<String, Map<String, Object>>>> result = new TreeMap<>();
+        timers.forEach((key, timer) -> {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("count", snapshot.count());
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                view.put(percentileName(percentile.percentile()), round(percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            view.put("maxMs", round(snapshot.max(TimeUnit.MILLISECONDS)));
+            result.computeIfAbsent(key.route(), route -> new TreeMap<>())
+                    .computeIfAbsent(key.phase().tag(), phase -> new TreeMap<>())
+                    .put(key.status(), view);
+        });
+        return result;
+    }
+
+    /**
+     * 将 HTTP 状态码折叠为类别标签，未产生状态码时记为 unknown。
+     */
+    public static String statusClass(Integer status) {
+        if (status == null || status < 100 || status > 599) {
+            return "unknown";
+        }
+        return (status / 100) + "xx";
+    }
+
+    String routeTag(String routeId) {
+        if (routeId == null) {
+            return NO_ROUTE;
+        }
+        if (routes.contains(routeId)) {
+            return routeId;
+        }
+        // 并发时可能略超上限，不影响基数有界
+        if (routes.size() < maxRoutes) {
+            routes.add(routeId);
+            return routeId;
+        }
+        return OTHER_ROUTE;
+    }
+
+    private Timer newTimer(TimerKey key) {
+        return Timer.builder(METRIC_NAME)
+                .description("网关请求分阶段耗时")
+                .tag("route", key.route())
+                .tag("phase", key.phase().tag())
+                .tag("status", key.status())
+                .publishPercentiles(PERCENTILES)
+                .percentilePrecision(2)
+                .serviceLevelObjectives(serviceLevelObjectives)
+                .distributionStatisticExpiry(statisticExpiry)
+                .distributionStatisticBufferLength(3)
+                .register(meterRegistry);
+    }
+
+    private static String percentileName(double percentile) {
+        if (percentile == 0.5) {
+            return "p50Ms";
+        }
+        if (percentile == 0.99) {
+            return "p99Ms";
+        }
+        return "p999Ms";
+    }
+
+    private static double round(double millis) {
+        return Math.round(millis * 100) / 100.0;
+    }
+
+    private record TimerKey(String route, RequestPhase phase, String status) {
+    }
+}
@@ -0,0 +1,24 @@
+package com.eduplatform.gateway.timing;
+
+/**
+ * 网关请求处理阶段，作为延迟指标的 phase 标签。
+ * 说明：session-validate 是 auth 的子阶段（auth 包含会话校验耗时），total 为网关内端到端耗时。
+ */
+public enum RequestPhase {
+
+    AUTH("auth"),
+    SESSION_VALIDATE("session-validate"),
+    RATE_LIMIT("rate-limit"),
+    UPSTREAM("upstream"),
+    TOTAL("total");
+
+    private final String tag;
+
+    RequestPhase(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return tag;
+    }
+}
@@ -0,0 +1,81 @@
+package com.eduplatform.gateway.timing;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 单个请求的分阶段耗时累加器，挂在 exchange 属性上，由 RequestTimingFilter 在请求结束时统一上报。
+ * 说明：未启用延迟指标时属性不存在，各静态方法直接透传，不产生额外开销。
+ */
+public final class RequestTimings {
+
+    public static final String ATTR = RequestTimings.class.getName();
+
+    private static final long NOT_RECORDED = -1L;
+
+    private final long[] phaseNanos = new long[RequestPhase.values().length];
+
+    public RequestTimings() {
+        Arrays.fill(phaseNanos, NOT_RECORDED);
+    }
+
+    public synchronized void add(RequestPhase phase, long nanos) {
+        int index = phase.ordinal();
+        phaseNanos[index] = phaseNanos[index] == NOT_RECORDED ? nanos : phaseNanos[index] + nanos;
+    }
+
+    /**
+     * 返回阶段累计耗时，本次请求未经过该阶段时返回 -1。
+     */
+    public synchronized long nanos(RequestPhase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * 计时一个过滤器阶段：到调用下一个过滤器为止；请求在本阶段被拒绝时计时到本阶段结束。
+     */
+    public static Mono<Void> measure(
+            ServerWebExchange exchange,
+            RequestPhase phase,
+            GatewayFilterChain chain,
+            Function<GatewayFilterChain, Mono<Void>> stage) {
+        RequestTimings timings = exchange.getAttribute(ATTR);
+        if (timings == null) {
+            return stage.apply(chain);
+        }
+        long startNanos = System.nanoTime();
+        AtomicBoolean stopped = new AtomicBoolean();
+        Runnable stop = () -> {
+            if (stopped.compareAndSet(false, true)) {
+                timings.add(phase, System.nanoTime() - startNanos);
+            }
+        };
+        GatewayFilterChain timedChain = next -> {
+            stop.run();
+            return chain.filter(next);
+        };
+        // 在结束信号传给外层之前停表：doFinally 晚于外层 RequestTimingFilter 的上报，被拒绝的请求会漏记本阶段
+        return stage.apply(timedChain)
+                .doOnTerminate(stop)
+                .doOnCancel(stop);
+    }
+
+    /**
+     * 计时一个异步调用（从订阅到结束），如会话校验回源。
+     */
+    public static <T> Mono<T> time(ServerWebExchange exchange, RequestPhase phase, Mono<T> source) {
+        RequestTimings timings = exchange.getAttribute(ATTR);
+        if (timings == null) {
+            return source;
+        }
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return source.doFinally(signal -> timings.add(phase, System.nanoTime() - startNanos));
+        });
+    }
+}
@@ -0,0 +1,34 @@
+-- 网关 GCRA 限流脚本：单次 EVALSHA 内完成判定、状态写入与 TTL 设置。
+-- KEYS[1]: 限流键（存放理论到达时间 TAT，毫秒）
+-- ARGV[1]: 发射间隔（毫秒，可为小数）= 窗口毫秒 / 窗口内许可数
+-- ARGV[2]: 突发容量（许可数）
+-- ARGV[3]: 本次请求消耗的许可数
+-- 返回: {是否放行(1/0), 剩余许可, 需等待毫秒, 距桶完全恢复毫秒}
+local key = KEYS[1]
+local interval = tonumber(ARGV[1])
+local burst = tonumber(ARGV[2])
+local cost = tonumber(ARGV[3])
+
+-- 以 Redis 服务器时间为准，避免多个网关实例之间的时钟漂移。
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local tat = tonumber(redis.call('GET', key))
+if tat == nil or tat < now then
+  tat = now
+end
+
+local tolerance = interval * burst
+local new_tat = tat + interval * cost
+local allow_at = new_tat - tolerance
+
+if allow_at > now then
+  local remaining = math.floor((now + tolerance - tat) / interval)
+  if remaining < 0 then
+    remaining = 0
+  end
+  return {0, remaining, math.ceil(allow_at - now), math.ceil(tat - now)}
+end
+
+redis.call('SET', key, string.format('%.3f', new_tat), 'PX', math.ceil(new_tat - now) + 1)
+return {1, math.floor((now + tolerance - new_tat) / interval), 0, math.ceil(new_tat - now)}
@@ -0,0 +1,107 @@
+package com.eduplatform.gateway.benchmark;
+
+import com.eduplatform.gateway.security.JwtClaimsVerifier;
+import com.eduplatform.gateway.security.UserHeaderSigner;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtAuthFilter 验签路径基准：逐请求重建 parser/key/Mac 的旧实现 vs 预构建 + 已验签缓存的新实现。
+ * 运行方式：mvn -pl gateway test-compile 后执行本类 main 方法（或加 -prof gc 观察分配速率）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String JWT_SECRET = "0123456789abcdef0123456789abcdef";
+    private static final String INTERNAL_TOKEN = "internal-token-for-benchmark";
+
+    private String token;
+    private JwtClaimsVerifier cachedVerifier;
+    private JwtClaimsVerifier uncachedVerifier;
+    private UserHeaderSigner headerSigner;
+
+    @Setup
+    public void setUp() {
+        token = Jwts.builder()
+                .claim("id", 101L)
+                .claim("username", "bob")
+                .claim("role", "teacher")
+                .id("3f2b9c0d4e5a46b7a8c9d0e1f2a3b4c5")
+                .expiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                .signWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        cachedVerifier = new JwtClaimsVerifier(JWT_SECRET, 50_000, Duration.ofMinutes(5));
+        uncachedVerifier = new JwtClaimsVerifier(JWT_SECRET, 0, Duration.ofMinutes(5));
+        headerSigner = new UserHeaderSigner(INTERNAL_TOKEN);
+    }
+
+    /**
+     * 旧路径：每次请求重建密钥与 parser，并新建 Mac 实例签名。
+     */
+    @Benchmark
+    public String legacyPerRequest() throws Exception {
+        Claims claims = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(JWT_SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(INTERNAL_TOKEN.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        String payload = claims.get("id") + "|" + claims.get("username") + "|" + claims.get("role") + "|" + 1L;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 预构建 parser + 线程内复用 Mac，不启用已验签缓存（首次出现的 token）。
+     */
+    @Benchmark
+    public String prebuiltParserOnly() {
+        Claims claims = uncachedVerifier.verify(token);
+        return headerSigner.sign(String.valueOf(claims.get("id")),
+                String.valueOf(claims.get("username")), String.valueOf(claims.get("role")), 1L);
+    }
+
+    /**
+     * 预构建 parser + 线程内复用 Mac + 已验签缓存命中（同一会话的后续请求）。
+     */
+    @Benchmark
+    public String prebuiltWithVerifiedCache() {
+        Claims claims = cachedVerifier.verify(token);
+        return headerSigner.sign(String.valueOf(claims.get("id")),
+                String.valueOf(claims.get("username")), String.valueOf(claims.get("role")), 1L);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtVerificationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.eduplatform.gateway.concurrency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Gradient2Limit 调整方向与 AdaptiveConcurrencyLimiter 优先级准入测试。
+ */
+@DisplayName("AdaptiveConcurrencyLimiter 单元测试")
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long BASE_RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @Test
+    @DisplayName("延迟稳定且并发用满-上限逐步增长")
+    void limitShouldGrowWhenLatencyIsStable() {
+        Gradient2Limit limit = new Gradient2Limit(20, 5, 200, 1.5, 0.2, 4, 600);
+
+        for (int i = 0; i < 50; i++) {
+            limit.update(BASE_RTT, limit.getLimit());
+        }
+
+        assertTrue(limit.getLimit() > 40, "limit=" + limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("下游 RTT 翻数倍-上限收缩但不低于下限")
+    void limitShouldShrinkWhenLatencyRises() {
+        Gradient2Limit limit = new Gradient2Limit(100, 10, 200, 1.5, 0.2, 4, 600);
+        for (int i = 0; i < 20; i++) {
+            limit.update(BASE_RTT, 100);
+        }
+        int before = limit.getLimit();
+
+        for (int i = 0; i < 30; i++) {
+            limit.update(BASE_RTT * 8, before);
+        }
+
+        assertTrue(limit.getLimit() < before / 2, "before=" + before + ", after=" + limit.getLimit());
+        assertTrue(limit.getLimit() >= 10);
+    }
+
+    @Test
+    @DisplayName("并发远未用满-上限不增长")
+    void limitShouldNotGrowWhenApplicationLimited() {
+        Gradient2Limit limit = new Gradient2Limit(50, 5, 200, 1.5, 0.2, 4, 600);
+
+        for (int i = 0; i < 50; i++) {
+            limit.update(BASE_RTT, 3);
+        }
+
+        assertEquals(50, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("并发逼近上限-低优先级先被拒绝，关键请求仍可进入")
+    void lowPriorityShouldBeShedFirst() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new Gradient2Limit(10, 10, 10, 1.5, 0.2, 4, 600), TimeUnit.SECONDS.toNanos(1), 10);
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.LOW) > 0);
+        }
+        assertEquals(-1, limiter.tryAcquire(RequestPriority.LOW));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.NORMAL) > 0);
+        }
+        assertEquals(-1, limiter.tryAcquire(RequestPriority.NORMAL));
+        assertEquals(10, limiter.tryAcquire(RequestPriority.CRITICAL));
+        assertEquals(-1, limiter.tryAcquire(RequestPriority.CRITICAL));
+
+        limiter.releaseWithoutSample();
+        assertEquals(9, limiter.getInflight());
+    }
+}
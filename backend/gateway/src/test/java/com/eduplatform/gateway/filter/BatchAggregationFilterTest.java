@@ -0,0 +1,245 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.batch.BatchRouteResolver;
+import com.eduplatform.gateway.concurrency.Gradient2Limit;
+import com.eduplatform.gateway.concurrency.PriorityPolicy;
+import com.eduplatform.gateway.ratelimit.GcraRateLimiter;
+import com.eduplatform.gateway.ratelimit.RateLimitPolicy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * BatchAggregationFilter 扇出、逐项状态、校验、计费与并发许可测试。
+ */
+@DisplayName("BatchAggregationFilter 单元测试")
+class BatchAggregationFilterTest {
+
+    private static final GatewayFilterChain UNUSED_CHAIN = exchange -> Mono.error(new AssertionError("不应继续转发"));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<ClientRequest> downstreamRequests = new CopyOnWriteArrayList<>();
+
+    @Test
+    @DisplayName("子请求按服务路由并行转发-按请求顺序返回并透传签名身份头")
+    void shouldFanOutAndPreserveOrder() throws Exception {
+        BatchAggregationFilter filter = newFilter(10);
+        MockServerWebExchange exchange = batchExchange("""
+                {"requests":[
+                  {"id":"dashboard","path":"/api/stats/student/7/dashboard"},
+                  {"path":"/api/enrollments/student/7/with-new-chapters?limit=5"}
+                ]}""");
+
+        filter.filter(exchange, UNUSED_CHAIN).block();
+
+        JsonNode responses = responses(exchange);
+        assertEquals(2, responses.size());
+        assertEquals("dashboard", responses.get(0).get("id").asText());
+        assertEquals(200, responses.get(0).get("status").asInt());
+        assertEquals("/api/stats/student/7/dashboard", responses.get(0).get("body").get("data").asText());
+        assertEquals("1", responses.get(1).get("id").asText());
+        assertEquals("/api/enrollments/student/7/with-new-chapters", responses.get(1).get("body").get("data").asText());
+
+        assertEquals(2, downstreamRequests.size());
+        for (ClientRequest request : downstreamRequests) {
+            assertEquals("7", request.headers().getFirst("X-User-Id"));
+            assertEquals("sig", request.headers().getFirst("X-User-Signature"));
+            assertNull(request.headers().getFirst("X-Internal-Token"));
+        }
+        assertTrue(downstreamRequests.stream()
+                .anyMatch(r -> r.url().toString().equals("http://course-service/api/enrollments/student/7/with-new-chapters?limit=5")));
+    }
+
+    @Test
+    @DisplayName("非法子请求逐项拒绝-不影响其他子请求")
+    void invalidItemsShouldBeRejectedIndividually() throws Exception {
+        BatchAggregationFilter filter = newFilter(10);
+        MockServerWebExchange exchange = batchExchange("""
+                {"requests":[
+                  {"path":"/api/batch"},
+                  {"path":"/api/courses/cascade/1"},
+                  {"path":"/api/stats/../users/1"},
+                  {"path":"http://evil.example/api/users"},
+                  {"path":"/api/files/1"},
+                  {"path":"/api/stats/student/7/dashboard"}
+                ]}""");
+
+        filter.filter(exchange, UNUSED_CHAIN).block();
+
+        JsonNode responses = responses(exchange);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(400, responses.get(i).get("status").asInt());
+            assertNotNull(responses.get(i).get("error"));
+        }
+        // 命中带路由过滤器的路由，直连下游结果会与网关转发不一致
+        assertEquals(404, responses.get(4).get("status").asInt());
+        assertEquals(200, responses.get(5).get("status").asInt());
+        assertEquals(1, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("子请求数超过上限-整体返回 400 且不访问下游")
+    void tooManyItemsShouldBeRejected() throws Exception {
+        BatchAggregationFilter filter = newFilter(2);
+        MockServerWebExchange exchange = batchExchange("""
+                {"requests":[{"path":"/api/stats/a"},{"path":"/api/stats/b"},{"path":"/api/stats/c"}]}""");
+
+        filter.filter(exchange, UNUSED_CHAIN).block();
+
+        assertEquals(HttpStatus.BAD_REQUEST, exchange.getResponse().getStatusCode());
+        assertEquals(400, body(exchange).get("code").asInt());
+        assertTrue(downstreamRequests.isEmpty());
+    }
+
+    @Test
+    @DisplayName("慢子请求超时返回 504-其余子请求正常返回")
+    void slowItemShouldTimeOutIndependently() throws Exception {
+        BatchAggregationFilter filter = newFilter(10);
+        MockServerWebExchange exchange = batchExchange("""
+                {"requests":[{"path":"/api/stats/slow"},{"path":"/api/stats/fast"}]}""");
+
+        filter.filter(exchange, UNUSED_CHAIN).block(Duration.ofSeconds(5));
+
+        JsonNode responses = responses(exchange);
+        assertEquals(504, responses.get(0).get("status").asInt());
+        assertEquals(200, responses.get(1).get("status").asInt());
+    }
+
+    @Test
+    @DisplayName("按子请求数追加计费-同一桶额度不足时整批返回 429 且不访问下游")
+    void shouldChargeEveryItemAgainstTheSameBucket() throws Exception {
+        GcraRateLimiter limiter = new GcraRateLimiter(null, false, 1, 10, 1000);
+        BatchAggregationFilter filter = newFilter(10, limiter, null);
+        String body = """
+                {"requests":[
+                  {"path":"/api/stats/student/7/dashboard"},
+                  {"path":"/api/courses/1"},
+                  {"path":"/api/courses/2"}
+                ]}""";
+
+        MockServerWebExchange first = batchExchange(body);
+        first.getAttributes().put(RateLimitFilter.ATTR_CHARGED_BUCKET, new RateLimitPolicy.Bucket("user:7", 5, 1));
+        filter.filter(first, UNUSED_CHAIN).block(Duration.ofSeconds(5));
+        MockServerWebExchange second = batchExchange(body);
+        second.getAttributes().put(RateLimitFilter.ATTR_CHARGED_BUCKET, new RateLimitPolicy.Bucket("user:7", 5, 1));
+        filter.filter(second, UNUSED_CHAIN).block(Duration.ofSeconds(5));
+
+        assertEquals(3, responses(first).size());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, second.getResponse().getStatusCode());
+        assertEquals(429, body(second).get("code").asInt());
+        assertNotNull(second.getResponse().getHeaders().getFirst("Retry-After"));
+        assertEquals(3, downstreamRequests.size());
+    }
+
+    @Test
+    @DisplayName("子请求按目标路由占用并发许可-超限的子请求返回 503，其余照常执行")
+    void shouldShedItemsAboveRouteConcurrencyLimit() throws Exception {
+        AdaptiveConcurrencyFilter concurrencyFilter = new AdaptiveConcurrencyFilter(
+                PriorityPolicy.compile(List.of(), List.of()),
+                () -> new Gradient2Limit(1, 1, 1, 1.5, 0.2, 0, 600),
+                Duration.ofSeconds(1),
+                10,
+                Set.of(),
+                1,
+                new SimpleMeterRegistry());
+        BatchAggregationFilter filter = newFilter(10, null, concurrencyFilter);
+        MockServerWebExchange exchange = batchExchange("""
+                {"requests":[
+                  {"path":"/api/stats/student/7/slow"},
+                  {"path":"/api/stats/student/7/dashboard"},
+                  {"path":"/api/courses/1"}
+                ]}""");
+
+        filter.filter(exchange, UNUSED_CHAIN).block(Duration.ofSeconds(5));
+
+        JsonNode responses = responses(exchange);
+        assertEquals(504, responses.get(0).get("status").asInt());
+        assertEquals(503, responses.get(1).get("status").asInt());
+        assertEquals(200, responses.get(2).get("status").asInt());
+    }
+
+    private BatchAggregationFilter newFilter(int maxItems) {
+        return newFilter(maxItems, null, null);
+    }
+
+    private BatchAggregationFilter newFilter(
+            int maxItems, GcraRateLimiter rateLimiter, AdaptiveConcurrencyFilter concurrencyFilter) {
+        List<Route> routes = List.of(
+                Route.async().id("progress-service").uri("lb://progress-service")
+                        .predicate(e -> e.getRequest().getPath().value().startsWith("/api/stats/"))
+                        .build(),
+                Route.async().id("course-files").uri("lb://course-service")
+                        .predicate(e -> e.getRequest().getPath().value().startsWith("/api/files/"))
+                        .filter(new OrderedGatewayFilter((e, c) -> c.filter(e), 1))
+                        .build(),
+                Route.async().id("course-service").uri("lb://course-service")
+                        .predicate(e -> e.getRequest().getPath().value().startsWith("/api/"))
+                        .build());
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    downstreamRequests.add(request);
+                    Mono<ClientResponse> response = Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"code\":200,\"data\":\"" + request.url().getPath() + "\"}")
+                            .build());
+                    return request.url().getPath().endsWith("/slow")
+                            ? response.delayElement(Duration.ofSeconds(2))
+                            : response;
+                })
+                .build();
+        return new BatchAggregationFilter(
+                new BatchRouteResolver(() -> () -> Flux.fromIterable(routes)),
+                webClient,
+                rateLimiter,
+                concurrencyFilter,
+                objectMapper,
+                maxItems,
+                16384,
+                Duration.ofMillis(300),
+                new SimpleMeterRegistry());
+    }
+
+    private static MockServerWebExchange batchExchange(String body) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("http://localhost/api/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Authorization", "Bearer token")
+                .header("X-User-Id", "7")
+                .header("X-User-Signature", "sig")
+                .header("X-Internal-Token", "should-not-leak")
+                .body(body));
+    }
+
+    private JsonNode body(MockServerWebExchange exchange) throws Exception {
+        return objectMapper.readTree(exchange.getResponse().getBodyAsString().block());
+    }
+
+    private JsonNode responses(MockServerWebExchange exchange) throws Exception {
+        JsonNode body = body(exchange);
+        assertEquals(200, body.get("code").asInt());
+        return body.get("data").get("responses");
+    }
+}
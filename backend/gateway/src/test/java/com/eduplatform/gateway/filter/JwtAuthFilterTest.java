@@ -1,6 +1,8 @@
 package com.eduplatform.gateway.filter;
 
+import com.eduplatform.gateway.session.SessionValidityCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import org.junit.jupiter.api.DisplayName;
@@ -19,6 +21,7 @@ import reactor.core.publisher.Mono;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -40,7 +43,7 @@ class JwtAuthFilterTest {
     @Test
     @DisplayName("旧重置密码接口不再白名单-未携带Token应返回401")
     void legacyResetPasswordPathShouldRequireToken() {
-        JwtAuthFilter filter = new JwtAuthFilter(new ObjectMapper(), WebClient.builder());
+        JwtAuthFilter filter = newFilter(WebClient.builder());
         ReflectionTestUtils.setField(filter, "jwtSecret", JWT_SECRET);
         ReflectionTestUtils.setField(filter, "internalToken", INTERNAL_TOKEN);
         MockServerHttpRequest request = MockServerHttpRequest.post("/api/auth/reset-password").build();
@@ -62,7 +65,7 @@ class JwtAuthFilterTest {
     @Test
     @DisplayName("新重置令牌申请接口保持白名单-允许匿名访问")
     void newPasswordResetRequestPathShouldBePublic() {
-        JwtAuthFilter filter = new JwtAuthFilter(new ObjectMapper(), WebClient.builder());
+        JwtAuthFilter filter = newFilter(WebClient.builder());
         ReflectionTestUtils.setField(filter, "jwtSecret", JWT_SECRET);
         ReflectionTestUtils.setField(filter, "internalToken", INTERNAL_TOKEN);
         MockServerHttpRequest request = MockServerHttpRequest.post("/api/auth/password-reset/request").build();
@@ -149,12 +152,21 @@ class JwtAuthFilterTest {
                         .build());
 
         WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(exchangeFunction);
-        JwtAuthFilter filter = new JwtAuthFilter(new ObjectMapper(), webClientBuilder);
+        JwtAuthFilter filter = newFilter(webClientBuilder);
         ReflectionTestUtils.setField(filter, "jwtSecret", JWT_SECRET);
         ReflectionTestUtils.setField(filter, "internalToken", INTERNAL_TOKEN);
         return filter;
     }
 
+    /**
+     * 通过生产构造器创建过滤器：会话有效性缓存关闭，指标写入 SimpleMeterRegistry。
+     */
+    private static JwtAuthFilter newFilter(WebClient.Builder webClientBuilder) {
+        SessionValidityCache sessionValidityCache = new SessionValidityCache(
+                false, Duration.ofSeconds(1), Duration.ofSeconds(1), 1, new SimpleMeterRegistry());
+        return new JwtAuthFilter(new ObjectMapper(), webClientBuilder, sessionValidityCache);
+    }
+
     /**
      * 生成用于网关鉴权测试的 JWT。
      */
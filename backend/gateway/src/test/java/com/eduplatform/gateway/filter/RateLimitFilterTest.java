@@ -1,16 +1,23 @@
 package com.eduplatform.gateway.filter;
 
+import com.eduplatform.gateway.ratelimit.GcraRateLimiter;
+import com.eduplatform.gateway.ratelimit.HeavyHitterTracker;
+import com.eduplatform.gateway.ratelimit.RateLimitPolicy;
+import com.eduplatform.gateway.timing.LatencyRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
-import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.http.HttpStatus;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -19,12 +26,16 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 /**
- * RateLimitFilter 客户端标识提取测试。
+ * RateLimitFilter / UserRateLimitFilter 客户端标识提取、两段限流选桶与阶段计时测试。
  */
 @DisplayName("RateLimitFilter 单元测试")
 class RateLimitFilterTest {
@@ -106,21 +117,15 @@ class RateLimitFilterTest {
     }
 
     @Test
-    @DisplayName("Redis窗口限流-同一窗口超限时返回429")
-    void shouldRejectWhenRedisCounterExceedsLimit() {
+    @DisplayName("Redis GCRA限流-脚本判定超限时返回429并输出限流头")
+    void shouldRejectWhenRedisScriptDenies() {
         ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
-        @SuppressWarnings("unchecked")
-        ReactiveValueOperations<String, String> valueOperations = mock(ReactiveValueOperations.class);
-        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
-        when(valueOperations.increment(anyString())).thenReturn(Mono.just(1L), Mono.just(2L));
-        when(redisTemplate.expire(anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        doReturn(Flux.just(List.of(1L, 0L, 0L, 1000L)), Flux.just(List.of(0L, 0L, 800L, 1000L)))
+                .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
 
         RateLimitFilter filter = new RateLimitFilter(redisTemplate, 1.0, 10, 1000, false, 1, true);
 
-        MockServerWebExchange firstExchange = MockServerWebExchange.from(
-                MockServerHttpRequest.get("/api/test")
-                        .remoteAddress(new InetSocketAddress("10.10.10.10", 12345))
-                        .build());
+        MockServerWebExchange firstExchange = newExchange();
         AtomicBoolean firstInvoked = new AtomicBoolean(false);
         filter.filter(firstExchange, ex -> {
             firstInvoked.set(true);
@@ -129,11 +134,11 @@ class RateLimitFilterTest {
 
         assertTrue(firstInvoked.get());
         assertNull(firstExchange.getResponse().getStatusCode());
+        assertEquals("1", firstExchange.getResponse().getHeaders().getFirst("X-RateLimit-Limit"));
+        assertEquals("0", firstExchange.getResponse().getHeaders().getFirst("X-RateLimit-Remaining"));
+        assertEquals("1", firstExchange.getResponse().getHeaders().getFirst("X-RateLimit-Reset"));
 
-        MockServerWebExchange secondExchange = MockServerWebExchange.from(
-                MockServerHttpRequest.get("/api/test")
-                        .remoteAddress(new InetSocketAddress("10.10.10.10", 12345))
-                        .build());
+        MockServerWebExchange secondExchange = newExchange();
         AtomicBoolean secondInvoked = new AtomicBoolean(false);
         filter.filter(secondExchange, ex -> {
             secondInvoked.set(true);
@@ -142,5 +147,135 @@ class RateLimitFilterTest {
 
         assertFalse(secondInvoked.get());
         assertEquals(HttpStatus.TOO_MANY_REQUESTS, secondExchange.getResponse().getStatusCode());
+        assertEquals("1", secondExchange.getResponse().getHeaders().getFirst("Retry-After"));
+    }
+
+    @Test
+    @DisplayName("Redis GCRA限流-每个请求仅一次脚本往返，不再调用 INCR/EXPIRE")
+    void shouldIssueSingleRedisRoundTripPerRequest() {
+        ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        doReturn(Flux.just(List.of(1L, 99L, 0L, 10L)))
+                .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        RateLimitFilter filter = new RateLimitFilter(redisTemplate, 100.0, 10, 1000, false, 1, true);
+
+        for (int i = 0; i < 5; i++) {
+            filter.filter(newExchange(), ex -> Mono.empty()).block();
+        }
+
+        verify(redisTemplate, times(5)).execute(any(RedisScript.class), anyList(), anyList());
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Redis 不可用-降级为本地令牌桶限流")
+    void shouldFallbackToLocalLimiterWhenRedisFails() {
+        ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        doReturn(Flux.error(new IllegalStateException("redis down")))
+                .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        RateLimitFilter filter = new RateLimitFilter(redisTemplate, 1.0, 10, 1000, false, 1, true);
+
+        MockServerWebExchange firstExchange = newExchange();
+        filter.filter(firstExchange, ex -> Mono.empty()).block();
+        MockServerWebExchange secondExchange = newExchange();
+        filter.filter(secondExchange, ex -> Mono.empty()).block();
+
+        assertNull(firstExchange.getResponse().getStatusCode());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, secondExchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    @DisplayName("鉴权前预限流-携带凭证走 NAT 出口 IP 桶，未携带凭证走匿名 IP 桶，均不依赖 token 是否有效")
+    void shouldPreLimitByClientIpBeforeAuthentication() {
+        ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        doReturn(Flux.just(List.of(1L, 9L, 0L, 10L)))
+                .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        RateLimitFilter filter = new RateLimitFilter(redisTemplate, 100.0, 10, 1000, false, 1, true);
+
+        MockServerWebExchange credentialed = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/test")
+                        .header("Authorization", "Bearer not-a-valid-token")
+                        .remoteAddress(new InetSocketAddress("10.10.10.10", 12345))
+                        .build());
+        filter.filter(credentialed, ex -> Mono.empty()).block();
+        MockServerWebExchange anonymous = newExchange();
+        filter.filter(anonymous, ex -> Mono.empty()).block();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("gateway:ratelimit:ip-auth:10.10.10.10")), anyList());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("gateway:ratelimit:ip:10.10.10.10")), anyList());
+        assertNull(credentialed.getAttribute(RateLimitFilter.ATTR_ANONYMOUS_CHARGED));
+        assertEquals(Boolean.TRUE, anonymous.getAttribute(RateLimitFilter.ATTR_ANONYMOUS_CHARGED));
+    }
+
+    @Test
+    @DisplayName("鉴权后限流-以网关写入的用户身份分桶，忽略客户端伪造的 X-User-Id 头")
+    void shouldKeyAuthenticatedRequestsByTrustedUserId() {
+        ReactiveStringRedisTemplate redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        doReturn(Flux.just(List.of(1L, 9L, 0L, 10L)))
+                .when(redisTemplate).execute(any(RedisScript.class), anyList(), anyList());
+        UserRateLimitFilter filter = new UserRateLimitFilter(
+                new GcraRateLimiter(redisTemplate, true, 1, 10, 1000), RateLimitPolicy.uniform(100));
+
+        MockServerWebExchange authenticated = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/test")
+                        .header("X-User-Id", "999")
+                        .remoteAddress(new InetSocketAddress("10.10.10.10", 12345))
+                        .build());
+        authenticated.getAttributes().put(RateLimitFilter.ATTR_CLIENT_IP, "10.10.10.10");
+        authenticated.getAttributes().put(JwtAuthFilter.ATTR_USER_ID, "7");
+        authenticated.getAttributes().put(JwtAuthFilter.ATTR_USER_ROLE, "student");
+        filter.filter(authenticated, ex -> Mono.empty()).block();
+
+        // 携带凭证但未识别出用户（白名单接口）：补扣匿名 IP 桶
+        MockServerWebExchange forged = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/test")
+                        .header("X-User-Id", "999")
+                        .remoteAddress(new InetSocketAddress("10.10.10.10", 12345))
+                        .build());
+        forged.getAttributes().put(RateLimitFilter.ATTR_CLIENT_IP, "10.10.10.10");
+        filter.filter(forged, ex -> Mono.empty()).block();
+
+        // 鉴权前已按匿名配额扣过：不再重复扣减
+        MockServerWebExchange anonymous = newExchange();
+        anonymous.getAttributes().put(RateLimitFilter.ATTR_CLIENT_IP, "10.10.10.10");
+        anonymous.getAttributes().put(RateLimitFilter.ATTR_ANONYMOUS_CHARGED, Boolean.TRUE);
+        filter.filter(anonymous, ex -> Mono.empty()).block();
+
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("gateway:ratelimit:user:7")), anyList());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of("gateway:ratelimit:ip:10.10.10.10")), anyList());
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("封禁 IP 的 429-位于计时过滤器之内，计入 rate-limit 阶段与 total")
+    void shouldRecordBannedRequestInPhaseTimings() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HeavyHitterTracker tracker = new HeavyHitterTracker(4, 4096, 5, Duration.ofMinutes(1),
+                true, 1, Duration.ofMinutes(10), 100, registry);
+        RateLimitFilter rateLimitFilter = new RateLimitFilter(new GcraRateLimiter(null, false, 1, 10, 1000),
+                RateLimitPolicy.uniform(100), tracker, false, Set.of());
+        RequestTimingFilter timingFilter = new RequestTimingFilter(new LatencyRecorder(registry, 10,
+                List.of(Duration.ofMillis(100)), Duration.ofMinutes(1)));
+        AtomicBoolean forwarded = new AtomicBoolean();
+
+        MockServerWebExchange exchange = newExchange();
+        timingFilter.filter(exchange, ex -> rateLimitFilter.filter(ex, next -> {
+            forwarded.set(true);
+            return Mono.empty();
+        })).block();
+
+        assertTrue(RequestTimingFilter.ORDER < RateLimitFilter.ORDER);
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+        assertFalse(forwarded.get());
+        for (String phase : List.of("rate-limit", "total")) {
+            assertEquals(1L, registry.get(LatencyRecorder.METRIC_NAME)
+                    .tag("phase", phase).tag("status", "4xx").timer().count());
+        }
+    }
+
+    private MockServerWebExchange newExchange() {
+        return MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/test")
+                        .remoteAddress(new InetSocketAddress("10.10.10.10", 12345))
+                        .build());
     }
 }
@@ -0,0 +1,110 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.coalesce.CoalescingPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * RequestCoalescingFilter 合并、共享范围与缓冲上限测试。
+ */
+@DisplayName("RequestCoalescingFilter 单元测试")
+class RequestCoalescingFilterTest {
+
+    private static final String BODY = "{\"code\":200,\"data\":{\"id\":7}}";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("同一角色的并发相同 GET 只回源一次-所有请求拿到相同响应")
+    void concurrentIdenticalRequestsShouldShareOneUpstreamCall() {
+        RequestCoalescingFilter filter = newFilter(1024);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        List<MockServerWebExchange> exchanges = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            exchanges.add(exchange("/api/courses/7", String.valueOf(i), "student"));
+        }
+
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, slowDownstream(upstreamCalls, BODY)))
+                .blockLast();
+
+        assertEquals(1, upstreamCalls.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+            assertEquals(BODY, exchange.getResponse().getBodyAsString().block());
+        }
+        assertEquals(19.0, meterRegistry.get("gateway.coalescing.requests").tag("result", "collapsed").counter().count());
+    }
+
+    @Test
+    @DisplayName("不同角色不共享响应")
+    void differentRolesShouldNotShare() {
+        RequestCoalescingFilter filter = newFilter(1024);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        Flux.just(exchange("/api/courses/7", "1", "student"), exchange("/api/courses/7", "2", "teacher"))
+                .flatMap(exchange -> filter.filter(exchange, slowDownstream(upstreamCalls, BODY)))
+                .blockLast();
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    @Test
+    @DisplayName("响应超过缓冲上限-跟随请求各自回源")
+    void oversizedResponseShouldFallBackToIndividualUpstreamCalls() {
+        RequestCoalescingFilter filter = newFilter(8);
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        List<MockServerWebExchange> exchanges = List.of(
+                exchange("/api/courses/7", "1", "student"),
+                exchange("/api/courses/7", "2", "student"),
+                exchange("/api/courses/7", "3", "student"));
+
+        Flux.fromIterable(exchanges)
+                .flatMap(exchange -> filter.filter(exchange, slowDownstream(upstreamCalls, BODY)))
+                .blockLast();
+
+        assertEquals(3, upstreamCalls.get());
+        for (MockServerWebExchange exchange : exchanges) {
+            assertEquals(BODY, exchange.getResponse().getBodyAsString().block());
+        }
+    }
+
+    private RequestCoalescingFilter newFilter(int maxBodyBytes) {
+        return new RequestCoalescingFilter(
+                CoalescingPolicy.compile(Map.of("/api/courses/{id}", "role")), maxBodyBytes, meterRegistry);
+    }
+
+    private static MockServerWebExchange exchange(String uri, String userId, String role) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(uri).build());
+        exchange.getAttributes().put(JwtAuthFilter.ATTR_USER_ID, userId);
+        exchange.getAttributes().put(JwtAuthFilter.ATTR_USER_ROLE, role);
+        return exchange;
+    }
+
+    private static GatewayFilterChain slowDownstream(AtomicInteger calls, String body) {
+        return exchange -> Mono.delay(Duration.ofMillis(100)).then(Mono.defer(() -> {
+            calls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+        }));
+    }
+}
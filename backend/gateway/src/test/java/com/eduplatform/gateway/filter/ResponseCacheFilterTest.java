@@ -0,0 +1,147 @@
+package com.eduplatform.gateway.filter;
+
+import com.eduplatform.gateway.cache.ResponseCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * ResponseCacheFilter 命中、304、超限透传与清除测试。
+ */
+@DisplayName("ResponseCacheFilter 单元测试")
+class ResponseCacheFilterTest {
+
+    private static final String PUBLISHED_BODY = "{\"code\":200,\"message\":\"操作成功\",\"data\":[{\"id\":1}]}";
+
+    private final ResponseCache responseCache = new ResponseCache(
+            Map.of("/api/courses/published", 60),
+            List.of("Accept-Encoding"),
+            1024 * 1024,
+            64 * 1024,
+            new SimpleMeterRegistry());
+    private final ResponseCacheFilter filter = new ResponseCacheFilter(responseCache);
+
+    @Test
+    @DisplayName("首次回源写入缓存并下发 ETag-再次请求不回源")
+    void secondRequestShouldBeServedFromCache() {
+        AtomicInteger downstreamCalls = new AtomicInteger();
+        GatewayFilterChain chain = downstream(downstreamCalls, PUBLISHED_BODY);
+
+        MockServerWebExchange first = exchange("/api/courses/published?subject=math");
+        filter.filter(first, chain).block();
+        MockServerWebExchange second = exchange("/api/courses/published?subject=math");
+        filter.filter(second, chain).block();
+
+        assertEquals(1, downstreamCalls.get());
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals("HIT", second.getResponse().getHeaders().getFirst("X-Cache"));
+        assertNotNull(first.getResponse().getHeaders().getETag());
+        assertEquals(first.getResponse().getHeaders().getETag(), second.getResponse().getHeaders().getETag());
+        assertEquals(PUBLISHED_BODY, second.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    @DisplayName("If-None-Match 与 ETag 一致-网关直接返回 304 且无响应体")
+    void matchingIfNoneMatchShouldReturnNotModified() {
+        AtomicInteger downstreamCalls = new AtomicInteger();
+        GatewayFilterChain chain = downstream(downstreamCalls, PUBLISHED_BODY);
+        MockServerWebExchange first = exchange("/api/courses/published");
+        filter.filter(first, chain).block();
+        String etag = first.getResponse().getHeaders().getETag();
+
+        MockServerWebExchange conditional = MockServerWebExchange.from(MockServerHttpRequest
+                .get("/api/courses/published")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .build());
+        filter.filter(conditional, chain).block();
+
+        assertEquals(1, downstreamCalls.get());
+        assertEquals(HttpStatus.NOT_MODIFIED, conditional.getResponse().getStatusCode());
+        assertNull(conditional.getResponse().getBodyAsString().block());
+    }
+
+    @Test
+    @DisplayName("业务码非 200 的响应不缓存")
+    void failedEnvelopeShouldNotBeCached() {
+        AtomicInteger downstreamCalls = new AtomicInteger();
+        GatewayFilterChain chain = downstream(downstreamCalls, "{\"code\":500,\"message\":\"服务繁忙\",\"data\":null}");
+
+        filter.filter(exchange("/api/courses/published"), chain).block();
+        filter.filter(exchange("/api/courses/published"), chain).block();
+
+        assertEquals(2, downstreamCalls.get());
+    }
+
+    @Test
+    @DisplayName("按路径前缀清除后重新回源；未配置的路由不缓存")
+    void purgeShouldEvictAndUnconfiguredRouteShouldPassThrough() {
+        AtomicInteger downstreamCalls = new AtomicInteger();
+        GatewayFilterChain chain = downstream(downstreamCalls, PUBLISHED_BODY);
+
+        filter.filter(exchange("/api/courses/published"), chain).block();
+        assertEquals(1, responseCache.purge("/api/courses"));
+        filter.filter(exchange("/api/courses/published"), chain).block();
+        filter.filter(exchange("/api/courses/1"), chain).block();
+        filter.filter(exchange("/api/courses/1"), chain).block();
+
+        assertEquals(4, downstreamCalls.get());
+    }
+
+    @Test
+    @DisplayName("响应体超过单条上限-停止暂存，已暂存部分与剩余数据完整透传且不缓存")
+    void oversizedBodyShouldStreamThroughWithBypass() {
+        ResponseCache smallCache = new ResponseCache(
+                Map.of("/api/courses/published", 60), List.of(), 1024 * 1024, 32, new SimpleMeterRegistry());
+        ResponseCacheFilter smallFilter = new ResponseCacheFilter(smallCache);
+        AtomicInteger downstreamCalls = new AtomicInteger();
+        List<String> chunks = List.of("{\"code\":200,\"data\":[", "\"aaaaaaaaaaaaaaaa\",", "\"bbbbbbbbbbbbbbbb\"", "]}");
+        GatewayFilterChain chain = exchange -> {
+            downstreamCalls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            return exchange.getResponse().writeWith(Flux.fromIterable(chunks)
+                    .map(chunk -> exchange.getResponse().bufferFactory()
+                            .wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+        };
+
+        MockServerWebExchange first = exchange("/api/courses/published");
+        smallFilter.filter(first, chain).block();
+        smallFilter.filter(exchange("/api/courses/published"), chain).block();
+
+        assertEquals("BYPASS", first.getResponse().getHeaders().getFirst("X-Cache"));
+        assertNull(first.getResponse().getHeaders().getETag());
+        assertEquals(String.join("", chunks), first.getResponse().getBodyAsString().block());
+        assertEquals(2, downstreamCalls.get());
+    }
+
+    private static MockServerWebExchange exchange(String uri) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri).build());
+    }
+
+    private static GatewayFilterChain downstream(AtomicInteger calls, String body) {
+        return exchange -> {
+            calls.incrementAndGet();
+            exchange.getResponse().setStatusCode(HttpStatus.OK);
+            exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(bytes)));
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.eduplatform.gateway.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GcraRateLimiter 脚本回复解析与本地降级测试。
+ */
+@DisplayName("GcraRateLimiter 单元测试")
+class GcraRateLimiterTest {
+
+    @Test
+    @DisplayName("脚本回复解析-兼容展开与嵌套两种形态")
+    void shouldParseFlatAndNestedScriptReplies() {
+        GcraRateLimiter.Decision flat = GcraRateLimiter.toDecision(List.of(1L, 3L, 0L, 250L));
+        GcraRateLimiter.Decision nested = GcraRateLimiter.toDecision(List.of(List.of(0L, 0L, 1500L, 2000L)));
+
+        assertTrue(flat.allowed());
+        assertEquals(3L, flat.remaining());
+        assertFalse(nested.allowed());
+        assertEquals(2L, nested.retryAfterSeconds());
+    }
+
+    @Test
+    @DisplayName("未启用 Redis-使用本地令牌桶按 cost 扣减许可")
+    void shouldChargeCostAgainstLocalBucket() {
+        GcraRateLimiter limiter = new GcraRateLimiter(null, false, 1, 10, 1000);
+        RateLimitPolicy.Bucket bucket = new RateLimitPolicy.Bucket("ip:10.0.0.1", 5, 5);
+
+        assertTrue(limiter.acquire(bucket).block().allowed());
+        assertFalse(limiter.acquire(bucket).block().allowed());
+    }
+}
@@ -0,0 +1,101 @@
+package com.eduplatform.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HeavyHitterTracker 榜单、内存与自动封禁测试。
+ */
+@DisplayName("HeavyHitterTracker 单元测试")
+class HeavyHitterTrackerTest {
+
+    @Test
+    @DisplayName("长尾流量中的高频客户端应位列榜首")
+    void shouldRankHeavyClientFirstAmongLongTail() {
+        HeavyHitterTracker tracker = newTracker(false, 1_000_000);
+
+        for (int i = 0; i < 50_000; i++) {
+            tracker.record("10.0." + (i % 250) + "." + (i / 250 % 250), "/api/courses/" + (i % 1000));
+            if (i % 10 == 0) {
+                tracker.record("203.0.113.9", "/api/courses/published");
+            }
+        }
+
+        List<TopK.Entry> topClients = tracker.currentSnapshot().topClients();
+        assertEquals("203.0.113.9", topClients.get(0).key());
+        assertTrue(topClients.get(0).count() >= 5_000);
+        // 按资源 ID 打散的路径归并为同一路由模板
+        assertEquals("/api/courses/{id}", tracker.currentSnapshot().topPaths().get(0).key());
+        assertEquals("/api/courses/published", tracker.currentSnapshot().topPaths().get(1).key());
+    }
+
+    @Test
+    @DisplayName("路径归一化-ID 类路径段替换为 {id}，超长路径折叠")
+    void shouldNormalizePathsToRoutePatterns() {
+        assertEquals("/api/courses/{id}/chapters/{id}", HeavyHitterTracker.normalizePath("/api/courses/12/chapters/345"));
+        assertEquals("/api/files/{id}", HeavyHitterTracker.normalizePath("/api/files/550e8400-e29b-41d4-a716-446655440000"));
+        assertEquals("/api/courses/published", HeavyHitterTracker.normalizePath("/api/courses/published"));
+        assertEquals("/a/b/c/d/e/f/**", HeavyHitterTracker.normalizePath("/a/b/c/d/e/f/g/h"));
+        assertEquals("/", HeavyHitterTracker.normalizePath("/"));
+    }
+
+    @Test
+    @DisplayName("榜单指标-仅按名次打标，不输出客户端键")
+    void publishedGaugesShouldCarryRankTagOnly() throws InterruptedException {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        HeavyHitterTracker tracker = new HeavyHitterTracker(4, 4096, 5, Duration.ofSeconds(1),
+                false, 1_000_000, Duration.ofMinutes(10), 100, registry);
+        tracker.record("203.0.113.9", "/api/courses/1");
+        Thread.sleep(1100);
+        tracker.record("203.0.113.10", "/api/courses/2");
+
+        Gauge top = registry.get("gateway.ratelimit.heavy_hitter.client.requests").tag("rank", "1").gauge();
+        assertEquals(1.0, top.value());
+        assertEquals(List.of("rank"), top.getId().getTags().stream().map(Tag::getKey).toList());
+    }
+
+    @Test
+    @DisplayName("Sketch 内存固定-与不同客户端数量无关")
+    void sketchMemoryShouldNotGrowWithDistinctKeys() {
+        HeavyHitterTracker tracker = newTracker(false, 1_000_000);
+        long before = tracker.sketchBytes();
+
+        for (int i = 0; i < 100_000; i++) {
+            tracker.record("client-" + i, "/api/x");
+        }
+
+        assertEquals(before, tracker.sketchBytes());
+        assertTrue(tracker.currentSnapshot().topClients().size() <= 5);
+    }
+
+    @Test
+    @DisplayName("开启自动封禁-超过阈值后在封禁期内拒绝")
+    void shouldBanClientAboveThreshold() {
+        HeavyHitterTracker tracker = newTracker(true, 100);
+
+        for (int i = 0; i < 99; i++) {
+            tracker.record("198.51.100.7", "/api/users/heartbeat");
+        }
+        assertEquals(0, tracker.banRemainingMillis("198.51.100.7"));
+
+        tracker.record("198.51.100.7", "/api/users/heartbeat");
+
+        assertTrue(tracker.banRemainingMillis("198.51.100.7") > 0);
+        assertTrue(tracker.bannedClients().containsKey("198.51.100.7"));
+        assertEquals(0, tracker.banRemainingMillis("198.51.100.8"));
+    }
+
+    private HeavyHitterTracker newTracker(boolean autoBan, long threshold) {
+        return new HeavyHitterTracker(4, 4096, 5, Duration.ofMinutes(1),
+                autoBan, threshold, Duration.ofMinutes(10), 100, new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,88 @@
+package com.eduplatform.gateway.ratelimit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.PathContainer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * RateLimitPolicy 选桶与计费测试。
+ */
+@DisplayName("RateLimitPolicy 单元测试")
+class RateLimitPolicyTest {
+
+    private final RateLimitPolicy policy = RateLimitPolicy.compile(
+            50,
+            100,
+            Map.of("teacher", 200, "ADMIN", 400),
+            routeCosts());
+
+    @Test
+    @DisplayName("已登录请求-按用户 ID 分桶并使用角色配额")
+    void authenticatedRequestShouldUseUserBucketAndRoleTier() {
+        RateLimitPolicy.Bucket bucket = policy.resolve(PathContainer.parsePath("/api/courses/1"), "7", "teacher", "10.0.0.1");
+
+        assertEquals("user:7", bucket.key());
+        assertEquals(200, bucket.permits());
+        assertEquals(1, bucket.cost());
+    }
+
+    @Test
+    @DisplayName("角色未配置-使用已登录默认配额；角色名大小写不敏感")
+    void unknownRoleShouldFallBackToDefaultUserPermits() {
+        assertEquals(100, policy.resolve(PathContainer.parsePath("/api/x"), "8", "student", "10.0.0.1").permits());
+        assertEquals(400, policy.resolve(PathContainer.parsePath("/api/x"), "9", "admin", "10.0.0.1").permits());
+    }
+
+    @Test
+    @DisplayName("匿名请求-按 IP 分桶")
+    void anonymousRequestShouldUseIpBucket() {
+        RateLimitPolicy.Bucket bucket = policy.resolve(PathContainer.parsePath("/api/courses/published"), null, null, "10.0.0.1");
+
+        assertEquals("ip:10.0.0.1", bucket.key());
+        assertEquals(50, bucket.permits());
+    }
+
+    @Test
+    @DisplayName("导出等重接口-按配置消耗多个许可，字面量与通配模式均生效")
+    void heavyRoutesShouldCostMorePermits() {
+        assertEquals(20, policy.costOf(PathContainer.parsePath("/api/users/export")));
+        assertEquals(10, policy.costOf(PathContainer.parsePath("/api/homeworks/3/export")));
+        assertEquals(1, policy.costOf(PathContainer.parsePath("/api/users/heartbeat")));
+    }
+
+    @Test
+    @DisplayName("鉴权前预限流-携带凭证使用 NAT 出口 IP 桶，未携带凭证使用匿名 IP 桶")
+    void clientStageShouldSeparateCredentialedIpBucket() {
+        RateLimitPolicy twoStage = RateLimitPolicy.compile(50, 500, 100, Map.of(), routeCosts());
+
+        RateLimitPolicy.Bucket credentialed = twoStage.resolveClient(PathContainer.parsePath("/api/x"), "10.0.0.1", true);
+        RateLimitPolicy.Bucket anonymous = twoStage.resolveClient(PathContainer.parsePath("/api/x"), "10.0.0.1", false);
+
+        assertEquals("ip-auth:10.0.0.1", credentialed.key());
+        assertEquals(500, credentialed.permits());
+        assertEquals("ip:10.0.0.1", anonymous.key());
+        assertEquals(50, anonymous.permits());
+    }
+
+    @Test
+    @DisplayName("路由消耗超过最小桶容量-启动时拒绝配置")
+    void routeCostAboveBucketCapacityShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> RateLimitPolicy.compile(10, 100, Map.of(), Map.of("/api/batch", 20)));
+        assertThrows(IllegalArgumentException.class,
+                () -> RateLimitPolicy.compile(50, 100, Map.of("guest", 5), Map.of("/api/batch", 10)));
+    }
+
+    private static Map<String, Integer> routeCosts() {
+        Map<String, Integer> costs = new LinkedHashMap<>();
+        costs.put("/api/users/export", 20);
+        costs.put("/api/*/{id}/export", 10);
+        return costs;
+    }
+}
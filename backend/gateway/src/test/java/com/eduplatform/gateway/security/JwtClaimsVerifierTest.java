@@ -0,0 +1,81 @@
+package com.eduplatform.gateway.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * JwtClaimsVerifier 验签与已验签缓存测试。
+ */
+@DisplayName("JwtClaimsVerifier 单元测试")
+class JwtClaimsVerifierTest {
+
+    private static final String JWT_SECRET = "0123456789abcdef0123456789abcdef";
+
+    @Test
+    @DisplayName("同一 token 重复验签-返回缓存的同一 Claims 实例")
+    void shouldReuseVerifiedClaimsForSameToken() {
+        JwtClaimsVerifier verifier = new JwtClaimsVerifier(JWT_SECRET, 100, Duration.ofMinutes(5));
+        String token = buildToken(JWT_SECRET, new Date(System.currentTimeMillis() + 60_000));
+
+        Claims first = verifier.verify(token);
+        Claims second = verifier.verify(token);
+
+        assertSame(first, second);
+        assertEquals(1, verifier.cachedSize());
+        assertEquals("bob", second.get("username"));
+    }
+
+    @Test
+    @DisplayName("签名不符的 token-抛出异常且不进入缓存")
+    void shouldRejectForeignSignatureWithoutCaching() {
+        JwtClaimsVerifier verifier = new JwtClaimsVerifier(JWT_SECRET, 100, Duration.ofMinutes(5));
+        String forged = buildToken("fedcba9876543210fedcba9876543210", null);
+
+        assertThrows(SignatureException.class, () -> verifier.verify(forged));
+        assertEquals(0, verifier.cachedSize());
+    }
+
+    @Test
+    @DisplayName("已过期 token-仍按 JJWT 规则拒绝")
+    void shouldRejectExpiredToken() {
+        JwtClaimsVerifier verifier = new JwtClaimsVerifier(JWT_SECRET, 100, Duration.ofMinutes(5));
+        String expired = buildToken(JWT_SECRET, new Date(System.currentTimeMillis() - 1_000));
+
+        assertThrows(ExpiredJwtException.class, () -> verifier.verify(expired));
+    }
+
+    @Test
+    @DisplayName("签名器线程内复用 Mac-输出稳定且与标准 HMAC-SHA256 一致")
+    void signerShouldBeStableAcrossCalls() {
+        UserHeaderSigner signer = new UserHeaderSigner("internal-token-for-test");
+
+        String first = signer.sign("101", "bob", "teacher", 1700000000L);
+        String second = signer.sign("101", "bob", "teacher", 1700000000L);
+
+        assertEquals(first, second);
+        assertEquals("cVnCrib4W-YXRIShpcMREU0ZswVWRvnKWtBqUPCXucU", first);
+    }
+
+    private String buildToken(String secret, Date expiration) {
+        return Jwts.builder()
+                .claim("id", 101L)
+                .claim("username", "bob")
+                .claim("role", "teacher")
+                .expiration(expiration)
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,102 @@
+package com.eduplatform.gateway.session;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SessionValidityCache 命中、失效与降级行为测试。
+ */
+@DisplayName("SessionValidityCache 单元测试")
+class SessionValidityCacheTest {
+
+    @Test
+    @DisplayName("同一 jti 第二次校验应命中缓存-不再回源")
+    void shouldServeSecondLookupFromCache() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SessionValidityCache cache = newCache(registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(cache.get("jti-1", () -> countingLoader(loads, true)).block());
+        assertTrue(cache.get("jti-1", () -> countingLoader(loads, true)).block());
+
+        assertEquals(1, loads.get());
+        assertEquals(1.0, registry.get("gateway.session.cache.requests").tag("result", "miss").counter().count());
+        assertEquals(1.0, registry.get("gateway.session.cache.requests").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    @DisplayName("收到失效推送后-缓存应立即返回无效且不回源")
+    void shouldRejectImmediatelyAfterInvalidation() {
+        SessionValidityCache cache = newCache(new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("jti-2", () -> countingLoader(loads, true)).block();
+
+        cache.invalidate("jti-2");
+
+        assertFalse(cache.get("jti-2", () -> countingLoader(loads, true)).block());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("回源结论为无效或回源异常-不写入缓存")
+    void shouldNotCacheNegativeOrFailedLoads() {
+        SessionValidityCache cache = newCache(new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        assertFalse(cache.get("jti-3", () -> countingLoader(loads, false)).block());
+        cache.get("jti-3", () -> Mono.<Boolean>error(new IllegalStateException("user-service down")))
+                .onErrorReturn(false)
+                .block();
+        assertTrue(cache.get("jti-3", () -> countingLoader(loads, true)).block());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("缺少 jti 时-跳过缓存直接回源")
+    void shouldBypassCacheWhenJtiMissing() {
+        SessionValidityCache cache = newCache(new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(null, () -> countingLoader(loads, true)).block();
+        cache.get(null, () -> countingLoader(loads, true)).block();
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.estimatedSize());
+    }
+
+    @Test
+    @DisplayName("订阅器收到批量 jti-逐个写入失效墓碑")
+    void subscriberShouldInvalidateEveryJtiInPayload() {
+        SessionValidityCache cache = newCache(new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", () -> countingLoader(loads, true)).block();
+        cache.get("b", () -> countingLoader(loads, true)).block();
+        SessionInvalidationSubscriber subscriber = new SessionInvalidationSubscriber(null, cache, "test");
+
+        subscriber.handle("a, b");
+
+        assertFalse(cache.get("a", () -> countingLoader(loads, true)).block());
+        assertFalse(cache.get("b", () -> countingLoader(loads, true)).block());
+    }
+
+    private SessionValidityCache newCache(SimpleMeterRegistry registry) {
+        return new SessionValidityCache(true, Duration.ofSeconds(30), Duration.ofSeconds(10), 100, registry);
+    }
+
+    private Mono<Boolean> countingLoader(AtomicInteger loads, boolean result) {
+        return Mono.fromCallable(() -> {
+            loads.incrementAndGet();
+            return result;
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package com.eduplatform.gateway.timing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LatencyRecorder 标签基数与分位数视图测试。
+ */
+@DisplayName("LatencyRecorder 单元测试")
+class LatencyRecorderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("路由数超过上限后新路由归入 other-指标基数有界")
+    void routeTagsShouldBeBounded() {
+        LatencyRecorder recorder = newRecorder(2);
+        for (int i = 0; i < 10; i++) {
+            recorder.record("route-" + i, "2xx", RequestPhase.TOTAL, TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        recorder.record(null, "4xx", RequestPhase.TOTAL, TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertEquals(4, meterRegistry.find(LatencyRecorder.METRIC_NAME).timers().size());
+        assertEquals(8, meterRegistry.get(LatencyRecorder.METRIC_NAME).tag("route", "other").timer().count());
+        assertEquals(1, meterRegistry.get(LatencyRecorder.METRIC_NAME).tag("route", "none").timer().count());
+    }
+
+    @Test
+    @DisplayName("实时视图按路由-阶段-状态类别给出分位数")
+    void snapshotShouldExposePercentilesPerRouteAndPhase() {
+        LatencyRecorder recorder = newRecorder(10);
+        for (int i = 1; i <= 1000; i++) {
+            recorder.record("course-service", "2xx", RequestPhase.UPSTREAM, TimeUnit.MILLISECONDS.toNanos(i % 100 + 1));
+        }
+        recorder.record("course-service", "5xx", RequestPhase.UPSTREAM, TimeUnit.MILLISECONDS.toNanos(900));
+
+        Map<String, Object> ok = recorder.snapshot().get("course-service").get("upstream").get("2xx");
+        assertEquals(1000L, ok.get("count"));
+        double p50 = (double) ok.get("p50Ms");
+        double p999 = (double) ok.get("p999Ms");
+        assertTrue(p50 > 40 && p50 < 60, "p50=" + p50);
+        assertTrue(p999 >= 95 && p999 <= 110, "p999=" + p999);
+        assertEquals(1L, recorder.snapshot().get("course-service").get("upstream").get("5xx").get("count"));
+    }
+
+    @Test
+    @DisplayName("状态码折叠为类别")
+    void statusClassShouldCollapseCodes() {
+        assertEquals("2xx", LatencyRecorder.statusClass(204));
+        assertEquals("4xx", LatencyRecorder.statusClass(429));
+        assertEquals("unknown", LatencyRecorder.statusClass(null));
+    }
+
+    private LatencyRecorder newRecorder(int maxRoutes) {
+        return new LatencyRecorder(meterRegistry, maxRoutes,
+                List.of(Duration.ofMillis(10), Duration.ofMillis(100)), Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,65 @@
+package com.eduplatform.gateway.timing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RequestTimings 阶段计时边界测试。
+ */
+@DisplayName("RequestTimings 单元测试")
+class RequestTimingsTest {
+
+    @Test
+    @DisplayName("阶段计时止于调用下一过滤器-不包含下游耗时")
+    void measureShouldStopWhenNextFilterIsInvoked() {
+        MockServerWebExchange exchange = exchangeWithTimings();
+        RequestTimings timings = exchange.getAttribute(RequestTimings.ATTR);
+
+        RequestTimings.measure(exchange, RequestPhase.RATE_LIMIT,
+                        next -> Mono.delay(Duration.ofMillis(200)).then(),
+                        next -> next.filter(exchange))
+                .block();
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(timings.nanos(RequestPhase.RATE_LIMIT));
+        assertTrue(millis < 100, "rate-limit=" + millis + "ms");
+        assertEquals(-1, timings.nanos(RequestPhase.AUTH));
+    }
+
+    @Test
+    @DisplayName("请求在本阶段被拒绝-计时到本阶段结束")
+    void measureShouldCoverRejectedRequest() {
+        MockServerWebExchange exchange = exchangeWithTimings();
+        RequestTimings timings = exchange.getAttribute(RequestTimings.ATTR);
+
+        RequestTimings.measure(exchange, RequestPhase.AUTH,
+                        next -> Mono.error(new AssertionError("不应继续转发")),
+                        next -> Mono.delay(Duration.ofMillis(50)).then())
+                .block();
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(timings.nanos(RequestPhase.AUTH));
+        assertTrue(millis >= 40, "auth=" + millis + "ms");
+    }
+
+    @Test
+    @DisplayName("未挂载计时器时直接透传")
+    void shouldPassThroughWithoutTimings() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/courses/1"));
+
+        assertEquals("ok", RequestTimings.time(exchange, RequestPhase.SESSION_VALIDATE, Mono.just("ok")).block());
+    }
+
+    private static MockServerWebExchange exchangeWithTimings() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/courses/1"));
+        exchange.getAttributes().put(RequestTimings.ATTR, new RequestTimings());
+        return exchange;
+    }
+}
@@ -2,27 +2,22 @@ package com.eduplatform.homework.config;
 
 import com.eduplatform.common.event.EventType;
 import com.eduplatform.common.event.RedisStreamConstants;
+import com.eduplatform.common.event.StreamConsumerSupport;
 import com.eduplatform.homework.listener.ChapterCompletedListener;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.stream.Consumer;
-import org.springframework.data.redis.connection.stream.MapRecord;
 import org.springframework.data.redis.connection.stream.ReadOffset;
-import org.springframework.data.redis.connection.stream.StreamOffset;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.stream.StreamMessageListenerContainer;
 
-import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.Executors;
 
 /**
  * Redis Stream 消费者配置
  * homework-service 消费 CHAPTER_COMPLETED 事件，
  * 当学生完成章节学习后自动解锁对应作业。
+ * 章节完成事件以批量方式消费：每次 XREADGROUP 读取一批，一条 upsert 解锁整批作业，一条 XACK 确认整批。
  *
  * @author Antigravity
  */
@@ -33,40 +28,23 @@ public class RedisStreamConfig {
 
     private final StringRedisTemplate redisTemplate;
     private final ChapterCompletedListener chapterCompletedListener;
+    private final StreamConsumerSupport streamConsumerSupport;
 
     /**
-     * 创建并启动 StreamMessageListenerContainer
+     * 注册批量订阅并启动虚拟线程轮询
      */
-    @Bean
-    public StreamMessageListenerContainer<String, MapRecord<String, String, String>> streamMessageListenerContainer(
-            RedisConnectionFactory factory) {
-
-        StreamMessageListenerContainer.StreamMessageListenerContainerOptions<String, MapRecord<String, String, String>> options = StreamMessageListenerContainer.StreamMessageListenerContainerOptions
-                .builder()
-                .pollTimeout(Duration.ofSeconds(1))
-                .executor(Executors.newFixedThreadPool(1))
-                .errorHandler(t -> log.error("homework-service Redis Stream 消费异常", t))
-                .build();
-
-        StreamMessageListenerContainer<String, MapRecord<String, String, String>> container = StreamMessageListenerContainer
-                .create(factory, options);
-
+    @PostConstruct
+    public void startStreamConsumers() {
         // 幂等创建 Consumer Group
         createConsumerGroupIfAbsent(EventType.CHAPTER_COMPLETED.getStreamKey());
 
-        String consumerName = RedisStreamConstants.SERVICE_HOMEWORK + ":1";
-        String groupName = RedisStreamConstants.GROUP_HOMEWORK_SERVICE;
-
-        // 注册章节完成事件监听器
-        container.receive(
-                Consumer.from(groupName, consumerName),
-                StreamOffset.create(EventType.CHAPTER_COMPLETED.getStreamKey(), ReadOffset.lastConsumed()),
-                chapterCompletedListener);
-
-        container.start();
-        log.info("homework-service Redis Stream 消费者已启动，监听 CHAPTER_COMPLETED 事件");
+        // 以本实例的消费者身份批量订阅章节完成事件（同时登记 pending 回收）
+        streamConsumerSupport.subscribeBatch(EventType.CHAPTER_COMPLETED,
+                RedisStreamConstants.GROUP_HOMEWORK_SERVICE, chapterCompletedListener);
 
-        return container;
+        streamConsumerSupport.start();
+        log.info("homework-service Redis Stream 消费者已启动，批量监听 CHAPTER_COMPLETED 事件: consumer={}, batchSize={}",
+                streamConsumerSupport.getConsumerName(), streamConsumerSupport.getBatchSize());
     }
 
     /**
@@ -82,7 +60,7 @@ public class RedisStreamConfig {
                 log.debug("Consumer Group 已存在: stream={}, group={}", streamKey, groupName);
             } else {
                 try {
-                    redisTemplate.opsForStream().add(streamKey, Map.of("_init", "1"));
+                    redisTemplate.opsForStream().add(streamKey, Map.of(RedisStreamConstants.STREAM_INIT_FIELD, "1"));
                     redisTemplate.opsForStream().createGroup(streamKey, ReadOffset.from("0"), groupName);
                     log.info("初始化 Stream 并创建 Consumer Group: stream={}, group={}", streamKey, groupName);
                 } catch (Exception ex) {
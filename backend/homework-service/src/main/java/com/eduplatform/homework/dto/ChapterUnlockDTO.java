@@ -0,0 +1,25 @@
+package com.eduplatform.homework.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 章节作业解锁请求
+ * 批量解锁时每个元素对应一条章节完成事件（学生完成了某个章节）。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChapterUnlockDTO {
+
+    /**
+     * 学生ID
+     */
+    private Long studentId;
+
+    /**
+     * 已完成的章节ID
+     */
+    private Long chapterId;
+}
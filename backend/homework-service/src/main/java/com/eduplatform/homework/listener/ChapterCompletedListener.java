@@ -1,87 +1,65 @@
 package com.eduplatform.homework.listener;
 
-import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.BatchStreamListener;
+import com.eduplatform.common.event.EventDedupeStore;
 import com.eduplatform.common.event.RedisStreamConstants;
+import com.eduplatform.common.event.codec.DecodedEvent;
+import com.eduplatform.common.event.payload.ChapterCompletedPayload;
+import com.eduplatform.homework.dto.ChapterUnlockDTO;
 import com.eduplatform.homework.service.HomeworkService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.stream.StreamListener;
 import org.springframework.stereotype.Component;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 章节完成事件消费者
- * 消费 CHAPTER_COMPLETED 事件后，自动解锁该章节关联的作业。
+ * 批量消费 CHAPTER_COMPLETED 事件后，自动解锁各章节关联的作业。
  *
  * 消费流程：
- * 1. 从事件中提取 studentId 和 chapterId
- * 2. 调用 HomeworkService.unlockHomeworkByChapter() 执行解锁
- * 3. ACK 确认消息消费成功
+ * 1. 从一批事件中提取 studentId 和 chapterId，跳过缺少参数的事件
+ * 2. 调用 HomeworkService.unlockHomeworkByChapters() 以一条 upsert 解锁整批
+ * 3. 由 BatchStreamListener 去重并以一条 XACK 确认整批，重投递的事件不会重复执行解锁
  *
  * @author Antigravity
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class ChapterCompletedListener implements StreamListener<String, MapRecord<String, String, String>> {
+public class ChapterCompletedListener extends BatchStreamListener<ChapterCompletedPayload> {
 
     private final HomeworkService homeworkService;
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
 
-    @Override
-    public void onMessage(MapRecord<String, String, String> message) {
-        try {
-            Map<String, String> body = message.getValue();
-            String dataJson = body.get("data");
-            String messageId = body.get("id");
-
-            log.info("收到章节完成事件: recordId={}, messageId={}", message.getId(), messageId);
-
-            Map<String, Object> data = objectMapper.readValue(dataJson, new TypeReference<>() {
-            });
+    public ChapterCompletedListener(HomeworkService homeworkService, EventDedupeStore dedupeStore) {
+        super(dedupeStore, RedisStreamConstants.GROUP_HOMEWORK_SERVICE, ChapterCompletedPayload.class);
+        this.homeworkService = homeworkService;
+    }
 
-            Long studentId = toLong(data.get("studentId"));
-            Long chapterId = toLong(data.get("chapterId"));
+    /**
+     * 同一学生的章节完成事件落在同一分区，避免并行分区更新同一学生的解锁记录
+     */
+    @Override
+    protected Object orderingKey(ChapterCompletedPayload payload) {
+        return payload.studentId();
+    }
 
+    @Override
+    protected void handleBatch(List<DecodedEvent<ChapterCompletedPayload>> events) {
+        List<ChapterUnlockDTO> unlocks = new ArrayList<>(events.size());
+        for (DecodedEvent<ChapterCompletedPayload> event : events) {
+            Long studentId = event.payload().studentId();
+            Long chapterId = event.payload().chapterId();
             if (studentId == null || chapterId == null) {
-                log.warn("章节完成事件缺少必要参数: studentId={}, chapterId={}", studentId, chapterId);
-                ackMessage(message);
-                return;
+                log.warn("章节完成事件缺少必要参数: messageId={}, studentId={}, chapterId={}",
+                        event.id(), studentId, chapterId);
+                continue;
             }
-
-            // 调用 HomeworkService 解锁该章节关联的作业
-            homeworkService.unlockHomeworkByChapter(studentId, chapterId);
-
-            // ACK 确认
-            ackMessage(message);
-
-            log.info("章节完成事件处理完成（作业解锁）: studentId={}, chapterId={}", studentId, chapterId);
-        } catch (Exception e) {
-            log.error("处理章节完成事件失败: recordId={}, error={}", message.getId(), e.getMessage(), e);
-            // 不 ACK，消息将在 pending list 中等待重试
+            unlocks.add(new ChapterUnlockDTO(studentId, chapterId));
         }
-    }
 
-    private void ackMessage(MapRecord<String, String, String> message) {
-        redisTemplate.opsForStream().acknowledge(
-                EventType.CHAPTER_COMPLETED.getStreamKey(),
-                RedisStreamConstants.GROUP_HOMEWORK_SERVICE,
-                message.getId());
-    }
+        // 调用 HomeworkService 以一条语句解锁整批章节关联的作业
+        int affected = homeworkService.unlockHomeworkByChapters(unlocks);
 
-    private Long toLong(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj instanceof Number) {
-            return ((Number) obj).longValue();
-        }
-        return Long.valueOf(obj.toString());
+        log.info("章节完成事件批量处理完成（作业解锁）: events={}, unlocks={}", events.size(), affected);
     }
 }
@@ -1,11 +1,15 @@
 package com.eduplatform.homework.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.eduplatform.homework.dto.ChapterUnlockDTO;
 import com.eduplatform.homework.entity.HomeworkUnlock;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
+
 @Mapper
 public interface HomeworkUnlockMapper extends BaseMapper<HomeworkUnlock> {
     
@@ -14,4 +18,24 @@ public interface HomeworkUnlockMapper extends BaseMapper<HomeworkUnlock> {
     
     @Delete("DELETE FROM homework_unlocks WHERE homework_id = #{homeworkId}")
     int deleteByHomeworkId(@Param("homeworkId") Long homeworkId);
+
+    /**
+     * 批量解锁多个（学生, 章节）下的全部作业：一条语句完成，已解锁的记录保持不变
+     */
+    @Insert("""
+        <script>
+        INSERT INTO homework_unlocks (student_id, homework_id, unlock_status, unlocked_at)
+        SELECT DISTINCT v.student_id, h.id, 1, CURRENT_TIMESTAMP
+        FROM (VALUES
+        <foreach collection='unlocks' item='u' separator=','>
+            (CAST(#{u.studentId} AS BIGINT), CAST(#{u.chapterId} AS BIGINT))
+        </foreach>
+        ) AS v(student_id, chapter_id)
+        JOIN homeworks h ON h.chapter_id = v.chapter_id
+        ON CONFLICT (student_id, homework_id) DO UPDATE
+        SET unlock_status = 1, unlocked_at = EXCLUDED.unlocked_at
+        WHERE homework_unlocks.unlock_status = 0
+        </script>
+    """)
+    int unlockByChapters(@Param("unlocks") List<ChapterUnlockDTO> unlocks);
 }
@@ -210,6 +210,22 @@ public class HomeworkService {
         }
     }
 
+    /**
+     * 批量联动解锁章节作业 (Set-based Unlock)
+     * 供章节完成事件的批量消费使用：一条 upsert 解锁整批（学生, 章节）对应的全部作业，
+     * 代替逐条查询章节作业、逐个查询解锁记录再写入。
+     *
+     * @param unlocks 学生与其完成章节的列表
+     * @return 新增或更新的解锁记录数
+     */
+    @Transactional
+    public int unlockHomeworkByChapters(List<ChapterUnlockDTO> unlocks) {
+        if (unlocks == null || unlocks.isEmpty()) {
+            return 0;
+        }
+        return unlockMapper.unlockByChapters(unlocks);
+    }
+
     /**
      * 执行作业提交流水 (Submission Workflow)
      * 逻辑包含：
@@ -1,9 +1,10 @@
 package com.eduplatform.homework.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.eduplatform.common.event.EventOutbox;
 import com.eduplatform.common.event.EventType;
 import com.eduplatform.common.event.RedisStreamConstants;
-import com.eduplatform.common.event.RedisStreamPublisher;
+import com.eduplatform.common.event.payload.HomeworkSubmittedPayload;
 import com.eduplatform.homework.dto.HomeworkSubmitDTO;
 import com.eduplatform.homework.entity.Homework;
 import com.eduplatform.homework.entity.HomeworkAnswer;
@@ -42,7 +43,7 @@ public class HomeworkSubmissionService {
     private final HomeworkUnlockMapper unlockMapper;
     private final HomeworkSubmissionMapper submissionMapper;
     private final HomeworkAnswerMapper answerMapper;
-    private final RedisStreamPublisher redisStreamPublisher;
+    private final EventOutbox eventOutbox;
 
     /**
      * 执行作业提交流水。
@@ -192,27 +193,19 @@ public class HomeworkSubmissionService {
     }
 
     /**
-     * 通过 Redis Stream 发布作业提交事件。
+     * 在提交事务内登记作业提交事件，事务提交后由发件箱投递到 Redis Stream。
      */
     private void sendSubmissionNotification(HomeworkSubmission submission, Homework homework) {
-        try {
-            Map<String, Object> data = new HashMap<>();
-            data.put("homeworkId", homework.getId());
-            data.put("homeworkTitle", homework.getTitle());
-            data.put("submissionId", submission.getId());
-            data.put("studentId", submission.getStudentId());
-            data.put("courseId", homework.getCourseId());
-            data.put("chapterId", homework.getChapterId());
-
-            redisStreamPublisher.publish(
-                    EventType.HOMEWORK_SUBMITTED,
-                    RedisStreamConstants.SERVICE_HOMEWORK,
-                    data);
-        } catch (Exception e) {
-            // 事件发布失败不影响主业务流程，仅记录日志
-            log.error("发布作业提交事件失败: homeworkId={}, submissionId={}, error={}",
-                    homework.getId(), submission.getId(), e.getMessage());
-        }
+        eventOutbox.publish(
+                EventType.HOMEWORK_SUBMITTED,
+                RedisStreamConstants.SERVICE_HOMEWORK,
+                new HomeworkSubmittedPayload(
+                        homework.getId(),
+                        homework.getTitle(),
+                        submission.getId(),
+                        submission.getStudentId(),
+                        homework.getCourseId(),
+                        homework.getChapterId()));
     }
 
     /**
@@ -1,7 +1,8 @@
 package com.eduplatform.homework.service;
 
-import com.eduplatform.common.event.RedisStreamPublisher;
+import com.eduplatform.common.event.EventOutbox;
 import com.eduplatform.homework.entity.Homework;
+import com.eduplatform.homework.dto.ChapterUnlockDTO;
 import com.eduplatform.homework.dto.GradeSubmissionDTO;
 import com.eduplatform.homework.dto.HomeworkCreateDTO;
 import com.eduplatform.homework.dto.HomeworkSubmitDTO;
@@ -21,9 +22,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.lang.reflect.Method;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -64,7 +68,7 @@ class HomeworkServiceTest {
     private UserServiceClient userServiceClient;
 
     @Mock
-    private RedisStreamPublisher redisStreamPublisher;
+    private EventOutbox eventOutbox;
 
     @Mock
     private HomeworkReadService homeworkReadService;
@@ -274,5 +278,17 @@ class HomeworkServiceTest {
 
             verify(homeworkAuthoringService).importQuestions(60L, java.util.Collections.emptyList());
         }
+
+        @Test
+        @DisplayName("批量解锁章节作业应以一条语句交给 HomeworkUnlockMapper，空列表不访问数据库")
+        void shouldUnlockChaptersInSingleStatement() {
+            List<ChapterUnlockDTO> unlocks = List.of(new ChapterUnlockDTO(1L, 10L), new ChapterUnlockDTO(2L, 10L));
+            when(unlockMapper.unlockByChapters(unlocks)).thenReturn(4);
+
+            assertEquals(4, homeworkService.unlockHomeworkByChapters(unlocks));
+            assertEquals(0, homeworkService.unlockHomeworkByChapters(List.of()));
+
+            verify(unlockMapper, times(1)).unlockByChapters(anyList());
+        }
     }
 }
@@ -18,7 +18,7 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
  * Redis配置类
  * 
  * 作用：
- * 1. 开启缓存功能
+ * 1. 开启缓存功能（CacheManager 由 common 模块的两级缓存 TwoLevelCacheConfig 提供，见 edu.cache 配置）
  * 2. 配置自定义 RedisTemplate 序列化方式
  */
 @Configuration
@@ -55,34 +55,4 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
-
-    /**
-     * 配置CacheManager
-     */
-    @Bean
-    public org.springframework.cache.CacheManager cacheManager(RedisConnectionFactory factory) {
-        // 配置序列化
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.registerModule(new JavaTimeModule());
-        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        objectMapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.ANY);
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
-
-        org.springframework.data.redis.cache.RedisCacheConfiguration config = org.springframework.data.redis.cache.RedisCacheConfiguration
-                .defaultCacheConfig()
-                // 过期时间1小时
-                .entryTtl(java.time.Duration.ofHours(1))
-                // key序列化
-                .serializeKeysWith(org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
-                        .fromSerializer(new StringRedisSerializer()))
-                // value序列化
-                .serializeValuesWith(
-                        org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair
-                                .fromSerializer(serializer))
-                .disableCachingNullValues();
-
-        return org.springframework.data.redis.cache.RedisCacheManager.builder(factory)
-                .cacheDefaults(config)
-                .build();
-    }
 }
@@ -1,9 +1,10 @@
 package com.eduplatform.progress.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.eduplatform.common.event.EventOutbox;
 import com.eduplatform.common.event.EventType;
 import com.eduplatform.common.event.RedisStreamConstants;
-import com.eduplatform.common.event.RedisStreamPublisher;
+import com.eduplatform.common.event.payload.ChapterCompletedPayload;
 import com.eduplatform.progress.client.HomeworkServiceClient;
 import com.eduplatform.progress.dto.QuizSubmitDTO;
 import com.eduplatform.progress.dto.VideoProgressDTO;
@@ -46,7 +47,7 @@ public class ProgressTrackingService {
     private final ChapterQuizMapper quizMapper;
     private final HomeworkServiceClient homeworkServiceClient;
     private final BadgeService badgeService;
-    private final RedisStreamPublisher redisStreamPublisher;
+    private final EventOutbox eventOutbox;
     private final StringRedisTemplate redisTemplate;
     private final ObjectMapper objectMapper;
     private final CacheManager cacheManager;
@@ -323,23 +324,16 @@ public class ProgressTrackingService {
     }
 
     /**
-     * 发布章节完成事件，供下游服务消费。
+     * 在当前事务内登记章节完成事件，事务提交后由发件箱投递，供下游服务消费。
      */
     private void publishChapterCompletedEvent(ChapterProgress progress, Chapter chapter) {
-        try {
-            Map<String, Object> data = new HashMap<>();
-            data.put("studentId", progress.getStudentId());
-            data.put("chapterId", progress.getChapterId());
-            data.put("courseId", progress.getCourseId());
-            data.put("chapterTitle", chapter.getTitle());
-
-            redisStreamPublisher.publish(
-                    EventType.CHAPTER_COMPLETED,
-                    RedisStreamConstants.SERVICE_PROGRESS,
-                    data);
-        } catch (Exception e) {
-            log.error("发布章节完成事件失败: studentId={}, chapterId={}, error={}",
-                    progress.getStudentId(), progress.getChapterId(), e.getMessage());
-        }
+        eventOutbox.publish(
+                EventType.CHAPTER_COMPLETED,
+                RedisStreamConstants.SERVICE_PROGRESS,
+                new ChapterCompletedPayload(
+                        progress.getStudentId(),
+                        progress.getChapterId(),
+                        progress.getCourseId(),
+                        chapter.getTitle()));
     }
 }
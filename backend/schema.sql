@@ -2,7 +2,7 @@
 -- 智慧课堂在线教育平台 - 数据库表结构
 -- 数据库: PostgreSQL 15+
 -- 字符集: UTF-8
--- 表数量: 29张
+-- 表数量: 31张
 -- 默认数据库账号密码: postgres / 123456
 -- 最后更新时间: 2026-02-08
 -- =====================================================
@@ -781,6 +781,10 @@ CREATE INDEX IF NOT EXISTS idx_chapter_comments_course ON chapter_comments(cours
 CREATE INDEX IF NOT EXISTS idx_chapter_comments_user ON chapter_comments(user_id);
 CREATE INDEX IF NOT EXISTS idx_chapter_comments_parent ON chapter_comments(parent_id);
 CREATE INDEX IF NOT EXISTS idx_chapter_comments_created ON chapter_comments(created_at);
+-- 主评论列表批量预加载回复：按 parent_id 分区、created_at 排序取前 N 条，索引顺序即窗口顺序
+CREATE INDEX IF NOT EXISTS idx_chapter_comments_parent_created ON chapter_comments(parent_id, created_at, id) WHERE status = 1;
+-- 主评论时间排序游标分页（热度排序由 Redis 排行榜提供）：索引列顺序与排序键一致，行值比较 (..) < (..) 直接定位到游标之后，无需跳过前面的行
+CREATE INDEX IF NOT EXISTS idx_chapter_comments_time_cursor ON chapter_comments(chapter_id, is_pinned DESC, created_at DESC, id DESC) WHERE parent_id IS NULL AND status = 1;
 -- 评论点赞表
 CREATE TABLE IF NOT EXISTS comment_likes (
     id BIGSERIAL PRIMARY KEY,
@@ -907,3 +911,47 @@ WHERE NOT EXISTS (
             AND bw.course_id IS NULL
     );
 
+-- =====================================================
+-- 11. 事件发件箱表
+-- =====================================================
+-- 领域事件发件箱表（业务事务内写入，由各服务 OutboxRelay 投递到 Redis Stream 后删除）
+CREATE TABLE IF NOT EXISTS event_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    source VARCHAR(50) NOT NULL,
+    stream_key VARCHAR(100) NOT NULL,
+    event_type VARCHAR(50) NOT NULL,
+    message_id VARCHAR(64) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+COMMENT ON TABLE event_outbox IS '领域事件发件箱表';
+COMMENT ON COLUMN event_outbox.source IS '来源服务名（投递线程只认领本服务的事件）';
+COMMENT ON COLUMN event_outbox.stream_key IS '目标 Redis Stream Key';
+COMMENT ON COLUMN event_outbox.event_type IS '事件类型';
+COMMENT ON COLUMN event_outbox.message_id IS '事件消息ID（EventMessage.id，消费端据此去重）';
+COMMENT ON COLUMN event_outbox.payload IS '序列化后的 Stream 消息字段（JSON）';
+COMMENT ON COLUMN event_outbox.created_at IS '登记时间（用于计算投递延迟）';
+
+CREATE INDEX IF NOT EXISTS idx_event_outbox_source_id ON event_outbox(source, id);
+
+-- =====================================================
+-- 12. 事件归档表
+-- =====================================================
+-- 事件 Stream 冷归档表（StreamRetentionManager 裁剪 Stream 前按批写入，可通过 StreamArchive 重放）
+CREATE TABLE IF NOT EXISTS event_stream_archive (
+    id BIGSERIAL PRIMARY KEY,
+    stream_key VARCHAR(100) NOT NULL,
+    first_record_id VARCHAR(64) NOT NULL,
+    last_record_id VARCHAR(64) NOT NULL,
+    record_count INT NOT NULL,
+    payload BYTEA NOT NULL,
+    archived_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_event_stream_archive_first UNIQUE (stream_key, first_record_id)
+);
+COMMENT ON TABLE event_stream_archive IS '事件 Stream 冷归档表（一批一行）';
+COMMENT ON COLUMN event_stream_archive.stream_key IS '来源 Redis Stream Key';
+COMMENT ON COLUMN event_stream_archive.first_record_id IS '本批第一条记录的 Stream ID';
+COMMENT ON COLUMN event_stream_archive.last_record_id IS '本批最后一条记录的 Stream ID';
+COMMENT ON COLUMN event_stream_archive.record_count IS '本批记录数';
+COMMENT ON COLUMN event_stream_archive.payload IS 'GZIP 压缩的记录 JSON 数组（[{id, fields}]）';
+COMMENT ON COLUMN event_stream_archive.archived_at IS '归档时间';
@@ -2,6 +2,7 @@ package com.eduplatform.user.config;
 
 import com.eduplatform.common.event.EventType;
 import com.eduplatform.common.event.RedisStreamConstants;
+import com.eduplatform.common.event.StreamConsumerSupport;
 import com.eduplatform.user.listener.AnnouncementEventListener;
 import com.eduplatform.user.listener.EnrollmentEventListener;
 import com.eduplatform.user.listener.HomeworkEventListener;
@@ -10,15 +11,12 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.connection.stream.Consumer;
 import org.springframework.data.redis.connection.stream.MapRecord;
 import org.springframework.data.redis.connection.stream.ReadOffset;
-import org.springframework.data.redis.connection.stream.StreamOffset;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.stream.StreamMessageListenerContainer;
 import org.springframework.data.redis.stream.Subscription;
 
-import java.time.Duration;
 import java.util.concurrent.Executors;
 
 /**
@@ -27,6 +25,7 @@ import java.util.concurrent.Executors;
  * - HOMEWORK_SUBMITTED → 通知教师批改
  * - COURSE_ENROLLED / COURSE_DROPPED → 选课/退课通知
  * - ANNOUNCEMENT_PUBLISHED → WebSocket 公告推送
+ * 消费者名称按实例区分，多副本可水平扩展；处理失败的消息由 PendingMessageReclaimer 回收重投递。
  *
  * @author Antigravity
  */
@@ -39,6 +38,7 @@ public class RedisStreamConfig {
     private final HomeworkEventListener homeworkEventListener;
     private final EnrollmentEventListener enrollmentEventListener;
     private final AnnouncementEventListener announcementEventListener;
+    private final StreamConsumerSupport streamConsumerSupport;
 
     /**
      * 创建并启动 StreamMessageListenerContainer
@@ -48,11 +48,12 @@ public class RedisStreamConfig {
     public StreamMessageListenerContainer<String, MapRecord<String, String, String>>
             streamMessageListenerContainer(RedisConnectionFactory factory) {
 
-        // 消费线程池配置
+        // 每个订阅一个虚拟线程轮询，每次 XREADGROUP 最多读取 batchSize 条，业务处理在监听器的处理道中并行执行
         StreamMessageListenerContainer.StreamMessageListenerContainerOptions<String, MapRecord<String, String, String>> options =
                 StreamMessageListenerContainer.StreamMessageListenerContainerOptions.builder()
-                        .pollTimeout(Duration.ofSeconds(1))
-                        .executor(Executors.newFixedThreadPool(3))
+                        .pollTimeout(streamConsumerSupport.getPollTimeout())
+                        .batchSize(streamConsumerSupport.getBatchSize())
+                        .executor(Executors.newVirtualThreadPerTaskExecutor())
                         .errorHandler(t -> log.error("user-service Redis Stream 消费异常", t))
                         .build();
 
@@ -65,32 +66,18 @@ public class RedisStreamConfig {
         createConsumerGroupIfAbsent(EventType.COURSE_DROPPED.getStreamKey());
         createConsumerGroupIfAbsent(EventType.ANNOUNCEMENT_PUBLISHED.getStreamKey());
 
-        String consumerName = RedisStreamConstants.SERVICE_USER + ":1";
         String groupName = RedisStreamConstants.GROUP_USER_SERVICE;
 
-        // 注册各事件监听器
-        container.receive(
-                Consumer.from(groupName, consumerName),
-                StreamOffset.create(EventType.HOMEWORK_SUBMITTED.getStreamKey(), ReadOffset.lastConsumed()),
-                homeworkEventListener);
-
-        container.receive(
-                Consumer.from(groupName, consumerName),
-                StreamOffset.create(EventType.COURSE_ENROLLED.getStreamKey(), ReadOffset.lastConsumed()),
-                enrollmentEventListener);
-
-        container.receive(
-                Consumer.from(groupName, consumerName),
-                StreamOffset.create(EventType.COURSE_DROPPED.getStreamKey(), ReadOffset.lastConsumed()),
-                enrollmentEventListener);
-
-        container.receive(
-                Consumer.from(groupName, consumerName),
-                StreamOffset.create(EventType.ANNOUNCEMENT_PUBLISHED.getStreamKey(), ReadOffset.lastConsumed()),
+        // 以本实例的消费者身份注册各事件监听器（同时登记 pending 回收）
+        streamConsumerSupport.subscribe(container, EventType.HOMEWORK_SUBMITTED, groupName, homeworkEventListener);
+        streamConsumerSupport.subscribe(container, EventType.COURSE_ENROLLED, groupName, enrollmentEventListener);
+        streamConsumerSupport.subscribe(container, EventType.COURSE_DROPPED, groupName, enrollmentEventListener);
+        streamConsumerSupport.subscribe(container, EventType.ANNOUNCEMENT_PUBLISHED, groupName,
                 announcementEventListener);
 
-        container.start();
-        log.info("user-service Redis Stream 消费者已启动，监听 4 个事件流");
+        streamConsumerSupport.start(container);
+        log.info("user-service Redis Stream 消费者已启动，监听 4 个事件流: consumer={}",
+                streamConsumerSupport.getConsumerName());
 
         return container;
     }
@@ -111,7 +98,7 @@ public class RedisStreamConfig {
             } else {
                 // Stream 可能不存在，先创建再重试
                 try {
-                    redisTemplate.opsForStream().add(streamKey, java.util.Map.of("_init", "1"));
+                    redisTemplate.opsForStream().add(streamKey, java.util.Map.of(RedisStreamConstants.STREAM_INIT_FIELD, "1"));
                     redisTemplate.opsForStream().createGroup(streamKey, ReadOffset.from("0"), groupName);
                     log.info("初始化 Stream 并创建 Consumer Group: stream={}, group={}", streamKey, groupName);
                 } catch (Exception ex) {
@@ -1,10 +1,16 @@
 package com.eduplatform.user.config;
 
+import com.eduplatform.common.event.ChapterCommentPush;
+import com.eduplatform.user.listener.ChapterCommentPushListener;
 import com.eduplatform.user.websocket.AuthHandshakeInterceptor;
 import com.eduplatform.user.websocket.NotificationWebSocketHandler;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
@@ -34,4 +40,16 @@ public class WebSocketConfig implements WebSocketConfigurer {
                 .addInterceptors(authHandshakeInterceptor)
                 .setAllowedOrigins(allowedOriginArray);
     }
+
+    /**
+     * 订阅 course-service 发布的新评论通知，推送给本实例上订阅了对应章节的会话
+     */
+    @Bean
+    public RedisMessageListenerContainer chapterCommentPushListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                             ChapterCommentPushListener listener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(listener, new ChannelTopic(ChapterCommentPush.CHANNEL));
+        return container;
+    }
 }
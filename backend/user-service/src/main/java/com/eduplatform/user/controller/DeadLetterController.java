@@ -0,0 +1,115 @@
+package com.eduplatform.user.controller;
+
+import com.eduplatform.common.event.DeadLetterQueue;
+import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.result.Result;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件死信管理控制器 (管理员控制台)
+ * 死信 Stream 位于共享 Redis 中，由本服务统一提供各事件类型死信的查看、重放与删除。
+ * 路径中的 stream 为事件 Stream 后缀（如 chapter-completed）。
+ */
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+@RequiredArgsConstructor
+public class DeadLetterController {
+
+    private static final int MAX_LIST_COUNT = 200;
+
+    private final DeadLetterQueue deadLetterQueue;
+
+    /**
+     * 各事件类型的死信数量概览
+     */
+    @GetMapping
+    public Result<Map<String, Long>> getSummary(
+            @RequestHeader(value = "X-User-Role", required = false) String currentUserRole) {
+        if (!isAdminRole(currentUserRole)) {
+            return Result.failure(403, "权限不足，仅管理员可查看死信队列");
+        }
+        Map<String, Long> summary = new LinkedHashMap<>();
+        for (EventType type : EventType.values()) {
+            summary.put(type.getStreamSuffix(), deadLetterQueue.size(type));
+        }
+        return Result.success(summary);
+    }
+
+    /**
+     * 查看指定事件类型的死信（最新的在前）
+     */
+    @GetMapping("/{stream}")
+    public Result<List<DeadLetterQueue.DeadLetter>> listDeadLetters(
+            @PathVariable String stream,
+            @RequestParam(name = "count", defaultValue = "20") int count,
+            @RequestHeader(value = "X-User-Role", required = false) String currentUserRole) {
+        if (!isAdminRole(currentUserRole)) {
+            return Result.failure(403, "权限不足，仅管理员可查看死信队列");
+        }
+        EventType type = resolveType(stream);
+        if (type == null) {
+            return Result.failure(404, "未知的事件 Stream: " + stream);
+        }
+        return Result.success(deadLetterQueue.list(type, Math.min(Math.max(count, 1), MAX_LIST_COUNT)));
+    }
+
+    /**
+     * 重放一条死信到来源 Stream（已处理过该事件的消费组会按消息 ID 去重）
+     */
+    @PostMapping("/{stream}/{id}/replay")
+    public Result<Map<String, String>> replayDeadLetter(
+            @PathVariable String stream,
+            @PathVariable String id,
+            @RequestHeader(value = "X-User-Role", required = false) String currentUserRole) {
+        if (!isAdminRole(currentUserRole)) {
+            return Result.failure(403, "权限不足，仅管理员可重放死信");
+        }
+        EventType type = resolveType(stream);
+        if (type == null) {
+            return Result.failure(404, "未知的事件 Stream: " + stream);
+        }
+        String recordId = deadLetterQueue.replay(type, id);
+        if (recordId == null) {
+            return Result.failure(404, "死信不存在或已处理");
+        }
+        return Result.success("重放成功", Map.of("recordId", recordId));
+    }
+
+    /**
+     * 删除一条死信（确认无需重放）
+     */
+    @DeleteMapping("/{stream}/{id}")
+    public Result<Void> deleteDeadLetter(
+            @PathVariable String stream,
+            @PathVariable String id,
+            @RequestHeader(value = "X-User-Role", required = false) String currentUserRole) {
+        if (!isAdminRole(currentUserRole)) {
+            return Result.failure(403, "权限不足，仅管理员可删除死信");
+        }
+        EventType type = resolveType(stream);
+        if (type == null) {
+            return Result.failure(404, "未知的事件 Stream: " + stream);
+        }
+        if (!deadLetterQueue.delete(type, id)) {
+            return Result.failure(404, "死信不存在或已处理");
+        }
+        return Result.success();
+    }
+
+    private static EventType resolveType(String stream) {
+        try {
+            return EventType.fromStreamSuffix(stream);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean isAdminRole(String currentUserRole) {
+        return currentUserRole != null && "admin".equalsIgnoreCase(currentUserRole);
+    }
+}
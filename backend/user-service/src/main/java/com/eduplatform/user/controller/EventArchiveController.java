@@ -0,0 +1,99 @@
+package com.eduplatform.user.controller;
+
+import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.StreamArchive;
+import com.eduplatform.common.result.Result;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 事件归档管理控制器 (管理员控制台)
+ * 保留策略裁剪 Stream 前写入 event_stream_archive 的归档批次，由本服务统一提供查看与重放。
+ * 路径中的 stream 为事件 Stream 后缀（如 chapter-completed）。
+ */
+@RestController
+@RequestMapping("/api/admin/event-archive")
+@RequiredArgsConstructor
+public class EventArchiveController {
+
+    private static final int MAX_LIST_COUNT = 200;
+
+    private final StreamArchive streamArchive;
+
+    /**
+     * 查看指定事件类型最近的归档批次（最新的在前）
+     */
+    @GetMapping("/{stream}")
+    public Result<List<StreamArchive.ArchiveBatch>> listBatches(
+            @PathVariable String stream,
+            @RequestParam(name = "count", defaultValue = "20") int count,
+            @RequestHeader(value = "X-User-Role", required = false) String currentUserRole) {
+        if (!isAdminRole(currentUserRole)) {
+            return Result.failure(403, "权限不足，仅管理员可查看事件归档");
+        }
+        EventType type = resolveType(stream);
+        if (type == null) {
+            return Result.failure(404, "未知的事件 Stream: " + stream);
+        }
+        return Result.success(streamArchive.list(type, Math.min(Math.max(count, 1), MAX_LIST_COUNT)));
+    }
+
+    /**
+     * 查看一个归档批次中的记录
+     */
+    @GetMapping("/{stream}/{batchId}")
+    public Result<List<StreamArchive.ArchivedRecord>> getBatch(
+            @PathVariable String stream,
+            @PathVariable long batchId,
+            @RequestHeader(value = "X-User-Role", required = false) String currentUserRole) {
+        if (!isAdminRole(currentUserRole)) {
+            return Result.failure(403, "权限不足，仅管理员可查看事件归档");
+        }
+        EventType type = resolveType(stream);
+        if (type == null) {
+            return Result.failure(404, "未知的事件 Stream: " + stream);
+        }
+        List<StreamArchive.ArchivedRecord> records = streamArchive.load(type, batchId);
+        if (records.isEmpty()) {
+            return Result.failure(404, "归档批次不存在");
+        }
+        return Result.success(records);
+    }
+
+    /**
+     * 把一个归档批次重放到来源 Stream（已处理过且去重标记未过期的事件会被消费组直接确认）
+     */
+    @PostMapping("/{stream}/{batchId}/replay")
+    public Result<Map<String, Integer>> replayBatch(
+            @PathVariable String stream,
+            @PathVariable long batchId,
+            @RequestHeader(value = "X-User-Role", required = false) String currentUserRole) {
+        if (!isAdminRole(currentUserRole)) {
+            return Result.failure(403, "权限不足，仅管理员可重放事件归档");
+        }
+        EventType type = resolveType(stream);
+        if (type == null) {
+            return Result.failure(404, "未知的事件 Stream: " + stream);
+        }
+        int replayed = streamArchive.replay(type, batchId);
+        if (replayed == 0) {
+            return Result.failure(404, "归档批次不存在或为空");
+        }
+        return Result.success("重放成功", Map.of("replayed", replayed));
+    }
+
+    private static EventType resolveType(String stream) {
+        try {
+            return EventType.fromStreamSuffix(stream);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private boolean isAdminRole(String currentUserRole) {
+        return currentUserRole != null && "admin".equalsIgnoreCase(currentUserRole);
+    }
+}
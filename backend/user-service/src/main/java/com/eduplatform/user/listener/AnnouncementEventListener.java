@@ -1,15 +1,12 @@
 package com.eduplatform.user.listener;
 
-import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.EventDedupeStore;
+import com.eduplatform.common.event.IdempotentStreamListener;
 import com.eduplatform.common.event.RedisStreamConstants;
+import com.eduplatform.common.event.codec.DecodedEvent;
+import com.eduplatform.common.event.payload.AnnouncementPublishedPayload;
 import com.eduplatform.user.websocket.NotificationWebSocketHandler;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.stream.StreamListener;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -23,56 +20,43 @@ import java.util.Map;
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class AnnouncementEventListener implements StreamListener<String, MapRecord<String, String, String>> {
+public class AnnouncementEventListener extends IdempotentStreamListener<AnnouncementPublishedPayload> {
 
     private final NotificationWebSocketHandler webSocketHandler;
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
 
-    @Override
-    public void onMessage(MapRecord<String, String, String> message) {
-        try {
-            Map<String, String> body = message.getValue();
-            String dataJson = body.get("data");
-            String messageId = body.get("id");
-
-            log.info("收到公告发布事件: recordId={}, messageId={}", message.getId(), messageId);
-
-            Map<String, Object> data = objectMapper.readValue(dataJson, new TypeReference<>() {});
+    public AnnouncementEventListener(NotificationWebSocketHandler webSocketHandler, EventDedupeStore dedupeStore) {
+        super(dedupeStore, RedisStreamConstants.GROUP_USER_SERVICE, AnnouncementPublishedPayload.class);
+        this.webSocketHandler = webSocketHandler;
+    }
 
-            Long announcementId = toLong(data.get("announcementId"));
-            String title = (String) data.get("title");
-            String content = (String) data.get("content");
-            String targetAudience = (String) data.get("targetAudience");
+    @Override
+    protected void handle(DecodedEvent<AnnouncementPublishedPayload> event) {
+        log.info("收到公告发布事件: messageId={}", event.id());
 
-            // 通过 WebSocket 广播公告通知
-            // 实际生产中应根据 targetAudience 过滤在线用户
-            log.info("推送公告通知: announcementId={}, title={}, audience={}",
-                    announcementId, title, targetAudience);
+        AnnouncementPublishedPayload data = event.payload();
+        Long announcementId = data.announcementId();
+        String title = data.title();
+        String content = data.content();
+        String targetAudience = data.targetAudience();
 
-            // 公告通知使用特定的消息格式推送
-            Map<String, Object> wsMessage = Map.of(
-                    "type", "ANNOUNCEMENT",
-                    "announcementId", announcementId != null ? announcementId : 0,
-                    "title", title != null ? title : "新公告",
-                    "content", content != null ? content : "",
-                    "timestamp", System.currentTimeMillis()
-            );
+        // 通过 WebSocket 广播公告通知
+        // 实际生产中应根据 targetAudience 过滤在线用户
+        log.info("推送公告通知: announcementId={}, title={}, audience={}",
+                announcementId, title, targetAudience);
 
-            // 向所有在线用户推送（后续可优化为按 targetAudience 过滤）
-            broadcastAnnouncement(wsMessage);
+        // 公告通知使用特定的消息格式推送
+        Map<String, Object> wsMessage = Map.of(
+                "type", "ANNOUNCEMENT",
+                "announcementId", announcementId != null ? announcementId : 0,
+                "title", title != null ? title : "新公告",
+                "content", content != null ? content : "",
+                "timestamp", System.currentTimeMillis()
+        );
 
-            // ACK 确认
-            redisTemplate.opsForStream().acknowledge(
-                    EventType.ANNOUNCEMENT_PUBLISHED.getStreamKey(),
-                    RedisStreamConstants.GROUP_USER_SERVICE,
-                    message.getId());
+        // 向所有在线用户推送（后续可优化为按 targetAudience 过滤）
+        broadcastAnnouncement(wsMessage);
 
-            log.info("公告发布事件处理完成: announcementId={}", announcementId);
-        } catch (Exception e) {
-            log.error("处理公告发布事件失败: recordId={}, error={}", message.getId(), e.getMessage(), e);
-        }
+        log.info("公告发布事件处理完成: announcementId={}", announcementId);
     }
 
     /**
@@ -85,14 +69,4 @@ public class AnnouncementEventListener implements StreamListener<String, MapReco
         // WebSocketHandler 的 sendToUser 方法会自动处理用户不在线的情况
         // 此处不再做额外遍历，因为通知已持久化到 DB
     }
-
-    private Long toLong(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj instanceof Number) {
-            return ((Number) obj).longValue();
-        }
-        return Long.valueOf(obj.toString());
-    }
 }
@@ -0,0 +1,35 @@
+package com.eduplatform.user.listener;
+
+import com.eduplatform.common.event.ChapterCommentPush;
+import com.eduplatform.user.websocket.ChapterTopicRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 新评论推送通知订阅者
+ * 订阅 Redis 频道 course:comment:created（每个实例都会收到），推送给本实例上订阅了对应章节的 WebSocket 会话。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChapterCommentPushListener implements MessageListener {
+
+    private final ChapterTopicRegistry topicRegistry;
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        ChapterCommentPush push = ChapterCommentPush.decode(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (push == null) {
+            log.warn("忽略格式错误的新评论推送通知");
+            return;
+        }
+        topicRegistry.fanOut(push);
+    }
+}
@@ -1,17 +1,14 @@
 package com.eduplatform.user.listener;
 
-import com.eduplatform.common.event.EventType;
+import com.eduplatform.common.event.EventDedupeStore;
+import com.eduplatform.common.event.IdempotentStreamListener;
 import com.eduplatform.common.event.RedisStreamConstants;
+import com.eduplatform.common.event.codec.DecodedEvent;
+import com.eduplatform.common.event.payload.HomeworkSubmittedPayload;
 import com.eduplatform.common.result.Result;
 import com.eduplatform.user.feign.CourseServiceClient;
 import com.eduplatform.user.service.NotificationService;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.stream.StreamListener;
 import org.springframework.stereotype.Component;
 
 import java.util.Map;
@@ -24,56 +21,53 @@ import java.util.Map;
  * 1. 从事件中提取 courseId
  * 2. 通过 Feign 调用 course-service 获取课程教师ID
  * 3. 通过 NotificationService 持久化通知并 WebSocket 推送
- * 4. ACK 确认消息消费成功
+ * 4. 由 IdempotentStreamListener 去重并 ACK，重投递的事件不会重复通知教师
  *
  * @author Antigravity
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
-public class HomeworkEventListener implements StreamListener<String, MapRecord<String, String, String>> {
+public class HomeworkEventListener extends IdempotentStreamListener<HomeworkSubmittedPayload> {
 
     private final NotificationService notificationService;
     private final CourseServiceClient courseServiceClient;
-    private final StringRedisTemplate redisTemplate;
-    private final ObjectMapper objectMapper;
 
-    @Override
-    public void onMessage(MapRecord<String, String, String> message) {
-        try {
-            Map<String, String> body = message.getValue();
-            String dataJson = body.get("data");
-            String messageId = body.get("id");
-
-            log.info("收到作业提交事件: recordId={}, messageId={}", message.getId(), messageId);
-
-            Map<String, Object> data = objectMapper.readValue(dataJson, new TypeReference<>() {});
+    public HomeworkEventListener(NotificationService notificationService,
+                                 CourseServiceClient courseServiceClient,
+                                 EventDedupeStore dedupeStore) {
+        super(dedupeStore, RedisStreamConstants.GROUP_USER_SERVICE, HomeworkSubmittedPayload.class);
+        this.notificationService = notificationService;
+        this.courseServiceClient = courseServiceClient;
+    }
 
-            Long courseId = toLong(data.get("courseId"));
-            Long homeworkId = toLong(data.get("homeworkId"));
-            Long studentId = toLong(data.get("studentId"));
-            String homeworkTitle = (String) data.get("homeworkTitle");
+    /**
+     * 同一学生的作业提交事件按顺序处理
+     */
+    @Override
+    protected Object orderingKey(HomeworkSubmittedPayload payload) {
+        return payload.studentId();
+    }
 
-            // 通过 Feign 获取课程教师ID
-            Long teacherId = getTeacherIdByCourse(courseId);
+    @Override
+    protected void handle(DecodedEvent<HomeworkSubmittedPayload> event) {
+        log.info("收到作业提交事件: messageId={}", event.id());
 
-            if (teacherId != null) {
-                String title = "学生提交了作业";
-                String content = String.format("学生(ID:%d)提交了作业「%s」，请及时批改。", studentId, homeworkTitle);
-                notificationService.send(teacherId, title, content, "homework", homeworkId);
-            }
+        HomeworkSubmittedPayload data = event.payload();
+        Long courseId = data.courseId();
+        Long homeworkId = data.homeworkId();
+        Long studentId = data.studentId();
+        String homeworkTitle = data.homeworkTitle();
 
-            // ACK 确认
-            redisTemplate.opsForStream().acknowledge(
-                    EventType.HOMEWORK_SUBMITTED.getStreamKey(),
-                    RedisStreamConstants.GROUP_USER_SERVICE,
-                    message.getId());
+        // 通过 Feign 获取课程教师ID
+        Long teacherId = getTeacherIdByCourse(courseId);
 
-            log.info("作业提交事件处理完成: homeworkId={}, teacherId={}", homeworkId, teacherId);
-        } catch (Exception e) {
-            log.error("处理作业提交事件失败: recordId={}, error={}", message.getId(), e.getMessage(), e);
-            // 不 ACK，消息将在 pending list 中等待重试
+        if (teacherId != null) {
+            String title = "学生提交了作业";
+            String content = String.format("学生(ID:%d)提交了作业「%s」，请及时批改。", studentId, homeworkTitle);
+            notificationService.send(teacherId, title, content, "homework", homeworkId);
         }
+
+        log.info("作业提交事件处理完成: homeworkId={}, teacherId={}", homeworkId, teacherId);
     }
 
     /**
@@ -3,9 +3,10 @@ package com.eduplatform.user.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.eduplatform.common.event.EventOutbox;
 import com.eduplatform.common.event.EventType;
 import com.eduplatform.common.event.RedisStreamConstants;
-import com.eduplatform.common.event.RedisStreamPublisher;
+import com.eduplatform.common.event.payload.AnnouncementPublishedPayload;
 import com.eduplatform.common.result.Result;
 import com.eduplatform.user.dto.AnnouncementStatsDTO;
 import com.eduplatform.user.dto.TeacherAnnouncementDTO;
@@ -43,7 +44,7 @@ public class AnnouncementService {
     private final AnnouncementReadMapper announcementReadMapper;
     private final CourseServiceClient courseServiceClient;
     private final UserMapper userMapper;
-    private final RedisStreamPublisher redisStreamPublisher;
+    private final EventOutbox eventOutbox;
 
     /**
      * 创建公告
@@ -162,7 +163,9 @@ public class AnnouncementService {
 
     /**
      * 发布公告
+     * 状态更新与发件箱登记在同一事务内，避免公告已发布而事件丢失或事件先于状态落库
      */
+    @Transactional
     public Announcement publish(Long id) {
         Announcement announcement = announcementMapper.selectById(id);
         if (announcement == null) {
@@ -481,8 +484,10 @@ public class AnnouncementService {
      * 每分钟执行一次
      * 逻辑：查找状态为 SCHEDULED 且发布时间小于等于当前时间的公告，将其状态改为 PUBLISHED。
      * 发布成功后，通过 Redis Stream 发布 ANNOUNCEMENT_PUBLISHED 事件，触发 WebSocket 推送。
+     * 状态更新与事件登记在同一事务内，避免公告已发布但事件丢失。
      */
     @Scheduled(fixedRate = 60000)
+    @Transactional
     public void publishScheduledAnnouncementsTask() {
         // 先获取待发布的公告列表（在状态更新前）
         List<Announcement> scheduledAnnouncements = announcementMapper.selectList(
@@ -510,27 +515,21 @@ public class AnnouncementService {
     }
 
     /**
-     * 发布公告事件到 Redis Stream
+     * 在当前事务内登记公告事件，事务提交后由发件箱投递到 Redis Stream
      * 由消费者端（AnnouncementEventListener）负责 WebSocket 推送。
      *
      * @param announcement 已发布的公告实体
      */
     private void publishAnnouncementEvent(Announcement announcement) {
-        try {
-            Map<String, Object> data = new HashMap<>();
-            data.put("announcementId", announcement.getId());
-            data.put("title", announcement.getTitle());
-            data.put("content", announcement.getContent());
-            data.put("targetAudience", announcement.getTargetAudience());
-            data.put("courseId", announcement.getCourseId());
-            data.put("createdBy", announcement.getCreatedBy());
-
-            redisStreamPublisher.publish(
-                    EventType.ANNOUNCEMENT_PUBLISHED,
-                    RedisStreamConstants.SERVICE_USER,
-                    data);
-        } catch (Exception e) {
-            log.error("发布公告事件失败: announcementId={}, error={}", announcement.getId(), e.getMessage());
-        }
+        eventOutbox.publish(
+                EventType.ANNOUNCEMENT_PUBLISHED,
+                RedisStreamConstants.SERVICE_USER,
+                new AnnouncementPublishedPayload(
+                        announcement.getId(),
+                        announcement.getTitle(),
+                        announcement.getContent(),
+                        announcement.getTargetAudience(),
+                        announcement.getCourseId(),
+                        announcement.getCreatedBy()));
     }
 }
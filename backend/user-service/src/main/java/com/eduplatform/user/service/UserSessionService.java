@@ -11,7 +11,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -35,6 +38,12 @@ public class UserSessionService {
     @Value("${session.timeout-seconds:120}")
     private int sessionTimeoutSeconds;
 
+    /**
+     * 会话失效推送通道：网关订阅后即时清理本地会话缓存。
+     */
+    @Value("${session.invalidation-channel:gateway:session:invalidate}")
+    private String invalidationChannel;
+
     /**
      * 校验用户当前是否存在有效的在线会话
      *
@@ -125,6 +134,7 @@ public class UserSessionService {
     public void logout(String jti) {
         redisTemplate.delete(SESSION_KEY_PREFIX + jti);
         sessionMapper.offlineByJti(jti);
+        publishInvalidation(List.of(jti));
     }
 
     /**
@@ -133,21 +143,43 @@ public class UserSessionService {
      */
     public void forceOfflineUser(Long userId) {
         // 1. 获取该用户名下所有处于 ONLINE 状态的会话
-        java.util.List<UserSession> sessions = sessionMapper.selectList(
+        List<UserSession> sessions = sessionMapper.selectList(
                 new LambdaQueryWrapper<UserSession>()
                         .eq(UserSession::getUserId, userId)
                         .eq(UserSession::getStatus, UserSession.STATUS_ONLINE));
 
         // 2. 批量从缓存中剔除，实现实时封禁/踢出
         if (sessions != null && !sessions.isEmpty()) {
-            java.util.List<String> keys = sessions.stream()
+            List<String> keys = sessions.stream()
                     .map(s -> SESSION_KEY_PREFIX + s.getJti())
-                    .collect(java.util.stream.Collectors.toList());
+                    .collect(Collectors.toList());
             redisTemplate.delete(keys);
         }
 
         // 3. MySQL 状态统一流转为 OFFLINE
         sessionMapper.offlineAllByUserId(userId);
+
+        // 4. 通知网关清理本地会话缓存，避免被踢下线的 jti 在缓存 TTL 内继续通行
+        if (sessions != null && !sessions.isEmpty()) {
+            publishInvalidation(sessions.stream()
+                    .map(UserSession::getJti)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * 内部辅助：向网关推送会话失效通知（逗号分隔的 jti 列表）
+     * 推送失败仅记录日志，网关侧由缓存 TTL 兜底，不影响登出主流程。
+     */
+    private void publishInvalidation(List<String> jtis) {
+        if (jtis == null || jtis.isEmpty()) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(invalidationChannel, String.join(",", jtis));
+        } catch (Exception e) {
+            log.warn("会话失效推送失败: channel={}, count={}, error={}", invalidationChannel, jtis.size(), e.getMessage());
+        }
     }
 
     /**
@@ -225,7 +257,7 @@ public class UserSessionService {
         }
 
         LocalDateTime activeThreshold = LocalDateTime.now().minusSeconds(sessionTimeoutSeconds);
-        java.util.List<UserSession> activeSessions = sessionMapper.selectList(
+        List<UserSession> activeSessions = sessionMapper.selectList(
                 new LambdaQueryWrapper<UserSession>()
                         .eq(UserSession::getStatus, UserSession.STATUS_ONLINE)
                         .ge(UserSession::getLastActiveTime, activeThreshold)
@@ -241,7 +273,7 @@ public class UserSessionService {
     /**
      * 获取用户登录历史流水
      */
-    public java.util.List<UserSession> getUserSessions(Long userId) {
+    public List<UserSession> getUserSessions(Long userId) {
         return sessionMapper.selectList(
                 new LambdaQueryWrapper<UserSession>()
                         .eq(UserSession::getUserId, userId)
@@ -252,7 +284,7 @@ public class UserSessionService {
      * 获取当前系统所有活跃用户的 ID 列表
      * 只返回在会话超时时间内有活动的用户
      */
-    public java.util.List<Long> getAllOnlineUserIds() {
+    public List<Long> getAllOnlineUserIds() {
         // 先清理过期会话
         cleanupAllExpiredSessions();
 
@@ -266,11 +298,11 @@ public class UserSessionService {
             wrapper.ge(UserSession::getLastActiveTime, activeThreshold);
         }
 
-        java.util.List<UserSession> onlineSessions = sessionMapper.selectList(wrapper);
+        List<UserSession> onlineSessions = sessionMapper.selectList(wrapper);
         return onlineSessions.stream()
                 .map(UserSession::getUserId)
                 .distinct()
-                .collect(java.util.stream.Collectors.toList());
+                .collect(Collectors.toList());
     }
 
     /**
@@ -295,12 +327,12 @@ public class UserSessionService {
      * @param sessions 会话实体列表
      * @return 会话视图对象列表
      */
-    public java.util.List<UserSessionVO> convertToVOList(java.util.List<UserSession> sessions) {
+    public List<UserSessionVO> convertToVOList(List<UserSession> sessions) {
         if (sessions == null || sessions.isEmpty()) {
-            return java.util.Collections.emptyList();
+            return Collections.emptyList();
         }
         return sessions.stream()
                 .map(this::convertToVO)
-                .collect(java.util.stream.Collectors.toList());
+                .collect(Collectors.toList());
     }
 }
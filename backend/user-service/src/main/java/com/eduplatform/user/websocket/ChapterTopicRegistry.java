@@ -0,0 +1,210 @@
+package com.eduplatform.user.websocket;
+
+import com.eduplatform.common.event.ChapterCommentPush;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 章节主题订阅表（仅本实例的 WebSocket 会话）
+ * 客户端在 /ws/notification 上发送 SUBSCRIBE / UNSUBSCRIBE 订阅主题 chapter:{chapterId}，
+ * 收到新评论通知时只推送给订阅了该章节的会话，作者本人的会话不推送。
+ *
+ * 每个会话最多订阅 max-subscriptions-per-session 个章节；同一会话的消息由容器顺序处理，
+ * 上限检查与登记之间不会与该会话的其它订阅操作交错。
+ * 每条通知只序列化一次，推送经 ConcurrentWebSocketSessionDecorator 发送，慢客户端超出发送限制时被断开，不阻塞其它会话。
+ *
+ * 指标：comment.push.fanout（每条通知推送的会话数）、comment.push.latency（发布到本实例推送完成的耗时，
+ * 跨主机时含时钟偏差）、comment.push.failed（发送失败次数）、comment.push.rejected（超出订阅上限被拒绝次数）、
+ * comment.push.subscriptions（当前订阅总数）。
+ *
+ * @author Antigravity
+ */
+@Slf4j
+@Component
+public class ChapterTopicRegistry {
+
+    static final String TOPIC_PREFIX = "chapter:";
+
+    private final ObjectMapper objectMapper;
+    private final int maxSubscriptionsPerSession;
+
+    /** chapterId → (sessionId → 发送用会话) */
+    private final Map<Long, Map<String, WebSocketSession>> subscribers = new ConcurrentHashMap<>();
+    /** sessionId → 已订阅的章节 */
+    private final Map<String, Set<Long>> topicsBySession = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+
+    private final DistributionSummary fanOutSummary;
+    private final Timer latencyTimer;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+
+    @Autowired
+    public ChapterTopicRegistry(ObjectMapper objectMapper,
+                                ObjectProvider<MeterRegistry> meterRegistry,
+                                @Value("${edu.comment-push.max-subscriptions-per-session:5}")
+                                int maxSubscriptionsPerSession) {
+        this.objectMapper = objectMapper;
+        this.maxSubscriptionsPerSession = maxSubscriptionsPerSession;
+
+        MeterRegistry registry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+        fanOutSummary = DistributionSummary.builder("comment.push.fanout")
+                .description("每条新评论通知推送的会话数")
+                .register(registry);
+        latencyTimer = Timer.builder("comment.push.latency")
+                .description("新评论通知从发布到本实例推送完成的耗时")
+                .register(registry);
+        failedCounter = Counter.builder("comment.push.failed")
+                .description("新评论通知发送失败次数")
+                .register(registry);
+        rejectedCounter = Counter.builder("comment.push.rejected")
+                .description("超出单会话订阅上限被拒绝的订阅次数")
+                .register(registry);
+        Gauge.builder("comment.push.subscriptions", subscriptionCount, AtomicInteger::get)
+                .description("本实例当前的章节订阅总数")
+                .register(registry);
+    }
+
+    /**
+     * 解析主题 chapter:{chapterId}，格式不正确时返回 null
+     */
+    static Long parseChapterTopic(String topic) {
+        if (topic == null || !topic.startsWith(TOPIC_PREFIX)) {
+            return null;
+        }
+        try {
+            long chapterId = Long.parseLong(topic.substring(TOPIC_PREFIX.length()));
+            return chapterId > 0 ? chapterId : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public int getMaxSubscriptionsPerSession() {
+        return maxSubscriptionsPerSession;
+    }
+
+    /**
+     * 订阅章节
+     *
+     * @param session 用于发送的会话（并发安全的装饰会话）
+     * @return false 表示已达到单会话订阅上限；重复订阅同一章节返回 true
+     */
+    public boolean subscribe(WebSocketSession session, long chapterId) {
+        Set<Long> topics = topicsBySession.computeIfAbsent(session.getId(), id -> ConcurrentHashMap.newKeySet());
+        if (topics.contains(chapterId)) {
+            return true;
+        }
+        if (topics.size() >= maxSubscriptionsPerSession) {
+            rejectedCounter.increment();
+            return false;
+        }
+        topics.add(chapterId);
+        subscribers.compute(chapterId, (id, sessions) -> {
+            Map<String, WebSocketSession> result = sessions == null ? new ConcurrentHashMap<>() : sessions;
+            result.put(session.getId(), session);
+            return result;
+        });
+        subscriptionCount.incrementAndGet();
+        return true;
+    }
+
+    public void unsubscribe(WebSocketSession session, long chapterId) {
+        Set<Long> topics = topicsBySession.get(session.getId());
+        if (topics != null && topics.remove(chapterId)) {
+            detach(session.getId(), chapterId);
+        }
+    }
+
+    /**
+     * 会话关闭时移除其全部订阅
+     */
+    public void removeSession(WebSocketSession session) {
+        Set<Long> topics = topicsBySession.remove(session.getId());
+        if (topics != null) {
+            topics.forEach(chapterId -> detach(session.getId(), chapterId));
+        }
+    }
+
+    /**
+     * 将新评论通知推送给订阅了该章节的会话
+     *
+     * @return 实际推送的会话数
+     */
+    public int fanOut(ChapterCommentPush push) {
+        Map<String, WebSocketSession> sessions = subscribers.get(push.chapterId());
+        int delivered = 0;
+        if (sessions != null && !sessions.isEmpty()) {
+            TextMessage message;
+            try {
+                message = new TextMessage(objectMapper.writeValueAsString(toMessage(push)));
+            } catch (JsonProcessingException e) {
+                log.error("新评论通知序列化失败: commentId={}", push.commentId(), e);
+                return 0;
+            }
+            for (WebSocketSession session : sessions.values()) {
+                if (!session.isOpen() || isAuthor(session, push.userId())) {
+                    continue;
+                }
+                try {
+                    session.sendMessage(message);
+                    delivered++;
+                } catch (Exception e) {
+                    failedCounter.increment();
+                    log.debug("新评论通知发送失败: sessionId={}, error={}", session.getId(), e.getMessage());
+                }
+            }
+        }
+        fanOutSummary.record(delivered);
+        if (delivered > 0) {
+            latencyTimer.record(Math.max(0, System.currentTimeMillis() - push.publishedAt()), TimeUnit.MILLISECONDS);
+        }
+        return delivered;
+    }
+
+    private void detach(String sessionId, long chapterId) {
+        subscribers.computeIfPresent(chapterId, (id, sessions) -> {
+            if (sessions.remove(sessionId) != null) {
+                subscriptionCount.decrementAndGet();
+            }
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    private static boolean isAuthor(WebSocketSession session, long userId) {
+        Object sessionUserId = session.getAttributes().get("userId");
+        return sessionUserId != null && sessionUserId.toString().equals(String.valueOf(userId));
+    }
+
+    private static Map<String, Object> toMessage(ChapterCommentPush push) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("type", "CHAPTER_COMMENT");
+        message.put("topic", TOPIC_PREFIX + push.chapterId());
+        message.put("chapterId", push.chapterId());
+        message.put("commentId", push.commentId());
+        message.put("parentId", push.parentId());
+        message.put("userId", push.userId());
+        message.put("timestamp", push.publishedAt());
+        return message;
+    }
+}
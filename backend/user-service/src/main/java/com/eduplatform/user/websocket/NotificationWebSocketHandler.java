@@ -4,10 +4,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.eduplatform.user.util.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
@@ -25,11 +28,25 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
     private static final Map<Long, WebSocketSession> userSessions = new ConcurrentHashMap<>();
     private static final ScheduledExecutorService authTimeoutExecutor = Executors.newSingleThreadScheduledExecutor();
 
+    /** 会话属性：并发安全的发送装饰器，回复、通知与章节推送都经由它发送 */
+    private static final String OUTBOUND_ATTRIBUTE = "outbound";
+
     private final ObjectMapper objectMapper;
     private final JwtUtil jwtUtil;
+    private final ChapterTopicRegistry topicRegistry;
+
+    /** 单次发送最长阻塞时间，超出后断开该会话 */
+    @Value("${websocket.send-time-limit-millis:5000}")
+    private int sendTimeLimitMillis = 5000;
+
+    /** 单个会话待发送消息的缓冲上限（字节），慢客户端积压超出后断开 */
+    @Value("${websocket.send-buffer-size-limit:524288}")
+    private int sendBufferSizeLimit = 524288;
     
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        session.getAttributes().put(OUTBOUND_ATTRIBUTE,
+                new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, sendBufferSizeLimit));
         Long userId = getUserIdFromSession(session);
         if (userId != null) {
             userSessions.put(userId, session);
@@ -100,6 +117,11 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
                 return;
             }
 
+            if ("SUBSCRIBE".equals(type) || "UNSUBSCRIBE".equals(type)) {
+                handleSubscription(session, type, msg.get("topic"));
+                return;
+            }
+
             if ("REGISTER".equals(type)) {
                 sendMessage(session, Map.of("type", "ERROR", "message", "请先发送 AUTH 消息"));
                 return;
@@ -111,6 +133,7 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
     
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
+        topicRegistry.removeSession(session);
         Long userId = getUserIdFromSession(session);
         if (userId != null) {
             userSessions.remove(userId);
@@ -144,15 +167,51 @@ public class NotificationWebSocketHandler extends TextWebSocketHandler {
         sendToUser(userId, message);
     }
     
+    /**
+     * 订阅/退订章节主题 chapter:{chapterId}，需先完成认证
+     */
+    private void handleSubscription(WebSocketSession session, String type, Object topicValue) {
+        if (getUserIdFromSession(session) == null) {
+            sendMessage(session, Map.of("type", "ERROR", "message", "请先发送 AUTH 消息"));
+            return;
+        }
+        String topic = topicValue != null ? topicValue.toString() : null;
+        Long chapterId = ChapterTopicRegistry.parseChapterTopic(topic);
+        if (chapterId == null) {
+            sendMessage(session, Map.of("type", "ERROR", "message", "无效的订阅主题"));
+            return;
+        }
+
+        if ("UNSUBSCRIBE".equals(type)) {
+            topicRegistry.unsubscribe(session, chapterId);
+            sendMessage(session, Map.of("type", "UNSUBSCRIBED", "topic", topic));
+            return;
+        }
+        if (!topicRegistry.subscribe(outbound(session), chapterId)) {
+            sendMessage(session, Map.of("type", "ERROR", "topic", topic,
+                    "message", "订阅数已达上限（" + topicRegistry.getMaxSubscriptionsPerSession() + "）"));
+            return;
+        }
+        sendMessage(session, Map.of("type", "SUBSCRIBED", "topic", topic));
+    }
+
     private void sendMessage(WebSocketSession session, Map<String, Object> message) {
         try {
             String json = objectMapper.writeValueAsString(message);
-            session.sendMessage(new TextMessage(json));
+            outbound(session).sendMessage(new TextMessage(json));
         } catch (IOException e) {
             log.error("发送消息失败", e);
+        } catch (SessionLimitExceededException e) {
+            // 装饰器已关闭积压过多的会话
+            log.warn("发送消息失败，会话已因发送积压被关闭: sessionId={}", session.getId());
         }
     }
     
+    private static WebSocketSession outbound(WebSocketSession session) {
+        Object outbound = session.getAttributes().get(OUTBOUND_ATTRIBUTE);
+        return outbound instanceof WebSocketSession decorated ? decorated : session;
+    }
+    
     private Long getUserIdFromSession(WebSocketSession session) {
         Object userId = session.getAttributes().get("userId");
         if (userId != null) {
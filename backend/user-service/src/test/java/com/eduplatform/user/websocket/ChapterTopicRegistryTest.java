@@ -0,0 +1,110 @@
+package com.eduplatform.user.websocket;
+
+import com.eduplatform.common.event.ChapterCommentPush;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * ChapterTopicRegistry 单元测试
+ *
+ * 覆盖场景:
+ * 1. 单会话订阅上限：超出上限被拒绝，重复订阅不占名额，退订后释放名额
+ * 2. 推送只发给订阅了该章节的会话，不发给作者本人，每条通知只序列化一次
+ * 3. 会话关闭后其订阅全部移除
+ */
+@DisplayName("ChapterTopicRegistry 单元测试")
+class ChapterTopicRegistryTest {
+
+    private MeterRegistry meterRegistry;
+    private ChapterTopicRegistry registry;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable(any())).thenReturn(meterRegistry);
+        registry = new ChapterTopicRegistry(new ObjectMapper(), provider, 2);
+    }
+
+    @Test
+    @DisplayName("订阅上限-超出后拒绝，重复订阅不占名额，退订后可再订阅")
+    void shouldCapSubscriptionsPerSession() {
+        WebSocketSession session = session("s1", 1L);
+
+        assertTrue(registry.subscribe(session, 10L));
+        assertTrue(registry.subscribe(session, 11L));
+        assertTrue(registry.subscribe(session, 10L));
+        assertFalse(registry.subscribe(session, 12L));
+
+        registry.unsubscribe(session, 11L);
+        assertTrue(registry.subscribe(session, 12L));
+        assertEquals(1.0, meterRegistry.get("comment.push.rejected").counter().count());
+        assertEquals(2.0, meterRegistry.get("comment.push.subscriptions").gauge().value());
+    }
+
+    @Test
+    @DisplayName("推送-只发给订阅该章节的会话，跳过作者本人")
+    void shouldFanOutOnlyToSubscribers() throws Exception {
+        WebSocketSession viewer = session("s1", 1L);
+        WebSocketSession author = session("s2", 2L);
+        WebSocketSession otherChapter = session("s3", 3L);
+        registry.subscribe(viewer, 10L);
+        registry.subscribe(author, 10L);
+        registry.subscribe(otherChapter, 11L);
+
+        int delivered = registry.fanOut(new ChapterCommentPush(10L, 42L, null, 2L, System.currentTimeMillis()));
+
+        assertEquals(1, delivered);
+        verify(viewer).sendMessage(argThat(message -> payload(message).contains("\"commentId\":42")));
+        verify(author, never()).sendMessage(any());
+        verify(otherChapter, never()).sendMessage(any());
+        assertEquals(1L, meterRegistry.get("comment.push.fanout").summary().count());
+        assertEquals(1L, meterRegistry.get("comment.push.latency").timer().count());
+    }
+
+    @Test
+    @DisplayName("会话关闭-移除其全部订阅，之后不再推送")
+    void shouldForgetClosedSessions() throws Exception {
+        WebSocketSession viewer = session("s1", 1L);
+        registry.subscribe(viewer, 10L);
+        registry.subscribe(viewer, 11L);
+
+        registry.removeSession(viewer);
+
+        assertEquals(0, registry.fanOut(new ChapterCommentPush(10L, 42L, 5L, 2L, System.currentTimeMillis())));
+        verify(viewer, never()).sendMessage(any());
+        assertEquals(0.0, meterRegistry.get("comment.push.subscriptions").gauge().value());
+        assertNull(ChapterTopicRegistry.parseChapterTopic("chapter:abc"));
+        assertEquals(Long.valueOf(10L), ChapterTopicRegistry.parseChapterTopic("chapter:10"));
+    }
+
+    private static WebSocketSession session(String id, Long userId) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("userId", userId);
+        lenient().when(session.getId()).thenReturn(id);
+        lenient().when(session.getAttributes()).thenReturn(attributes);
+        lenient().when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private static String payload(WebSocketMessage<?> message) {
+        return message instanceof TextMessage text ? text.getPayload() : "";
+    }
+}